@@ -58,4 +58,20 @@ public interface BillboardDao {
     void groupUserData(Connection connection, String lastfmId, int week_id);
 
     void cleanUserData(Connection connection, String lastfmId, int i);
+
+    /**
+     * Adds the scrobbles of the user for that week that are not counted yet to the running counters of the global
+     * boards and of the servers the user was in when the week was first counted.
+     */
+    void countUserScrobbles(Connection connection, String lastfmId, int weekId);
+
+    /**
+     * Takes everything counted for the user that week back out of the counters it was added to.
+     */
+    void uncountUserScrobbles(Connection connection, String lastfmId, int weekId);
+
+    /**
+     * Deletes the counters of the weeks before the given one, their boards are already built.
+     */
+    void deleteCountersBefore(Connection connection, int weekId);
 }
@@ -10,8 +10,13 @@ import java.sql.*;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.OptionalLong;
 
 public class BillboardDaoImpl implements BillboardDao {
+    // The counters of the global boards are kept under this guild
+    private static final long GLOBAL = 0;
+    private static final int BOARD_SIZE = 100;
+
     @Override
     public Week getCurrentWeekId(Connection connection) {
         @Language("MariaDB") String queryString = "" +
@@ -274,64 +279,12 @@ public class BillboardDaoImpl implements BillboardDao {
 
     @Override
     public void insertBillboardDataScrobbles(Connection con, int week_id, long guildId) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_scrobbles" +
-                        "                  (guild_id,week_id,artist_id,track_name,position,scrobble_count) SELECT  ? , ? , artist_id, track_name,rank() over w as 'cum',sum(scrobble_count) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        "join user b on a.lastfm_id = b.lastfm_id\n" +
-                        "join user_guild c on b.discord_id = c.discord_id \n" +
-                        "where guild_id = ?" +
-                        " and week_id = ?  \n" +
-                        "group by a.artist_id,a.track_name\n" +
-                        "window w as (order by sum(scrobble_count) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100 ");
-
-
-        try {
-            PreparedStatement preparedStatement = con.prepareStatement(mySql.toString());
-            preparedStatement.setLong(1, guildId);
-            preparedStatement.setInt(2, week_id);
-            preparedStatement.setLong(3, guildId);
-            preparedStatement.setInt(4, week_id);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new ChuuServiceException(e);
-        }
-
+        insertTop(con, "weekly_billboard_scrobbles", "billboard_track_counters", "artist_id,track_name", "scrobble_count", week_id, guildId);
     }
 
     @Override
     public void insertBillboardDataListeners(Connection con, int week_id, long guildId) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_listeners" +
-                        "                  (guild_id,week_id,artist_id,track_name,position,listeners) " + "SELECT ? , ? ,  artist_id, track_name,rank() over w as 'cum',count(*) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        "join user b on a.lastfm_id = b.lastfm_id\n" +
-                        "join user_guild c on b.discord_id = c.discord_id \n" +
-                        "where guild_id = ?" +
-                        " and week_id = ?  \n" +
-                        "group by a.artist_id,a.track_name\n" +
-                        "window w as (order by count(*) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100");
-
-
-        try {
-            PreparedStatement preparedStatement = con.prepareStatement(mySql.toString());
-            preparedStatement.setLong(1, guildId);
-            preparedStatement.setInt(2, week_id);
-            preparedStatement.setLong(3, guildId);
-            preparedStatement.setInt(4, week_id);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new ChuuServiceException(e);
-        }
-
+        insertTop(con, "weekly_billboard_listeners", "billboard_track_counters", "artist_id,track_name", "listeners", week_id, guildId);
     }
 
     @Override
@@ -461,124 +414,22 @@ public class BillboardDaoImpl implements BillboardDao {
 
     @Override
     public void insertBillboardDataScrobblesByArtist(Connection connection, int week_id, long guildId) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_artist_scrobbles" +
-                        "                  (guild_id,week_id,artist_id,position,scrobble_count) SELECT  ? , ? , artist_id,rank() over w as 'cum',sum(scrobble_count) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        "join user b on a.lastfm_id = b.lastfm_id\n" +
-                        "join user_guild c on b.discord_id = c.discord_id \n" +
-                        "where guild_id = ?" +
-                        " and week_id = ?  \n" +
-                        "group by a.artist_id\n" +
-                        "window w as (order by sum(scrobble_count) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100 ");
-
-
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
-            preparedStatement.setLong(1, guildId);
-            preparedStatement.setInt(2, week_id);
-            preparedStatement.setLong(3, guildId);
-            preparedStatement.setInt(4, week_id);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new ChuuServiceException(e);
-        }
-
+        insertTop(connection, "weekly_billboard_artist_scrobbles", "billboard_artist_counters", "artist_id", "scrobble_count", week_id, guildId);
     }
 
     @Override
     public void insertBillboardDataListenersByArtist(Connection connection, int week_id, long guildId) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_artist_listeners" +
-                        "                  (guild_id,week_id,artist_id,position,listeners) " + "SELECT ? , ? ,  artist_id,rank() over w as 'cum',count(distinct b.discord_id) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        "join user b on a.lastfm_id = b.lastfm_id\n" +
-                        "join user_guild c on b.discord_id = c.discord_id \n" +
-                        "where guild_id = ?" +
-                        " and week_id = ?  \n" +
-                        "group by a.artist_id\n" +
-                        "window w as (order by count(distinct b.discord_id) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100");
-
-
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
-            preparedStatement.setLong(1, guildId);
-            preparedStatement.setInt(2, week_id);
-            preparedStatement.setLong(3, guildId);
-            preparedStatement.setInt(4, week_id);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new ChuuServiceException(e);
-        }
+        insertTop(connection, "weekly_billboard_artist_listeners", "billboard_artist_counters", "artist_id", "listeners", week_id, guildId);
     }
 
     @Override
     public void insertBillboardDataListenersByAlbum(Connection connection, int week_id, long guildId) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_album_listeners" +
-                        "                  (guild_id,week_id,artist_id,album_name,position,listeners) " + "SELECT ? , ? ,  artist_id,album_name,rank() over w as 'cum',count(distinct b.discord_id) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        "join user b on a.lastfm_id = b.lastfm_id\n" +
-                        "join user_guild c on b.discord_id = c.discord_id \n" +
-                        "where guild_id = ?" +
-                        " and week_id = ? and a.album_name is not null  \n" +
-                        "group by a.artist_id,a.album_name\n" +
-                        "window w as (order by count(distinct b.discord_id) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100");
-
-
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
-            preparedStatement.setLong(1, guildId);
-            preparedStatement.setInt(2, week_id);
-            preparedStatement.setLong(3, guildId);
-            preparedStatement.setInt(4, week_id);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new ChuuServiceException(e);
-        }
-
+        insertTop(connection, "weekly_billboard_album_listeners", "billboard_album_counters", "artist_id,album_name", "listeners", week_id, guildId);
     }
 
     @Override
     public void insertBillboardDataScrobblesByAlbum(Connection connection, int week_id, long guildId) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_album_scrobbles" +
-                        "                  (guild_id,week_id,artist_id,album_name,position,scrobble_count) SELECT  ? , ? , artist_id,album_name,rank() over w as 'cum',sum(scrobble_count) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        "join user b on a.lastfm_id = b.lastfm_id\n" +
-                        "join user_guild c on b.discord_id = c.discord_id \n" +
-                        "where guild_id = ?" +
-                        " and week_id = ? and a.album_name is not null  \n" +
-                        "group by a.artist_id,a.album_name " +
-                        "window w as (order by sum(scrobble_count) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100 ");
-
-
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
-            preparedStatement.setLong(1, guildId);
-            preparedStatement.setInt(2, week_id);
-            preparedStatement.setLong(3, guildId);
-            preparedStatement.setInt(4, week_id);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new ChuuServiceException(e);
-        }
+        insertTop(connection, "weekly_billboard_album_scrobbles", "billboard_album_counters", "artist_id,album_name", "scrobble_count", week_id, guildId);
     }
 
     @Override
@@ -629,230 +480,262 @@ public class BillboardDaoImpl implements BillboardDao {
 
     @Override
     public void insertGlobalBillboardDataScrobblesByAlbum(Connection connection, int week_id) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_album_global_scrobbles" +
-                        "                  (week_id,artist_id,album_name,position,scrobble_count) SELECT   ? , artist_id,album_name,rank() over w as 'cum',sum(scrobble_count) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        " where week_id = ? and a.album_name is not null  \n" +
-                        "group by a.artist_id,a.album_name " +
-                        "window w as (order by sum(scrobble_count) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100 ");
-
-
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
-            preparedStatement.setLong(1, week_id);
-            preparedStatement.setInt(2, week_id);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new ChuuServiceException(e);
-        }
+        insertTop(connection, "weekly_billboard_album_global_scrobbles", "billboard_album_counters", "artist_id,album_name", "scrobble_count", week_id, GLOBAL);
     }
 
     @Override
     public void insertGlobalBillboardDataListenersByAlbum(Connection connection, int week_id) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_album_global_listeners" +
-                        "                  (week_id,artist_id,album_name,position,listeners) " + "SELECT ? ,  artist_id,album_name,rank() over w as 'cum',count(distinct a.lastfm_id)  as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        " where week_id = ? and a.album_name is not null  \n" +
-                        "group by a.artist_id,a.album_name\n" +
-                        "window w as (order by count(distinct a.lastfm_id) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100");
-
-
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
-            preparedStatement.setLong(1, week_id);
-            preparedStatement.setInt(2, week_id);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new ChuuServiceException(e);
-        }
+        insertTop(connection, "weekly_billboard_album_global_listeners", "billboard_album_counters", "artist_id,album_name", "listeners", week_id, GLOBAL);
     }
 
     @Override
     public void insertGlobalBillboardDataScrobblesByArtist(Connection connection, int week_id) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_artist_global_scrobbles" +
-                        "                  (week_id,artist_id,position,scrobble_count) SELECT   ? , artist_id,rank() over w as 'cum',sum(scrobble_count) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        " where week_id = ?  \n" +
-                        "group by a.artist_id\n" +
-                        "window w as (order by sum(scrobble_count) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100 ");
+        insertTop(connection, "weekly_billboard_artist_global_scrobbles", "billboard_artist_counters", "artist_id", "scrobble_count", week_id, GLOBAL);
+    }
 
+    @Override
+    public void insertGlobalBillboardDataListenersByArtist(Connection connection, int week_id) {
+        insertTop(connection, "weekly_billboard_artist_global_listeners", "billboard_artist_counters", "artist_id", "listeners", week_id, GLOBAL);
+    }
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
-            preparedStatement.setInt(1, week_id);
-            preparedStatement.setInt(2, week_id);
+    @Override
+    public void insertGlobalBillboardDataScrobbles(Connection connection, int week_id) {
+        insertTop(connection, "weekly_billboard_global_scrobbles", "billboard_track_counters", "artist_id,track_name", "scrobble_count", week_id, GLOBAL);
+    }
 
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new ChuuServiceException(e);
-        }
+    @Override
+    public void insertGlobalBillboardDataListeners(Connection connection, int week_id) {
+        insertTop(connection, "weekly_billboard_global_listeners", "billboard_track_counters", "artist_id,track_name", "listeners", week_id, GLOBAL);
     }
 
     @Override
-    public void insertGlobalBillboardDataListenersByArtist(Connection connection, int week_id) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_artist_global_listeners" +
-                        "                  (week_id,artist_id,position,listeners) " + "SELECT ? ,  artist_id,rank() over w as 'cum',count(distinct a.lastfm_id)  as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        " where week_id = ?  \n" +
-                        "group by a.artist_id\n" +
-                        "window w as (order by count(distinct a.lastfm_id)  desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100");
+    public void groupUserData(Connection connection, String lastfmId, int week_id) {
+
+        StringBuilder sql = new StringBuilder("INSERT INTO  user_billboard_data" +
+                "                  (week_id,artist_id,track_name,lastfm_id,album_name,scrobble_count) select week_id,artist_id,track_name,lastfm_id,album_name,count(*) from " +
+                "user_billboard_data_scrobbles where week_id = ? and lastfm_id = ? group by artist_id,track_name");
 
 
         try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
+            PreparedStatement preparedStatement = connection.prepareStatement(String.valueOf(sql));
             preparedStatement.setInt(1, week_id);
-            preparedStatement.setInt(2, week_id);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
+            preparedStatement.setString(2, lastfmId);
+            preparedStatement.execute();
+        } catch (
+                SQLException e) {
             throw new ChuuServiceException(e);
         }
+
     }
 
     @Override
-    public void insertGlobalBillboardDataScrobbles(Connection connection, int week_id) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_global_scrobbles" +
-                        "                  (week_id,artist_id,track_name,position,scrobble_count) SELECT   ? , artist_id, track_name,rank() over w as 'cum',sum(scrobble_count) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        "where week_id = ?  \n" +
-                        "group by a.artist_id,a.track_name\n" +
-                        "window w as (order by sum(scrobble_count) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100 ");
+    public void cleanUserData(Connection connection, String lastfmId, int weekId) {
+        @Language("MariaDB") String queryString = "DELETE   FROM user_billboard_data  WHERE lastfm_id = ? and week_id = ?  ";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
 
+            /* Fill "preparedStatement". */
+            int i = 1;
+            preparedStatement.setString(i++, lastfmId);
+            preparedStatement.setInt(i, weekId);
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
-            preparedStatement.setInt(1, week_id);
-            preparedStatement.setInt(2, week_id);
 
             preparedStatement.executeUpdate();
+
+
         } catch (SQLException e) {
             throw new ChuuServiceException(e);
         }
     }
 
     @Override
-    public void insertGlobalBillboardDataListeners(Connection connection, int week_id) {
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard_global_listeners" +
-                        "                  (week_id,artist_id,track_name,position,listeners) " +
-                        "SELECT ? ,  artist_id, track_name,rank() over w as 'cum',count(*) as listeners\n" +
-                        "from\n" +
-                        "user_billboard_data a\n" +
-                        " where week_id = ?  \n" +
-                        "group by a.artist_id,a.track_name\n" +
-                        "window w as (order by count(*) desc)\n" +
-                        "order by listeners desc\n" +
-                        "limit 100");
-
-
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString());
-            preparedStatement.setInt(1, week_id);
-            preparedStatement.setInt(2, week_id);
+    public void countUserScrobbles(Connection connection, String lastfmId, int weekId) {
+        OptionalLong counted = getCountedTo(connection, lastfmId, weekId);
+        if (counted.isEmpty()) {
+            startCounting(connection, lastfmId, weekId);
+            counted = getCountedTo(connection, lastfmId, weekId);
+        }
+        long countedTo = counted.orElse(0);
+        long upTo = getLastScrobble(connection, lastfmId, weekId);
+        if (upTo <= countedTo) {
+            return;
+        }
+        addToCounters(connection, lastfmId, weekId, countedTo, upTo, 1);
+        setCountedTo(connection, lastfmId, weekId, upTo);
+    }
 
+    @Override
+    public void uncountUserScrobbles(Connection connection, String lastfmId, int weekId) {
+        OptionalLong counted = getCountedTo(connection, lastfmId, weekId);
+        if (counted.isEmpty()) {
+            return;
+        }
+        addToCounters(connection, lastfmId, weekId, 0, counted.getAsLong(), -1);
+        @Language("MariaDB") String queryString = "DELETE FROM billboard_counted_users WHERE week_id = ? and lastfm_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            int i = 1;
+            preparedStatement.setInt(i++, weekId);
+            preparedStatement.setString(i, lastfmId);
             preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new ChuuServiceException(e);
         }
-
-/*
+    }
 
     @Override
-    public void generateBillboardFromLocalData(Connection connection, long guildId, int weekId) {
-
-        StringBuilder mySql =
-                new StringBuilder("INSERT INTO  weekly_billboard" +
-                        "                  (guild_id,week_id,artist_id,track_name,position,listeners) " +
-                        "SELECT (?,? artist_id, track_name,position,count(*) as listeners, sum(scrobble_count) as scrobble_count from" +
-                        "user_billboard_data a " +
-                        "join user b on a.lastfm_id = b.lastfm_id" +
-                        "join user_guild c on b.discord_id = c.discord_id " +
-                        "where guild_id = ? " +
-                        "group by a.artist_id,a.track_name" l
-
-
-
-        try {
-            PreparedStatement preparedStatement = con.prepareStatement(mySql.toString());
-            for (int i = 0; i < billboards.size(); i++) {
-                BillboardEntity scrobbledAlbum = billboards.get(i);
-                preparedStatement.setLong(6 * i + 1, guildId);
-
-                preparedStatement.setInt(6 * i + 2, week_id);
-                preparedStatement.setLong(6 * i + 3, scrobbledAlbum.getArtistId());
-                preparedStatement.setString(6 * i + 4, scrobbledAlbum.getName());
-                preparedStatement.setInt(6 * i + 5, i);
-                preparedStatement.setLong(6 * i + 6, scrobbledAlbum.getListeners());
+    public void deleteCountersBefore(Connection connection, int weekId) {
+        // The servers of each user go away with their user row
+        for (String table : List.of("billboard_track_counters", "billboard_artist_counters", "billboard_album_counters", "billboard_counted_users")) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement("DELETE FROM " + table + " WHERE week_id < ?")) {
+                preparedStatement.setInt(1, weekId);
+                preparedStatement.executeUpdate();
+            } catch (SQLException e) {
+                throw new ChuuServiceException(e);
+            }
+        }
+    }
 
+    /**
+     * Locks the counted row of the user for that week until the end of the transaction
+     *
+     * @return the id of the last scrobble counted, empty if the week of the user was never counted
+     */
+    private OptionalLong getCountedTo(Connection connection, String lastfmId, int weekId) {
+        @Language("MariaDB") String queryString = "SELECT counted_to FROM billboard_counted_users WHERE week_id = ? and lastfm_id = ? FOR UPDATE";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            int i = 1;
+            preparedStatement.setInt(i++, weekId);
+            preparedStatement.setString(i, lastfmId);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return OptionalLong.empty();
             }
-            preparedStatement.execute();
+            return OptionalLong.of(resultSet.getLong("counted_to"));
         } catch (SQLException e) {
             throw new ChuuServiceException(e);
         }
-
     }
 
-    ;
-*/
-
+    /**
+     * Keeps the servers the user is in as the ones the week of the user is counted under. They are the ones it is
+     * taken back out of, whatever the user joins or leaves meanwhile.
+     */
+    private void startCounting(Connection connection, String lastfmId, int weekId) {
+        @Language("MariaDB") String userQuery = "INSERT IGNORE INTO billboard_counted_users (week_id,lastfm_id,counted_to) VALUES (?,?,0)";
+        @Language("MariaDB") String guildQuery = "INSERT INTO billboard_counted_guilds (week_id,lastfm_id,guild_id) " +
+                "SELECT ?,?,g.guild_id " +
+                "FROM (SELECT c.guild_id FROM user b JOIN user_guild c ON b.discord_id = c.discord_id WHERE b.lastfm_id = ? " +
+                "UNION ALL SELECT ?) g";
+        try (PreparedStatement userStatement = connection.prepareStatement(userQuery);
+             PreparedStatement guildStatement = connection.prepareStatement(guildQuery)) {
+            int i = 1;
+            userStatement.setInt(i++, weekId);
+            userStatement.setString(i, lastfmId);
+            // Started by another update of the same user
+            if (userStatement.executeUpdate() == 0) {
+                return;
+            }
+            i = 1;
+            guildStatement.setInt(i++, weekId);
+            guildStatement.setString(i++, lastfmId);
+            guildStatement.setString(i++, lastfmId);
+            guildStatement.setLong(i, GLOBAL);
+            guildStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
     }
 
-    @Override
-    public void groupUserData(Connection connection, String lastfmId, int week_id) {
-
-        StringBuilder sql = new StringBuilder("INSERT INTO  user_billboard_data" +
-                "                  (week_id,artist_id,track_name,lastfm_id,album_name,scrobble_count) select week_id,artist_id,track_name,lastfm_id,album_name,count(*) from " +
-                "user_billboard_data_scrobbles where week_id = ? and lastfm_id = ? group by artist_id,track_name");
-
+    private long getLastScrobble(Connection connection, String lastfmId, int weekId) {
+        @Language("MariaDB") String queryString = "SELECT max(id) as last FROM user_billboard_data_scrobbles WHERE lastfm_id = ? and week_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            int i = 1;
+            preparedStatement.setString(i++, lastfmId);
+            preparedStatement.setInt(i, weekId);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            return resultSet.next() ? resultSet.getLong("last") : 0;
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(String.valueOf(sql));
-            preparedStatement.setInt(1, week_id);
-            preparedStatement.setString(2, lastfmId);
-            preparedStatement.execute();
-        } catch (
-                SQLException e) {
+    private void setCountedTo(Connection connection, String lastfmId, int weekId, long countedTo) {
+        @Language("MariaDB") String queryString = "UPDATE billboard_counted_users SET counted_to = ? WHERE week_id = ? and lastfm_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            int i = 1;
+            preparedStatement.setLong(i++, countedTo);
+            preparedStatement.setInt(i++, weekId);
+            preparedStatement.setString(i, lastfmId);
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
             throw new ChuuServiceException(e);
         }
+    }
 
+    /**
+     * Adds (sign 1) or takes away (sign -1) the scrobbles of the user for that week with an id in (after, upTo] to the
+     * counters of the servers the week of the user is counted under.
+     */
+    private void addToCounters(Connection connection, String lastfmId, int weekId, long after, long upTo, int sign) {
+        addToCounters(connection, "billboard_track_counters", "track_name", " and track_name is not null", lastfmId, weekId, after, upTo, sign);
+        addToCounters(connection, "billboard_artist_counters", null, "", lastfmId, weekId, after, upTo, sign);
+        addToCounters(connection, "billboard_album_counters", "album_name", " and album_name is not null", lastfmId, weekId, after, upTo, sign);
     }
 
-    @Override
-    public void cleanUserData(Connection connection, String lastfmId, int weekId) {
-        @Language("MariaDB") String queryString = "DELETE   FROM user_billboard_data  WHERE lastfm_id = ? and week_id = ?  ";
+    private void addToCounters(Connection connection, String counterTable, @Nullable String nameColumn, String filter, String lastfmId, int weekId, long after, long upTo, int sign) {
+        String columns = nameColumn == null ? "artist_id" : "artist_id," + nameColumn;
+        String selected = nameColumn == null ? "a.artist_id" : "a.artist_id,a." + nameColumn;
+        String sameEntry = nameColumn == null ? "" : " and o." + nameColumn + " = a." + nameColumn;
+        // The user is only a new listener of the entries none of their counted scrobbles belong to
+        String queryString = "INSERT INTO " + counterTable + " (week_id,guild_id," + columns + ",listeners,scrobble_count) " +
+                "SELECT ?,g.guild_id," + selected + ",? * NOT EXISTS (SELECT 1 FROM user_billboard_data_scrobbles o " +
+                "WHERE o.lastfm_id = ? and o.week_id = ? and o.id <= ? and o.artist_id = a.artist_id" + sameEntry + ")," +
+                "? * a.scrobble_count " +
+                "FROM (SELECT " + columns + ",count(*) as scrobble_count FROM user_billboard_data_scrobbles " +
+                "WHERE lastfm_id = ? and week_id = ? and id > ? and id <= ?" + filter + " GROUP BY " + columns + ") a " +
+                "JOIN billboard_counted_guilds g ON g.week_id = ? and g.lastfm_id = ? " +
+                // Every update locks the shared rows in key order, so two of them never wait on each other crosswise
+                "ORDER BY g.guild_id," + selected + " " +
+                "ON DUPLICATE KEY UPDATE listeners = listeners + VALUES(listeners), scrobble_count = scrobble_count + VALUES(scrobble_count)";
         try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
-
-            /* Fill "preparedStatement". */
             int i = 1;
+            preparedStatement.setInt(i++, weekId);
+            preparedStatement.setInt(i++, sign);
             preparedStatement.setString(i++, lastfmId);
-            preparedStatement.setInt(i, weekId);
-
-
+            preparedStatement.setInt(i++, weekId);
+            preparedStatement.setLong(i++, after);
+            preparedStatement.setInt(i++, sign);
+            preparedStatement.setString(i++, lastfmId);
+            preparedStatement.setInt(i++, weekId);
+            preparedStatement.setLong(i++, after);
+            preparedStatement.setLong(i++, upTo);
+            preparedStatement.setInt(i++, weekId);
+            preparedStatement.setString(i, lastfmId);
             preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
 
-
+    /**
+     * Ranks the top entries of the counters of the server into the board. Global boards have no guild_id column.
+     */
+    private void insertTop(Connection connection, String boardTable, String counterTable, String columns, String metric, int weekId, long guildId) {
+        boolean global = guildId == GLOBAL;
+        String queryString = "INSERT INTO " + boardTable + " (" + (global ? "" : "guild_id,") + "week_id," + columns + ",position," + metric + ") " +
+                "SELECT " + (global ? "" : "?,") + "?," + columns + ",rank() over w," + metric + " " +
+                "FROM (SELECT " + columns + "," + metric + " FROM " + counterTable + " " +
+                "WHERE week_id = ? and guild_id = ? and listeners > 0 " +
+                "ORDER BY " + metric + " DESC LIMIT " + BOARD_SIZE + ") t " +
+                "WINDOW w AS (ORDER BY " + metric + " DESC)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            int i = 1;
+            if (!global) {
+                preparedStatement.setLong(i++, guildId);
+            }
+            preparedStatement.setInt(i++, weekId);
+            preparedStatement.setInt(i++, weekId);
+            preparedStatement.setLong(i, guildId);
+            preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new ChuuServiceException(e);
         }
@@ -39,6 +39,8 @@ public class ChuuService {
 
     private final BillboardDao billboardDao;
     private final DiscoveralDao discoveralDao;
+    private final ScrobbleTimelineDao scrobbleTimelineDao;
+    private final LookupCacheDao lookupCacheDao;
 
     public ChuuService(SimpleDataSource dataSource) {
 
@@ -52,6 +54,8 @@ public class ChuuService {
         this.updaterDao = new UpdaterDaoImpl();
         this.billboardDao = new BillboardDaoImpl();
         this.discoveralDao = new DiscoveralDaoImpl();
+        this.scrobbleTimelineDao = new ScrobbleTimelineDaoImpl();
+        this.lookupCacheDao = new LookupCacheDaoImpl();
 
 
     }
@@ -68,6 +72,8 @@ public class ChuuService {
         this.trackDao = new TrackDaoImpl();
         this.billboardDao = new BillboardDaoImpl();
         this.discoveralDao = new DiscoveralDaoImpl();
+        this.scrobbleTimelineDao = new ScrobbleTimelineDaoImpl();
+        this.lookupCacheDao = new LookupCacheDaoImpl();
 
     }
 
@@ -118,7 +124,7 @@ public class ChuuService {
     }
 
     public void incrementalUpdate(TimestampWrapper<List<ScrobbledArtist>> wrapper, String
-            id, List<ScrobbledAlbum> albumData, List<TrackWithArtistId> trackWithArtistIds) {
+            id, List<ScrobbledAlbum> albumData, List<TrackWithArtistId> trackWithArtistIds, int from) {
         try (Connection connection = dataSource.getConnection()) {
             try {
                 List<ScrobbledArtist> artistData = wrapper.getWrapped().stream().peek(x -> x.setDiscordID(id)).collect(Collectors.toList());
@@ -161,6 +167,10 @@ public class ChuuService {
                 });
                 doInsertUserData(connection, id, trackWithArtistIds);
                 connection.commit();
+                scrobbleTimelineDao.append(connection, id, from, wrapper.getTimestamp(), trackWithArtistIds);
+                extendStreak(connection, id, from, trackWithArtistIds);
+                scrobbleTimelineDao.addListeningTime(connection, id, from, wrapper.getTimestamp());
+                scrobbleTimelineDao.appendOrdinals(connection, id, from, wrapper.getTimestamp(), trackWithArtistIds);
                 updaterDao.setUpdatedTime(connection, id, wrapper.getTimestamp(), wrapper.getTimestamp());
                 connection.commit();
 
@@ -507,6 +517,52 @@ public class ChuuService {
         this.upsertSpotify(url, artistId, 537353774205894676L, spotifyId);
     }
 
+    /**
+     * Queues the artists without image that are not queued yet, the ones with the most listeners first
+     */
+    public void enqueueMissingImages(int limit) {
+        try (Connection connection = dataSource.getConnection()) {
+            updaterDao.enqueueMissingImages(connection, limit);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public void bumpImagePriority(long artistId, int hits) {
+        try (Connection connection = dataSource.getConnection()) {
+            updaterDao.bumpImagePriority(connection, artistId, hits);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public List<ScrobbledArtist> getImageQueue(int limit) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return updaterDao.getImageQueue(connection, limit);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    /**
+     * Stores the outcome of the image searches and takes their artists out of the queue
+     */
+    public void storeImageResults(List<ArtistImageResult> results) {
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setAutoCommit(false);
+                updaterDao.storeImageResults(connection, results, 537353774205894676L);
+                connection.commit();
+            } catch (RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
     public void addLogo(long guildId, BufferedImage in) {
         try (Connection connection = dataSource.getConnection()) {
             userGuildDao.addLogo(connection, guildId, in);
@@ -2125,6 +2181,10 @@ public class ChuuService {
                 numberOfDecreses++;
             }
             billboardDao.insertUserData(connection, x.getValue(), lastfmId, id - numberOfDecreses);
+            // Weeks whose boards are still to be built keep their counters up to date
+            if (numberOfDecreses <= 0) {
+                countUserWeek(connection, lastfmId, id - numberOfDecreses);
+            }
         });
         try {
             List<ScrobbledTrack> groupedTracks = list.stream().map(t -> {
@@ -2626,6 +2686,33 @@ public class ChuuService {
 
     }
 
+    public ResultWrapper<ScrobbledArtist> getUserTopArtists(String lastfmId, int limit) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return queriesDao.getUserTopArtists(connection, lastfmId, limit);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public ResultWrapper<ScrobbledAlbum> getUserTopAlbums(String lastfmId, int limit) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return queriesDao.getUserTopAlbums(connection, lastfmId, limit);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public ResultWrapper<ScrobbledTrack> getUserTopTracks(String lastfmId, int limit) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return queriesDao.getUserTopTracks(connection, lastfmId, limit);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
     public List<ArtistInfo> getArtistWithTag(List<ArtistInfo> artists, long discordId, String genre) {
         try (Connection connection = dataSource.getConnection()) {
             return queriesDao.getArtistWithTag(connection, artists, discordId, genre);
@@ -2714,6 +2801,21 @@ public class ChuuService {
         }
     }
 
+    public ConnectionPoolStats getPoolStats() {
+        return dataSource.getPoolStats();
+    }
+
+    public void logCommands(List<CommandLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            updaterDao.logCommands(connection, entries);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
     public void trackUpdate(List<ScrobbledTrack> trackData, List<ScrobbledArtist> artistData, String id) {
         try (Connection connection = dataSource.getConnection()) {
             try {
@@ -2734,6 +2836,8 @@ public class ChuuService {
 
                     insertTracks(trackData, id, connection);
                 }
+                // Computed again from the new library on the next update
+                scrobbleTimelineDao.deleteListeningTime(connection, id);
                 updaterDao.setUpdatedTime(connection, id, null, null);
                 connection.setAutoCommit(false);
                 connection.commit();
@@ -2834,6 +2938,15 @@ public class ChuuService {
         }
     }
 
+    public Optional<Instant> getLastUpdate(String lastfmId) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return updaterDao.getLastUpdate(connection, lastfmId);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
     public void insertUserInfo(UserInfo userInfo) {
         try (Connection connection = dataSource.getConnection()) {
             updaterDao.insertUserInfo(connection, userInfo);
@@ -2869,14 +2982,242 @@ public class ChuuService {
 
     }
 
+    public Optional<ScrobbleTimeline> getScrobbleTimeline(String lastfmId) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getTimeline(connection, lastfmId);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public int countTimelineScrobbles(String lastfmId, int from, int to) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.countScrobbles(connection, lastfmId, from, to);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public List<TimelineScrobble> getTimelineScrobbles(String lastfmId, int from, int to) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getScrobbles(connection, lastfmId, from, to);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public List<TimelineScrobble> getLastTimelineScrobbles(String lastfmId, int limit) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getLastScrobbles(connection, lastfmId, limit);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public Optional<ListeningTime> getListeningTime(String lastfmId) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getListeningTime(connection, lastfmId);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public List<Track> getTimelineTracks(String lastfmId, int from, int to) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getTimelineTracks(connection, lastfmId, from, to);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public Optional<String> getUserWithOutdatedScrobbleOrdinals() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getUserWithOutdatedOrdinals(connection);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public Optional<ScrobbleOrdinalWalk> getScrobbleOrdinalWalk() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getOrdinalWalk(connection);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public boolean storeScrobbleOrdinalWalk(ScrobbleOrdinalWalk walk, List<ScrobbleOrdinal> ordinals) {
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setAutoCommit(false);
+                boolean stored = scrobbleTimelineDao.storeOrdinalWalk(connection, walk, ordinals);
+                connection.commit();
+                return stored;
+            } catch (RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public void deleteScrobbleOrdinalWalk(String lastfmId) {
+        try (Connection connection = dataSource.getConnection()) {
+            scrobbleTimelineDao.deleteOrdinalWalk(connection, lastfmId);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public Optional<ScrobbleOrdinal> getScrobbleOrdinalStatus(String lastfmId) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getOrdinalStatus(connection, lastfmId);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public Optional<ScrobbleOrdinal> getScrobbleOrdinalFloor(String lastfmId, int ordinal) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getOrdinalFloor(connection, lastfmId, ordinal);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public Optional<ScrobbleOrdinal> getScrobbleOrdinalCeiling(String lastfmId, int ordinal) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getOrdinalCeiling(connection, lastfmId, ordinal);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public Optional<TimelineScrobble> getTimelineScrobbleAt(String lastfmId, int from, int offset) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getTimelineScrobbleAt(connection, lastfmId, from, offset);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public Optional<StreakState> getStreakState(String lastfmId) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return scrobbleTimelineDao.getStreakState(connection, lastfmId);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public void storeStreakState(StreakState state) {
+        try (Connection connection = dataSource.getConnection()) {
+            scrobbleTimelineDao.storeStreakState(connection, state);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    /**
+     * Carries the stored streak forward with the scrobbles of an update. If some scrobbles between the stored streak
+     * and the update were never seen the streak is dropped, and will be computed again the next time it is asked for.
+     */
+    private void extendStreak(Connection connection, String lastfmId, int from, List<TrackWithArtistId> scrobbles) {
+        Optional<StreakState> stored = scrobbleTimelineDao.getStreakState(connection, lastfmId);
+        if (stored.isEmpty()) {
+            return;
+        }
+        StreakState state = stored.get();
+        if (state.getLastScrobble() + 1 < from) {
+            scrobbleTimelineDao.deleteStreakState(connection, lastfmId);
+            return;
+        }
+        List<TrackWithArtistId> newer = scrobbles.stream()
+                .filter(x -> x.getUtc() > state.getLastScrobble())
+                .sorted(Comparator.comparingInt(TrackWithArtistId::getUtc))
+                .collect(Collectors.toList());
+        if (newer.isEmpty()) {
+            return;
+        }
+        newer.forEach(x -> state.add(x.getArtist(), x.getAlbum(), x.getName(), x.getImageUrl(), x.getUtc()));
+        scrobbleTimelineDao.storeStreakState(connection, state);
+    }
+
     public void prepareBillboardWeek(String lastfmId, int weekId) {
         try (Connection connection = dataSource.getConnection()) {
-            billboardDao.cleanUserData(connection, lastfmId, weekId);
-            billboardDao.groupUserData(connection, lastfmId, weekId);
+            regroupUserWeek(connection, lastfmId, weekId);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+
+    }
+
+    public void deleteBillboardCountersBefore(int weekId) {
+        try (Connection connection = dataSource.getConnection()) {
+            billboardDao.deleteCountersBefore(connection, weekId);
         } catch (SQLException e) {
             throw new ChuuServiceException(e);
         }
+    }
+
+    /**
+     * Adds the new scrobbles of the user for that week to the billboard counters. A failure is only logged, so it does
+     * not stop the update, the scrobbles it left out are counted on the next one.
+     */
+    private void countUserWeek(Connection connection, String lastfmId, int weekId) {
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                billboardDao.countUserScrobbles(connection, lastfmId, weekId);
+                connection.commit();
+            } catch (ChuuServiceException e) {
+                connection.rollback();
+                logger.warn(e.getMessage(), e);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            logger.warn(e.getMessage(), e);
+        }
+    }
 
+    /**
+     * Groups again the scrobbles of the user for that week, and counts all of them again under the servers the user is
+     * in now, taking out what was counted before in the same transaction.
+     */
+    private void regroupUserWeek(Connection connection, String lastfmId, int weekId) {
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                billboardDao.uncountUserScrobbles(connection, lastfmId, weekId);
+                billboardDao.countUserScrobbles(connection, lastfmId, weekId);
+                billboardDao.cleanUserData(connection, lastfmId, weekId);
+                billboardDao.groupUserData(connection, lastfmId, weekId);
+                connection.commit();
+            } catch (ChuuServiceException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
     }
 
 
@@ -2926,4 +3267,29 @@ public class ChuuService {
 
 
     }
+
+    public Optional<CachedLookup> getCachedLookup(String source, String key) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return lookupCacheDao.getLookup(connection, source, key);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public void storeCachedLookup(String source, String key, String value, Instant expires) {
+        try (Connection connection = dataSource.getConnection()) {
+            lookupCacheDao.storeLookup(connection, source, key, value, expires);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    public void deleteExpiredLookups() {
+        try (Connection connection = dataSource.getConnection()) {
+            lookupCacheDao.deleteExpiredLookups(connection);
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
 }
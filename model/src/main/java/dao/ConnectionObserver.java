@@ -0,0 +1,15 @@
+package dao;
+
+/**
+ * Gets notified of the connections taken from a {@link SimpleDataSource} once they are given back
+ */
+public interface ConnectionObserver {
+
+    /**
+     * Called from the thread that closes the connection
+     *
+     * @param waitNanos time spent waiting for the pool to hand out the connection
+     * @param heldNanos time from getting the connection to closing it
+     */
+    void onConnectionClosed(long waitNanos, long heldNanos);
+}
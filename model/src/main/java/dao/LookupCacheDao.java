@@ -0,0 +1,19 @@
+package dao;
+
+import dao.entities.CachedLookup;
+
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.Optional;
+
+public interface LookupCacheDao {
+
+    /**
+     * @return the answer stored for the key unless it has expired
+     */
+    Optional<CachedLookup> getLookup(Connection connection, String source, String key);
+
+    void storeLookup(Connection connection, String source, String key, String value, Instant expires);
+
+    void deleteExpiredLookups(Connection connection);
+}
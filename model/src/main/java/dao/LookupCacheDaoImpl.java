@@ -0,0 +1,57 @@
+package dao;
+
+import dao.entities.CachedLookup;
+import dao.exceptions.ChuuServiceException;
+import org.intellij.lang.annotations.Language;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+public class LookupCacheDaoImpl implements LookupCacheDao {
+
+    @Override
+    public Optional<CachedLookup> getLookup(Connection connection, String source, String key) {
+        @Language("MariaDB") String queryString = "SELECT value FROM api_lookup_cache WHERE source = ? AND lookup_key = sha2(?, 256) AND expires > now()";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, source);
+            preparedStatement.setString(2, key);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            return Optional.of(new CachedLookup(resultSet.getString(1)));
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public void storeLookup(Connection connection, String source, String key, String value, Instant expires) {
+        @Language("MariaDB") String queryString = "INSERT INTO api_lookup_cache (source, lookup_key, value, expires) VALUES (?, sha2(?, 256), ?, ?) " +
+                "ON DUPLICATE KEY UPDATE value = VALUES(value), expires = VALUES(expires)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, source);
+            preparedStatement.setString(2, key);
+            preparedStatement.setString(3, value);
+            preparedStatement.setTimestamp(4, Timestamp.from(expires));
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public void deleteExpiredLookups(Connection connection) {
+        @Language("MariaDB") String queryString = "DELETE FROM api_lookup_cache WHERE expires <= now()";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+}
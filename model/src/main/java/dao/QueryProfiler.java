@@ -0,0 +1,168 @@
+package dao;
+
+import dao.entities.QueryStats;
+import dao.entities.SlowQuery;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Times every statement executed through a {@link SimpleDataSource} connection while it is enabled.
+ * <p>
+ * Each statement is tagged with the dao method that prepared it, and with the {@link ChuuService} method that called
+ * that one. The totals are kept by tag, and the {@link #TOP} slowest statements are kept with the values that were
+ * bound to them.
+ * <p>
+ * It can be enabled and disabled at any time, connections taken while it is disabled are not profiled.
+ */
+public class QueryProfiler {
+    public static final int TOP = 25;
+    private static final int MAX_BIND_LENGTH = 64;
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final StackWalker walker = StackWalker.getInstance();
+    private static final Map<String, CallerStats> byCaller = new ConcurrentHashMap<>();
+    // Min heap, the fastest of the kept statements is the first one to go
+    private static final PriorityQueue<SlowQuery> slowest = new PriorityQueue<>(TOP + 1, Comparator.comparingLong(SlowQuery::getNanos));
+    private static volatile boolean enabled = false;
+    // Statements faster than this one would not make it into the slowest
+    private static volatile long floorNanos = 0;
+
+    private QueryProfiler() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        QueryProfiler.enabled = enabled;
+    }
+
+    public static void reset() {
+        byCaller.clear();
+        synchronized (slowest) {
+            slowest.clear();
+            floorNanos = 0;
+        }
+    }
+
+    /**
+     * @return the slowest statements, the slowest first
+     */
+    public static List<SlowQuery> getSlowest() {
+        synchronized (slowest) {
+            List<SlowQuery> queries = new ArrayList<>(slowest);
+            queries.sort(Comparator.comparingLong(SlowQuery::getNanos).reversed());
+            return queries;
+        }
+    }
+
+    public static List<QueryStats> getStats() {
+        return byCaller.entrySet().stream()
+                .map(x -> new QueryStats(x.getKey(), x.getValue().count.sum(), x.getValue().nanos.sum(), x.getValue().max.get()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Wraps a statement just created by a connection
+     *
+     * @param type the interface returned by the method that created it
+     * @param sql  the sql it was prepared with, null for plain statements
+     */
+    static Statement wrap(Statement statement, Class<?> type, String sql) {
+        String caller = findCaller();
+        Map<Integer, String> binds = new TreeMap<>();
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+                long start = System.nanoTime();
+                try {
+                    return invoke(statement, method, args);
+                } finally {
+                    record(caller, executed, binds, System.nanoTime() - start);
+                }
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                binds.put((Integer) args[0], name.equals("setNull") ? "null" : bindValue(args[1]));
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void record(String caller, String sql, Map<Integer, String> binds, long nanos) {
+        CallerStats stats = byCaller.computeIfAbsent(caller, k -> new CallerStats());
+        stats.count.increment();
+        stats.nanos.add(nanos);
+        stats.max.accumulateAndGet(nanos, Math::max);
+        if (nanos <= floorNanos) {
+            return;
+        }
+        SlowQuery query = new SlowQuery(caller, sql, List.copyOf(binds.values()), nanos, Instant.now());
+        synchronized (slowest) {
+            slowest.add(query);
+            if (slowest.size() > TOP) {
+                slowest.poll();
+                floorNanos = slowest.peek().getNanos();
+            }
+        }
+    }
+
+    private static String bindValue(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        String string = String.valueOf(value);
+        return string.length() > MAX_BIND_LENGTH ? string.substring(0, MAX_BIND_LENGTH) + "..." : string;
+    }
+
+    /**
+     * @return the innermost dao method on the stack, preceded by the service method that led to it
+     */
+    private static String findCaller() {
+        List<StackWalker.StackFrame> frames = walker.walk(s -> s
+                .filter(x -> x.getClassName().startsWith("dao.") && !x.getClassName().equals(SimpleDataSource.class.getName()) && !x.getClassName().equals(QueryProfiler.class.getName()))
+                .collect(Collectors.toList()));
+        if (frames.isEmpty()) {
+            return "unknown";
+        }
+        StackWalker.StackFrame dao = frames.get(0);
+        String tag = simpleName(dao);
+        if (dao.getClassName().equals(ChuuService.class.getName())) {
+            return tag;
+        }
+        return frames.stream().filter(x -> x.getClassName().equals(ChuuService.class.getName()))
+                .reduce((first, second) -> second)
+                .map(service -> simpleName(service) + " > " + tag)
+                .orElse(tag);
+    }
+
+    private static String simpleName(StackWalker.StackFrame frame) {
+        String className = frame.getClassName();
+        return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+    }
+
+    private static final class CallerStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+    }
+}
@@ -154,6 +154,12 @@ interface SQLQueriesDao {
 
     List<ScrobbledArtist> getUserArtists(Connection connection, String lastfmId);
 
+    ResultWrapper<ScrobbledArtist> getUserTopArtists(Connection connection, String lastfmId, int limit);
+
+    ResultWrapper<ScrobbledAlbum> getUserTopAlbums(Connection connection, String lastfmId, int limit);
+
+    ResultWrapper<ScrobbledTrack> getUserTopTracks(Connection connection, String lastfmId, int limit);
+
     List<ArtistInfo> getArtistWithTag(Connection connection, List<ArtistInfo> artists, long discordId, String genre);
 
     Map<Genre, Integer> genreCountsByArtist(Connection connection, List<ArtistInfo> artistInfos);
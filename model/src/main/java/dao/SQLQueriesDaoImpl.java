@@ -2506,6 +2506,69 @@ public class SQLQueriesDaoImpl extends BaseDAO implements SQLQueriesDao {
         return scrobbledAlbums;
     }
 
+    @Override
+    public ResultWrapper<ScrobbledArtist> getUserTopArtists(Connection connection, String lastfmId, int limit) {
+        List<ScrobbledArtist> scrobbledArtists = new ArrayList<>();
+        int total = 0;
+        // The window counts every row of the user before the limit applies
+        String s = "select b.name,b.url,b.mbid,a.playnumber,count(*) over () as total  from scrobbled_artist a join artist b on a.artist_id = b.id   where a.lastfm_id = ? order by a.playnumber desc limit ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(s)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.setInt(2, limit);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                int playnumber = resultSet.getInt(4);
+                ScrobbledArtist scrobbledArtist = new ScrobbledArtist(resultSet.getString(1), playnumber, resultSet.getString(2));
+                scrobbledArtist.setArtistMbid(resultSet.getString(3));
+                scrobbledArtists.add(scrobbledArtist);
+                total = resultSet.getInt(5);
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+        return new ResultWrapper<>(total, scrobbledArtists);
+    }
+
+    @Override
+    public ResultWrapper<ScrobbledAlbum> getUserTopAlbums(Connection connection, String lastfmId, int limit) {
+        List<ScrobbledAlbum> scrobbledAlbums = new ArrayList<>();
+        int total = 0;
+        String s = "select b.album_name,c.name,b.url,b.mbid,a.playnumber,count(*) over () as total  from scrobbled_album a join album b on a.album_id = b.id join artist c on a.artist_id = c.id  where a.lastfm_id = ? order by a.playnumber desc limit ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(s)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.setInt(2, limit);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                ScrobbledAlbum scrobbledAlbum = new ScrobbledAlbum(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3), resultSet.getString(4));
+                scrobbledAlbum.setCount(resultSet.getInt(5));
+                scrobbledAlbums.add(scrobbledAlbum);
+                total = resultSet.getInt(6);
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+        return new ResultWrapper<>(total, scrobbledAlbums);
+    }
+
+    @Override
+    public ResultWrapper<ScrobbledTrack> getUserTopTracks(Connection connection, String lastfmId, int limit) {
+        List<ScrobbledTrack> scrobbledTracks = new ArrayList<>();
+        int total = 0;
+        String s = "select b.track_name,c.name,coalesce(b.url,d.url),b.mbid,c.mbid,a.playnumber,a.loved,b.duration,count(*) over () as total  from scrobbled_track a join track b on a.track_id = b.id join artist c on a.artist_id = c.id left join album d on b.album_id = d.id  where a.lastfm_id = ? order by a.playnumber desc limit ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(s)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.setInt(2, limit);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                scrobbledTracks.add(new ScrobbledTrack(resultSet.getString(2), resultSet.getString(1), resultSet.getInt(6), resultSet.getBoolean(7), resultSet.getInt(8), resultSet.getString(3), resultSet.getString(5), resultSet.getString(4)));
+                total = resultSet.getInt(9);
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+        return new ResultWrapper<>(total, scrobbledTracks);
+    }
+
     @Override
     public List<ArtistInfo> getArtistWithTag(Connection connection, List<ArtistInfo> artists, long discordId, String genre) {
         String queryString = "SELECT c.name,c.url,c.mbid as artist_mbid " +
@@ -0,0 +1,91 @@
+package dao;
+
+import dao.entities.ListeningTime;
+import dao.entities.ScrobbleOrdinal;
+import dao.entities.ScrobbleOrdinalWalk;
+import dao.entities.ScrobbleTimeline;
+import dao.entities.StreakState;
+import dao.entities.TimelineScrobble;
+import dao.entities.Track;
+import dao.entities.TrackWithArtistId;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ScrobbleTimelineDao {
+
+    /**
+     * Appends the scrobbles fetched between from and to. If from does not follow the end of the stored timeline the
+     * user was updated some other way in between, so the timeline starts again from there.
+     */
+    void append(Connection connection, String lastfmId, int from, int to, List<TrackWithArtistId> scrobbles);
+
+    Optional<ScrobbleTimeline> getTimeline(Connection connection, String lastfmId);
+
+    int countScrobbles(Connection connection, String lastfmId, int from, int to);
+
+    List<TimelineScrobble> getScrobbles(Connection connection, String lastfmId, int from, int to);
+
+    List<TimelineScrobble> getLastScrobbles(Connection connection, String lastfmId, int limit);
+
+    Optional<StreakState> getStreakState(Connection connection, String lastfmId);
+
+    void storeStreakState(Connection connection, StreakState state);
+
+    void deleteStreakState(Connection connection, String lastfmId);
+
+    /**
+     * Adds the scrobbles of the timeline between from and to to the listening time of the user. If the listening time
+     * did not reach up to from it is computed again from the whole library instead.
+     */
+    void addListeningTime(Connection connection, String lastfmId, int from, int to);
+
+    void deleteListeningTime(Connection connection, String lastfmId);
+
+    Optional<ListeningTime> getListeningTime(Connection connection, String lastfmId);
+
+    /**
+     * @return the tracks of the timeline between from and to with the number of times they were scrobbled and their
+     * duration, zero if it is not known
+     */
+    List<Track> getTimelineTracks(Connection connection, String lastfmId, int from, int to);
+
+    /**
+     * Numbers the scrobbles fetched between from and to, following the count stored for the user. If the count does not
+     * reach up to from it is left for {@link #storeOrdinalWalk} to catch up, and if it goes past from the user was
+     * synced again from an earlier point, so the whole index is dropped to be built again.
+     */
+    void appendOrdinals(Connection connection, String lastfmId, int from, int to, List<TrackWithArtistId> scrobbles);
+
+    /**
+     * Stores the scrobbles numbered on the last pages of the walk and how far it got, and once it is finished extends the
+     * index up to where it ends. If the index is not where the walk started anymore the walk is dropped instead.
+     *
+     * @return whether the walk was stored
+     */
+    boolean storeOrdinalWalk(Connection connection, ScrobbleOrdinalWalk walk, List<ScrobbleOrdinal> ordinals);
+
+    Optional<ScrobbleOrdinalWalk> getOrdinalWalk(Connection connection);
+
+    void deleteOrdinalWalk(Connection connection, String lastfmId);
+
+    /**
+     * @return the number of scrobbles before the end of the index as the ordinal and that end as the timestamp
+     */
+    Optional<ScrobbleOrdinal> getOrdinalStatus(Connection connection, String lastfmId);
+
+    Optional<ScrobbleOrdinal> getOrdinalFloor(Connection connection, String lastfmId, int ordinal);
+
+    Optional<ScrobbleOrdinal> getOrdinalCeiling(Connection connection, String lastfmId, int ordinal);
+
+    /**
+     * @return a user without index or whose index ends before their last update
+     */
+    Optional<String> getUserWithOutdatedOrdinals(Connection connection);
+
+    /**
+     * @return the scrobble that comes offset places after the first one scrobbled from that moment (inclusive)
+     */
+    Optional<TimelineScrobble> getTimelineScrobbleAt(Connection connection, String lastfmId, int from, int offset);
+}
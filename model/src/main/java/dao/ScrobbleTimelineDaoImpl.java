@@ -0,0 +1,487 @@
+package dao;
+
+import dao.entities.ListeningTime;
+import dao.entities.ScrobbleOrdinal;
+import dao.entities.ScrobbleOrdinalWalk;
+import dao.entities.ScrobbleTimeline;
+import dao.entities.StreakState;
+import dao.entities.TimelineScrobble;
+import dao.entities.Track;
+import dao.entities.TrackWithArtistId;
+import dao.exceptions.ChuuServiceException;
+import org.intellij.lang.annotations.Language;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class ScrobbleTimelineDaoImpl implements ScrobbleTimelineDao {
+    private static final int INSERT_CHUNK = 1000;
+    // Same guess Last.fm based commands use for tracks without a duration
+    private static final int AVERAGE_DURATION = 200;
+
+    @Override
+    public void append(Connection connection, String lastfmId, int from, int to, List<TrackWithArtistId> scrobbles) {
+        // Assignments run left to right, so synced_from still compares against the old synced_to
+        @Language("MariaDB") String statusQuery = "INSERT INTO scrobble_timeline_status (lastfm_id,synced_from,synced_to) VALUES (?,?,?) " +
+                "ON DUPLICATE KEY UPDATE synced_from = IF(synced_to = VALUES(synced_from), synced_from, VALUES(synced_from)), synced_to = VALUES(synced_to)";
+        @Language("MariaDB") String cleanQuery = "DELETE FROM scrobble_timeline WHERE lastfm_id = ? AND `timestamp` < (SELECT synced_from FROM scrobble_timeline_status WHERE lastfm_id = ?)";
+        try {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(statusQuery)) {
+                preparedStatement.setString(1, lastfmId);
+                preparedStatement.setInt(2, from);
+                preparedStatement.setInt(3, to);
+                preparedStatement.executeUpdate();
+            }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(cleanQuery)) {
+                preparedStatement.setString(1, lastfmId);
+                preparedStatement.setString(2, lastfmId);
+                preparedStatement.executeUpdate();
+            }
+            for (int start = 0; start < scrobbles.size(); start += INSERT_CHUNK) {
+                insertScrobbles(connection, lastfmId, scrobbles.subList(start, Math.min(scrobbles.size(), start + INSERT_CHUNK)));
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    private void insertScrobbles(Connection connection, String lastfmId, List<TrackWithArtistId> scrobbles) throws SQLException {
+        // Album and track ids are looked up here as the updater does not carry them for every scrobble
+        StringBuilder mySql = new StringBuilder("INSERT INTO scrobble_timeline (lastfm_id,`timestamp`,artist_id,album_id,track_id) VALUES ");
+        String row = "(?,?,?,(SELECT id FROM album WHERE artist_id = ? AND album_name = ?),(SELECT id FROM track WHERE artist_id = ? AND track_name = ?))";
+        mySql.append(row);
+        mySql.append(("," + row).repeat(Math.max(0, scrobbles.size() - 1)));
+        try (PreparedStatement preparedStatement = connection.prepareStatement(mySql.toString())) {
+            for (int i = 0; i < scrobbles.size(); i++) {
+                TrackWithArtistId scrobble = scrobbles.get(i);
+                String album = scrobble.getAlbum();
+                preparedStatement.setString(7 * i + 1, lastfmId);
+                preparedStatement.setInt(7 * i + 2, scrobble.getUtc());
+                preparedStatement.setLong(7 * i + 3, scrobble.getArtistId());
+                preparedStatement.setLong(7 * i + 4, scrobble.getArtistId());
+                preparedStatement.setString(7 * i + 5, album == null || album.isBlank() ? null : album);
+                preparedStatement.setLong(7 * i + 6, scrobble.getArtistId());
+                preparedStatement.setString(7 * i + 7, scrobble.getName());
+            }
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    @Override
+    public Optional<ScrobbleTimeline> getTimeline(Connection connection, String lastfmId) {
+        @Language("MariaDB") String queryString = "SELECT synced_from,synced_to FROM scrobble_timeline_status WHERE lastfm_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ScrobbleTimeline(lastfmId, resultSet.getInt("synced_from"), resultSet.getInt("synced_to")));
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public int countScrobbles(Connection connection, String lastfmId, int from, int to) {
+        @Language("MariaDB") String queryString = "SELECT count(*) FROM scrobble_timeline WHERE lastfm_id = ? AND `timestamp` >= ? AND `timestamp` < ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.setInt(2, from);
+            preparedStatement.setInt(3, to);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public List<TimelineScrobble> getScrobbles(Connection connection, String lastfmId, int from, int to) {
+        String queryString = selectScrobbles() + "WHERE a.lastfm_id = ? AND a.`timestamp` >= ? AND a.`timestamp` < ? ORDER BY a.`timestamp`";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.setInt(2, from);
+            preparedStatement.setInt(3, to);
+            return readScrobbles(preparedStatement.executeQuery());
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public List<TimelineScrobble> getLastScrobbles(Connection connection, String lastfmId, int limit) {
+        String queryString = selectScrobbles() + "WHERE a.lastfm_id = ? ORDER BY a.`timestamp` DESC, a.id DESC LIMIT ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.setInt(2, limit);
+            return readScrobbles(preparedStatement.executeQuery());
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public Optional<StreakState> getStreakState(Connection connection, String lastfmId) {
+        @Language("MariaDB") String queryString = "SELECT artist_name,album_name,track_name,url,artist_combo,album_combo,track_combo,artist_break,album_break,last_scrobble " +
+                "FROM streak_state WHERE lastfm_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            return Optional.of(new StreakState(lastfmId, resultSet.getString(1), resultSet.getString(2), resultSet.getString(3), resultSet.getString(4),
+                    resultSet.getInt(5), resultSet.getInt(6), resultSet.getInt(7), resultSet.getInt(8), resultSet.getInt(9), resultSet.getInt(10)));
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public void storeStreakState(Connection connection, StreakState state) {
+        @Language("MariaDB") String queryString = "INSERT INTO streak_state (lastfm_id,artist_name,album_name,track_name,url,artist_combo,album_combo,track_combo,artist_break,album_break,last_scrobble) " +
+                "VALUES (?,?,?,?,?,?,?,?,?,?,?) ON DUPLICATE KEY UPDATE artist_name = VALUES(artist_name), album_name = VALUES(album_name), track_name = VALUES(track_name), " +
+                "url = VALUES(url), artist_combo = VALUES(artist_combo), album_combo = VALUES(album_combo), track_combo = VALUES(track_combo), " +
+                "artist_break = VALUES(artist_break), album_break = VALUES(album_break), last_scrobble = VALUES(last_scrobble)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, state.getLastfmId());
+            preparedStatement.setString(2, state.getArtist());
+            preparedStatement.setString(3, state.getAlbum());
+            preparedStatement.setString(4, state.getTrack());
+            preparedStatement.setString(5, state.getUrl());
+            preparedStatement.setInt(6, state.getArtistCount());
+            preparedStatement.setInt(7, state.getAlbumCount());
+            preparedStatement.setInt(8, state.getTrackCount());
+            preparedStatement.setInt(9, state.getArtistBreak());
+            preparedStatement.setInt(10, state.getAlbumBreak());
+            preparedStatement.setInt(11, state.getLastScrobble());
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public void deleteStreakState(Connection connection, String lastfmId) {
+        @Language("MariaDB") String queryString = "DELETE FROM streak_state WHERE lastfm_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public void addListeningTime(Connection connection, String lastfmId, int from, int to) {
+        @Language("MariaDB") String updateQuery = "UPDATE user_listening_time a JOIN " +
+                "(SELECT coalesce(sum(coalesce(nullif(c.duration, 0), ?)), 0) AS seconds, count(*) AS scrobbles FROM scrobble_timeline b LEFT JOIN track c ON b.track_id = c.id " +
+                "WHERE b.lastfm_id = ? AND b.`timestamp` >= ? AND b.`timestamp` < ?) d " +
+                "SET a.seconds = a.seconds + d.seconds, a.scrobbles = a.scrobbles + d.scrobbles, a.synced_to = ? WHERE a.lastfm_id = ? AND a.synced_to = ?";
+        @Language("MariaDB") String rebuildQuery = "INSERT INTO user_listening_time (lastfm_id,seconds,scrobbles,synced_to) " +
+                "SELECT ?, coalesce(sum(a.playnumber * coalesce(nullif(b.duration, 0), ?)), 0), coalesce(sum(a.playnumber), 0), ? FROM scrobbled_track a JOIN track b ON a.track_id = b.id WHERE a.lastfm_id = ? " +
+                "ON DUPLICATE KEY UPDATE seconds = VALUES(seconds), scrobbles = VALUES(scrobbles), synced_to = VALUES(synced_to)";
+        try {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)) {
+                preparedStatement.setInt(1, AVERAGE_DURATION);
+                preparedStatement.setString(2, lastfmId);
+                preparedStatement.setInt(3, from);
+                preparedStatement.setInt(4, to);
+                preparedStatement.setInt(5, to);
+                preparedStatement.setString(6, lastfmId);
+                preparedStatement.setInt(7, from);
+                if (preparedStatement.executeUpdate() > 0) {
+                    return;
+                }
+            }
+            // The library already has the scrobbles of this update
+            try (PreparedStatement preparedStatement = connection.prepareStatement(rebuildQuery)) {
+                preparedStatement.setString(1, lastfmId);
+                preparedStatement.setInt(2, AVERAGE_DURATION);
+                preparedStatement.setInt(3, to);
+                preparedStatement.setString(4, lastfmId);
+                preparedStatement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public void deleteListeningTime(Connection connection, String lastfmId) {
+        @Language("MariaDB") String queryString = "DELETE FROM user_listening_time WHERE lastfm_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public Optional<ListeningTime> getListeningTime(Connection connection, String lastfmId) {
+        @Language("MariaDB") String queryString = "SELECT seconds,scrobbles,(SELECT count(*) FROM scrobbled_track b WHERE b.lastfm_id = a.lastfm_id),synced_to " +
+                "FROM user_listening_time a WHERE a.lastfm_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ListeningTime(lastfmId, resultSet.getLong(1), resultSet.getInt(2), resultSet.getInt(3), resultSet.getInt(4)));
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public List<Track> getTimelineTracks(Connection connection, String lastfmId, int from, int to) {
+        @Language("MariaDB") String queryString = "SELECT b.name,coalesce(c.track_name,''),count(*),coalesce(c.duration,0) " +
+                "FROM scrobble_timeline a JOIN artist b ON a.artist_id = b.id LEFT JOIN track c ON a.track_id = c.id " +
+                "WHERE a.lastfm_id = ? AND a.`timestamp` >= ? AND a.`timestamp` < ? GROUP BY a.artist_id,a.track_id";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.setInt(2, from);
+            preparedStatement.setInt(3, to);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            List<Track> tracks = new ArrayList<>();
+            while (resultSet.next()) {
+                tracks.add(new Track(resultSet.getString(1), resultSet.getString(2), resultSet.getInt(3), false, resultSet.getInt(4)));
+            }
+            return tracks;
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public void appendOrdinals(Connection connection, String lastfmId, int from, int to, List<TrackWithArtistId> scrobbles) {
+        Optional<ScrobbleOrdinal> status = getOrdinalStatus(connection, lastfmId);
+        if (status.isEmpty()) {
+            return;
+        }
+        if (status.get().getTimestamp() < from) {
+            // Behind, the backfill walks the scrobbles in between
+            return;
+        }
+        if (status.get().getTimestamp() != from) {
+            deleteOrdinals(connection, lastfmId);
+            return;
+        }
+        List<Integer> timestamps = scrobbles.stream().map(TrackWithArtistId::getUtc).sorted().collect(Collectors.toList());
+        List<ScrobbleOrdinal> ordinals = new ArrayList<>();
+        int total = status.get().getOrdinal();
+        for (Integer timestamp : timestamps) {
+            total++;
+            if (total % ScrobbleOrdinal.STEP == 0) {
+                ordinals.add(new ScrobbleOrdinal(total, timestamp));
+            }
+        }
+        @Language("MariaDB") String statusQuery = "UPDATE scrobble_ordinal_status SET total = ?, synced_to = ? WHERE lastfm_id = ? AND synced_to = ?";
+        try {
+            insertOrdinals(connection, lastfmId, ordinals);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(statusQuery)) {
+                preparedStatement.setInt(1, total);
+                preparedStatement.setInt(2, to);
+                preparedStatement.setString(3, lastfmId);
+                preparedStatement.setInt(4, from);
+                preparedStatement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public boolean storeOrdinalWalk(Connection connection, ScrobbleOrdinalWalk walk, List<ScrobbleOrdinal> ordinals) {
+        String lastfmId = walk.getLastfmId();
+        // The index has to be where the walk started, the updater might have dropped it meanwhile
+        @Language("MariaDB") String currentQuery = "SELECT total,synced_to FROM scrobble_ordinal_status WHERE lastfm_id = ? FOR UPDATE";
+        Optional<ScrobbleOrdinal> status = getOrdinal(connection, currentQuery, lastfmId);
+        boolean current = walk.isFromScratch()
+                ? status.isEmpty()
+                : status.isPresent() && status.get().getTimestamp() == walk.getFrom() && status.get().getOrdinal() == walk.getBase();
+        if (!current) {
+            deleteOrdinalWalk(connection, lastfmId);
+            return false;
+        }
+        try {
+            List<ScrobbleOrdinal> sorted = ordinals.stream().sorted(Comparator.comparingInt(ScrobbleOrdinal::getOrdinal)).collect(Collectors.toList());
+            for (int start = 0; start < sorted.size(); start += INSERT_CHUNK) {
+                insertOrdinals(connection, lastfmId, sorted.subList(start, Math.min(sorted.size(), start + INSERT_CHUNK)));
+            }
+            if (walk.isFinished()) {
+                @Language("MariaDB") String statusQuery = "INSERT INTO scrobble_ordinal_status (lastfm_id,total,synced_to) VALUES (?,?,?) " +
+                        "ON DUPLICATE KEY UPDATE total = VALUES(total), synced_to = VALUES(synced_to)";
+                try (PreparedStatement preparedStatement = connection.prepareStatement(statusQuery)) {
+                    preparedStatement.setString(1, lastfmId);
+                    preparedStatement.setInt(2, walk.getBase() + walk.getTotal());
+                    preparedStatement.setInt(3, walk.getTo());
+                    preparedStatement.executeUpdate();
+                }
+                deleteOrdinalWalk(connection, lastfmId);
+                return true;
+            }
+            @Language("MariaDB") String walkQuery = "INSERT INTO scrobble_ordinal_walk (lastfm_id,from_timestamp,to_timestamp,base,total,seen,next_page,total_pages) " +
+                    "VALUES (?,?,?,?,?,?,?,?) ON DUPLICATE KEY UPDATE total = VALUES(total), seen = VALUES(seen), next_page = VALUES(next_page), total_pages = VALUES(total_pages)";
+            try (PreparedStatement preparedStatement = connection.prepareStatement(walkQuery)) {
+                preparedStatement.setString(1, lastfmId);
+                preparedStatement.setInt(2, walk.getFrom());
+                preparedStatement.setInt(3, walk.getTo());
+                preparedStatement.setInt(4, walk.getBase());
+                preparedStatement.setInt(5, walk.getTotal());
+                preparedStatement.setInt(6, walk.getSeen());
+                preparedStatement.setInt(7, walk.getNextPage());
+                preparedStatement.setInt(8, walk.getTotalPages());
+                preparedStatement.executeUpdate();
+            }
+            return true;
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public Optional<ScrobbleOrdinalWalk> getOrdinalWalk(Connection connection) {
+        @Language("MariaDB") String queryString = "SELECT lastfm_id,from_timestamp,to_timestamp,base,total,seen,next_page,total_pages FROM scrobble_ordinal_walk ORDER BY rand() LIMIT 1";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ScrobbleOrdinalWalk(resultSet.getString(1), resultSet.getInt(2), resultSet.getInt(3), resultSet.getInt(4),
+                    resultSet.getInt(5), resultSet.getInt(6), resultSet.getInt(7), resultSet.getInt(8)));
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public void deleteOrdinalWalk(Connection connection, String lastfmId) {
+        @Language("MariaDB") String queryString = "DELETE FROM scrobble_ordinal_walk WHERE lastfm_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    private void insertOrdinals(Connection connection, String lastfmId, List<ScrobbleOrdinal> ordinals) throws SQLException {
+        if (ordinals.isEmpty()) {
+            return;
+        }
+        String mySql = "INSERT IGNORE INTO scrobble_ordinal (lastfm_id,ordinal,`timestamp`) VALUES (?,?,?)" + ",(?,?,?)".repeat(ordinals.size() - 1);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(mySql)) {
+            for (int i = 0; i < ordinals.size(); i++) {
+                preparedStatement.setString(3 * i + 1, lastfmId);
+                preparedStatement.setInt(3 * i + 2, ordinals.get(i).getOrdinal());
+                preparedStatement.setInt(3 * i + 3, ordinals.get(i).getTimestamp());
+            }
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private void deleteOrdinals(Connection connection, String lastfmId) {
+        @Language("MariaDB") String statusQuery = "DELETE FROM scrobble_ordinal_status WHERE lastfm_id = ?";
+        @Language("MariaDB") String ordinalQuery = "DELETE FROM scrobble_ordinal WHERE lastfm_id = ?";
+        @Language("MariaDB") String walkQuery = "DELETE FROM scrobble_ordinal_walk WHERE lastfm_id = ?";
+        try {
+            for (String query : List.of(statusQuery, ordinalQuery, walkQuery)) {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                    preparedStatement.setString(1, lastfmId);
+                    preparedStatement.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public Optional<ScrobbleOrdinal> getOrdinalStatus(Connection connection, String lastfmId) {
+        @Language("MariaDB") String queryString = "SELECT total,synced_to FROM scrobble_ordinal_status WHERE lastfm_id = ?";
+        return getOrdinal(connection, queryString, lastfmId);
+    }
+
+    @Override
+    public Optional<ScrobbleOrdinal> getOrdinalFloor(Connection connection, String lastfmId, int ordinal) {
+        @Language("MariaDB") String queryString = "SELECT ordinal,`timestamp` FROM scrobble_ordinal WHERE lastfm_id = ? AND ordinal <= ? ORDER BY ordinal DESC LIMIT 1";
+        return getOrdinal(connection, queryString, lastfmId, ordinal);
+    }
+
+    @Override
+    public Optional<ScrobbleOrdinal> getOrdinalCeiling(Connection connection, String lastfmId, int ordinal) {
+        @Language("MariaDB") String queryString = "SELECT ordinal,`timestamp` FROM scrobble_ordinal WHERE lastfm_id = ? AND ordinal > ? ORDER BY ordinal LIMIT 1";
+        return getOrdinal(connection, queryString, lastfmId, ordinal);
+    }
+
+    private Optional<ScrobbleOrdinal> getOrdinal(Connection connection, String queryString, String lastfmId, int... ordinal) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            for (int i = 0; i < ordinal.length; i++) {
+                preparedStatement.setInt(i + 2, ordinal[i]);
+            }
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ScrobbleOrdinal(resultSet.getInt(1), resultSet.getInt(2)));
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public Optional<String> getUserWithOutdatedOrdinals(Connection connection) {
+        @Language("MariaDB") String queryString = "SELECT a.lastfm_id FROM user a LEFT JOIN scrobble_ordinal_status b ON a.lastfm_id = b.lastfm_id " +
+                "WHERE a.last_update != '0000-00-00 00:00:00' AND (b.lastfm_id IS NULL OR b.synced_to < unix_timestamp(a.last_update)) ORDER BY rand() LIMIT 1";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            return Optional.of(resultSet.getString(1));
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public Optional<TimelineScrobble> getTimelineScrobbleAt(Connection connection, String lastfmId, int from, int offset) {
+        String queryString = selectScrobbles() + "WHERE a.lastfm_id = ? AND a.`timestamp` >= ? ORDER BY a.`timestamp`, a.id LIMIT 1 OFFSET ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            preparedStatement.setInt(2, from);
+            preparedStatement.setInt(3, offset);
+            return readScrobbles(preparedStatement.executeQuery()).stream().findFirst();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    private String selectScrobbles() {
+        return "SELECT a.artist_id,b.name,c.album_name,c.url,d.track_name,a.`timestamp` " +
+                "FROM scrobble_timeline a " +
+                "JOIN artist b ON a.artist_id = b.id " +
+                "LEFT JOIN album c ON a.album_id = c.id " +
+                "LEFT JOIN track d ON a.track_id = d.id ";
+    }
+
+    private List<TimelineScrobble> readScrobbles(ResultSet resultSet) throws SQLException {
+        List<TimelineScrobble> scrobbles = new ArrayList<>();
+        while (resultSet.next()) {
+            scrobbles.add(new TimelineScrobble(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                    resultSet.getString(5), resultSet.getString(4), resultSet.getInt(6)));
+        }
+        return scrobbles;
+    }
+}
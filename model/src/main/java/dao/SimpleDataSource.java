@@ -2,12 +2,18 @@ package dao;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import dao.entities.ConnectionPoolStats;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 public class SimpleDataSource {
 
+    private static volatile ConnectionObserver observer;
 
     private final HikariDataSource ds;
 
@@ -34,8 +40,60 @@ public class SimpleDataSource {
 
     }
 
+    /**
+     * Every connection handed out from then on reports to the observer when it is closed
+     */
+    public static void setObserver(ConnectionObserver connectionObserver) {
+        observer = connectionObserver;
+    }
+
     public Connection getConnection() throws SQLException {
-        return ds.getConnection();
+        ConnectionObserver current = observer;
+        boolean profiled = QueryProfiler.isEnabled();
+        if (current == null && !profiled) {
+            return ds.getConnection();
+        }
+        long start = System.nanoTime();
+        Connection connection = ds.getConnection();
+        return observe(connection, current, profiled, System.nanoTime() - start);
+    }
+
+    private Connection observe(Connection connection, ConnectionObserver connectionObserver, boolean profiled, long waitNanos) {
+        long acquired = System.nanoTime();
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("close") && !closed[0]) {
+                closed[0] = true;
+                try {
+                    connection.close();
+                } finally {
+                    if (connectionObserver != null) {
+                        connectionObserver.onConnectionClosed(waitNanos, System.nanoTime() - acquired);
+                    }
+                }
+                return null;
+            }
+            Object result;
+            try {
+                result = method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (profiled && result instanceof Statement) {
+                String sql = name.startsWith("prepare") ? (String) args[0] : null;
+                return QueryProfiler.wrap((Statement) result, method.getReturnType(), sql);
+            }
+            return result;
+        });
+    }
+
+    public ConnectionPoolStats getPoolStats() {
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        if (pool == null) {
+            return new ConnectionPoolStats(0, 0, 0, 0);
+        }
+        return new ConnectionPoolStats(pool.getActiveConnections(), pool.getIdleConnections(), pool.getTotalConnections(), pool.getThreadsAwaitingConnection());
     }
 
 
@@ -162,6 +162,8 @@ interface UpdaterDao {
 
     void logCommand(Connection connection, long discordId, Long guildId, String commandName, long nanos, Instant utc);
 
+    void logCommands(Connection connection, List<CommandLogEntry> entries);
+
     void updateTrackImage(Connection connection, long trackId, String imageUrl);
 
     void updateSpotifyInfo(Connection connection, long trackId, String spotifyId, int duration, String url, int popularity);
@@ -172,4 +174,14 @@ interface UpdaterDao {
     void insertUserInfo(Connection connection, UserInfo userInfo);
 
     Optional<UserInfo> getUserInfo(Connection connection, String lastfmId);
+
+    Optional<Instant> getLastUpdate(Connection connection, String lastfmId);
+
+    void enqueueMissingImages(Connection connection, int limit);
+
+    void bumpImagePriority(Connection connection, long artistId, int hits);
+
+    List<ScrobbledArtist> getImageQueue(Connection connection, int limit);
+
+    void storeImageResults(Connection connection, List<ArtistImageResult> results, long discordId);
 }
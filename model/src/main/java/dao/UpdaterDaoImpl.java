@@ -11,6 +11,8 @@ import javax.annotation.Nullable;
 import java.sql.*;
 import java.text.Normalizer;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.function.Function;
 import java.util.regex.Pattern;
@@ -1535,6 +1537,29 @@ public class UpdaterDaoImpl extends BaseDAO implements UpdaterDao {
 
     }
 
+    @Override
+    public void logCommands(Connection connection, List<CommandLogEntry> entries) {
+        String mySql = "INSERT INTO  command_logs  (discord_id,guild_id,command,nanos,moment) VALUES (?,?,?,?,?)" + ",(?,?,?,?,?)".repeat(Math.max(0, entries.size() - 1));
+        try (PreparedStatement preparedStatement = connection.prepareStatement(mySql)) {
+            for (int i = 0; i < entries.size(); i++) {
+                CommandLogEntry entry = entries.get(i);
+                preparedStatement.setLong(5 * i + 1, entry.getDiscordId());
+                if (entry.getGuildId() != null) {
+                    preparedStatement.setLong(5 * i + 2, entry.getGuildId());
+                } else {
+                    preparedStatement.setNull(5 * i + 2, Types.BIGINT);
+                }
+                preparedStatement.setString(5 * i + 3, entry.getCommandName());
+                preparedStatement.setLong(5 * i + 4, entry.getNanos());
+                // moment is stored in UTC, as its default value
+                preparedStatement.setTimestamp(5 * i + 5, Timestamp.valueOf(LocalDateTime.ofInstant(entry.getUtc(), ZoneOffset.UTC)));
+            }
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
     @Override
     public void updateTrackImage(Connection connection, long trackId, String imageUrl) {
         @Language("MariaDB") String queryString = "UPDATE track SET url = ? WHERE id = ?";
@@ -1631,7 +1656,122 @@ public class UpdaterDaoImpl extends BaseDAO implements UpdaterDao {
         }
     }
 
+    @Override
+    public Optional<Instant> getLastUpdate(Connection connection, String lastfmId) {
+        @Language("MariaDB") String queryString = "SELECT last_update FROM user WHERE lastfm_id = ? AND last_update != '0000-00-00 00:00:00'";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setString(1, lastfmId);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (resultSet.next() && resultSet.getTimestamp(1) != null) {
+                return Optional.of(resultSet.getTimestamp(1).toInstant());
+            }
+            return Optional.empty();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+
+    @Override
+    public void enqueueMissingImages(Connection connection, int limit) {
+        @Language("MariaDB") String queryString = "INSERT INTO artist_image_queue (artist_id, priority) " +
+                "SELECT a.id, count(b.lastfm_id) AS listeners FROM artist a LEFT JOIN scrobbled_artist b ON a.id = b.artist_id " +
+                "WHERE (a.url IS NULL OR (a.url = '' AND a.url_status = 1)) " +
+                "AND NOT EXISTS (SELECT * FROM artist_image_queue c WHERE c.artist_id = a.id) " +
+                "GROUP BY a.id ORDER BY listeners DESC LIMIT ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setInt(1, limit);
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
 
-}
+    @Override
+    public void bumpImagePriority(Connection connection, long artistId, int hits) {
+        @Language("MariaDB") String queryString = "INSERT INTO artist_image_queue (artist_id, priority) VALUES (?, ?) " +
+                "ON DUPLICATE KEY UPDATE priority = priority + values(priority)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setLong(1, artistId);
+            preparedStatement.setInt(2, hits);
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
 
+    @Override
+    public List<ScrobbledArtist> getImageQueue(Connection connection, int limit) {
+        @Language("MariaDB") String queryString = "SELECT a.id, a.name, a.url FROM artist_image_queue q JOIN artist a ON q.artist_id = a.id " +
+                "ORDER BY q.priority DESC, q.added LIMIT ?";
+        List<ScrobbledArtist> returnList = new ArrayList<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+            preparedStatement.setInt(1, limit);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                ScrobbledArtist scrobbledArtist = new ScrobbledArtist(resultSet.getString(2), 0, resultSet.getString(3));
+                scrobbledArtist.setArtistId(resultSet.getLong(1));
+                returnList.add(scrobbledArtist);
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+        return returnList;
+    }
 
+    @Override
+    public void storeImageResults(Connection connection, List<ArtistImageResult> results, long discordId) {
+        if (results.isEmpty()) {
+            return;
+        }
+        List<ArtistImageResult> discogsMisses = results.stream().filter(x -> x.getSource() == ArtistImageResult.Source.DISCOGS && !x.isFound()).collect(Collectors.toList());
+        List<ArtistImageResult> found = results.stream().filter(ArtistImageResult::isFound).collect(Collectors.toList());
+        List<ArtistImageResult> spotify = results.stream().filter(x -> x.getSource() == ArtistImageResult.Source.SPOTIFY).collect(Collectors.toList());
+        List<Long> processed = results.stream().map(ArtistImageResult::getArtistId).distinct().collect(Collectors.toList());
+        try {
+            if (!discogsMisses.isEmpty()) {
+                // Same state updateStatusBit leaves, Spotify still has to be searched
+                String queryString = "UPDATE artist SET correction_status = 1, url = '' WHERE id IN (?" + ",?".repeat(discogsMisses.size() - 1) + ")";
+                try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+                    for (int i = 0; i < discogsMisses.size(); i++) {
+                        preparedStatement.setLong(i + 1, discogsMisses.get(i).getArtistId());
+                    }
+                    preparedStatement.executeUpdate();
+                }
+            }
+            if (!found.isEmpty()) {
+                // alt_url_insert sets the url of the artists that had none
+                String queryString = "INSERT INTO alt_url (artist_id, url, discord_id) VALUES (?, ?, ?)" + ",(?,?,?)".repeat(found.size() - 1) + " ON DUPLICATE KEY UPDATE id = id";
+                try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+                    for (int i = 0; i < found.size(); i++) {
+                        preparedStatement.setLong(3 * i + 1, found.get(i).getArtistId());
+                        preparedStatement.setString(3 * i + 2, found.get(i).getUrl());
+                        preparedStatement.setLong(3 * i + 3, discordId);
+                    }
+                    preparedStatement.executeUpdate();
+                }
+            }
+            if (!spotify.isEmpty()) {
+                // The ones Discogs left empty are not touched by the trigger, a miss leaves the empty url for good
+                String queryString = "UPDATE artist a JOIN (SELECT ? AS id, ? AS spotify_id, ? AS url" + " UNION ALL SELECT ?,?,?".repeat(spotify.size() - 1) + ") v ON a.id = v.id " +
+                        "SET a.url_status = 0, a.spotify_id = v.spotify_id, a.url = if(coalesce(a.url, '') = '', v.url, a.url)";
+                try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+                    for (int i = 0; i < spotify.size(); i++) {
+                        preparedStatement.setLong(3 * i + 1, spotify.get(i).getArtistId());
+                        preparedStatement.setString(3 * i + 2, spotify.get(i).getSpotifyId());
+                        preparedStatement.setString(3 * i + 3, spotify.get(i).getUrl());
+                    }
+                    preparedStatement.executeUpdate();
+                }
+            }
+            String queryString = "DELETE FROM artist_image_queue WHERE artist_id IN (?" + ",?".repeat(processed.size() - 1) + ")";
+            try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+                for (int i = 0; i < processed.size(); i++) {
+                    preparedStatement.setLong(i + 1, processed.get(i));
+                }
+                preparedStatement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new ChuuServiceException(e);
+        }
+    }
+}
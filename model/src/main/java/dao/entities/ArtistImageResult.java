@@ -0,0 +1,51 @@
+package dao.entities;
+
+/**
+ * What looking for the image of an artist ended up with. An empty url means the source had nothing for the artist,
+ * which for Discogs still leaves Spotify to be searched.
+ */
+public class ArtistImageResult {
+    private final long artistId;
+    private final Source source;
+    private final String url;
+    private final String spotifyId;
+
+    private ArtistImageResult(long artistId, Source source, String url, String spotifyId) {
+        this.artistId = artistId;
+        this.source = source;
+        this.url = url;
+        this.spotifyId = spotifyId;
+    }
+
+    public static ArtistImageResult discogs(long artistId, String url) {
+        return new ArtistImageResult(artistId, Source.DISCOGS, url == null ? "" : url, null);
+    }
+
+    public static ArtistImageResult spotify(long artistId, String url, String spotifyId) {
+        return new ArtistImageResult(artistId, Source.SPOTIFY, url == null ? "" : url, spotifyId == null || spotifyId.isBlank() ? null : spotifyId);
+    }
+
+    public long getArtistId() {
+        return artistId;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getSpotifyId() {
+        return spotifyId;
+    }
+
+    public boolean isFound() {
+        return !url.isBlank();
+    }
+
+    public enum Source {
+        DISCOGS, SPOTIFY
+    }
+}
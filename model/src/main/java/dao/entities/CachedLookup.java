@@ -0,0 +1,20 @@
+package dao.entities;
+
+/**
+ * Answer an external api gave for a lookup, kept until it expires. A null value means the api had nothing for it.
+ */
+public class CachedLookup {
+    private final String value;
+
+    public CachedLookup(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isFound() {
+        return value != null;
+    }
+}
@@ -0,0 +1,39 @@
+package dao.entities;
+
+import java.time.Instant;
+
+public class CommandLogEntry {
+    private final long discordId;
+    private final Long guildId;
+    private final String commandName;
+    private final long nanos;
+    private final Instant utc;
+
+    public CommandLogEntry(long discordId, Long guildId, String commandName, long nanos, Instant utc) {
+        this.discordId = discordId;
+        this.guildId = guildId;
+        this.commandName = commandName;
+        this.nanos = nanos;
+        this.utc = utc;
+    }
+
+    public long getDiscordId() {
+        return discordId;
+    }
+
+    public Long getGuildId() {
+        return guildId;
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public Instant getUtc() {
+        return utc;
+    }
+}
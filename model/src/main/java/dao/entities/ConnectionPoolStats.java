@@ -0,0 +1,31 @@
+package dao.entities;
+
+public class ConnectionPoolStats {
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int waiting;
+
+    public ConnectionPoolStats(int active, int idle, int total, int waiting) {
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.waiting = waiting;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+}
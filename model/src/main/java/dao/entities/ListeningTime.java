@@ -0,0 +1,40 @@
+package dao.entities;
+
+/**
+ * All the time a user has spent listening to music until syncedTo (exclusive, as epoch seconds)
+ */
+public class ListeningTime {
+    private final String lastfmId;
+    private final long seconds;
+    private final int scrobbles;
+    private final int tracks;
+    private final int syncedTo;
+
+    public ListeningTime(String lastfmId, long seconds, int scrobbles, int tracks, int syncedTo) {
+        this.lastfmId = lastfmId;
+        this.seconds = seconds;
+        this.scrobbles = scrobbles;
+        this.tracks = tracks;
+        this.syncedTo = syncedTo;
+    }
+
+    public String getLastfmId() {
+        return lastfmId;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    public int getScrobbles() {
+        return scrobbles;
+    }
+
+    public int getTracks() {
+        return tracks;
+    }
+
+    public int getSyncedTo() {
+        return syncedTo;
+    }
+}
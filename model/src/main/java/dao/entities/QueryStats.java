@@ -0,0 +1,31 @@
+package dao.entities;
+
+public class QueryStats {
+    private final String caller;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    public QueryStats(String caller, long count, long totalNanos, long maxNanos) {
+        this.caller = caller;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getCaller() {
+        return caller;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+}
@@ -0,0 +1,24 @@
+package dao.entities;
+
+/**
+ * The timestamp of the scrobble number ordinal of a user, counting from one for the first scrobble ever
+ */
+public class ScrobbleOrdinal {
+    // Every how many scrobbles the index keeps one
+    public static final int STEP = 200;
+    private final int ordinal;
+    private final int timestamp;
+
+    public ScrobbleOrdinal(int ordinal, int timestamp) {
+        this.ordinal = ordinal;
+        this.timestamp = timestamp;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public int getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,94 @@
+package dao.entities;
+
+/**
+ * How far a walk through the scrobbles of a user between two moments has got, newest first, so it can go on from
+ * there on the next run. The scrobbles are numbered following base, the count the index already had at from.
+ */
+public class ScrobbleOrdinalWalk {
+    private final String lastfmId;
+    private final int from;
+    private final int to;
+    private final int base;
+    private int total;
+    private int seen;
+    private int nextPage;
+    private int totalPages;
+
+    public ScrobbleOrdinalWalk(String lastfmId, int from, int to, int base, int total, int seen, int nextPage, int totalPages) {
+        this.lastfmId = lastfmId;
+        this.from = from;
+        this.to = to;
+        this.base = base;
+        this.total = total;
+        this.seen = seen;
+        this.nextPage = nextPage;
+        this.totalPages = totalPages;
+    }
+
+    /**
+     * @param from where the index ends, 0 if there is none
+     * @param base the number of scrobbles on the index
+     */
+    public static ScrobbleOrdinalWalk start(String lastfmId, int from, int to, int base) {
+        return new ScrobbleOrdinalWalk(lastfmId, from, to, base, 0, 0, 1, 1);
+    }
+
+    public boolean isFinished() {
+        return nextPage > totalPages;
+    }
+
+    /**
+     * Whether the walk builds the index from scratch instead of extending the one already stored
+     */
+    public boolean isFromScratch() {
+        return from == 0;
+    }
+
+    public String getLastfmId() {
+        return lastfmId;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public int getBase() {
+        return base;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getSeen() {
+        return seen;
+    }
+
+    public void setSeen(int seen) {
+        this.seen = seen;
+    }
+
+    public int getNextPage() {
+        return nextPage;
+    }
+
+    public void setNextPage(int nextPage) {
+        this.nextPage = nextPage;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+}
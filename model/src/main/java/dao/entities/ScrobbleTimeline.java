@@ -0,0 +1,33 @@
+package dao.entities;
+
+/**
+ * The stretch of the history of a user that is stored locally, from syncedFrom (inclusive) to syncedTo (exclusive),
+ * both as epoch seconds. Anything from syncedTo onwards has not been fetched by the updater yet.
+ */
+public class ScrobbleTimeline {
+    private final String lastfmId;
+    private final int syncedFrom;
+    private final int syncedTo;
+
+    public ScrobbleTimeline(String lastfmId, int syncedFrom, int syncedTo) {
+        this.lastfmId = lastfmId;
+        this.syncedFrom = syncedFrom;
+        this.syncedTo = syncedTo;
+    }
+
+    public String getLastfmId() {
+        return lastfmId;
+    }
+
+    public int getSyncedFrom() {
+        return syncedFrom;
+    }
+
+    public int getSyncedTo() {
+        return syncedTo;
+    }
+
+    public boolean covers(int from) {
+        return syncedFrom <= from;
+    }
+}
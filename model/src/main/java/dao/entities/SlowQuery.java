@@ -0,0 +1,40 @@
+package dao.entities;
+
+import java.time.Instant;
+import java.util.List;
+
+public class SlowQuery {
+    private final String caller;
+    private final String sql;
+    private final List<String> binds;
+    private final long nanos;
+    private final Instant moment;
+
+    public SlowQuery(String caller, String sql, List<String> binds, long nanos, Instant moment) {
+        this.caller = caller;
+        this.sql = sql;
+        this.binds = binds;
+        this.nanos = nanos;
+        this.moment = moment;
+    }
+
+    public String getCaller() {
+        return caller;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getBinds() {
+        return binds;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public Instant getMoment() {
+        return moment;
+    }
+}
@@ -0,0 +1,139 @@
+package dao.entities;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The streak of a user as of its last folded scrobble, so it can be carried forward with the newer scrobbles only.
+ * <p>
+ * Each counter is the length of the run that ends on the last scrobble. The breaks are the timestamps of the scrobbles
+ * right before the artist and the album runs, zero while the run reaches the first scrobble ever folded.
+ */
+public class StreakState {
+    private final String lastfmId;
+    private String artist;
+    private String album;
+    private String track;
+    private String url;
+    private int artistCount;
+    private int albumCount;
+    private int trackCount;
+    private int artistBreak;
+    private int albumBreak;
+    private int lastScrobble;
+
+    public StreakState(String lastfmId, String artist, String album, String track, String url, int artistCount, int albumCount, int trackCount, int artistBreak, int albumBreak, int lastScrobble) {
+        this.lastfmId = lastfmId;
+        this.artist = artist;
+        this.album = album;
+        this.track = track;
+        this.url = url;
+        this.artistCount = artistCount;
+        this.albumCount = albumCount;
+        this.trackCount = trackCount;
+        this.artistBreak = artistBreak;
+        this.albumBreak = albumBreak;
+        this.lastScrobble = lastScrobble;
+    }
+
+    public static StreakState empty(String lastfmId) {
+        return new StreakState(lastfmId, null, null, null, null, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Folds a scrobble newer than every one folded before
+     */
+    public void add(String artist, String album, String track, String url, int utc) {
+        if (album != null && album.isBlank()) {
+            album = null;
+        }
+        if (artistCount > 0 && artist.equals(this.artist)) {
+            artistCount++;
+        } else {
+            artistCount = 1;
+            artistBreak = lastScrobble;
+        }
+        if (album == null) {
+            // Scrobbles without album do not start a run, so only the artist run can tell where the streak began
+            albumCount = 0;
+            albumBreak = utc;
+        } else if (albumCount > 0 && album.equals(this.album)) {
+            albumCount++;
+        } else {
+            albumCount = 1;
+            albumBreak = lastScrobble;
+        }
+        if (trackCount > 0 && Objects.equals(track, this.track)) {
+            trackCount++;
+        } else {
+            trackCount = 1;
+        }
+        this.artist = artist;
+        this.album = album;
+        this.track = track;
+        this.url = url;
+        this.lastScrobble = utc;
+    }
+
+    /**
+     * @return whether the streak might have started before the first scrobble that was folded
+     */
+    public boolean isOpenEnded() {
+        return Math.min(artistBreak, albumBreak) == 0;
+    }
+
+    public Optional<StreakEntity> toStreak() {
+        if (artistCount == 0) {
+            return Optional.empty();
+        }
+        // The streak ends once both the artist and the album runs are over, whatever the track did before that
+        int tCounter = Math.min(trackCount, Math.max(artistCount, albumCount));
+        Instant streakStart = Instant.ofEpochSecond(Math.min(artistBreak, albumBreak));
+        return Optional.of(new StreakEntity(artist, artistCount, album, albumCount, track, tCounter, streakStart, url == null ? "" : url));
+    }
+
+    public String getLastfmId() {
+        return lastfmId;
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public String getAlbum() {
+        return album;
+    }
+
+    public String getTrack() {
+        return track;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getArtistCount() {
+        return artistCount;
+    }
+
+    public int getAlbumCount() {
+        return albumCount;
+    }
+
+    public int getTrackCount() {
+        return trackCount;
+    }
+
+    public int getArtistBreak() {
+        return artistBreak;
+    }
+
+    public int getAlbumBreak() {
+        return albumBreak;
+    }
+
+    public int getLastScrobble() {
+        return lastScrobble;
+    }
+}
@@ -0,0 +1,43 @@
+package dao.entities;
+
+public class TimelineScrobble {
+    private final long artistId;
+    private final String artist;
+    private final String album;
+    private final String track;
+    private final String albumUrl;
+    private final int utc;
+
+    public TimelineScrobble(long artistId, String artist, String album, String track, String albumUrl, int utc) {
+        this.artistId = artistId;
+        this.artist = artist;
+        this.album = album;
+        this.track = track;
+        this.albumUrl = albumUrl;
+        this.utc = utc;
+    }
+
+    public long getArtistId() {
+        return artistId;
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public String getAlbum() {
+        return album;
+    }
+
+    public String getTrack() {
+        return track;
+    }
+
+    public String getAlbumUrl() {
+        return albumUrl;
+    }
+
+    public int getUtc() {
+        return utc;
+    }
+}
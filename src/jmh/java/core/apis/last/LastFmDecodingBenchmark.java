@@ -0,0 +1,96 @@
+package core.apis.last;
+
+import core.apis.last.chartentities.AlbumChart;
+import core.apis.last.chartentities.ArtistChart;
+import core.apis.last.chartentities.TrackChart;
+import core.apis.last.chartentities.UrlCapsule;
+import core.parsers.params.ChartParameters;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Decoding a full page of a top chart the way {@link ConcurrentLastFM#getChart} does, from the body of the response
+ * to the entries of the chart. The page is generated with the same shape Last.fm answers with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LastFmDecodingBenchmark {
+    private static final String[] IMAGE_SIZES = {"small", "medium", "large", "extralarge"};
+
+    @Param({"1000"})
+    public int items;
+
+    @Param({"ALBUM", "ARTIST", "TRACK"})
+    public TopEntity entity;
+
+    private String body;
+    private BiFunction<JSONObject, Integer, UrlCapsule> parser;
+
+    @Setup
+    public void setUp() {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < items; i++) {
+            JSONObject item = new JSONObject()
+                    .put("name", entity == TopEntity.ARTIST ? "Artist " + i : "Entry number " + i)
+                    .put("playcount", String.valueOf(items * 10 - i))
+                    .put("mbid", i % 3 == 0 ? "" : "0383dadf-2a4e-4d10-a46a-e9e041da8eb3")
+                    .put("url", "https://www.last.fm/music/Artist+" + i)
+                    .put("@attr", new JSONObject().put("rank", String.valueOf(i + 1)));
+            JSONArray images = new JSONArray();
+            for (String size : IMAGE_SIZES) {
+                images.put(new JSONObject().put("size", size).put("#text", "https://lastfm.freetls.fastly.net/i/u/300x300/" + Integer.toHexString(i * 7919) + ".png"));
+            }
+            item.put("image", images);
+            if (entity != TopEntity.ARTIST) {
+                item.put("artist", new JSONObject()
+                        .put("name", "Artist " + i / 4)
+                        .put("mbid", "")
+                        .put("url", "https://www.last.fm/music/Artist+" + i / 4));
+            }
+            if (entity == TopEntity.TRACK) {
+                item.put("duration", "215").put("streamable", new JSONObject().put("fulltrack", "0").put("#text", "0"));
+            }
+            array.put(item);
+        }
+        JSONObject page = new JSONObject().put(entity.getLeadingObject(), new JSONObject()
+                .put(entity.getArrayObject(), array)
+                .put("@attr", new JSONObject()
+                        .put("user", "benchmark")
+                        .put("page", "1")
+                        .put("perPage", String.valueOf(items))
+                        .put("totalPages", "3")
+                        .put("total", String.valueOf(items * 3))));
+        body = page.toString();
+
+        ChartParameters params = ChartParameters.toListParams();
+        switch (entity) {
+            case ALBUM:
+                parser = AlbumChart.getAlbumParser(params);
+                break;
+            case ARTIST:
+                parser = ArtistChart.getArtistParser(params);
+                break;
+            default:
+                parser = TrackChart.getTrackParser(params);
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh) {
+        JSONObject obj = new JSONObject(body).getJSONObject(entity.getLeadingObject());
+        bh.consume(obj.getJSONObject("@attr").getInt("total"));
+        JSONArray arr = obj.getJSONArray(entity.getArrayObject());
+        for (int i = 0; i < arr.length(); i++) {
+            bh.consume(parser.apply(arr.getJSONObject(i), i));
+        }
+    }
+}
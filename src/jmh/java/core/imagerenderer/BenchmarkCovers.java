@@ -0,0 +1,67 @@
+package core.imagerenderer;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generated covers so the renderer benchmarks neither need the network nor a corpus of real images.
+ * They are seeded, two runs with the same arguments draw the same images.
+ */
+public final class BenchmarkCovers {
+    private BenchmarkCovers() {
+    }
+
+    /**
+     * @return count images of size x size with gradients and shapes, so they compress and quantize like real covers
+     */
+    public static List<BufferedImage> generate(int count, int size, long seed) {
+        Random random = new Random(seed);
+        List<BufferedImage> covers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setPaint(new GradientPaint(0, 0, new Color(random.nextInt(0xFFFFFF)), size, size, new Color(random.nextInt(0xFFFFFF))));
+            g.fillRect(0, 0, size, size);
+            for (int j = 0; j < 12; j++) {
+                g.setColor(new Color(random.nextInt(0xFFFFFF) | random.nextInt(256) << 24, true));
+                int w = 1 + random.nextInt(size / 2);
+                int h = 1 + random.nextInt(size / 2);
+                if (random.nextBoolean()) {
+                    g.fillOval(random.nextInt(size), random.nextInt(size), w, h);
+                } else {
+                    g.fillRect(random.nextInt(size), random.nextInt(size), w, h);
+                }
+            }
+            g.dispose();
+            covers.add(image);
+        }
+        return covers;
+    }
+
+    /**
+     * Writes the covers as png files under a new temporary directory.
+     *
+     * @return the file urls of the covers, in the same order
+     */
+    public static List<String> write(List<BufferedImage> covers) throws IOException {
+        Path dir = Files.createTempDirectory("chuu-covers");
+        dir.toFile().deleteOnExit();
+        List<String> urls = new ArrayList<>(covers.size());
+        for (int i = 0; i < covers.size(); i++) {
+            File file = dir.resolve(i + ".png").toFile();
+            ImageIO.write(covers.get(i), "png", file);
+            file.deleteOnExit();
+            urls.add(file.toURI().toString());
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,54 @@
+package core.imagerenderer;
+
+import core.apis.last.chartentities.AlbumChart;
+import core.apis.last.chartentities.UrlCapsule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chart collages of size x size albums. The covers are files on disk, the first invocation copies them into the image
+ * cache so what is measured is a chart whose covers were already downloaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollageMakerBenchmark {
+    private static final int DISTINCT_COVERS = 50;
+
+    @Param({"3", "5", "10"})
+    public int size;
+
+    @Param({"JPEG_BIG", "PNG_BIG", "JPEG_SMALL"})
+    public ChartQuality chartQuality;
+
+    @Param({"false", "true"})
+    public boolean asideMode;
+
+    private List<String> urls;
+
+    @Setup
+    public void setUp() throws IOException {
+        urls = BenchmarkCovers.write(BenchmarkCovers.generate(DISTINCT_COVERS, 300, 1));
+    }
+
+    @Benchmark
+    public void collage(Blackhole bh) {
+        BlockingQueue<UrlCapsule> queue = new LinkedBlockingQueue<>();
+        for (int i = 0; i < size * size; i++) {
+            queue.add(new AlbumChart(urls.get(i % urls.size()), i, "Album " + i, "Artist " + i, null, 1000 - i, true, true, asideMode));
+        }
+        BufferedImage image = CollageMaker.generateCollageThreaded(size, size, queue, chartQuality, asideMode);
+        bh.consume(image);
+        CanvasPool.giveBack(image);
+    }
+}
@@ -0,0 +1,54 @@
+package core.imagerenderer;
+
+import dao.entities.ReturnNowPlaying;
+import dao.entities.WrapperReturnNowPlaying;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The who knows image of an artist with {@code rows} listeners. As with a popular artist on the bot, its image is on
+ * the disk cache and its blurred background is cached after the first invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhoKnowsMakerBenchmark {
+    @Param({"1", "10"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean withLogo;
+
+    private WrapperReturnNowPlaying wrapper;
+    private BufferedImage logo;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<BufferedImage> images = BenchmarkCovers.generate(2, 300, 2);
+        String url = BenchmarkCovers.write(images.subList(0, 1)).get(0);
+        List<ReturnNowPlaying> listeners = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ReturnNowPlaying nowPlaying = new ReturnNowPlaying(i, "lastfm" + i, "Artist", 5000 / (i + 1));
+            nowPlaying.setDiscordName("Listener number " + i);
+            listeners.add(nowPlaying);
+        }
+        wrapper = new WrapperReturnNowPlaying(listeners, rows, url, "Artist");
+        logo = withLogo ? images.get(1).getSubimage(0, 0, 100, 100) : null;
+    }
+
+    @Benchmark
+    public void whoKnows(Blackhole bh) {
+        BufferedImage image = WhoKnowsMaker.generateWhoKnows(wrapper, "Benchmark Server", logo);
+        bh.consume(image);
+        CanvasPool.giveBack(image);
+    }
+}
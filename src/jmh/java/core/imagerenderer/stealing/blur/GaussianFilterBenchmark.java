@@ -0,0 +1,47 @@
+package core.imagerenderer.stealing.blur;
+
+import core.imagerenderer.BenchmarkCovers;
+import core.imagerenderer.util.FastBlur;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blurring a cover into a background of width x height, the way the who knows and profile images do it.
+ * GAUSSIAN runs {@link GaussianFilter} over the whole canvas, the other qualities are the approximations that can be
+ * picked with BLUR_QUALITY.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GaussianFilterBenchmark {
+    @Param({"800x500", "1920x1080"})
+    public String dimensions;
+
+    @Param({"90"})
+    public float radius;
+
+    @Param({"GAUSSIAN", "HIGH", "MEDIUM", "LOW"})
+    public FastBlur.Quality quality;
+
+    private BufferedImage cover;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setUp() {
+        String[] split = dimensions.split("x");
+        width = Integer.parseInt(split[0]);
+        height = Integer.parseInt(split[1]);
+        cover = BenchmarkCovers.generate(1, 300, 3).get(0);
+    }
+
+    @Benchmark
+    public BufferedImage blur() {
+        return FastBlur.blurredCopy(cover, width, height, radius, quality);
+    }
+}
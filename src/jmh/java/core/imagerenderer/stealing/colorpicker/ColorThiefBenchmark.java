@@ -0,0 +1,102 @@
+package core.imagerenderer.stealing.colorpicker;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Palette extraction over a corpus of covers.
+ * The corpus is every image found on {@code coversDir} (-p coversDir=/path/to/covers), falling back to the images
+ * bundled on the resources when it is not given.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColorThiefBenchmark {
+    private static final String[] BUNDLED = {"/images/noArtistImage.png", "/images/logo2.png", "/images/template.png"};
+
+    @Param({""})
+    public String coversDir;
+
+    @Param({"1", "10"})
+    public int quality;
+
+    @Param({"NATIVE", "INT_RGB", "3BYTE_BGR"})
+    public String layout;
+
+    private List<BufferedImage> covers;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<BufferedImage> images = new ArrayList<>();
+        if (!coversDir.isBlank()) {
+            File[] files = new File(coversDir).listFiles();
+            if (files == null) {
+                throw new IllegalStateException(coversDir + " is not a directory");
+            }
+            for (File file : files) {
+                BufferedImage read = file.isFile() ? ImageIO.read(file) : null;
+                if (read != null) {
+                    images.add(read);
+                }
+            }
+        } else {
+            for (String resource : BUNDLED) {
+                try (InputStream in = ColorThiefBenchmark.class.getResourceAsStream(resource)) {
+                    images.add(ImageIO.read(in));
+                }
+            }
+        }
+        covers = new ArrayList<>(images.size());
+        for (BufferedImage image : images) {
+            covers.add(convert(image));
+        }
+    }
+
+    private BufferedImage convert(BufferedImage image) {
+        int type;
+        switch (layout) {
+            case "INT_RGB":
+                type = BufferedImage.TYPE_INT_RGB;
+                break;
+            case "3BYTE_BGR":
+                type = BufferedImage.TYPE_3BYTE_BGR;
+                break;
+            default:
+                return image;
+        }
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return converted;
+    }
+
+    @Benchmark
+    public void palette(Blackhole bh) {
+        for (BufferedImage cover : covers) {
+            bh.consume(ColorThiefCustom.getPalette(cover, 2, quality, false));
+        }
+    }
+
+    @Benchmark
+    public void dominantColor(Blackhole bh) {
+        for (BufferedImage cover : covers) {
+            Pair<Color, Color> color = ColorThiefCustom.getColor(cover, quality, false);
+            bh.consume(color);
+        }
+    }
+}
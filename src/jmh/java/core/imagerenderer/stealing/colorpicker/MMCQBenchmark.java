@@ -0,0 +1,50 @@
+package core.imagerenderer.stealing.colorpicker;
+
+import core.imagerenderer.BenchmarkCovers;
+import core.imagerenderer.GraphicUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Median cut quantization on its own, without the sampling done by {@link ColorThiefCustom}, and the plain average
+ * color used by the renderers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MMCQBenchmark {
+    @Param({"150", "300"})
+    public int size;
+
+    @Param({"2", "10"})
+    public int maxColors;
+
+    private BufferedImage cover;
+    private int[][] pixels;
+
+    @Setup
+    public void setUp() {
+        cover = BenchmarkCovers.generate(1, size, 4).get(0);
+        int[] rgb = cover.getRGB(0, 0, size, size, null, 0, size);
+        pixels = new int[rgb.length][];
+        for (int i = 0; i < rgb.length; i++) {
+            pixels[i] = new int[]{(rgb[i] >> 16) & 0xFF, (rgb[i] >> 8) & 0xFF, rgb[i] & 0xFF};
+        }
+    }
+
+    @Benchmark
+    public MMCQ.CMap quantize() {
+        return MMCQ.quantize(pixels, maxColors);
+    }
+
+    @Benchmark
+    public Color averageColor() {
+        return GraphicUtils.averageColor(cover);
+    }
+}
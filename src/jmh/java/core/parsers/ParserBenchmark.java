@@ -0,0 +1,72 @@
+package core.parsers;
+
+import core.parsers.exceptions.InvalidChartValuesException;
+import core.parsers.exceptions.InvalidDateException;
+import dao.entities.TimeFrameEnum;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The text parsing done before most chart and date commands, from the words of the message onwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    private static final String[][] CHART_MESSAGES = {
+            {},
+            {"5x5"},
+            {"w", "3x3"},
+            {"monthly", "10x10"},
+            {"2", "weeks", "4x4"},
+            {"alltime"},
+    };
+    private static final String[] DATES = {
+            "2020/05/12",
+            "12 may 2020",
+            "may 2020",
+            "12-05-20",
+            "march",
+            "1 1 1",
+    };
+
+    @Benchmark
+    public void chartSize(Blackhole bh) throws InvalidChartValuesException {
+        for (String[] words : CHART_MESSAGES) {
+            bh.consume(new ChartParserAux(words).getChartSize());
+        }
+    }
+
+    @Benchmark
+    public void timeFrame(Blackhole bh) {
+        for (String[] words : CHART_MESSAGES) {
+            bh.consume(new ChartParserAux(words).parseTimeframe(TimeFrameEnum.ALL));
+        }
+    }
+
+    @Benchmark
+    public void naturalTimeFrame(Blackhole bh) {
+        for (String[] words : CHART_MESSAGES) {
+            bh.consume(new ChartParserAux(words).parseNaturalTimeFrame());
+        }
+    }
+
+    @Benchmark
+    public void customTimeFrame(Blackhole bh) throws InvalidDateException {
+        for (String[] words : CHART_MESSAGES) {
+            bh.consume(new ChartParserAux(words).parseCustomTimeFrame(TimeFrameEnum.ALL));
+        }
+    }
+
+    @Benchmark
+    public void date(Blackhole bh) {
+        for (String date : DATES) {
+            bh.consume(DateParser.parseDate(date));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dao;
+
+import dao.entities.ScrobbledArtist;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving the ids of the artists of a library update with {@link UpdaterDaoImpl#fillIds}.
+ * It runs against an in memory H2 database in MySQL mode with the artist table of the schema, so the numbers tell
+ * how the statement scales with the size of the library rather than how fast MariaDB answers it.
+ * Half of the artists of the library are on the table, as the rest would be new artists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FillIdsBenchmark {
+    @Param({"100000"})
+    public int tableSize;
+
+    @Param({"100", "1000", "5000"})
+    public int librarySize;
+
+    private final UpdaterDaoImpl updaterDao = new UpdaterDaoImpl();
+    private Connection connection;
+    private List<ScrobbledArtist> library;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:fillids;MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS artist");
+            statement.execute("CREATE TABLE artist (" +
+                    "id BIGINT NOT NULL AUTO_INCREMENT, " +
+                    "name VARCHAR(400) NOT NULL, " +
+                    "url VARCHAR(400) DEFAULT NULL, " +
+                    "url_status TINYINT DEFAULT 1, " +
+                    "correction_status TINYINT DEFAULT 0, " +
+                    "PRIMARY KEY (id), " +
+                    "UNIQUE (name))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO artist (name) VALUES (?)")) {
+            for (int i = 0; i < tableSize; i++) {
+                insert.setString(1, "Artist " + i);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        library = new ArrayList<>(librarySize);
+        int step = Math.max(1, tableSize / librarySize);
+        for (int i = 0; i < librarySize; i++) {
+            // Even positions exist on the table, odd ones do not
+            String name = i % 2 == 0 ? "Artist " + (i * step) % tableSize : "New artist " + i;
+            library.add(new ScrobbledArtist("benchmark", name, librarySize - i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE artist");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<ScrobbledArtist> fillIds() {
+        // Names are unique so fillIds only sets the ids, the list can be reused between invocations
+        updaterDao.fillIds(connection, library);
+        return library;
+    }
+}
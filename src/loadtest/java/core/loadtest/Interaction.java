@@ -0,0 +1,82 @@
+package core.loadtest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One synthetic message and what the bot did with it
+ */
+class Interaction {
+    private final String command;
+    private final long userId;
+    private final long start = System.nanoTime();
+    private final AtomicLong firstReply = new AtomicLong(-1);
+    private final AtomicInteger replies = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile long end = -1;
+
+    Interaction(String command, long userId) {
+        this.command = command;
+        this.userId = userId;
+    }
+
+    void reply(String content) {
+        firstReply.compareAndSet(-1, System.nanoTime());
+        replies.incrementAndGet();
+        // Parser#sendError is the way every command reports a failure
+        if (content.startsWith("Error on ")) {
+            errors.incrementAndGet();
+        }
+    }
+
+    void callbackFailed(RuntimeException e) {
+        errors.incrementAndGet();
+    }
+
+    void finish() {
+        end = System.nanoTime();
+        done.countDown();
+    }
+
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    String getCommand() {
+        return command;
+    }
+
+    long getUserId() {
+        return userId;
+    }
+
+    boolean isFinished() {
+        return end != -1;
+    }
+
+    /**
+     * @return nanos from the message being dispatched to the command finishing, queue time included
+     */
+    long getLatency() {
+        return end - start;
+    }
+
+    /**
+     * @return nanos until the first message was sent back, or -1 if nothing was sent
+     */
+    long getFirstReplyLatency() {
+        long reply = firstReply.get();
+        return reply == -1 ? -1 : reply - start;
+    }
+
+    int getReplies() {
+        return replies.get();
+    }
+
+    boolean hasErrors() {
+        return errors.get() > 0;
+    }
+}
@@ -0,0 +1,331 @@
+package core.loadtest;
+
+import core.Chuu;
+import core.commands.*;
+import core.services.CachingChuuService;
+import core.services.CommandLogWriter;
+import dao.ChuuService;
+import dao.entities.CommandLogEntry;
+import dao.entities.ConnectionPoolStats;
+import dao.exceptions.InstanceNotFoundException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays synthetic discord traffic through {@link CustomInterfacedEventManager} against a local database and a
+ * {@link StubLastFm}, then reports throughput, latency per command and resource usage.
+ * <p>
+ * Run it with {@code gradlew loadTest}, options are given as key=value pairs with -Ploadtest.args, e.g.
+ * {@code -Ploadtest.args="users=500 rate=50 seconds=120 mix=np:40,chart+3x3:20,wk:20"}. The database is the one on
+ * datasource.properties and it must have the schema already created.
+ * <p>
+ * Each synthetic user is registered the first time with a {@code set} command, which goes through the whole library
+ * download against the stub. A user never has two commands running at once, that is how the end of a command is
+ * matched with its message.
+ */
+public class LoadTest {
+    private static final String DEFAULT_MIX = "np:30,wk:15,chart:15,top:5,plays:10,crowns:10,profile:5,unique:5,update:5";
+
+    private final Map<String, String> options;
+    private final Map<Long, Interaction> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, List<Interaction>> done = new ConcurrentHashMap<>();
+    private final AtomicInteger saturated = new AtomicInteger();
+    private final AtomicLong peakHeap = new AtomicLong();
+    private final AtomicInteger peakThreads = new AtomicInteger();
+    private final AtomicInteger peakActiveConnections = new AtomicInteger();
+    private final AtomicInteger peakWaitingThreads = new AtomicInteger();
+    private final Random random = new Random(42);
+    private ChuuService dao;
+    private SyntheticDiscord discord;
+    private CustomInterfacedEventManager manager;
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Options are given as key=value, got " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        new LoadTest(options).run();
+        System.exit(0);
+    }
+
+    private int intOption(String key, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(key, String.valueOf(defaultValue)));
+    }
+
+    private void run() throws Exception {
+        int users = intOption("users", 100);
+        int guilds = intOption("guilds", 5);
+        int seconds = intOption("seconds", 60);
+        int rate = intOption("rate", 20);
+        int timeout = intOption("timeout", 60);
+        Map<String, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+
+        StubLastFm stub = new StubLastFm(intOption("port", 0), intOption("stubThreads", 32), intOption("lastfmDelay", 100));
+        stub.start();
+        // Must be set before any Last.fm client is created
+        System.setProperty("chuu.lastfm.base", stub.getBase());
+
+        dao = new CachingChuuService();
+        CommandLogWriter writer = new CommandLogWriter(dao) {
+            @Override
+            public boolean log(CommandLogEntry entry) {
+                Interaction interaction = inFlight.remove(entry.getDiscordId());
+                if (interaction != null) {
+                    interaction.finish();
+                    done.computeIfAbsent(interaction.getCommand(), k -> new CopyOnWriteArrayList<>()).add(interaction);
+                }
+                return super.log(entry);
+            }
+        };
+        Chuu.setupHeadless(dao, writer);
+        discord = new SyntheticDiscord(users, guilds);
+        manager = new CustomInterfacedEventManager(0);
+        registerCommands();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(this::sample, 0, 250, TimeUnit.MILLISECONDS);
+
+        long seedingNanos = seed(users, timeout);
+        done.clear();
+
+        System.out.printf("Replaying %d messages per second for %d seconds over %d users%n", rate, seconds, users);
+        long cpuBefore = processCpuNanos();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcMillis();
+        long start = System.nanoTime();
+        ScheduledExecutorService generator = Executors.newSingleThreadScheduledExecutor();
+        List<String> weighted = weightedCommands(mix);
+        generator.scheduleAtFixedRate(() -> dispatchRandom(users, weighted), 0, TimeUnit.SECONDS.toNanos(1) / rate, TimeUnit.NANOSECONDS);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        generator.shutdown();
+        generator.awaitTermination(10, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        while (!inFlight.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        long elapsed = System.nanoTime() - start;
+        long cpu = processCpuNanos() - cpuBefore;
+        sampler.shutdown();
+
+        JSONObject report = report(elapsed, seedingNanos, cpu, gcCount() - gcCountBefore, gcMillis() - gcTimeBefore, users, rate, seconds);
+        String output = options.getOrDefault("output", "build/reports/loadtest/results.json");
+        File file = new File(output);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        Files.writeString(file.toPath(), report.toString(2), StandardCharsets.UTF_8);
+        System.out.println("Results written to " + file.getAbsolutePath());
+
+        writer.shutdown();
+        stub.stop();
+    }
+
+    private void registerCommands() {
+        for (MyCommand<?> command : List.<MyCommand<?>>of(
+                new SetCommand(dao),
+                new UpdateCommand(dao),
+                new NowPlayingCommand(dao),
+                new WhoKnowsCommand(dao),
+                new AlbumChartCommand(dao),
+                new TopCommand(dao),
+                new ArtistPlaysCommand(dao),
+                new CrownsCommand(dao),
+                new ProfileInfoCommand(dao),
+                new UniqueCommand(dao),
+                new TasteCommand(dao))) {
+            manager.register(command);
+        }
+    }
+
+    /**
+     * Registers the users that are not on the database yet
+     */
+    private long seed(int users, int timeout) throws InterruptedException {
+        long start = System.nanoTime();
+        List<Interaction> seeding = new ArrayList<>();
+        Semaphore parallelism = new Semaphore(intOption("seedParallelism", 8));
+        for (int i = 0; i < users; i++) {
+            long userId = discord.userId(i);
+            try {
+                dao.findLastFMData(userId);
+                continue;
+            } catch (InstanceNotFoundException ignored) {
+                // Needs to be set
+            }
+            parallelism.acquire();
+            Interaction interaction = dispatch(userId, "set", "set " + SyntheticDiscord.lastFmName(userId));
+            seeding.add(interaction);
+            CompletableFuture.runAsync(() -> {
+                try {
+                    interaction.await(timeout, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    parallelism.release();
+                }
+            });
+        }
+        for (Interaction interaction : seeding) {
+            interaction.await(timeout, TimeUnit.SECONDS);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (!seeding.isEmpty()) {
+            System.out.printf("Registered %d users in %d ms%n", seeding.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        inFlight.clear();
+        return elapsed;
+    }
+
+    private void dispatchRandom(int users, List<String> weighted) {
+        // A few tries to find someone who is not waiting for a command already
+        for (int i = 0; i < 5; i++) {
+            long userId = discord.userId(random.nextInt(users));
+            if (!inFlight.containsKey(userId)) {
+                String content = weighted.get(random.nextInt(weighted.size()));
+                dispatch(userId, content.split(" ")[0], content);
+                return;
+            }
+        }
+        saturated.incrementAndGet();
+    }
+
+    private Interaction dispatch(long userId, String command, String content) {
+        Interaction interaction = new Interaction(command, userId);
+        inFlight.put(userId, interaction);
+        try {
+            manager.handle(discord.message(userId, Chuu.DEFAULT_PREFIX + content, interaction));
+        } catch (RuntimeException e) {
+            inFlight.remove(userId);
+            Chuu.getLogger().warn(e.getMessage(), e);
+        }
+        return interaction;
+    }
+
+    private void sample() {
+        peakHeap.accumulateAndGet(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max);
+        peakThreads.accumulateAndGet(ManagementFactory.getThreadMXBean().getThreadCount(), Math::max);
+        ConnectionPoolStats pool = dao.getPoolStats();
+        peakActiveConnections.accumulateAndGet(pool.getActive(), Math::max);
+        peakWaitingThreads.accumulateAndGet(pool.getWaiting(), Math::max);
+    }
+
+    private JSONObject report(long elapsed, long seedingNanos, long cpuNanos, long gcCount, long gcMillis, int users, int rate, int seconds) {
+        double elapsedSeconds = elapsed / 1e9;
+        JSONArray commands = new JSONArray();
+        int total = 0;
+        System.out.printf("%-10s %7s %7s %7s %9s %9s %9s %9s%n", "command", "count", "errors", "timeout", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, List<Interaction>> entry : new TreeMap<>(done).entrySet()) {
+            List<Interaction> finished = entry.getValue();
+            long[] latencies = finished.stream().mapToLong(Interaction::getLatency).sorted().toArray();
+            long[] firstReplies = finished.stream().mapToLong(Interaction::getFirstReplyLatency).filter(x -> x >= 0).sorted().toArray();
+            long errors = finished.stream().filter(Interaction::hasErrors).count();
+            long timeouts = inFlight.values().stream().filter(x -> x.getCommand().equals(entry.getKey())).count();
+            total += latencies.length;
+            System.out.printf("%-10s %7d %7d %7d %9.1f %9.1f %9.1f %9.1f%n", entry.getKey(), latencies.length, errors, timeouts,
+                    millis(percentile(latencies, 0.5)), millis(percentile(latencies, 0.9)), millis(percentile(latencies, 0.99)), millis(percentile(latencies, 1)));
+            commands.put(new JSONObject()
+                    .put("command", entry.getKey())
+                    .put("count", latencies.length)
+                    .put("errors", errors)
+                    .put("timeouts", timeouts)
+                    .put("throughput", latencies.length / elapsedSeconds)
+                    .put("p50Millis", millis(percentile(latencies, 0.5)))
+                    .put("p90Millis", millis(percentile(latencies, 0.9)))
+                    .put("p99Millis", millis(percentile(latencies, 0.99)))
+                    .put("maxMillis", millis(percentile(latencies, 1)))
+                    .put("firstReplyP50Millis", millis(percentile(firstReplies, 0.5))));
+        }
+        double cores = cpuNanos / (double) elapsed;
+        System.out.printf("%d commands in %.1f s, %.1f per second, %d not sent because every user was busy%n", total, elapsedSeconds, total / elapsedSeconds, saturated.get());
+        System.out.printf("CPU %.2f cores, heap peak %d MB, %d GCs taking %d ms, %d threads peak, %d db connections peak, %d threads peak waiting for one%n",
+                cores, peakHeap.get() >> 20, gcCount, gcMillis, peakThreads.get(), peakActiveConnections.get(), peakWaitingThreads.get());
+        return new JSONObject()
+                .put("config", new JSONObject().put("users", users).put("rate", rate).put("seconds", seconds).put("options", new JSONObject(options)))
+                .put("seedingMillis", TimeUnit.NANOSECONDS.toMillis(seedingNanos))
+                .put("elapsedSeconds", elapsedSeconds)
+                .put("commandsFinished", total)
+                .put("throughput", total / elapsedSeconds)
+                .put("saturated", saturated.get())
+                .put("commands", commands)
+                .put("resources", new JSONObject()
+                        .put("cpuCores", cores)
+                        .put("heapPeakBytes", peakHeap.get())
+                        .put("gcCount", gcCount)
+                        .put("gcMillis", gcMillis)
+                        .put("threadsPeak", peakThreads.get())
+                        .put("dbConnectionsPeak", peakActiveConnections.get())
+                        .put("dbWaitingThreadsPeak", peakWaitingThreads.get()));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * @param mix comma separated command:weight, with + standing for the spaces of the command arguments
+     */
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> parsed = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Mix entries are given as command:weight, got " + entry);
+            }
+            parsed.put(entry.substring(0, colon).replace('+', ' '), Integer.parseInt(entry.substring(colon + 1)));
+        }
+        return parsed;
+    }
+
+    private static List<String> weightedCommands(Map<String, Integer> mix) {
+        List<String> weighted = new ArrayList<>();
+        mix.forEach((command, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(command);
+            }
+        });
+        return weighted;
+    }
+
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
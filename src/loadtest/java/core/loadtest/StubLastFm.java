@@ -0,0 +1,385 @@
+package core.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the Last.fm api, answering the methods the bot uses with data generated from the username.
+ * <p>
+ * Every user has a library drawn from the same catalogue, so the whoknows style commands find overlaps. Images point
+ * to this same server, so the renderers download them without leaving the machine.
+ */
+class StubLastFm {
+    private static final int ARTISTS = 400;
+    private static final int ALBUMS_PER_ARTIST = 4;
+    private static final int TRACKS_PER_ALBUM = 8;
+    private static final int IMAGE_COLORS = 16;
+    private static final int IMAGE_SIZE = 300;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long delayMillis;
+    private final byte[][] images = new byte[IMAGE_COLORS][];
+
+    StubLastFm(int port, int threads, long delayMillis) throws IOException {
+        this.delayMillis = delayMillis;
+        for (int i = 0; i < IMAGE_COLORS; i++) {
+            images[i] = drawImage(i);
+        }
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "stub-lastfm");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/2.0/", this::handleApi);
+        server.createContext("/image/", this::handleImage);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    String getBase() {
+        return "http://localhost:" + server.getAddress().getPort() + "/2.0/";
+    }
+
+    private String imageUrl(int seed) {
+        return "http://localhost:" + server.getAddress().getPort() + "/image/" + Math.floorMod(seed, IMAGE_COLORS) + ".png";
+    }
+
+    private void handleApi(HttpExchange exchange) throws IOException {
+        try {
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            JSONObject response = answer(query);
+            send(exchange, 200, "application/json", response.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 500, "text/plain", new byte[0]);
+        } catch (RuntimeException e) {
+            send(exchange, 500, "text/plain", String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void handleImage(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String index = path.substring(path.lastIndexOf('/') + 1).replace(".png", "");
+        try {
+            send(exchange, 200, "image/png", images[Math.floorMod(Integer.parseInt(index), IMAGE_COLORS)]);
+        } catch (NumberFormatException e) {
+            send(exchange, 404, "text/plain", new byte[0]);
+        }
+    }
+
+    private JSONObject answer(Map<String, String> query) {
+        String method = query.getOrDefault("method", "").toLowerCase();
+        String user = query.getOrDefault("user", query.getOrDefault("username", ""));
+        int limit = Integer.parseInt(query.getOrDefault("limit", "50"));
+        int page = Integer.parseInt(query.getOrDefault("page", "1"));
+        switch (method) {
+            case "user.getinfo":
+                return userInfo(user);
+            case "user.getrecenttracks":
+                return recentTracks(user, limit, page, query.get("from"));
+            case "user.gettopartists":
+                return topArtists(user, limit, page);
+            case "user.gettopalbums":
+                return topAlbums(user, limit, page);
+            case "user.gettoptracks":
+                return topTracks(user, limit, page);
+            case "artist.getcorrection":
+                return new JSONObject().put("corrections", new JSONObject().put("correction",
+                        new JSONObject().put("artist", new JSONObject().put("name", query.getOrDefault("artist", "")))));
+            case "artist.gettopalbums":
+                return artistAlbums(query.getOrDefault("artist", ""));
+            case "album.getinfo":
+                return albumInfo(user, query.getOrDefault("artist", ""), query.getOrDefault("album", ""));
+            case "track.getinfo":
+                return trackInfo(user, query.getOrDefault("artist", ""), query.getOrDefault("track", ""));
+            default:
+                return new JSONObject().put("error", 6).put("message", "The resource you requested could not be found");
+        }
+    }
+
+    private JSONObject userInfo(String user) {
+        Library library = library(user);
+        return new JSONObject().put("user", new JSONObject()
+                .put("name", user)
+                .put("image", images(user.hashCode()))
+                .put("registered", new JSONObject().put("#text", 1262304000).put("unixtime", "1262304000"))
+                .put("playcount", library.total));
+    }
+
+    private JSONObject recentTracks(String user, int limit, int page, String from) {
+        Library library = library(user);
+        // Updates only get a handful of new scrobbles
+        int total = from == null ? library.total : 15;
+        int pages = Math.max(1, (total + limit - 1) / limit);
+        JSONArray tracks = new JSONArray();
+        long now = Instant.now().getEpochSecond();
+        int start = (page - 1) * limit;
+        for (int i = start; i < Math.min(total, start + limit); i++) {
+            int track = library.tracks[i % library.tracks.length];
+            JSONObject trackObj = new JSONObject()
+                    .put("name", trackName(track))
+                    .put("artist", new JSONObject().put("#text", artistName(artistOf(track))).put("name", artistName(artistOf(track))).put("mbid", ""))
+                    .put("album", new JSONObject().put("#text", albumName(albumOf(track))).put("mbid", ""))
+                    .put("image", images(albumOf(track)))
+                    .put("mbid", "");
+            if (i == 0 && page == 1 && from == null) {
+                trackObj.put("@attr", new JSONObject().put("nowplaying", "true"));
+            } else {
+                trackObj.put("date", new JSONObject().put("uts", String.valueOf(now - i * 200L)));
+            }
+            tracks.put(trackObj);
+        }
+        return new JSONObject().put("recenttracks", new JSONObject()
+                .put("@attr", attr(user, page, pages, total))
+                .put("track", tracks));
+    }
+
+    private JSONObject topArtists(String user, int limit, int page) {
+        Library library = library(user);
+        JSONArray artists = new JSONArray();
+        int start = (page - 1) * limit;
+        for (int i = start; i < Math.min(library.artists.length, start + limit); i++) {
+            int artist = library.artists[i];
+            artists.put(new JSONObject()
+                    .put("name", artistName(artist))
+                    .put("mbid", "")
+                    .put("playcount", String.valueOf(library.artistPlays[i]))
+                    .put("image", images(artist))
+                    .put("@attr", new JSONObject().put("rank", String.valueOf(i + 1))));
+        }
+        return new JSONObject().put("topartists", new JSONObject()
+                .put("@attr", attr(user, page, pages(library.artists.length, limit), library.artists.length))
+                .put("artist", artists));
+    }
+
+    private JSONObject topAlbums(String user, int limit, int page) {
+        Library library = library(user);
+        int count = library.artists.length * ALBUMS_PER_ARTIST;
+        JSONArray albums = new JSONArray();
+        int start = (page - 1) * limit;
+        for (int i = start; i < Math.min(count, start + limit); i++) {
+            int artistIndex = i / ALBUMS_PER_ARTIST;
+            int album = library.artists[artistIndex] * ALBUMS_PER_ARTIST + i % ALBUMS_PER_ARTIST;
+            albums.put(new JSONObject()
+                    .put("name", albumName(album))
+                    .put("mbid", "")
+                    .put("playcount", String.valueOf(Math.max(1, library.artistPlays[artistIndex] / (2 + i % ALBUMS_PER_ARTIST))))
+                    .put("artist", new JSONObject().put("name", artistName(library.artists[artistIndex])).put("mbid", ""))
+                    .put("image", images(album))
+                    .put("@attr", new JSONObject().put("rank", String.valueOf(i + 1))));
+        }
+        return new JSONObject().put("topalbums", new JSONObject()
+                .put("@attr", attr(user, page, pages(count, limit), count))
+                .put("album", albums));
+    }
+
+    private JSONObject topTracks(String user, int limit, int page) {
+        Library library = library(user);
+        int count = library.tracks.length;
+        JSONArray tracks = new JSONArray();
+        int start = (page - 1) * limit;
+        for (int i = start; i < Math.min(count, start + limit); i++) {
+            int track = library.tracks[i];
+            tracks.put(new JSONObject()
+                    .put("name", trackName(track))
+                    .put("mbid", "")
+                    .put("duration", String.valueOf(150 + track % 150))
+                    .put("playcount", String.valueOf(Math.max(1, 60 - i / 10)))
+                    .put("artist", new JSONObject().put("name", artistName(artistOf(track))).put("mbid", ""))
+                    .put("image", images(albumOf(track)))
+                    .put("@attr", new JSONObject().put("rank", String.valueOf(i + 1))));
+        }
+        return new JSONObject().put("toptracks", new JSONObject()
+                .put("@attr", attr(user, page, pages(count, limit), count))
+                .put("track", tracks));
+    }
+
+    private JSONObject artistAlbums(String artist) {
+        int artistIndex = Math.floorMod(artist.hashCode(), ARTISTS);
+        JSONArray albums = new JSONArray();
+        for (int i = 0; i < ALBUMS_PER_ARTIST; i++) {
+            int album = artistIndex * ALBUMS_PER_ARTIST + i;
+            albums.put(new JSONObject().put("name", albumName(album)).put("image", images(album)));
+        }
+        return new JSONObject().put("topalbums", new JSONObject()
+                .put("@attr", new JSONObject().put("artist", artist))
+                .put("album", albums));
+    }
+
+    private JSONObject albumInfo(String user, String artist, String album) {
+        JSONArray tracks = new JSONArray();
+        for (int i = 0; i < TRACKS_PER_ALBUM; i++) {
+            tracks.put(new JSONObject()
+                    .put("name", album + " " + (i + 1))
+                    .put("duration", String.valueOf(180 + i * 7))
+                    .put("@attr", new JSONObject().put("rank", i + 1)));
+        }
+        return new JSONObject().put("album", new JSONObject()
+                .put("artist", artist)
+                .put("name", album)
+                .put("mbid", "")
+                .put("image", images(album.hashCode()))
+                .put("userplaycount", String.valueOf(Math.floorMod((user + album).hashCode(), 200)))
+                .put("tracks", new JSONObject().put("track", tracks)));
+    }
+
+    private JSONObject trackInfo(String user, String artist, String track) {
+        return new JSONObject().put("track", new JSONObject()
+                .put("name", track)
+                .put("mbid", "")
+                .put("duration", "200000")
+                .put("userplaycount", String.valueOf(Math.floorMod((user + track).hashCode(), 100)))
+                .put("userloved", "0")
+                .put("artist", new JSONObject().put("name", artist).put("mbid", ""))
+                .put("album", new JSONObject().put("image", images(track.hashCode()))));
+    }
+
+    private JSONObject attr(String user, int page, int pages, int total) {
+        return new JSONObject()
+                .put("user", user)
+                .put("page", String.valueOf(page))
+                .put("totalPages", String.valueOf(pages))
+                .put("total", String.valueOf(total))
+                .put("perPage", "1000");
+    }
+
+    private JSONArray images(int seed) {
+        String url = imageUrl(seed);
+        JSONArray array = new JSONArray();
+        for (String size : List.of("small", "medium", "large", "extralarge")) {
+            array.put(new JSONObject().put("#text", url).put("size", size));
+        }
+        return array;
+    }
+
+    private static int pages(int count, int limit) {
+        return Math.max(1, (count + limit - 1) / limit);
+    }
+
+    private static String artistName(int artist) {
+        return String.format("Artist %03d", artist);
+    }
+
+    private static String albumName(int album) {
+        return String.format("Album %04d", album);
+    }
+
+    private static String trackName(int track) {
+        return String.format("Track %05d", track);
+    }
+
+    private static int albumOf(int track) {
+        return track / TRACKS_PER_ALBUM;
+    }
+
+    private static int artistOf(int track) {
+        return albumOf(track) / ALBUMS_PER_ARTIST;
+    }
+
+    private static Library library(String user) {
+        return new Library(new Random(user.hashCode()));
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static byte[] drawImage(int seed) {
+        BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.getHSBColor(seed / (float) IMAGE_COLORS, 0.6f, 0.8f));
+        g.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+        g.setColor(Color.getHSBColor(1 - seed / (float) IMAGE_COLORS, 0.8f, 0.4f));
+        g.fillOval(IMAGE_SIZE / 4, IMAGE_SIZE / 4, IMAGE_SIZE / 2, IMAGE_SIZE / 2);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * What a user listens to, the same for the same username
+     */
+    private static final class Library {
+        private final int[] artists;
+        private final int[] artistPlays;
+        private final int[] tracks;
+        private final int total;
+
+        private Library(Random random) {
+            int artistCount = 50 + random.nextInt(250);
+            List<Integer> catalogue = new ArrayList<>(ARTISTS);
+            for (int i = 0; i < ARTISTS; i++) {
+                catalogue.add(i);
+            }
+            // Skewed towards the first artists so users share their top ones
+            catalogue.sort(Comparator.comparingDouble(x -> x * random.nextDouble()));
+            artists = new int[artistCount];
+            artistPlays = new int[artistCount];
+            int sum = 0;
+            for (int i = 0; i < artistCount; i++) {
+                artists[i] = catalogue.get(i);
+                artistPlays[i] = Math.max(1, 2000 / (i + 1) + random.nextInt(20));
+                sum += artistPlays[i];
+            }
+            tracks = new int[artistCount * 3];
+            for (int i = 0; i < tracks.length; i++) {
+                int artist = artists[i / 3];
+                tracks[i] = (artist * ALBUMS_PER_ARTIST + random.nextInt(ALBUMS_PER_ARTIST)) * TRACKS_PER_ALBUM + random.nextInt(TRACKS_PER_ALBUM);
+            }
+            total = sum;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package core.loadtest;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.*;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.requests.RestAction;
+import org.mockito.Answers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Mocked discord objects, enough for the commands to run as if the messages came from a real server.
+ * <p>
+ * Every mock answers by method name instead of being stubbed call by call, that keeps creating one per message cheap.
+ * Anything sent to a channel is handed to the {@link Interaction} of the message, nothing leaves the process.
+ */
+class SyntheticDiscord {
+    static final long FIRST_USER_ID = 100_000_000_000_000_000L;
+    private static final long FIRST_GUILD_ID = 200_000_000_000_000_000L;
+    private static final long SELF_ID = 300_000_000_000_000_000L;
+    private static final long MAX_FILE_SIZE = 8 << 20;
+
+    private final AtomicLong ids = new AtomicLong(400_000_000_000_000_000L);
+    private final AtomicLong responseNumber = new AtomicLong();
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final Map<Long, Member> members = new ConcurrentHashMap<>();
+    private final Map<Long, Guild> guilds = new ConcurrentHashMap<>();
+    private final int userCount;
+    private final int guildCount;
+    private final JDA jda;
+    private final SelfUser selfUser;
+
+    SyntheticDiscord(int userCount, int guildCount) {
+        this.userCount = userCount;
+        this.guildCount = guildCount;
+        this.selfUser = mock(SelfUser.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getIdLong":
+                    return SELF_ID;
+                case "getId":
+                    return String.valueOf(SELF_ID);
+                case "getName":
+                    return "Chuu";
+                case "getAsTag":
+                    return "Chuu#0000";
+                case "isBot":
+                    return true;
+                default:
+                    return fallback(invocation, null);
+            }
+        });
+        this.jda = mock(JDA.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "getSelfUser":
+                    return selfUser;
+                case "getShardInfo":
+                    return new JDA.ShardInfo(0, 1);
+                case "getUserById":
+                    return args[0] instanceof Long ? user((Long) args[0]) : user(Long.parseLong((String) args[0]));
+                case "retrieveUserById":
+                    return action(invocation.getMethod().getReturnType(), args[0] instanceof Long ? user((Long) args[0]) : user(Long.parseLong((String) args[0])), null);
+                case "getGuildById":
+                    return args[0] instanceof Long ? guild((Long) args[0]) : guild(Long.parseLong((String) args[0]));
+                default:
+                    return fallback(invocation, null);
+            }
+        });
+    }
+
+    long userId(int index) {
+        return FIRST_USER_ID + index;
+    }
+
+    /**
+     * Users are spread over the servers, always landing in the same one
+     */
+    long guildOf(long userId) {
+        return FIRST_GUILD_ID + (userId - FIRST_USER_ID) % guildCount;
+    }
+
+    static String lastFmName(long userId) {
+        return "loadtest_" + (userId - FIRST_USER_ID);
+    }
+
+    /**
+     * A message written by the user in a channel of their server
+     */
+    MessageReceivedEvent message(long userId, String content, Interaction interaction) {
+        Guild guild = guild(guildOf(userId));
+        long channelId = ids.incrementAndGet();
+        long messageId = ids.incrementAndGet();
+        TextChannel channel = mock(TextChannel.class, invocation -> {
+            String name = invocation.getMethod().getName();
+            switch (name) {
+                case "getIdLong":
+                    return channelId;
+                case "getId":
+                    return String.valueOf(channelId);
+                case "getType":
+                    return ChannelType.TEXT;
+                case "getGuild":
+                    return guild;
+                case "getJDA":
+                    return jda;
+                case "getName":
+                    return "load-test";
+                case "canTalk":
+                    return true;
+                case "sendTyping":
+                    return action(invocation.getMethod().getReturnType(), null, null);
+                default:
+                    if (name.startsWith("send")) {
+                        interaction.reply(describe(invocation.getArguments()));
+                        return action(invocation.getMethod().getReturnType(), sentMessage(), interaction);
+                    }
+                    return fallback(invocation, null);
+            }
+        });
+        Message message = mock(Message.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getContentRaw":
+                case "getContentDisplay":
+                case "getContentStripped":
+                    return content;
+                case "getIdLong":
+                    return messageId;
+                case "getId":
+                    return String.valueOf(messageId);
+                case "getAuthor":
+                    return user(userId);
+                case "getMember":
+                    return member(userId);
+                case "getChannel":
+                case "getTextChannel":
+                    return channel;
+                case "getGuild":
+                    return guild;
+                case "getJDA":
+                    return jda;
+                case "getChannelType":
+                    return ChannelType.TEXT;
+                case "isFromGuild":
+                    return true;
+                case "isFromType":
+                    return invocation.getArgument(0) == ChannelType.TEXT;
+                case "getTimeCreated":
+                    return OffsetDateTime.now();
+                default:
+                    return fallback(invocation, null);
+            }
+        });
+        return new MessageReceivedEvent(jda, responseNumber.incrementAndGet(), message);
+    }
+
+    private Message sentMessage() {
+        long messageId = ids.incrementAndGet();
+        return mock(Message.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getIdLong":
+                    return messageId;
+                case "getId":
+                    return String.valueOf(messageId);
+                case "getAuthor":
+                    return selfUser;
+                case "getJDA":
+                    return jda;
+                default:
+                    return fallback(invocation, null);
+            }
+        });
+    }
+
+    private User user(long userId) {
+        return users.computeIfAbsent(userId, id -> mock(User.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getIdLong":
+                    return id;
+                case "getId":
+                    return String.valueOf(id);
+                case "getName":
+                    return "user " + (id - FIRST_USER_ID);
+                case "getAsTag":
+                    return "user " + (id - FIRST_USER_ID) + "#0001";
+                case "getAvatarUrl":
+                case "getEffectiveAvatarUrl":
+                case "getDefaultAvatarUrl":
+                    return null;
+                case "isBot":
+                    return false;
+                case "getJDA":
+                    return jda;
+                default:
+                    return fallback(invocation, null);
+            }
+        }));
+    }
+
+    private Member member(long userId) {
+        return members.computeIfAbsent(userId, id -> mock(Member.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getIdLong":
+                    return id;
+                case "getId":
+                    return String.valueOf(id);
+                case "getUser":
+                    return id == SELF_ID ? selfUser : user(id);
+                case "getEffectiveName":
+                    return id == SELF_ID ? "Chuu" : "user " + (id - FIRST_USER_ID);
+                case "getGuild":
+                    return guild(guildOf(id));
+                case "hasPermission":
+                    return true;
+                case "getJDA":
+                    return jda;
+                default:
+                    return fallback(invocation, null);
+            }
+        }));
+    }
+
+    private Guild guild(long guildId) {
+        return guilds.computeIfAbsent(guildId, id -> mock(Guild.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "getIdLong":
+                    return id;
+                case "getId":
+                    return String.valueOf(id);
+                case "getName":
+                    return "server " + (id - FIRST_GUILD_ID);
+                case "getMaxFileSize":
+                    return MAX_FILE_SIZE;
+                case "getMemberCount":
+                    return userCount / guildCount;
+                case "getSelfMember":
+                    return member(SELF_ID);
+                case "getMemberById":
+                    return isMember(id, args[0]) ? member(toLong(args[0])) : null;
+                case "isMember":
+                    return args[0] instanceof User && guildOf(((User) args[0]).getIdLong()) == id;
+                case "retrieveMemberById":
+                    return action(invocation.getMethod().getReturnType(), isMember(id, args[0]) ? member(toLong(args[0])) : null, null);
+                case "getJDA":
+                    return jda;
+                default:
+                    return fallback(invocation, null);
+            }
+        }));
+    }
+
+    private boolean isMember(long guildId, Object userId) {
+        long id = toLong(userId);
+        return id == SELF_ID || (id >= FIRST_USER_ID && id < FIRST_USER_ID + userCount && guildOf(id) == guildId);
+    }
+
+    private static long toLong(Object id) {
+        return id instanceof Long ? (Long) id : Long.parseLong(String.valueOf(id));
+    }
+
+    /**
+     * A rest action that completes right away with the given result. Its builder methods return the action itself.
+     */
+    @SuppressWarnings("unchecked")
+    private Object action(Class<?> type, Object result, Interaction interaction) {
+        if (!RestAction.class.isAssignableFrom(type)) {
+            return null;
+        }
+        return mock(type, invocation -> {
+            String name = invocation.getMethod().getName();
+            Object[] args = invocation.getArguments();
+            switch (name) {
+                case "queue":
+                case "queueAfter":
+                    if (args.length > 0 && args[0] instanceof Consumer) {
+                        try {
+                            ((Consumer<Object>) args[0]).accept(result);
+                        } catch (RuntimeException e) {
+                            if (interaction != null) {
+                                interaction.callbackFailed(e);
+                            }
+                        }
+                    }
+                    return null;
+                case "submit":
+                case "submitAfter":
+                    return CompletableFuture.completedFuture(result);
+                case "complete":
+                case "completeAfter":
+                    return result;
+                default:
+                    if (invocation.getMethod().getReturnType().isInstance(invocation.getMock())) {
+                        // Builder style methods such as embed, append or flatMap
+                        if (name.equals("flatMap") || name.equals("map")) {
+                            return action(invocation.getMethod().getReturnType(), null, interaction);
+                        }
+                        return invocation.getMock();
+                    }
+                    return fallback(invocation, interaction);
+            }
+        });
+    }
+
+    private Object fallback(InvocationOnMock invocation, Interaction interaction) throws Throwable {
+        Class<?> type = invocation.getMethod().getReturnType();
+        if (RestAction.class.isAssignableFrom(type)) {
+            return action(type, null, interaction);
+        }
+        if (type == String.class) {
+            return "";
+        }
+        if (List.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)) {
+            return List.of();
+        }
+        return Answers.RETURNS_DEFAULTS.answer(invocation);
+    }
+
+    private static String describe(Object[] args) {
+        if (args.length == 0) {
+            return "";
+        }
+        Object first = args[0];
+        if (first instanceof CharSequence) {
+            return first.toString();
+        }
+        if (first instanceof Message) {
+            return ((Message) first).getContentRaw();
+        }
+        if (first instanceof MessageEmbed) {
+            MessageEmbed embed = (MessageEmbed) first;
+            return embed.getDescription() == null ? "embed" : embed.getDescription();
+        }
+        return "file";
+    }
+
+    private static <T> T mock(Class<T> type, Answer<?> answer) {
+        return Mockito.mock(type, Mockito.withSettings().defaultAnswer(answer).stubOnly());
+    }
+}
@@ -4,15 +4,22 @@ import com.google.common.util.concurrent.RateLimiter;
 import core.apis.discogs.DiscogsSingleton;
 import core.apis.spotify.SpotifySingleton;
 import core.commands.*;
+import core.metrics.CommandTrace;
+import core.metrics.MetricsServer;
 import core.otherlisteners.AwaitReady;
 import core.otherlisteners.ConstantListener;
 import core.scheduledtasks.ArtistMbidUpdater;
+import core.scheduledtasks.BillboardPrecomputer;
 import core.scheduledtasks.ImageUpdaterThread;
-import core.scheduledtasks.SpotifyUpdaterThread;
+import core.scheduledtasks.ScrobbleOrdinalBackfill;
 import core.scheduledtasks.UpdaterThread;
+import core.services.CachingChuuService;
+import core.services.CommandLogWriter;
 import core.services.MessageDeletionService;
 import core.services.MessageDisablingService;
 import dao.ChuuService;
+import dao.QueryProfiler;
+import dao.SimpleDataSource;
 import dao.entities.Metrics;
 import dao.exceptions.ChuuServiceException;
 import net.dv8tion.jda.api.entities.Activity;
@@ -59,6 +66,7 @@ public class Chuu {
     private static Map<Long, Character> prefixMap;
     private static ChuuService dao;
     private static MessageDeletionService messageDeletionService;
+    private static CommandLogWriter commandLogWriter;
     private static MessageDisablingService messageDisablingService = new MessageDisablingService();
 
 
@@ -168,10 +176,15 @@ public class Chuu {
         logger = LoggerFactory.getLogger(Chuu.class);
         Properties properties = readToken();
         String channel = properties.getProperty("MODERATION_CHANNEL_ID");
-        dao = new ChuuService();
+        QueryProfiler.setEnabled(Boolean.parseBoolean(properties.getProperty("PROFILE_QUERIES")));
+        SimpleDataSource.setObserver((waitNanos, heldNanos) -> CommandTrace.record(CommandTrace.Phase.DATABASE, waitNanos + heldNanos));
+        dao = new CachingChuuService();
+        commandLogWriter = new CommandLogWriter(dao);
+        Runtime.getRuntime().addShutdownHook(new Thread(commandLogWriter::shutdown, "command-log-flush"));
+        initMetricsServer(properties.getProperty("METRICS_PORT"));
         prefixMap = initPrefixMap(dao);
-        DiscogsSingleton.init(properties.getProperty("DC_SC"), properties.getProperty("DC_KY"));
-        SpotifySingleton.init(properties.getProperty("client_ID"), properties.getProperty("client_Secret"));
+        DiscogsSingleton.init(properties.getProperty("DC_SC"), properties.getProperty("DC_KY"), dao);
+        SpotifySingleton.init(properties.getProperty("client_ID"), properties.getProperty("client_Secret"), dao);
 
         // Needs these three references
         HelpCommand help = new HelpCommand(dao);
@@ -290,6 +303,8 @@ public class Chuu {
                 .addEventListeners(help.registerCommand(new ColorChartCommand(dao)))
                 .addEventListeners(help.registerCommand(new CrownableCommand(dao)))
                 .addEventListeners(help.registerCommand(new RateLimitCommand(dao)))
+                .addEventListeners(help.registerCommand(new SlowTracesCommand(dao)))
+                .addEventListeners(help.registerCommand(new SlowQueriesCommand(dao)))
                 .addEventListeners(help.registerCommand(new AOTDCommand(dao)))
                 .addEventListeners(help.registerCommand(new UserConfigCommand(dao)))
                 .addEventListeners(help.registerCommand(new DisabledCommand(dao)))
@@ -398,10 +413,22 @@ public class Chuu {
                     new UpdaterThread(dao, true), 0, 120,
                     TimeUnit.SECONDS);
 
-            scheduledExecutorService.scheduleAtFixedRate(new ImageUpdaterThread(dao), 20, 12, TimeUnit.MINUTES);
-            scheduledExecutorService.scheduleAtFixedRate(
-                    new SpotifyUpdaterThread(dao), 5, 5, TimeUnit.MINUTES);
+            scheduledExecutorService.scheduleWithFixedDelay(new ImageUpdaterThread(dao), 5, 1, TimeUnit.MINUTES);
             scheduledExecutorService.scheduleAtFixedRate(new ArtistMbidUpdater(dao), 10, 2000, TimeUnit.MINUTES);
+            scheduledExecutorService.scheduleAtFixedRate(new BillboardPrecomputer(dao), 2, 10, TimeUnit.MINUTES);
+            // Walks long histories page by page, on its own so it never holds up the other tasks
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "scrobble-ordinals");
+                thread.setDaemon(true);
+                return thread;
+            }).scheduleWithFixedDelay(new ScrobbleOrdinalBackfill(dao), 15, 1, TimeUnit.MINUTES);
+            scheduledExecutorService.scheduleAtFixedRate(() -> {
+                try {
+                    dao.deleteExpiredLookups();
+                } catch (Exception e) {
+                    Chuu.getLogger().warn(e.getMessage(), e);
+                }
+            }, 30, 24 * 60, TimeUnit.MINUTES);
         } catch (LoginException e) {
             Chuu.getLogger().warn(e.getMessage(), e);
             throw new ChuuServiceException(e);
@@ -409,6 +436,32 @@ public class Chuu {
     }
 
 
+    /**
+     * Sets up what the commands need to run without connecting to discord, used to replay synthetic traffic offline
+     */
+    public static void setupHeadless(ChuuService service, CommandLogWriter writer) {
+        logger = LoggerFactory.getLogger(Chuu.class);
+        SimpleDataSource.setObserver((waitNanos, heldNanos) -> CommandTrace.record(CommandTrace.Phase.DATABASE, waitNanos + heldNanos));
+        dao = service;
+        commandLogWriter = writer;
+        prefixMap = initPrefixMap(dao);
+        scheduledExecutorService = Executors.newScheduledThreadPool(4);
+        ratelimited = new HashMap<>();
+        initPrivateLastfms(dao);
+        messageDeletionService = new MessageDeletionService(dao.getServersWithDeletableMessages());
+    }
+
+    private static void initMetricsServer(String port) {
+        if (port == null || port.isBlank()) {
+            return;
+        }
+        try {
+            new MetricsServer(Integer.parseInt(port.trim())).start();
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Couldn't start the metrics server on port " + port, e);
+        }
+    }
+
     private static void initPrivateLastfms(ChuuService dao) {
         privateLastFms.addAll(dao.getPrivateLastfmIds());
     }
@@ -459,6 +512,10 @@ public class Chuu {
         return dao;
     }
 
+    public static CommandLogWriter getCommandLogWriter() {
+        return commandLogWriter;
+    }
+
     public static MessageDeletionService getMessageDeletionService() {
         return messageDeletionService;
     }
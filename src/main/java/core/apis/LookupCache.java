@@ -0,0 +1,66 @@
+package core.apis;
+
+import core.Chuu;
+import dao.ChuuService;
+import dao.entities.CachedLookup;
+import dao.exceptions.ChuuServiceException;
+
+import javax.annotation.Nullable;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps on the database what an external api answered for a lookup, so the same lookup is not repeated for every user
+ * that asks for it. Lookups that found nothing are kept for less time, as those are the ones that tend to change.
+ * <p>
+ * The cache is only an optimization, if the database fails the lookup just goes to the api.
+ */
+public class LookupCache {
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private final ChuuService service;
+    private final String source;
+    private final Duration hitTtl;
+    private final Duration missTtl;
+
+    public LookupCache(ChuuService service, String source, Duration hitTtl, Duration missTtl) {
+        this.service = service;
+        this.source = source;
+        this.hitTtl = hitTtl;
+        this.missTtl = missTtl;
+    }
+
+    /**
+     * Key that is the same for names that only differ in case, spacing or unicode form
+     */
+    public static String key(String... parts) {
+        return Arrays.stream(parts)
+                .map(x -> x == null ? "" : SPACES.matcher(Normalizer.normalize(x, Normalizer.Form.NFKC).strip()).replaceAll(" ").toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining("\u0000"));
+    }
+
+    public Optional<CachedLookup> get(String key) {
+        try {
+            return service.getCachedLookup(source, key);
+        } catch (ChuuServiceException e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param value what was found, null if nothing was
+     */
+    public void store(String key, @Nullable String value) {
+        try {
+            service.storeCachedLookup(source, key, value, Instant.now().plus(value == null ? missTtl : hitTtl));
+        } catch (ChuuServiceException e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package core.apis.discogs;
 
 
+import core.apis.LookupCache;
 import core.exceptions.DiscogsServiceException;
+import dao.ChuuService;
+import dao.entities.CachedLookup;
 import org.apache.commons.text.similarity.LevenshteinDetailedDistance;
 import org.apache.http.client.HttpResponseException;
 import org.json.JSONArray;
@@ -16,22 +19,37 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Year;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class DiscogsApi {
     private static final String BASE_API = "https://api.discogs.com/";
     private final String secret;
     private final String key;
+    // Longest a caller waits for the quota before giving up on the request
+    private static final long MAX_WAIT_SECONDS = 5;
+    private static final Duration HIT_TTL = Duration.ofDays(30);
+    private static final Duration MISS_TTL = Duration.ofDays(1);
     private final HttpClient httpClient;
-    private boolean slowness = false;
+    private final DiscogsRateGovernor governor = new DiscogsRateGovernor();
+    private final LookupCache artistIds;
+    private final LookupCache artistImages;
+    private final LookupCache releaseYears;
 
-    public DiscogsApi(String secret, String key) {
+    public DiscogsApi(String secret, String key, ChuuService service) {
         this.key = key;
         this.secret = secret;
+        this.artistIds = new LookupCache(service, "discogs_artist_id", HIT_TTL, MISS_TTL);
+        this.artistImages = new LookupCache(service, "discogs_artist_image", HIT_TTL, MISS_TTL);
+        this.releaseYears = new LookupCache(service, "discogs_release_year", HIT_TTL, MISS_TTL);
 
         this.httpClient = HttpClient.newBuilder()
                 .version(HttpClient.Version.HTTP_2)
@@ -41,6 +59,24 @@ public class DiscogsApi {
     }
 
 
+    private String cached(LookupCache cache, String key, DiscogsLookup lookup) throws DiscogsServiceException {
+        Optional<CachedLookup> cachedLookup = cache.get(key);
+        if (cachedLookup.isPresent()) {
+            return cachedLookup.get().getValue();
+        }
+        String value = lookup.load();
+        cache.store(key, value);
+        return value;
+    }
+
+    private int findArtistId(String artist) throws DiscogsServiceException {
+        String id = cached(artistIds, LookupCache.key(artist), () -> {
+            int found = doSearch(artist);
+            return found == 0 ? null : String.valueOf(found);
+        });
+        return id == null ? 0 : Integer.parseInt(id);
+    }
+
     private int doSearch(String query) throws DiscogsServiceException {
 
         System.out.println("DOING SEARCH : " + query);
@@ -65,6 +101,14 @@ public class DiscogsApi {
     }
 
     public Year getYearRelease(String album, String artist) throws DiscogsServiceException {
+        String year = cached(releaseYears, LookupCache.key(artist, album), () -> {
+            Year found = doYearRelease(album, artist);
+            return found == null ? null : found.toString();
+        });
+        return year == null ? null : Year.parse(year);
+    }
+
+    private Year doYearRelease(String album, String artist) throws DiscogsServiceException {
         String albumenc;
         String artistenc;
         albumenc = URLEncoder.encode(album, StandardCharsets.UTF_8);
@@ -92,18 +136,32 @@ public class DiscogsApi {
                 .uri(URI.create(url))
                 .setHeader("User-Agent", "discordArtistImageFetcher/ishwi6@gmail.com") // add request header
                 .build();
+        CompletableFuture<Void> permit = governor.acquire();
+        CompletableFuture<HttpResponse<InputStream>> response = permit.thenCompose(x ->
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                        .whenComplete((send, throwable) -> {
+                            if (send == null) {
+                                governor.release(OptionalLong.empty(), OptionalLong.empty());
+                            } else {
+                                governor.release(send.headers().firstValueAsLong("X-Discogs-Ratelimit-Remaining"), send.headers().firstValueAsLong("X-Discogs-Ratelimit"));
+                            }
+                        }));
         try {
-            if (slowness) {
-                TimeUnit.SECONDS.sleep(1);
-                System.out.println("RATE LIMITED");
-            }
-
-            HttpResponse<InputStream> send = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            HttpResponse<InputStream> send = response.get(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
             parseHttpCode(send.statusCode());
-            send.headers().firstValueAsLong("X-Discogs-Ratelimit-Remaining").ifPresent(rated -> slowness = rated == 0L);
             return new JSONObject(new JSONTokener(send.body()));
 
-        } catch (IOException | InterruptedException e) {
+        } catch (TimeoutException e) {
+            // Only gives the place up if it was still waiting, a request already sent still gets released
+            permit.cancel(false);
+            throw new DiscogsServiceException("Discogs rate limit reached");
+        } catch (ExecutionException e) {
+            throw new DiscogsServiceException(e.getCause().toString());
+        } catch (InterruptedException e) {
+            permit.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new DiscogsServiceException(e.toString());
+        } catch (IOException e) {
             throw new DiscogsServiceException(e.toString());
         }
     }
@@ -118,11 +176,19 @@ public class DiscogsApi {
     }
 
     private String doArtistInfo(int id) throws DiscogsServiceException {
+        if (id == 0)
+            return "";
+        String url = cached(artistImages, String.valueOf(id), () -> {
+            String found = doArtistImage(id);
+            return found == null || found.isEmpty() ? null : found;
+        });
+        return url == null ? "" : url;
+    }
+
+    private String doArtistImage(int id) throws DiscogsServiceException {
 
         String imageUrl = null;
 
-        if (id == 0)
-            return "";
         String url = BASE_API + "artists/" + id + "?key=" + key + "&secret=" + secret;
         JSONObject obj = doMethod(url);
         if (!obj.has("images"))
@@ -168,7 +234,18 @@ public class DiscogsApi {
         return imageUrl;
     }
 
+    /**
+     * @return how many requests can still be made before having to wait for the quota
+     */
+    public int getRemainingRequests() {
+        return governor.getRemaining();
+    }
+
     public String findArtistImage(String artist) throws DiscogsServiceException {
-        return doArtistInfo(doSearch(artist));
+        return doArtistInfo(findArtistId(artist));
+    }
+
+    private interface DiscogsLookup {
+        String load() throws DiscogsServiceException;
     }
 }
@@ -0,0 +1,103 @@
+package core.apis.discogs;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out the requests Discogs allows, shared by every thread that uses the same {@link DiscogsApi}.
+ * <p>
+ * The quota is taken from the X-Discogs-Ratelimit headers of each response, minus the requests still on their way.
+ * Once it runs out the requests wait on a future instead of a thread, and as the limit applies to a moving minute one
+ * of them is let through every minute / limit. After a minute without responses the whole quota is assumed to be back.
+ */
+class DiscogsRateGovernor {
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "discogs-governor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Authenticated limit until the first response says otherwise
+    private int limit = 60;
+    private int remaining = 60;
+    private int inFlight = 0;
+    private long lastResponse = 0;
+    private boolean refilling = false;
+
+    /**
+     * @return a future that completes once the request can be made. Cancelling it gives the place up
+     */
+    synchronized CompletableFuture<Void> acquire() {
+        refreshWindow();
+        if (waiting.isEmpty() && remaining > 0) {
+            remaining--;
+            inFlight++;
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        waiting.add(permit);
+        scheduleRefill();
+        return permit;
+    }
+
+    /**
+     * To be called once for every permit acquired, with the headers of the response or empty if there was none
+     */
+    synchronized void release(OptionalLong remainingHeader, OptionalLong limitHeader) {
+        inFlight = Math.max(0, inFlight - 1);
+        limitHeader.ifPresent(x -> limit = (int) x);
+        if (remainingHeader.isPresent()) {
+            remaining = Math.max(0, (int) remainingHeader.getAsLong() - inFlight);
+            lastResponse = System.currentTimeMillis();
+        }
+        grantWaiting();
+    }
+
+    synchronized int getRemaining() {
+        refreshWindow();
+        return remaining;
+    }
+
+    private void refreshWindow() {
+        if (System.currentTimeMillis() - lastResponse > WINDOW_MILLIS) {
+            remaining = Math.max(remaining, limit - inFlight);
+        }
+    }
+
+    private void grantWaiting() {
+        while (remaining > 0 && !waiting.isEmpty()) {
+            // Counted before completing, as the request might already be released from inside complete
+            remaining--;
+            inFlight++;
+            // Cancelled by a caller that stopped waiting
+            if (!waiting.poll().complete(null)) {
+                remaining++;
+                inFlight--;
+            }
+        }
+    }
+
+    private void scheduleRefill() {
+        if (refilling) {
+            return;
+        }
+        refilling = true;
+        scheduler.schedule(this::refill, WINDOW_MILLIS / Math.max(1, limit), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void refill() {
+        refilling = false;
+        remaining = Math.min(limit, remaining + 1);
+        grantWaiting();
+        waiting.removeIf(CompletableFuture::isCancelled);
+        if (!waiting.isEmpty()) {
+            scheduleRefill();
+        }
+    }
+}
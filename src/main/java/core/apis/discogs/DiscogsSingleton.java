@@ -1,17 +1,21 @@
 package core.apis.discogs;
 
+import dao.ChuuService;
+
 public class DiscogsSingleton {
     private static volatile DiscogsApi instance;
     private static String secret;
     private static String clientID;
+    private static ChuuService service;
 
     private DiscogsSingleton() {
     }
 
     //Not pretty
-    public static void init(String secret2, String key2) {
+    public static void init(String secret2, String key2, ChuuService service2) {
         secret = secret2;
         clientID = key2;
+        service = service2;
 
     }
 
@@ -20,7 +24,7 @@ public class DiscogsSingleton {
         if (instance == null) {
             synchronized (core.apis.discogs.DiscogsSingleton.class) {
                 if (instance == null) {
-                    instance = new DiscogsApi(secret, clientID);
+                    instance = new DiscogsApi(secret, clientID, service);
                 }
             }
         }
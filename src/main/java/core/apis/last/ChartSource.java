@@ -0,0 +1,43 @@
+package core.apis.last;
+
+import core.apis.last.chartentities.UrlCapsule;
+import core.exceptions.LastFmException;
+import core.parsers.utils.CustomTimeFrame;
+import org.json.JSONObject;
+
+import javax.annotation.Nullable;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BiFunction;
+
+/**
+ * Where the entries of a top chart come from. The parser receives every entry in the shape Last.fm returns it, so the
+ * same parsers work whatever the source is.
+ */
+public interface ChartSource {
+
+    /**
+     * @return the total number of entries of that kind the user has for the timeframe
+     */
+    int getChart(String userName, CustomTimeFrame customTimeFrame, int x, int y, TopEntity entity, BiFunction<JSONObject, Integer, UrlCapsule> parser, BlockingQueue<UrlCapsule> queue) throws LastFmException;
+
+    /**
+     * Same as {@link #getChart(String, CustomTimeFrame, int, int, TopEntity, BiFunction, BlockingQueue)} for a caller
+     * that already asked {@link #getSyncTime(String, CustomTimeFrame, TopEntity)}, so the chart is built from the
+     * same source the caller was told about
+     *
+     * @param syncTime what getSyncTime returned, null if it was empty
+     */
+    default int getChart(String userName, CustomTimeFrame customTimeFrame, int x, int y, TopEntity entity, BiFunction<JSONObject, Integer, UrlCapsule> parser, BlockingQueue<UrlCapsule> queue, @Nullable Instant syncTime) throws LastFmException {
+        return getChart(userName, customTimeFrame, x, y, entity, parser, queue);
+    }
+
+    /**
+     * @return when the stored data the chart would be built from was last synced, empty if it comes from Last.fm
+     */
+    default Optional<Instant> getSyncTime(String userName, CustomTimeFrame customTimeFrame, TopEntity entity) {
+        return Optional.empty();
+    }
+}
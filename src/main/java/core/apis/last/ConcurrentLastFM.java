@@ -10,6 +10,8 @@ import core.apis.last.exceptions.ArtistException;
 import core.apis.last.exceptions.ExceptionEntity;
 import core.apis.last.exceptions.TrackException;
 import core.exceptions.*;
+import core.metrics.ChuuMetrics;
+import core.metrics.CommandTrace;
 import core.parsers.params.ChartParameters;
 import core.parsers.utils.CustomTimeFrame;
 import dao.entities.*;
@@ -45,8 +47,9 @@ import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 
-public class ConcurrentLastFM {//implements LastFMService {
-    static final String BASE = "http://ws.audioscrobbler.com/2.0/";
+public class ConcurrentLastFM implements ChartSource {//implements LastFMService {
+    // Can be pointed to a local stub for offline runs
+    static final String BASE = System.getProperty("chuu.lastfm.base", "http://ws.audioscrobbler.com/2.0/");
     static final String GET_ALBUMS = "?method=user.gettopalbums&user=";
     static final String GET_WEEKLY_CHART_TRACK = "?method=user.getWeeklyTrackChart&user=";
     static final String GET_WEEKLY_CHART_ARTIST = "?method=user.getWeeklyArtistChart&user=";
@@ -129,13 +132,21 @@ public class ConcurrentLastFM {//implements LastFMService {
     }
 
     private JSONObject doMethod(String url, ExceptionEntity causeOfNotFound) throws LastFmException {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.LASTFM)) {
+            return request(url, causeOfNotFound);
+        }
+    }
+
+    private JSONObject request(String url, ExceptionEntity causeOfNotFound) throws LastFmException {
         HttpRequest method = createMethod(url);
         int counter = 0;
         while (true) {
             try {
                 Chuu.incrementMetric();
+                CommandTrace.countHttpCall();
                 HttpResponse<InputStream> send = client.send(method, HttpResponse.BodyHandlers.ofInputStream());
                 int responseCode = send.statusCode();
+                ChuuMetrics.recordLastFmCall(url, String.valueOf(responseCode));
                 parseHttpCode(responseCode);
                 JSONObject jsonObject;
                 if (responseCode == 404) {
@@ -161,6 +172,8 @@ public class ConcurrentLastFM {//implements LastFMService {
                 if (e instanceof LastFMServiceException) {
                     Chuu.getLogger().warn(method.uri().toString());
                     Chuu.getLogger().warn("LAST.FM Internal Error");
+                } else {
+                    ChuuMetrics.recordLastFmCall(url, "io_error");
                 }
                 Chuu.getLogger().warn(e.getMessage(), e);
                 System.out.println("Reattempting request");
@@ -384,6 +397,7 @@ public class ConcurrentLastFM {//implements LastFMService {
 
     }
 
+    @Override
     public int getChart(String userName, CustomTimeFrame customTimeFrame, int x, int y, TopEntity entity, BiFunction<JSONObject, Integer, UrlCapsule> parser, BlockingQueue<UrlCapsule> queue) throws
             LastFmException {
         if (customTimeFrame.getType() != CustomTimeFrame.Type.NORMAL) {
@@ -1320,6 +1334,7 @@ public class ConcurrentLastFM {//implements LastFMService {
                 TrackWithArtistId track = new TrackWithArtistId(artistName, trackName, 0, false, 0, utc);
                 track.setArtistMbid(artistMbid);
                 track.setMbid(mbid);
+                track.setImageUrl(trackObj.getJSONArray("image").getJSONObject(2).getString("#text"));
                 JSONObject albumObj = trackObj.optJSONObject("album");
 
                 if (albumObj != null) {
@@ -1594,6 +1609,55 @@ public class ConcurrentLastFM {//implements LastFMService {
         return size;
     }
 
+    /**
+     * Goes on with the walk for at most maxPages, keeping the timestamp of every scrobble whose number is a multiple of
+     * step, plus the newest one, which tells how many scrobbles there were. The walk is left where it stopped.
+     */
+    public List<ScrobbleOrdinal> walkScrobbleOrdinals(ScrobbleOrdinalWalk walk, int maxPages, int step) throws LastFmException {
+        List<ScrobbleOrdinal> ordinals = new ArrayList<>();
+        String username = walk.getLastfmId();
+        String url = BASE + GET_ALL + username + apiKey + ENDING + "&to=" + walk.getTo();
+        if (!walk.isFromScratch()) {
+            url += "&from=" + (walk.getFrom() + 1);
+        }
+        for (int fetched = 0; fetched < maxPages && !walk.isFinished(); fetched++) {
+            int page = walk.getNextPage();
+            JSONObject obj;
+            try {
+                obj = initGetRecentTracks(username, url + "&page=" + page, new CustomTimeFrame(TimeFrameEnum.ALL));
+            } catch (LastFMNoPlaysException e) {
+                if (page != 1) {
+                    throw e;
+                }
+                // Nothing was scrobbled in between
+                walk.setTotal(0);
+                walk.setTotalPages(0);
+                break;
+            }
+            JSONObject attrObj = obj.getJSONObject("@attr");
+            if (page == 1) {
+                // Fixed on the first page so the numbers do not shift if something is scrobbled meanwhile
+                walk.setTotalPages(attrObj.getInt("totalPages"));
+                walk.setTotal(attrObj.getInt("total"));
+            }
+            int newest = walk.getBase() + walk.getTotal();
+            int seen = walk.getSeen();
+            JSONArray arr = obj.getJSONArray("track");
+            for (int i = 0; i < arr.length(); i++) {
+                JSONObject trackObj = arr.getJSONObject(i);
+                if (trackObj.has("@attr"))
+                    continue;
+                int ordinal = newest - seen++;
+                if (ordinal == newest || ordinal % step == 0) {
+                    ordinals.add(new ScrobbleOrdinal(ordinal, trackObj.getJSONObject("date").getInt("uts")));
+                }
+            }
+            walk.setSeen(seen);
+            walk.setNextPage(page + 1);
+        }
+        return ordinals;
+    }
+
     public Optional<TrackWithArtistId> getMilestone(String lastfmId, long number) throws LastFmException {
         String url = BASE + RECENT_TRACKS + "&user=" + lastfmId + "&limit=1" + apiKey + ENDING + "&extended=1";
         JSONObject obj = initGetRecentTracks(lastfmId, url, new CustomTimeFrame(TimeFrameEnum.ALL));
@@ -0,0 +1,124 @@
+package core.apis.last;
+
+import core.apis.last.chartentities.UrlCapsule;
+import core.exceptions.LastFMNoPlaysException;
+import core.exceptions.LastFmException;
+import core.parsers.utils.CustomTimeFrame;
+import dao.ChuuService;
+import dao.entities.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import javax.annotation.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Serves all time charts from the library stored for the user as long as it was updated recently enough, and
+ * leaves every other chart to the fallback source.
+ */
+public class LocalChartSource implements ChartSource {
+    // A day of scrobbles barely moves an all time chart
+    private static final Duration FRESHNESS = Duration.ofDays(1);
+    private final ChuuService service;
+    private final ChartSource fallback;
+
+    public LocalChartSource(ChuuService service, ChartSource fallback) {
+        this.service = service;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Optional<Instant> getSyncTime(String userName, CustomTimeFrame customTimeFrame, TopEntity entity) {
+        if (customTimeFrame.getType() != CustomTimeFrame.Type.NORMAL || customTimeFrame.getTimeFrameEnum() != TimeFrameEnum.ALL) {
+            return Optional.empty();
+        }
+        return service.getLastUpdate(userName).filter(lastUpdate -> lastUpdate.isAfter(Instant.now().minus(FRESHNESS)));
+    }
+
+    @Override
+    public int getChart(String userName, CustomTimeFrame customTimeFrame, int x, int y, TopEntity entity, BiFunction<JSONObject, Integer, UrlCapsule> parser, BlockingQueue<UrlCapsule> queue) throws LastFmException {
+        return getChart(userName, customTimeFrame, x, y, entity, parser, queue, getSyncTime(userName, customTimeFrame, entity).orElse(null));
+    }
+
+    @Override
+    public int getChart(String userName, CustomTimeFrame customTimeFrame, int x, int y, TopEntity entity, BiFunction<JSONObject, Integer, UrlCapsule> parser, BlockingQueue<UrlCapsule> queue, @Nullable Instant syncTime) throws LastFmException {
+        if (syncTime == null) {
+            return fallback.getChart(userName, customTimeFrame, x, y, entity, parser, queue);
+        }
+        int requestedSize = x * y;
+        int total;
+        switch (entity) {
+            case ARTIST:
+                ResultWrapper<ScrobbledArtist> artists = service.getUserTopArtists(userName, requestedSize);
+                total = fill(artists.getResultList(), this::toJson, parser, queue);
+                return checkTotal(userName, customTimeFrame, artists.getRows(), total);
+            case ALBUM:
+                ResultWrapper<ScrobbledAlbum> albums = service.getUserTopAlbums(userName, requestedSize);
+                total = fill(albums.getResultList(), this::toJson, parser, queue);
+                return checkTotal(userName, customTimeFrame, albums.getRows(), total);
+            case TRACK:
+            default:
+                ResultWrapper<ScrobbledTrack> tracks = service.getUserTopTracks(userName, requestedSize);
+                total = fill(tracks.getResultList(), this::toJson, parser, queue);
+                return checkTotal(userName, customTimeFrame, tracks.getRows(), total);
+        }
+    }
+
+    private int checkTotal(String userName, CustomTimeFrame customTimeFrame, int rows, int filled) throws LastFMNoPlaysException {
+        if (filled == 0) {
+            throw new LastFMNoPlaysException(userName, customTimeFrame);
+        }
+        return rows;
+    }
+
+    private <T> int fill(List<T> entries, Function<T, JSONObject> mapper, BiFunction<JSONObject, Integer, UrlCapsule> parser, BlockingQueue<UrlCapsule> queue) {
+        int size = 0;
+        for (T entry : entries) {
+            queue.add(parser.apply(mapper.apply(entry), size++));
+        }
+        return size;
+    }
+
+    // Same fields the parsers read from user.gettop* responses
+    private JSONObject toJson(ScrobbledArtist artist) {
+        return new JSONObject()
+                .put("name", artist.getArtist())
+                .put("playcount", artist.getCount())
+                .put("mbid", nonNull(artist.getArtistMbid()))
+                .put("image", image(artist.getUrl()));
+    }
+
+    private JSONObject toJson(ScrobbledAlbum album) {
+        return new JSONObject()
+                .put("name", album.getAlbum())
+                .put("playcount", album.getCount())
+                .put("mbid", nonNull(album.getAlbumMbid()))
+                .put("artist", new JSONObject().put("name", album.getArtist()).put("mbid", ""))
+                .put("image", image(album.getUrl()));
+    }
+
+    private JSONObject toJson(ScrobbledTrack track) {
+        return new JSONObject()
+                .put("name", track.getName())
+                .put("playcount", track.getCount())
+                .put("mbid", nonNull(track.getMbid()))
+                .put("duration", track.getDuration())
+                .put("artist", new JSONObject().put("name", track.getArtist()).put("mbid", nonNull(track.getArtistMbid())))
+                .put("image", image(track.getImageUrl()));
+    }
+
+    private JSONArray image(String url) {
+        return new JSONArray().put(new JSONObject().put("size", "extralarge").put("#text", nonNull(url)));
+    }
+
+    private String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+}
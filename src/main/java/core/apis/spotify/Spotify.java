@@ -1,8 +1,10 @@
 package core.apis.spotify;
 
+import com.google.common.util.concurrent.RateLimiter;
 import com.neovisionaries.i18n.CountryCode;
 import com.wrapper.spotify.SpotifyApi;
 import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+import com.wrapper.spotify.exceptions.detailed.TooManyRequestsException;
 import com.wrapper.spotify.model_objects.credentials.ClientCredentials;
 import com.wrapper.spotify.model_objects.special.SearchResult;
 import com.wrapper.spotify.model_objects.specification.*;
@@ -12,51 +14,113 @@ import com.wrapper.spotify.requests.data.search.simplified.SearchAlbumsRequest;
 import com.wrapper.spotify.requests.data.search.simplified.SearchTracksRequest;
 import com.wrapper.spotify.requests.data.tracks.GetAudioFeaturesForSeveralTracksRequest;
 import core.Chuu;
+import core.apis.LookupCache;
+import dao.ChuuService;
+import dao.entities.CachedLookup;
 import dao.entities.ScrobbledTrack;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.hc.core5.http.ParseException;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class Spotify {
 
+    // Spotify does not publish its limit, this keeps every caller of the instance well below it
+    private static final double REQUESTS_PER_SECOND = 10;
+    private static final long TOKEN_RETRY_SECONDS = 30;
+    private static final Duration HIT_TTL = Duration.ofDays(30);
+    private static final Duration MISS_TTL = Duration.ofDays(1);
     private final SpotifyApi spotifyApi;
     private final ClientCredentialsRequest clientCredentialsRequest;
-    private LocalDateTime time;
-
-    public Spotify(String clientSecret, String clientId) {
+    private final RateLimiter rateLimiter = RateLimiter.create(REQUESTS_PER_SECOND);
+    private final ScheduledExecutorService tokenRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "spotify-token");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // The link and the track search use different queries, so they do not share their answers
+    private final LookupCache trackLinks;
+    private final LookupCache trackSearches;
+    private final LookupCache albums;
+    private final LookupCache tracklists;
+    private final LookupCache artists;
+    private volatile Instant blockedUntil = Instant.EPOCH;
+
+    public Spotify(String clientSecret, String clientId, ChuuService service) {
         SpotifyApi tempItem = new SpotifyApi.Builder()
                 .setClientId(clientId).setClientSecret(clientSecret).build();
         this.clientCredentialsRequest = tempItem.clientCredentials().build();
 
         this.spotifyApi = tempItem;
+        this.trackLinks = new LookupCache(service, "spotify_track_link", HIT_TTL, MISS_TTL);
+        this.trackSearches = new LookupCache(service, "spotify_track", HIT_TTL, MISS_TTL);
+        this.albums = new LookupCache(service, "spotify_album", HIT_TTL, MISS_TTL);
+        this.tracklists = new LookupCache(service, "spotify_tracklist", HIT_TTL, MISS_TTL);
+        this.artists = new LookupCache(service, "spotify_artist", HIT_TTL, MISS_TTL);
 
         clientCredentialsSync();
 
 
     }
 
+    /**
+     * Gets a new token and schedules the next refresh a bit before it expires, so requests never wait for it
+     */
     private void clientCredentialsSync() {
+        long nextRefresh = TOKEN_RETRY_SECONDS;
         try {
             ClientCredentials clientCredentials = this.clientCredentialsRequest.execute();
 
             // Set access token for further "spotifyApi" object usage
             spotifyApi.setAccessToken(clientCredentials.getAccessToken());
-            this.time = LocalDateTime.now().plusSeconds(clientCredentials.getExpiresIn() - 140L);
+            nextRefresh = Math.max(TOKEN_RETRY_SECONDS, clientCredentials.getExpiresIn() - 140L);
             Chuu.getLogger().info("Spotify Expires in: " + clientCredentials.getExpiresIn());
         } catch (IOException | SpotifyWebApiException | ParseException e) {
             Chuu.getLogger().warn(e.getMessage(), e);
         }
+        tokenRefresher.schedule(this::clientCredentialsSync, nextRefresh, TimeUnit.SECONDS);
     }
 
 
     private void initRequest() {
-        if (!this.time.isAfter(LocalDateTime.now())) {
-            clientCredentialsSync();
+        rateLimiter.acquire();
+    }
+
+    private String cached(LookupCache cache, String key, SpotifyLookup lookup) throws ParseException, SpotifyWebApiException, IOException {
+        Optional<CachedLookup> cachedLookup = cache.get(key);
+        if (cachedLookup.isPresent()) {
+            return cachedLookup.get().getValue();
         }
+        String value;
+        try {
+            value = lookup.load();
+        } catch (TooManyRequestsException e) {
+            block(e);
+            throw e;
+        }
+        cache.store(key, value);
+        return value;
+    }
+
+    private void block(TooManyRequestsException e) {
+        blockedUntil = Instant.now().plusSeconds(e.getRetryAfter());
+        Chuu.getLogger().warn("Spotify rate limited for {} seconds", e.getRetryAfter());
+    }
+
+    /**
+     * @return whether Spotify asked to stop making requests for a while
+     */
+    public boolean isRateLimited() {
+        return Instant.now().isBefore(blockedUntil);
     }
 
     private Paging<AlbumSimplified> searchAlbum(String artist, String album) throws ParseException, SpotifyWebApiException, IOException {
@@ -87,11 +151,21 @@ public class Spotify {
 
     public List<Pair<ScrobbledTrack, Track>> searchMultipleTracks(List<ScrobbledTrack> scrobbledTracks) {
         return scrobbledTracks.stream().map(x -> {
+            String key = LookupCache.key(x.getArtist(), x.getName());
+            // Only the misses are worth reading, the tracks found get their id stored and are not searched again
+            if (trackSearches.get(key).filter(cachedLookup -> !cachedLookup.isFound()).isPresent()) {
+                return null;
+            }
             try {
                 Paging<Track> trackPaging = searchSong(x.getArtist(), x.getName());
-                if (trackPaging.getItems().length == 0)
+                if (trackPaging.getItems().length == 0) {
+                    trackSearches.store(key, null);
                     return null;
+                }
                 return Pair.of(x, trackPaging.getItems()[0]);
+            } catch (TooManyRequestsException e) {
+                block(e);
+                return null;
             } catch (ParseException | SpotifyWebApiException | IOException e) {
                 e.printStackTrace();
                 return null;
@@ -100,18 +174,23 @@ public class Spotify {
     }
 
     public String getAlbumLink(String artist, String album) {
-        String returned = null;
-        try {
-            Paging<AlbumSimplified> albumSimplifiedPaging = searchAlbum(artist, album);
-            for (AlbumSimplified item : albumSimplifiedPaging.getItems()) {
-                returned = "https://open.spotify.com/album/" + item.getUri().split("spotify:album:")[1];
-            }
+        String albumId = findAlbumId(artist, album);
+        return albumId == null ? null : "https://open.spotify.com/album/" + albumId;
+    }
 
+    private String findAlbumId(String artist, String album) {
+        try {
+            return cached(albums, LookupCache.key(artist, album), () -> {
+                String returned = null;
+                for (AlbumSimplified item : searchAlbum(artist, album).getItems()) {
+                    returned = item.getId();
+                }
+                return returned;
+            });
         } catch (IOException | SpotifyWebApiException | ParseException e) {
             Chuu.getLogger().warn(e.getMessage(), e);
+            return null;
         }
-        return returned;
-
     }
 
     public List<AudioFeatures> getAudioFeatures(Set<String> ids) {
@@ -142,25 +221,27 @@ public class Spotify {
 
     public List<dao.entities.Track> getAlbumTrackList(String artist, String album) {
         ArrayList<dao.entities.Track> tracks = new ArrayList<>();
-        String returned = "";
-        try {
-            Paging<AlbumSimplified> albumSimplifiedPaging = searchAlbum(artist, album);
-            for (AlbumSimplified item : albumSimplifiedPaging.getItems()) {
-                returned = item.getId();
-            }
-
-        } catch (IOException | SpotifyWebApiException | ParseException e) {
-            Chuu.getLogger().warn(e.getMessage(), e);
-        }
-        if (returned.equals("")) {
+        String returned = findAlbumId(artist, album);
+        if (returned == null) {
             return tracks;
         }
         try {
-            return Arrays.stream(spotifyApi.getAlbum(returned).market(CountryCode.NZ).build().execute().getTracks().getItems()).map(x -> {
-                dao.entities.Track track = new dao.entities.Track(artist, x.getName(), 0, false, x.getDurationMs());
-                track.setPosition(x.getTrackNumber() - 1);
-                return track;
-            }).collect(Collectors.toList());
+            String tracklist = cached(tracklists, returned, () -> {
+                initRequest();
+                JSONArray items = new JSONArray();
+                for (TrackSimplified x : spotifyApi.getAlbum(returned).market(CountryCode.NZ).build().execute().getTracks().getItems()) {
+                    items.put(new JSONObject().put("name", x.getName()).put("duration", x.getDurationMs()).put("position", x.getTrackNumber() - 1));
+                }
+                return items.toString();
+            });
+            JSONArray items = new JSONArray(tracklist);
+            for (int i = 0; i < items.length(); i++) {
+                JSONObject item = items.getJSONObject(i);
+                dao.entities.Track track = new dao.entities.Track(artist, item.getString("name"), 0, false, item.getInt("duration"));
+                track.setPosition(item.getInt("position"));
+                tracks.add(track);
+            }
+            return tracks;
         } catch (IOException | SpotifyWebApiException | ParseException e) {
             return tracks;
         }
@@ -168,17 +249,23 @@ public class Spotify {
     }
 
     public String searchItems(String track, String artist, String album) {
-        initRequest();
-        SearchItemRequest tracksRequest =
-                spotifyApi.searchItem("track:" + track + " artist:" + artist, "track").limit(1)
-                        .offset(0)
-                        .build();
         String returned = "";
         try {
-            SearchResult searchResult = tracksRequest.execute();
-
-            for (Track item : searchResult.getTracks().getItems()) {
-                returned = "https://open.spotify.com/track/" + item.getUri().split("spotify:track:")[1];
+            String trackId = cached(trackLinks, LookupCache.key(artist, track), () -> {
+                initRequest();
+                SearchItemRequest tracksRequest =
+                        spotifyApi.searchItem("track:" + track + " artist:" + artist, "track").limit(1)
+                                .offset(0)
+                                .build();
+                SearchResult searchResult = tracksRequest.execute();
+                String id = null;
+                for (Track item : searchResult.getTracks().getItems()) {
+                    id = item.getId();
+                }
+                return id;
+            });
+            if (trackId != null) {
+                returned = "https://open.spotify.com/track/" + trackId;
             }
             return returned;
         } catch (IOException | SpotifyWebApiException | ParseException e) {
@@ -188,32 +275,40 @@ public class Spotify {
     }
 
     public String getArtistUrlImage(String artist) {
-        Artist[] artists = searchArtist(artist);
-        if (artist == null) {
-            return "";
-        }
-        for (Artist item : artists) {
-            Image[] images = item.getImages();
-            if (images.length != 0)
-                return images[0].getUrl();
-        }
-        return "";
+        return findUrlAndId(artist).map(Pair::getLeft).orElse("");
     }
 
     public Pair<String, String> getUrlAndId(String artist) {
-        Artist[] artists = searchArtist(artist);
-        if (artists == null) {
-            return Pair.of("", "");
-        }
-        for (Artist item : artists) {
-            Image[] images = item.getImages();
-            if (images.length != 0)
-                return Pair.of(images[0].getUrl(), item.getId());
+        return findUrlAndId(artist).orElse(Pair.of("", ""));
+    }
+
+    /**
+     * @return the image and the id of the artist, both empty if nothing was found, or empty if the search failed
+     */
+    public Optional<Pair<String, String>> findUrlAndId(String artist) {
+        try {
+            String urlAndId = cached(artists, LookupCache.key(artist), () -> {
+                for (Artist item : searchArtist(artist)) {
+                    Image[] images = item.getImages();
+                    if (images.length != 0)
+                        return new JSONObject().put("url", images[0].getUrl()).put("id", item.getId()).toString();
+                }
+                return null;
+            });
+            if (urlAndId == null) {
+                return Optional.of(Pair.of("", ""));
+            }
+            JSONObject obj = new JSONObject(urlAndId);
+            return Optional.of(Pair.of(obj.getString("url"), obj.getString("id")));
+        } catch (TooManyRequestsException e) {
+            // Already blocked and logged by cached
+        } catch (IOException | SpotifyWebApiException | ParseException e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
         }
-        return Pair.of("", "");
+        return Optional.empty();
     }
 
-    private Artist[] searchArtist(String artist) {
+    private Artist[] searchArtist(String artist) throws ParseException, SpotifyWebApiException, IOException {
         initRequest();
         artist = artist.contains(":") ? "\"" + artist + "\"" : artist;
         SearchItemRequest tracksRequest =
@@ -222,14 +317,12 @@ public class Spotify {
                         .limit(1)
                         .offset(0)
                         .build();
-        String returned = "";
-        try {
-            SearchResult searchResult = tracksRequest.execute();
-            return searchResult.getArtists().getItems();
-        } catch (IOException | SpotifyWebApiException | ParseException e) {
-            Chuu.getLogger().warn(e.getMessage(), e);
-        }
-        return null;
+        SearchResult searchResult = tracksRequest.execute();
+        return searchResult.getArtists().getItems();
+    }
+
+    private interface SpotifyLookup {
+        String load() throws ParseException, SpotifyWebApiException, IOException;
     }
 
 }
@@ -1,23 +1,27 @@
 package core.apis.spotify;
 
+import dao.ChuuService;
+
 public class SpotifySingleton {
     private static Spotify instance;
     private static String secret;
     private static String clientID;
+    private static ChuuService service;
 
     private SpotifySingleton() {
     }
 
     //Not pretty
-    public static void init(String secret2, String clientID2) {
+    public static void init(String secret2, String clientID2, ChuuService service2) {
         secret = secret2;
         clientID = clientID2;
+        service = service2;
     }
 
 
     public static synchronized Spotify getInstance() {
         if (instance == null) {
-            instance = new Spotify(secret, clientID);
+            instance = new Spotify(secret, clientID, service);
         }
         return instance;
     }
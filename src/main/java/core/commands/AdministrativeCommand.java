@@ -2,6 +2,7 @@ package core.commands;
 
 import core.Chuu;
 import core.apis.ExecutorsSingleton;
+import core.commands.utils.GuildLogos;
 import core.exceptions.LastFmException;
 import core.parsers.Parser;
 import core.parsers.UrlParser;
@@ -18,7 +19,6 @@ import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.sharding.ShardManager;
 import org.apache.commons.collections4.MultiValuedMap;
-import org.imgscalr.Scalr;
 
 import javax.annotation.Nonnull;
 import javax.imageio.ImageIO;
@@ -164,6 +164,7 @@ public class AdministrativeCommand extends ConcurrentCommand<UrlParameters> {
         String url = urlParameters.getUrl();
         if (url.length() == 0) {
             getService().removeLogo(e.getGuild().getIdLong());
+            GuildLogos.update(e.getGuild().getIdLong(), null);
             sendMessageQueue(e, "Removed logo from the server");
         } else {
 
@@ -173,9 +174,10 @@ public class AdministrativeCommand extends ConcurrentCommand<UrlParameters> {
                     sendMessageQueue(e, "Couldn't get an image from the supplied link");
                     return;
                 }
-                image = Scalr.resize(image, Scalr.Method.QUALITY, 75, Scalr.OP_ANTIALIAS);
+                image = GuildLogos.prepare(image);
 
                 getService().addLogo(e.getGuild().getIdLong(), image);
+                GuildLogos.update(e.getGuild().getIdLong(), image);
                 sendMessageQueue(e, "Logo updated");
             } catch (IOException exception) {
                 Chuu.getLogger().warn(exception.getMessage(), exception);
@@ -23,17 +23,15 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import org.imgscalr.Scalr;
 import org.knowm.xchart.PieChart;
 
-import javax.imageio.ImageIO;
 import javax.validation.constraints.NotNull;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class BandInfoCommand extends ConcurrentCommand<ArtistParameters> {
+    private static final BufferedImage LAST_FM_LOGO = Scalr.resize(GraphicUtils.lastFmLogo, 15);
     private final DiscogsApi discogsApi;
     private final Spotify spotify;
     private final PieableListBand pie;
@@ -143,16 +141,9 @@ public class BandInfoCommand extends ConcurrentCommand<ArtistParameters> {
         int rgb = bufferedImage.getRGB(15, 15);
         Color color = new Color(rgb);
         int rows = Math.min(5, np.getRows());
-        BufferedImage lastFmLogo;
-        try (InputStream in = BandRendered.class.getResourceAsStream("/images/logo2.png")) {
-            lastFmLogo = ImageIO.read(in);
-            lastFmLogo = Scalr.resize(lastFmLogo, 15);
-        } catch (IOException e) {
-            lastFmLogo = null;
-        }
         GraphicUtils.doChart(g, 10, 740 - rows * 25, 300, 25, rows, np, color, GraphicUtils.
                         makeMoreTransparent(Color.BLACK, 0.05f),
-                lastFmLogo, true, new Font("Noto Sans CJK JP Light", Font.PLAIN, 18));
+                LAST_FM_LOGO, true, new Font("Noto Sans CJK JP Light", Font.PLAIN, 18));
         g.drawImage(logo, 1000 - 85, 750 - 85, null);
         g.dispose();
         sendImage(bufferedImage, ap.getE());
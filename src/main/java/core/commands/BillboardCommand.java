@@ -9,7 +9,7 @@ import core.parsers.OptionalEntity;
 import core.parsers.Parser;
 import core.parsers.params.CommandParameters;
 import core.parsers.params.NumberParameters;
-import core.services.BillboardHoarder;
+import core.scheduledtasks.BillboardPrecomputer;
 import dao.ChuuService;
 import dao.entities.BillboardEntity;
 import dao.entities.UsersWrapper;
@@ -26,7 +26,6 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -34,9 +33,6 @@ import static core.parsers.ExtraParser.LIMIT_ERROR;
 
 public class BillboardCommand extends ConcurrentCommand<NumberParameters<CommandParameters>> {
 
-    private final static ConcurrentSkipListSet<Long> inProcessSets = new ConcurrentSkipListSet<>();
-
-
     public BillboardCommand(ChuuService dao) {
 
         super(dao);
@@ -104,29 +100,6 @@ public class BillboardCommand extends ConcurrentCommand<NumberParameters<Command
         }
         Week week = getService().getCurrentWeekId();
         Date weekStart = week.getWeekStart();
-        Optional<UsersWrapper> min = all.stream().min(Comparator.comparingInt(x -> x.getTimeZone().getOffset(Instant.now().getEpochSecond())));
-
-        if (min.isPresent()) {
-            UsersWrapper usersWrapper = min.get();
-            TimeZone timeZone = usersWrapper.getTimeZone();
-            if (LocalDate.now().getDayOfWeek().equals(DayOfWeek.MONDAY)) {
-                int offset = timeZone.getOffset(LocalDate.now().atStartOfDay().toInstant(
-                        ZoneOffset.UTC).getEpochSecond() * 1000);
-                if (offset > 0) {
-                    ZonedDateTime plus = LocalDate.now().atStartOfDay().atZone(ZoneId.of("UTC")).plus(offset, ChronoUnit.MILLIS);
-                    if (plus.isAfter(ZonedDateTime.now())) {
-                        long remaining = offset - LocalTime.now().toNanoOfDay() / 1_000_000;
-                        if (remaining > 0) {
-                            String format = String.format("%02d:%02d:%02d", TimeUnit.MILLISECONDS.toHours(remaining),
-                                    TimeUnit.MILLISECONDS.toMinutes(remaining) - TimeUnit.HOURS.toMinutes(TimeUnit.MILLISECONDS.toHours(remaining)),
-                                    TimeUnit.MILLISECONDS.toSeconds(remaining) - TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(remaining)));
-                            sendMessageQueue(e, "The week hasn't ended for a user because they have set a different timezone!" + "\nYou will have to wait " + format);
-                            return;
-                        }
-                    }
-                }
-            }
-        }
         int weekId = week.getId();
         boolean doListeners = !params.hasOptional("scrobbles");
         List<BillboardEntity> entities = getEntities(weekId, guildId, doListeners);
@@ -137,26 +110,25 @@ public class BillboardCommand extends ConcurrentCommand<NumberParameters<Command
             return;
         }
         if (entities.isEmpty()) {
-
-            if (inProcessSets.contains(guildId)) {
+            // The charts are built by BillboardPrecomputer, once the week has ended for everyone in the server
+            if (BillboardPrecomputer.isComputing(guildId)) {
                 sendMessageQueue(e, "This weekly chart is still being calculated, wait a few seconds/minutes more pls.");
                 return;
             }
-            try {
-                inProcessSets.add(guildId);
-                sendMessageQueue(e, "Didn't have the top from this week, will start to make it now.");
-                BillboardHoarder billboardHoarder = new BillboardHoarder(all, getService(), week, lastFM);
-                billboardHoarder.hoardUsers();
-                getService().insertBillboardData(weekId, guildId);
-            } finally {
-                inProcessSets.remove(guildId);
+            long remaining = Duration.between(Instant.now(), BillboardPrecomputer.weekClose(all, weekStart)).toMillis();
+            if (remaining > 0) {
+                String format = String.format("%02d:%02d:%02d", TimeUnit.MILLISECONDS.toHours(remaining),
+                        TimeUnit.MILLISECONDS.toMinutes(remaining) - TimeUnit.HOURS.toMinutes(TimeUnit.MILLISECONDS.toHours(remaining)),
+                        TimeUnit.MILLISECONDS.toSeconds(remaining) - TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(remaining)));
+                sendMessageQueue(e, "The week hasn't ended for a user because they have set a different timezone!" + "\nYou will have to wait " + format);
+                return;
             }
-            entities = getEntities(weekId, guildId, doListeners);
-            if (entities.isEmpty()) {
+            if (BillboardPrecomputer.isComputed(weekId, guildId)) {
                 sendMessageQueue(e, "Didn't found any scrobble in this server users");
                 return;
             }
-            sendMessageQueue(e, "Successfully Generated these week's charts");
+            sendMessageQueue(e, "This week's chart hasn't been built yet, it will be ready in a few minutes.");
+            return;
         }
 
         String name = e.getGuild().getName();
@@ -205,6 +177,6 @@ public class BillboardCommand extends ConcurrentCommand<NumberParameters<Command
 
     @Override
     public String getUsageInstructions() {
-        return super.getUsageInstructions() + "The chart gets filled with the top 1k tracks of each user from the previous week's Monday to this week's Monday. Once the chart is built if new users come to the server they wont affect the chart. Come back next Monday to generate the next chart";
+        return super.getUsageInstructions() + "The chart gets filled with the top 1k tracks of each user from the previous week's Monday to this week's Monday. The chart is built on its own once the week has ended for everyone in the server, if new users come to the server afterwards they wont affect the chart. Come back next Monday for the next chart";
     }
 }
@@ -1,5 +1,7 @@
 package core.commands;
 
+import core.apis.last.ChartSource;
+import core.apis.last.LocalChartSource;
 import core.apis.last.chartentities.UrlCapsule;
 import core.exceptions.LastFmException;
 import core.imagerenderer.ChartQuality;
@@ -32,9 +34,11 @@ import java.util.concurrent.CompletableFuture;
 
 public abstract class ChartableCommand<T extends ChartParameters> extends ConcurrentCommand<T> {
     public IPieableList<UrlCapsule, ChartParameters> pie;
+    final ChartSource chartSource;
 
     public ChartableCommand(ChuuService dao) {
         super(dao);
+        this.chartSource = new LocalChartSource(dao, lastFM);
         this.pie = getPie();
         ((DaoParser<?>) getParser()).setExpensiveSearch(true);
     }
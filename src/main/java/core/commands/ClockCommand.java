@@ -7,6 +7,7 @@ import core.parsers.Parser;
 import core.parsers.params.ChuuDataParams;
 import core.services.BillboardHoarder;
 import core.services.ClockService;
+import core.services.ScrobbleTimelineService;
 import dao.ChuuService;
 import dao.entities.PreBillboardUserDataTimestamped;
 import dao.entities.UpdaterUserWrapper;
@@ -16,14 +17,19 @@ import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.TimeZone;
 
 public class ClockCommand extends ConcurrentCommand<ChuuDataParams> {
+    private final ScrobbleTimelineService timelineService;
 
     public ClockCommand(ChuuService dao) {
         super(dao);
+        timelineService = new ScrobbleTimelineService(dao, lastFM);
     }
 
     @Override
@@ -58,11 +64,22 @@ public class ClockCommand extends ConcurrentCommand<ChuuDataParams> {
         Long discordId = params.getLastFMData().getDiscordId();
         Week currentWeekId = getService().getCurrentWeekId();
         TimeZone userTimezone = getService().getUserTimezone(discordId);
-        UpdaterUserWrapper userUpdateStatus = getService().getUserUpdateStatus(discordId);
+        String lastfmId = params.getLastFMData().getName();
 
-        BillboardHoarder billboardHoarder = new BillboardHoarder(Collections.singletonList(userUpdateStatus), getService(), currentWeekId, lastFM);
-        billboardHoarder.hoardUsers();
-        List<PreBillboardUserDataTimestamped> ungroupedUserData = getService().getUngroupedUserData(currentWeekId.getId(), params.getLastFMData().getName());
+        // The week of the billboard data, monday to monday in UTC
+        LocalDate weekStart = currentWeekId.getWeekStart().toLocalDate();
+        int from = (int) weekStart.minusWeeks(1).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        int to = (int) weekStart.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        Optional<List<PreBillboardUserDataTimestamped>> local = timelineService.getScrobbles(lastfmId, from, to);
+        List<PreBillboardUserDataTimestamped> ungroupedUserData;
+        if (local.isPresent()) {
+            ungroupedUserData = local.get();
+        } else {
+            UpdaterUserWrapper userUpdateStatus = getService().getUserUpdateStatus(discordId);
+            BillboardHoarder billboardHoarder = new BillboardHoarder(Collections.singletonList(userUpdateStatus), getService(), currentWeekId, lastFM);
+            billboardHoarder.hoardUsers();
+            ungroupedUserData = getService().getUngroupedUserData(currentWeekId.getId(), lastfmId);
+        }
         if (ungroupedUserData.isEmpty()) {
             sendMessageQueue(e, "Couldn't get any data from you in the previous week");
             return;
@@ -4,11 +4,13 @@ import core.Chuu;
 import core.apis.discogs.DiscogsApi;
 import core.apis.last.ConcurrentLastFM;
 import core.apis.spotify.Spotify;
-import core.exceptions.DiscogsServiceException;
+import core.commands.utils.DisplayNames;
+import core.commands.utils.GuildLogos;
 import core.exceptions.LastFMServiceException;
 import core.exceptions.LastFmEntityNotFoundException;
 import core.exceptions.LastFmException;
 import core.parsers.params.CommandParameters;
+import core.services.ArtistImageLookup;
 import dao.ChuuService;
 import dao.entities.*;
 import dao.exceptions.InstanceNotFoundException;
@@ -19,14 +21,10 @@ import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
-import org.apache.commons.lang3.tuple.Pair;
 
-import javax.imageio.ImageIO;
 import javax.validation.constraints.NotNull;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
@@ -38,6 +36,8 @@ import java.util.concurrent.CompletableFuture;
 public class CommandUtil {
 
     public static final Random rand = new Random();
+    // Worth as much as this many listeners when ordering the artists waiting for an image
+    private static final int COMMAND_HIT_PRIORITY = 5;
 
     private CommandUtil() {
     }
@@ -56,36 +56,19 @@ public class CommandUtil {
 
 
     static BufferedImage getLogo(ChuuService dao, MessageReceivedEvent e) {
-        try (InputStream stream = dao.findLogo(e.getGuild().getIdLong())) {
-            if (stream != null)
-                return ImageIO.read(stream);
-        } catch (IOException ex) {
-            return null;
-        }
-        return null;
+        return GuildLogos.get(dao, e.getGuild().getIdLong());
     }
 
     public static String updateUrl(DiscogsApi discogsApi, @NotNull ScrobbledArtist scrobbledArtist, ChuuService dao, Spotify spotify) {
-        String newUrl = null;
-        try {
-            newUrl = discogsApi.findArtistImage(scrobbledArtist.getArtist());
-            if (!newUrl.isEmpty()) {
-                dao.upsertUrl(newUrl, scrobbledArtist.getArtistId());
-            } else {
-                Pair<String, String> urlAndId = spotify.getUrlAndId(scrobbledArtist.getArtist());
-                newUrl = urlAndId.getLeft();
-                if (newUrl.isBlank()) {
-                    scrobbledArtist.setUrl("");
-                    scrobbledArtist.setUpdateBit(false);
-                    dao.upsertArtistSad(scrobbledArtist);
-                } else {
-                    dao.upsertSpotify(newUrl, scrobbledArtist.getArtistId(), urlAndId.getRight());
-                }
-            }
-        } catch (DiscogsServiceException ignored) {
-            //Do nothing
+        List<ArtistImageResult> results = new ArtistImageLookup(discogsApi, spotify).lookup(scrobbledArtist, false, false);
+        if (!results.isEmpty()) {
+            dao.storeImageResults(results);
+        }
+        if (results.stream().noneMatch(x -> x.isFound() || x.getSource() == ArtistImageResult.Source.SPOTIFY)) {
+            // The image updater finishes the search, sooner the more the artist is asked for
+            dao.bumpImagePriority(scrobbledArtist.getArtistId(), COMMAND_HIT_PRIORITY);
         }
-        return newUrl;
+        return ArtistImageLookup.imageUrl(results);
     }
 
     public static String getArtistImageUrl(ChuuService dao, String artist, ConcurrentLastFM lastFM, DiscogsApi discogsApi, Spotify spotify) throws LastFmException {
@@ -275,28 +258,23 @@ public class CommandUtil {
     }
 
     static String getGlobalUsername(JDA jda, long discordID) {
-        return CommandUtil.cleanMarkdownCharacter(jda.retrieveUserById(discordID).complete().getName());
+        return CommandUtil.cleanMarkdownCharacter(DisplayNames.getName(jda, discordID));
     }
 
     // ugh
     private static DiscordUserDisplay handleUser(MessageReceivedEvent e, long discordID) {
-        User user;
         String username;
-        if (e.isFromGuild()) {
-            Member whoD = e.getGuild().getMemberById(discordID);
-            if (whoD == null) {
-                user = e.getJDA().retrieveUserById(discordID).complete();
-                username = user.getName();
-            } else {
-                username = whoD.getEffectiveName();
-                user = whoD.getUser();
-            }
+        String avatarUrl;
+        Member whoD = e.isFromGuild() ? e.getGuild().getMemberById(discordID) : null;
+        if (whoD == null) {
+            DisplayNames.DiscordName name = DisplayNames.get(e.getJDA(), discordID);
+            username = name.getName();
+            avatarUrl = name.getAvatarUrl();
         } else {
-            user = e.getJDA().retrieveUserById(discordID).complete();
-            username = user.getName();
-
+            username = whoD.getEffectiveName();
+            avatarUrl = whoD.getUser().getAvatarUrl();
         }
-        return new DiscordUserDisplay((username), user.getAvatarUrl() == null || user.getAvatarUrl().isBlank() ? null : user.getAvatarUrl());
+        return new DiscordUserDisplay((username), avatarUrl == null || avatarUrl.isBlank() ? null : avatarUrl);
 
     }
 
@@ -1,6 +1,7 @@
 package core.commands;
 
 import core.apis.ExecutorsSingleton;
+import core.metrics.ChuuMetrics;
 import core.parsers.params.CommandParameters;
 import dao.ChuuService;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
@@ -19,6 +20,10 @@ abstract class ConcurrentCommand<T extends CommandParameters> extends MyCommand<
 
     @Override
     protected void measureTime(MessageReceivedEvent e) {
-        executor.execute(() -> super.measureTime(e));
+        long queued = System.nanoTime();
+        executor.execute(() -> {
+            ChuuMetrics.recordQueue(getName(), System.nanoTime() - queued);
+            super.measureTime(e);
+        });
     }
 }
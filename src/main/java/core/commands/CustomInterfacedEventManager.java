@@ -4,6 +4,7 @@ import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.RateLimiter;
 import core.Chuu;
 import core.otherlisteners.ReactionListener;
+import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.events.GenericEvent;
 import net.dv8tion.jda.api.events.ReadyEvent;
 import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
@@ -16,18 +17,38 @@ import net.dv8tion.jda.api.hooks.IEventManager;
 import net.dv8tion.jda.internal.JDAImpl;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class CustomInterfacedEventManager implements IEventManager {
 
+    private static final int WHEEL_SIZE = 64;
+    private static final int DISPOSER_THREADS = 2;
     private final Set<EventListener> listeners = Sets.newConcurrentHashSet();
     private final Map<String, MyCommand<?>> commandListeners = new HashMap<>();
-    private final Map<ReactionListener, ScheduledFuture<?>> reactionaries = new HashMap<>();
+    // Reaction listeners by the id of the message they are listening to
+    private final Map<Long, ReactionListener> reactionaries = new ConcurrentHashMap<>();
+    private final ExpiryWheel<ReactionListener> reactionariesExpiry = new ExpiryWheel<>(WHEEL_SIZE, this::expire);
+    // The wheel ticks on its own thread, disposing a listener makes blocking rest calls so it happens elsewhere
+    private final ScheduledExecutorService expiryTicker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "reaction-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService disposer = Executors.newFixedThreadPool(DISPOSER_THREADS, r -> {
+        Thread thread = new Thread(r, "reaction-dispose");
+        thread.setDaemon(true);
+        return thread;
+    });
     private AdministrativeCommand administrativeCommand;
 
     public CustomInterfacedEventManager(int a) {
+        expiryTicker.scheduleAtFixedRate(reactionariesExpiry::advance, 1, 1, TimeUnit.SECONDS);
     }
 
     @Override
@@ -46,13 +67,11 @@ public class CustomInterfacedEventManager implements IEventManager {
         }
         if (listener instanceof ReactionListener) {
             ReactionListener reactionListener = (ReactionListener) listener;
-            long activeSeconds = reactionListener.getActiveSeconds();
-            ScheduledFuture<?> schedule = Chuu.getScheduledExecutorService().schedule((() -> {
-                reactionaries.remove(reactionListener);
-                listeners.remove(listener);
-                reactionListener.dispose();
-            }), activeSeconds, TimeUnit.SECONDS);
-            reactionaries.put(reactionListener, schedule);
+            if (reactionListener.message != null) {
+                reactionaries.put(reactionListener.message.getIdLong(), reactionListener);
+            }
+            reactionariesExpiry.schedule(reactionListener, reactionListener.getActiveSeconds());
+            return;
         }
         listeners.add(((EventListener) listener));
     }
@@ -68,15 +87,42 @@ public class CustomInterfacedEventManager implements IEventManager {
         }
         if (listener instanceof ReactionListener) {
             ReactionListener reactionListener = (ReactionListener) listener;
-            ScheduledFuture<?> scheduledFuture = this.reactionaries.remove(reactionListener);
-            if (scheduledFuture != null) {
-                scheduledFuture.cancel(true);
+            if (reactionListener.message != null) {
+                reactionaries.remove(reactionListener.message.getIdLong(), reactionListener);
+            }
+            if (reactionariesExpiry.remove(reactionListener)) {
                 reactionListener.dispose();
             }
+            return;
         }
         listeners.remove(listener);
     }
 
+    private void expire(ReactionListener reactionListener) {
+        if (reactionListener.message != null) {
+            reactionaries.remove(reactionListener.message.getIdLong(), reactionListener);
+        }
+        disposer.execute(() -> {
+            try {
+                reactionListener.dispose();
+            } catch (Throwable throwable) {
+                JDAImpl.LOG.error("One of the EventListeners had an uncaught exception", throwable);
+            }
+        });
+    }
+
+    /**
+     * To be called when a reaction listener starts listening to other message
+     */
+    public void moveReactionary(ReactionListener reactionListener, @Nullable Message previous) {
+        if (previous != null) {
+            reactionaries.remove(previous.getIdLong(), reactionListener);
+        }
+        if (reactionListener.message != null && reactionariesExpiry.contains(reactionListener)) {
+            reactionaries.put(reactionListener.message.getIdLong(), reactionListener);
+        }
+    }
+
     /**
      * @param event We are taking advantage from only using three types of events in
      *              the whole bot , so we avoid less checking, for the momnent those
@@ -120,7 +166,17 @@ public class CustomInterfacedEventManager implements IEventManager {
             }
         } else if (event instanceof GuildMemberRemoveEvent || event instanceof GuildMemberJoinEvent || event instanceof GuildJoinEvent) {
             administrativeCommand.onEvent(event);
-        } else if (event instanceof MessageReactionAddEvent || event instanceof ReadyEvent)
+        } else if (event instanceof MessageReactionAddEvent || event instanceof ReadyEvent) {
+            if (event instanceof MessageReactionAddEvent) {
+                ReactionListener reactionListener = reactionaries.get(((MessageReactionAddEvent) event).getMessageIdLong());
+                if (reactionListener != null) {
+                    try {
+                        reactionListener.onEvent(event);
+                    } catch (Throwable throwable) {
+                        JDAImpl.LOG.error("One of the EventListeners had an uncaught exception", throwable);
+                    }
+                }
+            }
             for (EventListener listener : listeners) {
                 try {
                     listener.onEvent(event);
@@ -128,23 +184,25 @@ public class CustomInterfacedEventManager implements IEventManager {
                     JDAImpl.LOG.error("One of the EventListeners had an uncaught exception", throwable);
                 }
             }
+        }
 
     }
 
     @Nonnull
     @Override
     public List<Object> getRegisteredListeners() {
-        return Collections.unmodifiableList(new LinkedList<>(listeners));
+        List<Object> registered = new LinkedList<>(listeners);
+        registered.addAll(reactionaries.values());
+        return Collections.unmodifiableList(registered);
     }
 
     public void refreshReactionay(ReactionListener reactionListener, long seconds) {
-        ScheduledFuture<?> scheduledFuture = this.reactionaries.get(reactionListener);
-        if (scheduledFuture != null && scheduledFuture.cancel(false)) {
-            this.reactionaries.put(reactionListener, Chuu.getScheduledExecutorService().schedule((() -> {
-                reactionaries.remove(reactionListener);
-                listeners.remove(reactionListener);
-                reactionListener.dispose();
-            }), seconds, TimeUnit.SECONDS));
+        if (reactionariesExpiry.contains(reactionListener)) {
+            reactionariesExpiry.schedule(reactionListener, seconds);
         }
     }
+
+    public int getActiveReactionaries() {
+        return reactionariesExpiry.size();
+    }
 }
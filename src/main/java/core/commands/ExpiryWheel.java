@@ -0,0 +1,96 @@
+package core.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel for entries that expire after some ticks, driven by an external clock calling {@link #advance()}.
+ * <p>
+ * Scheduling, rescheduling and removing an entry are O(1) and don't create any timer, an entry only lives on the slot
+ * of its deadline. Entries further away than a whole turn of the wheel are put back until their turn comes.
+ * <p>
+ * The expired entries are collected under the tick lock and handed to the callback once it is released, so a slow
+ * callback never holds up scheduling or the next tick.
+ */
+public class ExpiryWheel<T> {
+    private final Queue<T>[] slots;
+    private final int mask;
+    private final Map<T, Long> deadlines = new ConcurrentHashMap<>();
+    private final Consumer<T> onExpire;
+    private final Object tickLock = new Object();
+    private volatile long tick = 0;
+
+    /**
+     * @param size     number of slots, rounded up to a power of two
+     * @param onExpire called with each entry once its deadline is reached
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiryWheel(int size, Consumer<T> onExpire) {
+        int slotCount = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+        this.slots = new Queue[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = slotCount - 1;
+        this.onExpire = onExpire;
+    }
+
+    /**
+     * Schedules the entry to expire after the given ticks, replacing its previous deadline if it already had one
+     */
+    public void schedule(T entry, long ticks) {
+        long deadline = tick + Math.max(1, ticks);
+        deadlines.put(entry, deadline);
+        // The old slot might still hold the entry, it is skipped there as its deadline doesn't match
+        slots[(int) (deadline & mask)].add(entry);
+    }
+
+    /**
+     * @return true if the entry was scheduled, in which case it will not expire anymore
+     */
+    public boolean remove(T entry) {
+        return deadlines.remove(entry) != null;
+    }
+
+    public boolean contains(T entry) {
+        return deadlines.containsKey(entry);
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Moves the wheel one tick, expiring the entries whose deadline is the new tick
+     */
+    public void advance() {
+        List<T> expired = new ArrayList<>();
+        synchronized (tickLock) {
+            long current = ++tick;
+            int slot = (int) (current & mask);
+            Queue<T> queue = slots[slot];
+            for (int pending = queue.size(); pending > 0; pending--) {
+                T entry = queue.poll();
+                if (entry == null) {
+                    break;
+                }
+                Long deadline = deadlines.get(entry);
+                if (deadline == null || (deadline & mask) != slot) {
+                    // Removed, or rescheduled to another slot where it has been added again
+                    continue;
+                }
+                if (deadline > current) {
+                    queue.add(entry);
+                } else if (deadlines.remove(entry, deadline)) {
+                    expired.add(entry);
+                }
+            }
+        }
+        expired.forEach(onExpire);
+    }
+}
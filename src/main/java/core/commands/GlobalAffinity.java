@@ -1,5 +1,6 @@
 package core.commands;
 
+import core.commands.utils.DisplayNames;
 import core.exceptions.LastFmException;
 import core.otherlisteners.Reactionary;
 import core.parsers.NumberParser;
@@ -74,26 +75,37 @@ public class GlobalAffinity extends ConcurrentCommand<NumberParameters<ChuuDataP
         List<dao.entities.GlobalAffinity> serverAffinity = getService().getGlobalAffinity(ogData.getName(), e.isFromGuild() ? e.getGuild().getIdLong() : null, threshold);
         List<dao.entities.GlobalAffinity> collect = serverAffinity.stream().sorted(Comparator.comparing(Affinity::getAffinity).reversed()).collect(Collectors.toList());
 
+        DisplayNames.prefetch(e.getJDA(), collect.stream().limit(10)
+                .filter(x -> x.getPrivacyMode() != PrivacyMode.LAST_NAME)
+                .map(Affinity::getDiscordId)
+                .collect(Collectors.toList()));
         StringBuilder stringBuilder = new StringBuilder();
-        List<String> string = collect.stream().map(x -> {
+        List<Object> string = collect.stream().map(x -> new Object() {
+            private String calculatedString = null;
+
+            @Override
+            public String toString() {
+                if (calculatedString == null) {
                     String name;
                     if (x.getPrivacyMode() == PrivacyMode.TAG) {
-                        name = e.getJDA().retrieveUserById(x.getDiscordId()).complete().getAsTag();
+                        name = DisplayNames.getTag(e.getJDA(), x.getDiscordId());
                     } else if (x.getPrivacyMode() == PrivacyMode.LAST_NAME) {
                         name = x.getReceivingLastFmId();
                     } else {
                         name = getUserString(e, x.getDiscordId());
                     }
 
-                    return String.format(". [%s](%s) - %.2f%%%s matching%n", name,
+                    calculatedString = String.format(". [%s](%s) - %.2f%%%s matching%n", name,
                             CommandUtil.getLastFmUser(x.getReceivingLastFmId()),
                             (x.getAffinity() > 1 ? 1 : x.getAffinity()) * 100, x.getAffinity() > 1 ? "+" : "");
                 }
-        ).collect(Collectors.toList());
+                return calculatedString;
+            }
+        }).collect(Collectors.toList());
         for (
                 int i = 0, size = collect.size();
                 i < 10 && i < size; i++) {
-            String text = string.get(i);
+            String text = string.get(i).toString();
             stringBuilder.append(i + 1).append(text);
         }
 
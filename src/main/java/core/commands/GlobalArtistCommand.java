@@ -4,6 +4,7 @@ import core.apis.discogs.DiscogsApi;
 import core.apis.discogs.DiscogsSingleton;
 import core.apis.spotify.Spotify;
 import core.apis.spotify.SpotifySingleton;
+import core.commands.utils.DisplayNames;
 import core.exceptions.LastFmException;
 import core.parsers.ArtistParser;
 import core.parsers.OptionalEntity;
@@ -96,7 +97,7 @@ public class GlobalArtistCommand extends ConcurrentCommand<ArtistParameters> {
                                 embedText = getUserString(e, lastFMData.getDiscordId());
                                 break;
                             case TAG:
-                                embedText = e.getJDA().retrieveUserById(lastFMData.getDiscordId()).complete().getAsTag();
+                                embedText = DisplayNames.getTag(e.getJDA(), lastFMData.getDiscordId());
                                 break;
                             case LAST_NAME:
                                 embedText = lastFMData.getName() + " (lastfm)";
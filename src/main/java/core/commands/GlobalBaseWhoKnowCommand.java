@@ -1,6 +1,7 @@
 package core.commands;
 
 import core.Chuu;
+import core.commands.utils.DisplayNames;
 import core.commands.utils.PrivacyUtils;
 import core.imagerenderer.ChartQuality;
 import core.imagerenderer.WhoKnowsMaker;
@@ -13,6 +14,7 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import java.awt.image.BufferedImage;
 import java.text.MessageFormat;
+import java.util.EnumSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -81,7 +83,7 @@ public abstract class GlobalBaseWhoKnowCommand<T extends CommandParameters> exte
                     x.setLastFMId(Chuu.getLastFmId(x.getLastFMId()));
                     break;
                 case TAG:
-                    x.setDiscordName(ap.getE().getJDA().retrieveUserById(x.getDiscordId()).complete().getAsTag());
+                    x.setDiscordName(DisplayNames.getTag(ap.getE().getJDA(), x.getDiscordId()));
                     x.setLastFMId(Chuu.getLastFmId(x.getLastFMId()));
                     break;
                 case LAST_NAME:
@@ -100,6 +102,10 @@ public abstract class GlobalBaseWhoKnowCommand<T extends CommandParameters> exte
                             x1.setGlobalDisplayer(a);
                         }
                 );
+        DisplayNames.prefetch(ap.getE().getJDA(), wrapperReturnNowPlaying.getReturnNowPlayings().stream().limit(10)
+                .filter(x -> showableUsers.contains(x.getDiscordId()) || EnumSet.of(PrivacyMode.DISCORD_NAME, PrivacyMode.TAG).contains(((GlobalReturnNowPlaying) x).getPrivacyMode()))
+                .map(ReturnNowPlaying::getDiscordId)
+                .collect(Collectors.toList()));
         switch (effectiveMode) {
             case IMAGE:
                 doImage(ap, wrapperReturnNowPlaying);
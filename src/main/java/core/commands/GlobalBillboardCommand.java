@@ -13,13 +13,9 @@ import javax.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 public class GlobalBillboardCommand extends BillboardCommand {
 
-    public static final AtomicBoolean settingUp = new AtomicBoolean(false);
-
-
     public GlobalBillboardCommand(ChuuService dao) {
 
         super(dao);
@@ -60,29 +56,15 @@ public class GlobalBillboardCommand extends BillboardCommand {
 
         List<BillboardEntity> entities = getEntities(week.getId() - 1, doListeners);
         if (entities.isEmpty()) {
-            try {
-                if (settingUp.compareAndSet(false, true)) {
-                    sendMessageQueue(e, "The global billboard chart didn't exist. Will begin the process to build it.");
-                    getService().insertGlobalBillboardData(week.getId() - 1);
-                    settingUp.set(false);
-                } else {
-                    sendMessageQueue(e, "The global billboard chart was already being computed, check again later!");
-                    return;
-                }
-            } finally {
-                settingUp.set(false);
-            }
+            // Built by BillboardPrecomputer as soon as the week changes
+            sendMessageQueue(e, "The global billboard chart of last week isn't available yet, check again later!");
+            return;
         }
-        entities = getEntities(week.getId() - 1, doListeners);
         String name = e.getJDA().getSelfUser().getName();
         LocalDateTime weekStart = week.getWeekStart().toLocalDate().atStartOfDay();
         LocalDateTime weekBeggining = weekStart.minus(1, ChronoUnit.WEEKS);
         weekStart = weekBeggining.minus(1, ChronoUnit.WEEKS);
 
-        if (entities.isEmpty()) {
-            sendMessageQueue(e, "Didn't found any scrobble in the whole bot");
-            return;
-        }
         doBillboard(e, params, doListeners, entities, weekBeggining, weekStart, name);
     }
 
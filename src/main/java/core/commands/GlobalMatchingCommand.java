@@ -1,5 +1,6 @@
 package core.commands;
 
+import core.commands.utils.DisplayNames;
 import core.commands.utils.PrivacyUtils;
 import core.exceptions.LastFmException;
 import core.otherlisteners.Reactionary;
@@ -11,6 +12,7 @@ import core.parsers.params.NumberParameters;
 import dao.ChuuService;
 import dao.entities.ArtistLbGlobalEntry;
 import dao.entities.DiscordUserDisplay;
+import dao.entities.LbEntry;
 import dao.entities.PrivacyMode;
 import dao.entities.UsersWrapper;
 import dao.exceptions.InstanceNotFoundException;
@@ -19,6 +21,7 @@ import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import javax.validation.constraints.NotNull;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -87,6 +90,10 @@ public class GlobalMatchingCommand extends ConcurrentCommand<NumberParameters<Ch
             found = Set.of(e.getAuthor().getIdLong());
         }
 
+        DisplayNames.prefetch(e.getJDA(), list.stream().limit(10)
+                .filter(x -> found.contains(x.getDiscordId()) || EnumSet.of(PrivacyMode.DISCORD_NAME, PrivacyMode.TAG).contains(x.getPrivacyMode()))
+                .map(LbEntry::getDiscordId)
+                .collect(Collectors.toList()));
         StringBuilder a = new StringBuilder();
         AtomicInteger c = new AtomicInteger(0);
         List<Object> strings = list.stream().map(x -> new Object() {
@@ -112,7 +119,7 @@ public class GlobalMatchingCommand extends ConcurrentCommand<NumberParameters<Ch
                             x.setDiscordName(CommandUtil.getUserInfoNotStripped(e, x.getDiscordId()).getUsername());
                             break;
                         case TAG:
-                            x.setDiscordName(e.getJDA().retrieveUserById(x.getDiscordId()).complete().getAsTag());
+                            x.setDiscordName(DisplayNames.getTag(e.getJDA(), x.getDiscordId()));
                             break;
                         case LAST_NAME:
                             x.setDiscordName(x.getLastFmId());
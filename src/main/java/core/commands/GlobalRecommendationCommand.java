@@ -1,5 +1,6 @@
 package core.commands;
 
+import core.commands.utils.DisplayNames;
 import core.exceptions.LastFmException;
 import core.parsers.NumberParser;
 import core.parsers.OnlyUsernameParser;
@@ -112,7 +113,7 @@ public class GlobalRecommendationCommand extends ConcurrentCommand<NumberParamet
         try {
             LastFMData cl = getService().findLastFMData(secondDiscordID);
             if (cl.getPrivacyMode() == PrivacyMode.TAG) {
-                giver = e.getJDA().retrieveUserById(cl.getDiscordId()).complete().getAsTag();
+                giver = DisplayNames.getTag(e.getJDA(), cl.getDiscordId());
             } else if (cl.getPrivacyMode() == PrivacyMode.LAST_NAME) {
                 giver = cl.getName();
             } else {
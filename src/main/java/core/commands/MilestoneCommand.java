@@ -7,6 +7,7 @@ import core.parsers.OnlyUsernameParser;
 import core.parsers.Parser;
 import core.parsers.params.ChuuDataParams;
 import core.parsers.params.NumberParameters;
+import core.services.ScrobbleTimelineService;
 import dao.ChuuService;
 import dao.entities.DiscordUserDisplay;
 import dao.entities.LastFMData;
@@ -28,8 +29,11 @@ import java.util.Optional;
 import static core.parsers.ExtraParser.LIMIT_ERROR;
 
 public class MilestoneCommand extends ConcurrentCommand<NumberParameters<ChuuDataParams>> {
+    private final ScrobbleTimelineService timelineService;
+
     public MilestoneCommand(ChuuService dao) {
         super(dao);
+        timelineService = new ScrobbleTimelineService(dao, lastFM);
     }
 
     @Override
@@ -69,7 +73,10 @@ public class MilestoneCommand extends ConcurrentCommand<NumberParameters<ChuuDat
     void onCommand(MessageReceivedEvent e, @NotNull NumberParameters<ChuuDataParams> params) throws LastFmException, InstanceNotFoundException {
         Long extraParam = params.getExtraParam();
         LastFMData lastFMData = params.getInnerParams().getLastFMData();
-        Optional<TrackWithArtistId> milestoneOpt = lastFM.getMilestone(lastFMData.getName(), extraParam);
+        Optional<TrackWithArtistId> milestoneOpt = timelineService.getMilestone(lastFMData.getName(), extraParam);
+        if (milestoneOpt.isEmpty()) {
+            milestoneOpt = lastFM.getMilestone(lastFMData.getName(), extraParam);
+        }
         milestoneOpt.ifPresentOrElse(tr -> buildEmbed(e, extraParam, lastFMData, tr), () -> sendMessageQueue(e, "There was a problem getting your milestone"));
     }
 
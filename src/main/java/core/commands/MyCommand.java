@@ -4,10 +4,14 @@ import core.Chuu;
 import core.apis.last.ConcurrentLastFM;
 import core.apis.last.LastFMFactory;
 import core.exceptions.*;
+import core.imagerenderer.CanvasPool;
 import core.imagerenderer.ChartQuality;
+import core.metrics.ChuuMetrics;
+import core.metrics.CommandTrace;
 import core.parsers.Parser;
 import core.parsers.params.CommandParameters;
 import dao.ChuuService;
+import dao.entities.CommandLogEntry;
 import dao.exceptions.InstanceNotFoundException;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.MessageBuilder;
@@ -46,9 +50,8 @@ public abstract class MyCommand<T extends CommandParameters> extends ListenerAda
         this.category = initCategory();
     }
 
-    private static void logCommand(ChuuService service, MessageReceivedEvent e, MyCommand<?> command, long exectTime) {
-        service.logCommand(e.getAuthor().getIdLong(), e.isFromGuild() ? e.getGuild().getIdLong() : null, command.getName(), exectTime, Instant.now());
-
+    private static void logCommand(MessageReceivedEvent e, MyCommand<?> command, long exectTime) {
+        Chuu.getCommandLogWriter().log(new CommandLogEntry(e.getAuthor().getIdLong(), e.isFromGuild() ? e.getGuild().getIdLong() : null, command.getName(), exectTime, Instant.now()));
     }
 
     protected abstract CommandCategory initCategory();
@@ -97,16 +100,24 @@ public abstract class MyCommand<T extends CommandParameters> extends ListenerAda
 
     void measureTime(MessageReceivedEvent e) {
         long startTime = System.nanoTime();
-        handleCommand(e);
+        CommandTrace.start(getName(), e.getAuthor().getIdLong());
+        try {
+            handleCommand(e);
+        } finally {
+            CommandTrace.finish();
+        }
         long timeElapsed = System.nanoTime() - startTime;
-        System.out.printf("Execution time in milliseconds %s: %d%n", getName(), timeElapsed / 1000);
-        logCommand(getService(), e, this, timeElapsed);
+        ChuuMetrics.recordExecution(getName(), timeElapsed);
+        logCommand(e, this, timeElapsed);
     }
 
 
     void handleCommand(MessageReceivedEvent e) {
         try {
-            T params = parser.parse(e);
+            T params;
+            try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.PARSE)) {
+                params = parser.parse(e);
+            }
             if (params != null) {
                 onCommand(e, params);
             }
@@ -230,13 +241,15 @@ public abstract class MyCommand<T extends CommandParameters> extends ListenerAda
         }
         ByteArrayOutputStream b = new ByteArrayOutputStream();
 
-        try {
+        // Only covers encoding and handing the file to JDA, the upload itself happens on its own threads
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.UPLOAD)) {
             String format = "png";
             if (chartQuality == ChartQuality.JPEG_SMALL || chartQuality == ChartQuality.JPEG_BIG)
                 format = "jpg";
             ImageIO.write(image, format, b);
 
             byte[] img = b.toByteArray();
+            CommandTrace.addBytesEncoded(img.length);
             long maxSize = e.isFromGuild() ? e.getGuild().getMaxFileSize() : Message.MAX_FILE_SIZE;
             if (img.length < maxSize) {
                 if (embedBuilder != null) {
@@ -257,6 +270,9 @@ public abstract class MyCommand<T extends CommandParameters> extends ListenerAda
                 sendMessageQueue(e, "Ish Pc Bad");
                 Chuu.getLogger().warn(ex.getMessage(), ex);
             }
+        } finally {
+            // Already encoded, pooled canvases can be reused by the next render
+            CanvasPool.giveBack(image);
         }
 
 
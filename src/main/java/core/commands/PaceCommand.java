@@ -5,6 +5,7 @@ import core.parsers.PaceParser;
 import core.parsers.Parser;
 import core.parsers.params.NaturalTimeParams;
 import core.parsers.params.NumberParameters;
+import core.services.ScrobbleTimelineService;
 import dao.ChuuService;
 import dao.entities.NaturalTimeFrameEnum;
 import dao.entities.UserInfo;
@@ -22,6 +23,7 @@ import java.time.temporal.Temporal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
 import java.util.function.BiFunction;
 
 import static core.parsers.ExtraParser.INNER_ERROR;
@@ -31,9 +33,11 @@ import static core.parsers.ExtraParser.LIMIT_ERROR;
  * Credits: to lfmwhoknows bot owner for the idea
  */
 public class PaceCommand extends ConcurrentCommand<NumberParameters<NumberParameters<NaturalTimeParams>>> {
+    private final ScrobbleTimelineService timelineService;
+
     public PaceCommand(ChuuService dao) {
         super(dao);
-
+        timelineService = new ScrobbleTimelineService(dao, lastFM);
     }
 
     @Override
@@ -143,7 +147,8 @@ public class PaceCommand extends ConcurrentCommand<NumberParameters<NumberParame
             default:
                 throw new IllegalArgumentException();
         }
-        int totalScrobbles = lastFM.getInfoPeriod(lastfmId, timestamp);
+        OptionalInt local = timelineService.countFrom(lastfmId, timestamp);
+        int totalScrobbles = local.isPresent() ? local.getAsInt() : lastFM.getInfoPeriod(lastfmId, timestamp);
         if (totalScrobbles == 0) {
             sendMessageQueue(e, userString + " hasn't played anything in the last " + unitNumber + " " + naturalTimeFrameEnum.toString().toLowerCase());
             return;
@@ -1,5 +1,6 @@
 package core.commands;
 
+import core.commands.utils.DisplayNames;
 import core.exceptions.LastFmException;
 import core.parsers.Parser;
 import core.parsers.RandomAlbumParser;
@@ -71,7 +72,7 @@ public class RandomAlbumCommand extends ConcurrentCommand<UrlParameters> {
                             ownerRec = getUserString(e, lastFMData.getDiscordId());
                             break;
                         case TAG:
-                            ownerRec = e.getJDA().retrieveUserById(lastFMData.getDiscordId()).complete().getAsTag();
+                            ownerRec = DisplayNames.getTag(e.getJDA(), lastFMData.getDiscordId());
                             break;
                         case LAST_NAME:
                             ownerRec = lastFMData.getName() + " (lastfm)";
@@ -4,6 +4,7 @@ import core.exceptions.LastFmException;
 import core.parsers.DateParser;
 import core.parsers.Parser;
 import core.parsers.params.DateParameters;
+import core.services.ScrobbleTimelineService;
 import dao.ChuuService;
 import dao.entities.LastFMData;
 import dao.exceptions.InstanceNotFoundException;
@@ -13,11 +14,14 @@ import javax.validation.constraints.NotNull;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.OptionalInt;
 
 public class ScrobblesSinceCommand extends ConcurrentCommand<DateParameters> {
+    private final ScrobbleTimelineService timelineService;
 
     public ScrobblesSinceCommand(ChuuService dao) {
         super(dao);
+        timelineService = new ScrobbleTimelineService(dao, lastFM);
     }
 
     @Override
@@ -50,7 +54,8 @@ public class ScrobblesSinceCommand extends ConcurrentCommand<DateParameters> {
 
         LastFMData lastFMData = getService().findLastFMData(params.getUser().getIdLong());
         ZonedDateTime date = params.getDate().atZoneSameInstant(lastFMData.getTimeZone().toZoneId());
-        int i = lastFM.scrobblesSince(lastFMData.getName(), date.toOffsetDateTime());
+        OptionalInt local = timelineService.countFrom(lastFMData.getName(), (int) date.toEpochSecond() + 1);
+        int i = local.isPresent() ? local.getAsInt() : lastFM.scrobblesSince(lastFMData.getName(), date.toOffsetDateTime());
         String username = CommandUtil.getUserInfoConsideringGuildOrNot(e, params.getUser().getIdLong()).getUsername();
         String mmmmD = date.format(DateTimeFormatter.ofPattern("MMMM d"));
         sendMessageQueue(e, String.format("%s has a total of %d scrobbles since %s%s %d %s", username, i, mmmmD, CommandUtil.getDayNumberSuffix(date.getDayOfMonth()),
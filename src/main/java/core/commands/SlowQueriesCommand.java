@@ -0,0 +1,102 @@
+package core.commands;
+
+import core.exceptions.LastFmException;
+import core.parsers.NoOpParser;
+import core.parsers.OptionalEntity;
+import core.parsers.Parser;
+import core.parsers.params.CommandParameters;
+import dao.ChuuService;
+import dao.QueryProfiler;
+import dao.entities.LastFMData;
+import dao.entities.Role;
+import dao.entities.SlowQuery;
+import dao.exceptions.InstanceNotFoundException;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SlowQueriesCommand extends ConcurrentCommand<CommandParameters> {
+    private static final int SHOWN = 5;
+    private static final int SQL_LENGTH = 250;
+
+    public SlowQueriesCommand(ChuuService dao) {
+        super(dao);
+    }
+
+    @Override
+    protected CommandCategory initCategory() {
+        return CommandCategory.MODERATION;
+    }
+
+    @Override
+    public Parser<CommandParameters> initParser() {
+        NoOpParser noOpParser = new NoOpParser();
+        noOpParser.addOptional(new OptionalEntity("enable", "start profiling the database statements"));
+        noOpParser.addOptional(new OptionalEntity("disable", "stop profiling the database statements"));
+        noOpParser.addOptional(new OptionalEntity("reset", "forget the statements profiled so far"));
+        return noOpParser;
+    }
+
+    @Override
+    public String getDescription() {
+        return "The slowest database statements since profiling was enabled";
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return List.of("slowqueries");
+    }
+
+    @Override
+    public String getName() {
+        return "Slow Queries";
+    }
+
+    @Override
+    void onCommand(MessageReceivedEvent e, @NotNull CommandParameters params) throws LastFmException, InstanceNotFoundException {
+        long idLong = e.getAuthor().getIdLong();
+        LastFMData lastFMData = getService().findLastFMData(idLong);
+        if (lastFMData.getRole() != Role.ADMIN) {
+            sendMessageQueue(e, "Only bot admins can profile the database");
+            return;
+        }
+        if (params.hasOptional("reset")) {
+            QueryProfiler.reset();
+        }
+        if (params.hasOptional("enable")) {
+            QueryProfiler.setEnabled(true);
+            sendMessageQueue(e, "Database statements are being profiled now");
+            return;
+        }
+        if (params.hasOptional("disable")) {
+            QueryProfiler.setEnabled(false);
+            sendMessageQueue(e, "Stopped profiling database statements");
+            return;
+        }
+
+        List<SlowQuery> slowest = QueryProfiler.getSlowest();
+        if (slowest.isEmpty()) {
+            sendMessageQueue(e, QueryProfiler.isEnabled() ? "No statement has been profiled yet" : "Profiling is disabled, enable it with --enable");
+            return;
+        }
+        StringBuilder a = new StringBuilder();
+        for (SlowQuery query : slowest.subList(0, Math.min(SHOWN, slowest.size()))) {
+            a.append("**").append(TimeUnit.NANOSECONDS.toMillis(query.getNanos())).append(" ms** ").append(query.getCaller()).append("\n")
+                    .append("```sql\n").append(StringUtils.abbreviate(StringUtils.normalizeSpace(query.getSql()), SQL_LENGTH)).append("```");
+            if (!query.getBinds().isEmpty()) {
+                a.append("Binds: ").append(StringUtils.abbreviate(String.join(", ", query.getBinds()), SQL_LENGTH)).append("\n");
+            }
+            a.append("\n");
+        }
+        EmbedBuilder embedBuilder = new EmbedBuilder()
+                .setTitle("Slowest database statements")
+                .setDescription(StringUtils.abbreviate(a.toString(), 2048))
+                .setFooter("Profiling is " + (QueryProfiler.isEnabled() ? "enabled" : "disabled") + " | Keeping the " + QueryProfiler.TOP + " slowest")
+                .setColor(CommandUtil.randomColor());
+        e.getChannel().sendMessage(embedBuilder.build()).queue();
+    }
+}
@@ -0,0 +1,91 @@
+package core.commands;
+
+import core.exceptions.LastFmException;
+import core.metrics.CommandTrace;
+import core.metrics.SlowTraces;
+import core.parsers.NoOpParser;
+import core.parsers.Parser;
+import core.parsers.params.CommandParameters;
+import dao.ChuuService;
+import dao.entities.LastFMData;
+import dao.entities.Role;
+import dao.exceptions.InstanceNotFoundException;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SlowTracesCommand extends ConcurrentCommand<CommandParameters> {
+    private static final int SHOWN = 8;
+
+    public SlowTracesCommand(ChuuService dao) {
+        super(dao);
+    }
+
+    @Override
+    protected CommandCategory initCategory() {
+        return CommandCategory.MODERATION;
+    }
+
+    @Override
+    public Parser<CommandParameters> initParser() {
+        return new NoOpParser();
+    }
+
+    @Override
+    public String getDescription() {
+        return "Where the time of the last slow commands went";
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return List.of("slowtraces", "slow");
+    }
+
+    @Override
+    public String getName() {
+        return "Slow Commands";
+    }
+
+    @Override
+    void onCommand(MessageReceivedEvent e, @NotNull CommandParameters params) throws LastFmException, InstanceNotFoundException {
+        long idLong = e.getAuthor().getIdLong();
+        LastFMData lastFMData = getService().findLastFMData(idLong);
+        if (lastFMData.getRole() != Role.ADMIN) {
+            sendMessageQueue(e, "Only bot admins can see the slow commands");
+            return;
+        }
+        List<CommandTrace> traces = SlowTraces.getRecent(SHOWN);
+        if (traces.isEmpty()) {
+            sendMessageQueue(e, "No command has taken more than " + millis(SlowTraces.THRESHOLD_NANOS) + " lately");
+            return;
+        }
+        StringBuilder a = new StringBuilder();
+        Instant now = Instant.now();
+        for (CommandTrace trace : traces) {
+            a.append("**").append(trace.getCommand()).append("** ").append(millis(trace.getTotal()))
+                    .append(" | ").append(Duration.between(trace.getStartedAt(), now).toMinutes()).append(" min ago")
+                    .append(" | user ").append(trace.getDiscordId()).append("\n")
+                    .append("parse ").append(millis(trace.getNanos(CommandTrace.Phase.PARSE)))
+                    .append(" · db ").append(millis(trace.getNanos(CommandTrace.Phase.DATABASE))).append(" (").append(trace.getDbConnections()).append(" conn)")
+                    .append(" · last.fm ").append(millis(trace.getNanos(CommandTrace.Phase.LASTFM))).append(" (").append(trace.getHttpCalls()).append(")")
+                    .append(" · render ").append(millis(trace.getNanos(CommandTrace.Phase.RENDER)))
+                    .append(" · upload ").append(millis(trace.getNanos(CommandTrace.Phase.UPLOAD))).append(" (").append(trace.getBytesEncoded() / 1024).append(" KB)")
+                    .append(" · other ").append(millis(trace.getOwnNanos())).append("\n\n");
+        }
+        EmbedBuilder embedBuilder = new EmbedBuilder()
+                .setTitle("Last slow commands")
+                .setDescription(a)
+                .setFooter("Only commands that took more than " + millis(SlowTraces.THRESHOLD_NANOS) + " are kept")
+                .setColor(CommandUtil.randomColor());
+        e.getChannel().sendMessage(embedBuilder.build()).queue();
+    }
+
+    private static String millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos) + " ms";
+    }
+}
@@ -9,6 +9,7 @@ import core.exceptions.LastFmException;
 import core.parsers.OnlyUsernameParser;
 import core.parsers.Parser;
 import core.parsers.params.ChuuDataParams;
+import core.services.ScrobbleTimelineService;
 import dao.ChuuService;
 import dao.entities.DiscordUserDisplay;
 import dao.entities.ScrobbledArtist;
@@ -21,6 +22,7 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -29,11 +31,13 @@ import java.util.concurrent.CompletableFuture;
 public class StreakCommand extends ConcurrentCommand<ChuuDataParams> {
     private final DiscogsApi discogsApi;
     private final Spotify spotifyApi;
+    private final ScrobbleTimelineService timelineService;
 
     public StreakCommand(ChuuService dao) {
         super(dao);
         discogsApi = DiscogsSingleton.getInstanceUsingDoubleLocking();
         spotifyApi = SpotifySingleton.getInstance();
+        timelineService = new ScrobbleTimelineService(dao, lastFM);
 
     }
 
@@ -74,7 +78,8 @@ public class StreakCommand extends ConcurrentCommand<ChuuDataParams> {
         DiscordUserDisplay userInformation = CommandUtil.getUserInfoConsideringGuildOrNot(e, discordID);
         String userName = userInformation.getUsername();
         String userUrl = userInformation.getUrlImage();
-        StreakEntity combo = lastFM.getCombo(lastfmId);
+        Optional<StreakEntity> localCombo = timelineService.getCombo(lastfmId);
+        StreakEntity combo = localCombo.isPresent() ? localCombo.get() : lastFM.getCombo(lastfmId);
 
         ScrobbledArtist artist = new ScrobbledArtist(combo.getCurrentArtist(), 0, "");
         CommandUtil.validate(getService(), artist, lastFM, discogsApi, spotifyApi);
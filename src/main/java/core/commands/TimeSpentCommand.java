@@ -4,6 +4,7 @@ import core.exceptions.LastFmException;
 import core.parsers.Parser;
 import core.parsers.TimerFrameParser;
 import core.parsers.params.TimeFrameParameters;
+import core.services.ScrobbleTimelineService;
 import dao.ChuuService;
 import dao.entities.SecondsTimeFrameCount;
 import dao.entities.TimeFrameEnum;
@@ -13,11 +14,15 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import javax.validation.constraints.NotNull;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 public class TimeSpentCommand extends ConcurrentCommand<TimeFrameParameters> {
+    private final ScrobbleTimelineService timelineService;
+
     public TimeSpentCommand(ChuuService dao) {
         super(dao);
+        timelineService = new ScrobbleTimelineService(dao, lastFM);
     }
 
     @Override
@@ -47,17 +52,20 @@ public class TimeSpentCommand extends ConcurrentCommand<TimeFrameParameters> {
         long discordId = params.getLastFMData().getDiscordId();
         TimeFrameEnum timeframe = params.getTime();
         String usableString = getUserString(e, discordId, username);
-        if (Stream.of(TimeFrameEnum.WEEK, TimeFrameEnum.DAY, TimeFrameEnum.MONTH, TimeFrameEnum.QUARTER).noneMatch(timeframe::equals)) {
+        Optional<SecondsTimeFrameCount> localTime = timelineService.getListeningTime(username, timeframe);
+        SecondsTimeFrameCount wastedOnMusic;
+        if (localTime.isPresent()) {
+            wastedOnMusic = localTime.get();
+        } else if (Stream.of(TimeFrameEnum.WEEK, TimeFrameEnum.DAY, TimeFrameEnum.MONTH, TimeFrameEnum.QUARTER).noneMatch(timeframe::equals)) {
             sendMessageQueue(e, "Only [d]ay, [w]eek,[m]onth and [q]uarter are supported at the moment, sorry :'(");
             return;
+        } else {
+            wastedOnMusic = lastFM.getMinutesWastedOnMusic(username, timeframe);
         }
-
-        SecondsTimeFrameCount wastedOnMusic = lastFM.getMinutesWastedOnMusic(username, timeframe);
-        sendMessageQueue(e, String.format("**%s** played %d minutes of music, %s%s), listening to %d different tracks in the last %s", usableString, wastedOnMusic.getMinutes(), String
+        sendMessageQueue(e, String.format("**%s** played %d minutes of music, %s%s), listening to %d different tracks%s", usableString, wastedOnMusic.getMinutes(), String
                         .format("(%d:%02d ", wastedOnMusic.getHours(),
                                 wastedOnMusic.getRemainingMinutes()),
-                CommandUtil.singlePlural(wastedOnMusic.getHours(), "hour", "hours"), wastedOnMusic.getCount(), wastedOnMusic.getTimeFrame().toString()
-                        .toLowerCase()));
+                CommandUtil.singlePlural(wastedOnMusic.getHours(), "hour", "hours"), wastedOnMusic.getCount(), wastedOnMusic.getTimeFrame().getDisplayString()));
 
     }
 
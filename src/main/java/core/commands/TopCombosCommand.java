@@ -1,5 +1,6 @@
 package core.commands;
 
+import core.commands.utils.DisplayNames;
 import core.exceptions.LastFmException;
 import core.otherlisteners.Reactionary;
 import core.parsers.NoOpParser;
@@ -19,6 +20,7 @@ import net.dv8tion.jda.api.entities.SelfUser;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import javax.validation.constraints.NotNull;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -115,7 +117,7 @@ public class TopCombosCommand extends ConcurrentCommand<NumberParameters<Command
                     x.setCalculatedDisplayName(dayNumberSuffix + " **" + getUserString(params.getE(), x.getDiscordId()) + "**");
                     break;
                 case TAG:
-                    x.setCalculatedDisplayName(dayNumberSuffix + " **" + params.getE().getJDA().retrieveUserById(x.getDiscordId()).complete().getAsTag() + "**");
+                    x.setCalculatedDisplayName(dayNumberSuffix + " **" + DisplayNames.getTag(params.getE().getJDA(), x.getDiscordId()) + "**");
                     break;
                 case LAST_NAME:
                     x.setCalculatedDisplayName(dayNumberSuffix + " **" + x.getLastfmId() + " (last.fm)**");
@@ -129,6 +131,10 @@ public class TopCombosCommand extends ConcurrentCommand<NumberParameters<Command
                 );
         atomicInteger.set(0);
         topStreaks.forEach(x -> x.setDisplayer(consumer));
+        DisplayNames.prefetch(e.getJDA(), topStreaks.stream().limit(5)
+                .filter(x -> showableUsers.contains(x.getDiscordId()) || EnumSet.of(PrivacyMode.DISCORD_NAME, PrivacyMode.TAG).contains(x.getPrivacyMode()))
+                .map(GlobalStreakEntities::getDiscordId)
+                .collect(Collectors.toList()));
         if (topStreaks.isEmpty()) {
             sendMessageQueue(e, title + " doesn't have any stored streaks.");
             return;
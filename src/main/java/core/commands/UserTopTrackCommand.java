@@ -83,7 +83,7 @@ public class UserTopTrackCommand extends ChartableCommand<ChartParameters> {
     @Override
     public CountWrapper<BlockingQueue<UrlCapsule>> processQueue(ChartParameters param) throws LastFmException {
         ArtistQueue queue = new ArtistQueue(getService(), discogsApi, spotifyApi, !param.isList());
-        int i = param.makeCommand(lastFM, queue, TopEntity.TRACK, ChartUtil.getParser(param.getTimeFrameEnum(), TopEntity.TRACK, param, lastFM, param.getLastfmID()));
+        int i = param.makeCommand(chartSource, queue, TopEntity.TRACK, ChartUtil.getParser(param.getTimeFrameEnum(), TopEntity.TRACK, param, lastFM, param.getLastfmID()));
         return new CountWrapper<>(i, queue);
     }
 
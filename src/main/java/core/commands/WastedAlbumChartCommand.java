@@ -29,7 +29,7 @@ public class WastedAlbumChartCommand extends GroupingChartCommand {
     @Override
     public CountWrapper<GroupingQueue> processGroupedQueue(ChartGroupParameters params) throws LastFmException {
         BlockingQueue<UrlCapsule> albumQueu = new LinkedBlockingDeque<>();
-        int albumsQueried = lastFM.getChart(params.getLastfmID(), params.getTimeFrameEnum(), 1499, 1, TopEntity.ALBUM, ChartUtil.getParser(params.getTimeFrameEnum(), TopEntity.ALBUM, ChartParameters.toListParams(), lastFM, params.getLastfmID()), albumQueu);
+        int albumsQueried = chartSource.getChart(params.getLastfmID(), params.getTimeFrameEnum(), 1499, 1, TopEntity.ALBUM, ChartUtil.getParser(params.getTimeFrameEnum(), TopEntity.ALBUM, ChartParameters.toListParams(), lastFM, params.getLastfmID()), albumQueu);
         List<UrlCapsule> albumList = new ArrayList<>(albumQueu.size());
         albumQueu.drainTo(albumList);
         GroupingQueue queue;
@@ -38,7 +38,7 @@ public class WastedAlbumChartCommand extends GroupingChartCommand {
         } else {
             queue = new TrackGroupAlbumQueue(getService(), discogsApi, spotifyApi, params.getX() * params.getY(), albumList);
         }
-        lastFM.getChart(params.getLastfmID(), params.getTimeFrameEnum(), 1499, 1, TopEntity.TRACK, ChartUtil.getParser(params.getTimeFrameEnum(), TopEntity.ALBUM, params, lastFM, params.getLastfmID()), queue);
+        chartSource.getChart(params.getLastfmID(), params.getTimeFrameEnum(), 1499, 1, TopEntity.TRACK, ChartUtil.getParser(params.getTimeFrameEnum(), TopEntity.ALBUM, params, lastFM, params.getLastfmID()), queue);
         return new CountWrapper<>(albumsQueried, queue);
     }
 
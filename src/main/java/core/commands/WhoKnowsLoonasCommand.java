@@ -1,6 +1,7 @@
 package core.commands;
 
 import core.exceptions.LastFmException;
+import core.imagerenderer.CanvasPool;
 import core.imagerenderer.ChartQuality;
 import core.imagerenderer.CollageGenerator;
 import core.imagerenderer.WhoKnowsMaker;
@@ -208,7 +209,9 @@ public class WhoKnowsLoonasCommand extends WhoKnowsBaseCommand<LOONAParameters>
 
 
                         map(x -> Pair.of(doImage(params, x), atomicInteger.getAndIncrement())).collect(Collectors.toCollection(LinkedBlockingQueue::new));
+                List<BufferedImage> parts = collect.stream().map(Pair::getLeft).collect(Collectors.toList());
                 BufferedImage bufferedImage = CollageGenerator.generateCollageThreaded(xSize, y, collect, ChartQuality.PNG_BIG);
+                parts.forEach(CanvasPool::giveBack);
                 sendImage(bufferedImage, e, ChartQuality.PNG_BIG);
 
                 break;
@@ -0,0 +1,174 @@
+package core.commands.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.User;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Discord names of users that might not be on the JDA cache.
+ * <p>
+ * Users already seen are kept for a while. The rest are retrieved concurrently, and the ones that don't arrive
+ * before the deadline get a placeholder name. Those keep being retrieved in the background, so they will be cached
+ * for the next time.
+ */
+public class DisplayNames {
+    public static final String UNKNOWN_USER = "Unknown User";
+    private static final long SINGLE_DEADLINE_MILLIS = 3000;
+    private static final long BATCH_DEADLINE_MILLIS = 5000;
+    private static final Cache<Long, DiscordName> names = CacheBuilder.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterWrite(30, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+    private static final LongAdder retrieved = new LongAdder();
+    private static final LongAdder timeouts = new LongAdder();
+    private static final LongAdder failures = new LongAdder();
+
+    private DisplayNames() {
+    }
+
+    public static DiscordName get(JDA jda, long discordId) {
+        DiscordName name = cached(jda, discordId);
+        if (name != null) {
+            return name;
+        }
+        return resolve(jda, List.of(discordId), SINGLE_DEADLINE_MILLIS).get(discordId);
+    }
+
+    public static String getTag(JDA jda, long discordId) {
+        return get(jda, discordId).getTag();
+    }
+
+    public static String getName(JDA jda, long discordId) {
+        return get(jda, discordId).getName();
+    }
+
+    /**
+     * Resolves all the ids at once, waiting at most a single deadline for all of them
+     */
+    public static Map<Long, DiscordName> getAll(JDA jda, Collection<Long> discordIds) {
+        return resolve(jda, discordIds, BATCH_DEADLINE_MILLIS);
+    }
+
+    /**
+     * Same as {@link #getAll(JDA, Collection)} when only the cache needs to be warmed up for the lookups that will
+     * follow
+     */
+    public static void prefetch(JDA jda, Collection<Long> discordIds) {
+        if (!discordIds.isEmpty()) {
+            getAll(jda, discordIds);
+        }
+    }
+
+    @Nullable
+    private static DiscordName cached(JDA jda, long discordId) {
+        DiscordName name = names.getIfPresent(discordId);
+        if (name == null) {
+            User user = jda.getUserById(discordId);
+            if (user != null) {
+                name = DiscordName.of(user);
+                names.put(discordId, name);
+            }
+        }
+        return name;
+    }
+
+    private static Map<Long, DiscordName> resolve(JDA jda, Collection<Long> discordIds, long deadlineMillis) {
+        Map<Long, DiscordName> result = new HashMap<>(discordIds.size());
+        Map<Long, CompletableFuture<DiscordName>> pending = new HashMap<>();
+        for (Long discordId : discordIds) {
+            if (result.containsKey(discordId) || pending.containsKey(discordId)) {
+                continue;
+            }
+            DiscordName name = cached(jda, discordId);
+            if (name != null) {
+                result.put(discordId, name);
+                continue;
+            }
+            retrieved.increment();
+            pending.put(discordId, jda.retrieveUserById(discordId).submit().thenApply(user -> {
+                DiscordName retrievedName = DiscordName.of(user);
+                names.put(discordId, retrievedName);
+                return retrievedName;
+            }));
+        }
+        if (pending.isEmpty()) {
+            return result;
+        }
+        try {
+            CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new)).get(deadlineMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignored) {
+            // Each user is checked below
+        }
+        pending.forEach((discordId, future) -> {
+            if (!future.isDone()) {
+                timeouts.increment();
+                result.put(discordId, DiscordName.UNKNOWN);
+            } else if (future.isCompletedExceptionally()) {
+                failures.increment();
+                result.put(discordId, DiscordName.UNKNOWN);
+            } else {
+                result.put(discordId, future.join());
+            }
+        });
+        return result;
+    }
+
+    public static CacheStats getStats() {
+        return names.stats();
+    }
+
+    public static long getRetrieved() {
+        return retrieved.sum();
+    }
+
+    public static long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public static long getFailures() {
+        return failures.sum();
+    }
+
+    public static final class DiscordName {
+        private static final DiscordName UNKNOWN = new DiscordName(UNKNOWN_USER, UNKNOWN_USER, null);
+        private final String name;
+        private final String tag;
+        private final String avatarUrl;
+
+        private DiscordName(String name, String tag, @Nullable String avatarUrl) {
+            this.name = name;
+            this.tag = tag;
+            this.avatarUrl = avatarUrl;
+        }
+
+        private static DiscordName of(User user) {
+            return new DiscordName(user.getName(), user.getAsTag(), user.getAvatarUrl());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        @Nullable
+        public String getAvatarUrl() {
+            return avatarUrl;
+        }
+    }
+}
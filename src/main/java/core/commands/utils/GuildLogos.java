@@ -0,0 +1,114 @@
+package core.commands.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import core.Chuu;
+import dao.ChuuService;
+import org.imgscalr.Scalr;
+
+import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Decoded server logos, ready to be drawn.
+ * <p>
+ * Logos are scaled when they are uploaded, the ones stored before that are scaled once when they are loaded. Servers
+ * without a logo are cached as well. The whole cache is bounded by the bytes of the decoded images.
+ */
+public class GuildLogos {
+    public static final int LOGO_SIZE = 75;
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+    // Weight of a server without logo, so those are also evicted eventually
+    private static final int EMPTY_WEIGHT = 64;
+    private static final Cache<Long, Optional<BufferedImage>> logos = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_BYTES)
+            .<Long, Optional<BufferedImage>>weigher((guildId, logo) -> logo.map(GuildLogos::bytes).orElse(EMPTY_WEIGHT))
+            .recordStats()
+            .build();
+
+    private GuildLogos() {
+    }
+
+    /**
+     * @return the logo of the server, or null if it doesn't have one. The image is shared, it must not be modified.
+     */
+    @Nullable
+    public static BufferedImage get(ChuuService dao, long guildId) {
+        try {
+            return logos.get(guildId, () -> Optional.ofNullable(load(dao, guildId))).orElse(null);
+        } catch (ExecutionException e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Scales an uploaded image to the size it is stored and drawn with
+     */
+    public static BufferedImage prepare(BufferedImage image) {
+        return toArgb(Scalr.resize(image, Scalr.Method.QUALITY, LOGO_SIZE, Scalr.OP_ANTIALIAS));
+    }
+
+    /**
+     * Replaces the cached logo of the server once it has been set or removed on the database
+     *
+     * @param logo the new logo as returned by {@link #prepare(BufferedImage)}, or null if it was removed
+     */
+    public static void update(long guildId, @Nullable BufferedImage logo) {
+        logos.put(guildId, Optional.ofNullable(logo));
+    }
+
+    public static void invalidate(long guildId) {
+        logos.invalidate(guildId);
+    }
+
+    @Nullable
+    private static BufferedImage load(ChuuService dao, long guildId) {
+        try (InputStream stream = dao.findLogo(guildId)) {
+            if (stream == null) {
+                return null;
+            }
+            BufferedImage image = ImageIO.read(stream);
+            if (image == null) {
+                return null;
+            }
+            if (Math.max(image.getWidth(), image.getHeight()) > LOGO_SIZE) {
+                return prepare(image);
+            }
+            return toArgb(image);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    // Decoded pngs usually have a custom type, which is much slower to draw
+    private static BufferedImage toArgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return image;
+        }
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return converted;
+    }
+
+    private static int bytes(BufferedImage image) {
+        return image.getWidth() * image.getHeight() * Integer.BYTES;
+    }
+
+    public static CacheStats getStats() {
+        return logos.stats();
+    }
+
+    public static long getBytes() {
+        return logos.asMap().values().stream().mapToLong(logo -> logo.map(GuildLogos::bytes).orElse(EMPTY_WEIGHT)).sum();
+    }
+}
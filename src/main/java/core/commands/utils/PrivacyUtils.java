@@ -30,7 +30,7 @@ public class PrivacyUtils {
                 x.setCalculatedDisplayName(dayNumberSuffix + " **" + CommandUtil.getUserInfoNotStripped(e, x.getDiscordId()).getUsername() + "**");
                 break;
             case TAG:
-                x.setCalculatedDisplayName(dayNumberSuffix + " **" + e.getJDA().retrieveUserById(x.getDiscordId()).complete().getAsTag() + "**");
+                x.setCalculatedDisplayName(dayNumberSuffix + " **" + DisplayNames.getTag(e.getJDA(), x.getDiscordId()) + "**");
                 break;
             case LAST_NAME:
                 x.setCalculatedDisplayName(dayNumberSuffix + " **" + x.getLastfmId() + " (last.fm)**");
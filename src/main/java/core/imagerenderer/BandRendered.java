@@ -1,17 +1,16 @@
 package core.imagerenderer;
 
 
+import core.imagerenderer.util.Fonts;
+import core.metrics.CommandTrace;
 import dao.entities.AlbumUserPlays;
 import dao.entities.ArtistAlbums;
 import dao.entities.ReturnNowPlaying;
 import dao.entities.WrapperReturnNowPlaying;
 import org.imgscalr.Scalr;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -24,6 +23,7 @@ public class BandRendered {
     private static final Font NORMAL_FONT = new Font("Noto Sans Display SemiBold", Font.PLAIN, 32);
     private static final Font JAPANESE_FONT = new Font("Noto Serif CJK JP", Font.PLAIN, 32);
     private static final Font DESC_FONT = new Font("Noto Sans CJK JP Light", Font.PLAIN, 32);
+    private static final BufferedImage lastFmLogo = Scalr.resize(GraphicUtils.lastFmLogo, 30);
 
 
     private BandRendered() {
@@ -31,26 +31,24 @@ public class BandRendered {
     }
 
     public static BufferedImage makeBandImage(WrapperReturnNowPlaying wrapperReturnNowPlaying, ArtistAlbums ai, int plays, BufferedImage logo, String user) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawBandImage(wrapperReturnNowPlaying, ai, plays, logo, user);
+        }
+    }
+
+    private static BufferedImage drawBandImage(WrapperReturnNowPlaying wrapperReturnNowPlaying, ArtistAlbums ai, int plays, BufferedImage logo, String user) {
         BufferedImage canvas = new BufferedImage(X_MAX, Y_MAX, BufferedImage.TYPE_INT_RGB);
-        BufferedImage lastFmLogo;
         BufferedImage artistReplacement;
 
         String artist = wrapperReturnNowPlaying.getArtist();
         boolean needsJapanese = false;
 
-        //Loads logo if it were to exist
-        try (InputStream in = BandRendered.class.getResourceAsStream("/images/logo2.png")) {
-            lastFmLogo = ImageIO.read(in);
-            lastFmLogo = Scalr.resize(lastFmLogo, 30);
-        } catch (IOException e) {
-            lastFmLogo = null;
-        }
         artistReplacement = GraphicUtils.noArtistImage;
 
         BufferedImage artistImageFill = GraphicUtils
                 .getImageFromUrl(wrapperReturnNowPlaying.getUrl(), artistReplacement);
         //Inits the background with the blurred image
-        Graphics2D g = GraphicUtils.initArtistBackground(canvas, artistImageFill);
+        Graphics2D g = GraphicUtils.initArtistBackground(canvas, wrapperReturnNowPlaying.getUrl(), artistImageFill);
 
         Color colorB1 = GraphicUtils.getReadableColorBackgroundForFont(GraphicUtils.getFontColorBackground(canvas));
         Color colorB = GraphicUtils.getSurfaceColor(GraphicUtils.getFontColorBackground(canvas));
@@ -128,10 +126,8 @@ public class BandRendered {
             String play = Integer.toString(albumUserPlays.getPlays());
 
             Font ogFont = g.getFont();
-            float sizeFont = ogFont.getSize();
-            while ((width = g.getFontMetrics(g.getFont()).stringWidth(album)) > 300 && sizeFont > 8f) {
-                g.setFont(g.getFont().deriveFont(sizeFont -= 2));
-            }
+            g.setFont(Fonts.fitWidth(g, ogFont, album, 300, 8f));
+            width = g.getFontMetrics().stringWidth(album);
             GraphicUtils
                     .drawStringNicely(g, album, posX + (300 / 2) - width / 2, baseline + metrics.getAscent(), canvas);
 
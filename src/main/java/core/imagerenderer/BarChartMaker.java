@@ -1,5 +1,6 @@
 package core.imagerenderer;
 
+import core.metrics.CommandTrace;
 import org.knowm.xchart.CategoryChart;
 import org.knowm.xchart.CategoryChartBuilder;
 import org.knowm.xchart.CategorySeries;
@@ -18,6 +19,12 @@ public class BarChartMaker {
     }
 
     public static BufferedImage makeBarChart(Map<LocalDate, Integer> dates) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawBarChart(dates);
+        }
+    }
+
+    private static BufferedImage drawBarChart(Map<LocalDate, Integer> dates) {
         BufferedImage bufferedImage = new BufferedImage(1200, 600, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g = bufferedImage.createGraphics();
         GraphicUtils.setQuality(g);
@@ -0,0 +1,213 @@
+package core.imagerenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of the canvases the renderers draw on.
+ * <p>
+ * Every borrowed and idle canvas counts against a global byte budget. When a new canvas does not fit the idle ones are
+ * released first and then the caller waits for other renders to give theirs back, so concurrent big charts are
+ * throttled instead of exhausting the heap. After {@link #MAX_WAIT_MILLIS} the canvas is created anyway.
+ * <p>
+ * Every borrow site gives the canvas back if drawing fails, and the caller gives it back after encoding it. Canvases
+ * that are still never given back are just garbage collected and stop counting against the budget once they are, the
+ * waiters check the budget again every {@link #RECHECK_MILLIS} so they notice.
+ */
+public class CanvasPool {
+    private static final long BUDGET = Runtime.getRuntime().maxMemory() / 3;
+    private static final long MAX_IDLE_BYTES = BUDGET / 2;
+    private static final long MAX_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(20);
+    // Leaked canvases are only noticed once collected, nothing wakes the waiters for them
+    private static final long RECHECK_MILLIS = 250;
+    private static final Object lock = new Object();
+    private static final Deque<BufferedImage> idle = new ArrayDeque<>();
+    private static final Map<BufferedImage, Long> borrowed = new WeakHashMap<>();
+    private static final ThreadLocal<Graphics2D> measurementGraphics = ThreadLocal.withInitial(() ->
+            new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics());
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder waits = new LongAdder();
+    private static final LongAdder overBudget = new LongAdder();
+    private static long idleBytes = 0;
+    private static long reservedBytes = 0;
+
+    private CanvasPool() {
+    }
+
+    /**
+     * Obtains a canvas in the same state as a newly created one.
+     * It should be returned with {@link #giveBack(BufferedImage)} once it has been encoded.
+     *
+     * @param type one of {@link BufferedImage#TYPE_INT_ARGB} or {@link BufferedImage#TYPE_INT_RGB}, other types are not
+     *             pooled
+     */
+    public static BufferedImage borrow(int width, int height, int type) {
+        if (type != BufferedImage.TYPE_INT_ARGB && type != BufferedImage.TYPE_INT_RGB) {
+            return new BufferedImage(width, height, type);
+        }
+        long size = bytes(width, height);
+        synchronized (lock) {
+            BufferedImage reused = takeIdle(width, height, type);
+            if (reused != null) {
+                hits.increment();
+                borrowed.put(reused, size);
+                Arrays.fill(((DataBufferInt) reused.getRaster().getDataBuffer()).getData(), 0);
+                return reused;
+            }
+            misses.increment();
+            long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+            boolean waited = false;
+            while (usedBytes() + size > BUDGET) {
+                if (evictIdle()) {
+                    continue;
+                }
+                // A single canvas bigger than the whole budget
+                if (borrowed.isEmpty() && reservedBytes == 0) {
+                    break;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    overBudget.increment();
+                    break;
+                }
+                if (!waited) {
+                    waits.increment();
+                    waited = true;
+                }
+                try {
+                    lock.wait(Math.min(remaining, RECHECK_MILLIS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            reservedBytes += size;
+        }
+        BufferedImage canvas;
+        try {
+            canvas = new BufferedImage(width, height, type);
+        } finally {
+            synchronized (lock) {
+                reservedBytes -= size;
+            }
+        }
+        synchronized (lock) {
+            borrowed.put(canvas, size);
+        }
+        return canvas;
+    }
+
+    /**
+     * Returns a canvas obtained from {@link #borrow(int, int, int)}. Images that were not borrowed from the pool or that
+     * were already returned are ignored. The canvas must not be used after this call.
+     */
+    public static void giveBack(BufferedImage canvas) {
+        if (canvas == null) {
+            return;
+        }
+        synchronized (lock) {
+            Long size = borrowed.remove(canvas);
+            if (size == null) {
+                return;
+            }
+            if (size <= MAX_IDLE_BYTES) {
+                idle.addFirst(canvas);
+                idleBytes += size;
+                while (idleBytes > MAX_IDLE_BYTES) {
+                    evictIdle();
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * A small graphics context only meant to measure text, one per thread.
+     */
+    public static Graphics2D measurementGraphics() {
+        return measurementGraphics.get();
+    }
+
+    private static BufferedImage takeIdle(int width, int height, int type) {
+        Iterator<BufferedImage> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            BufferedImage candidate = iterator.next();
+            if (candidate.getWidth() == width && candidate.getHeight() == height && candidate.getType() == type) {
+                iterator.remove();
+                idleBytes -= bytes(width, height);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // Drops the least recently returned canvas
+    private static boolean evictIdle() {
+        BufferedImage last = idle.pollLast();
+        if (last == null) {
+            return false;
+        }
+        idleBytes -= bytes(last.getWidth(), last.getHeight());
+        last.flush();
+        return true;
+    }
+
+    private static long usedBytes() {
+        return borrowedBytesUnlocked() + idleBytes + reservedBytes;
+    }
+
+    private static long borrowedBytesUnlocked() {
+        long total = 0;
+        for (Long value : borrowed.values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    private static long bytes(int width, int height) {
+        return (long) width * height * Integer.BYTES;
+    }
+
+    public static long getBudget() {
+        return BUDGET;
+    }
+
+    public static long getBorrowedBytes() {
+        synchronized (lock) {
+            return borrowedBytesUnlocked() + reservedBytes;
+        }
+    }
+
+    public static long getIdleBytes() {
+        synchronized (lock) {
+            return idleBytes;
+        }
+    }
+
+    public static int getBorrowedCount() {
+        synchronized (lock) {
+            return borrowed.size();
+        }
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    public static long getWaits() {
+        return waits.sum();
+    }
+
+    public static long getOverBudget() {
+        return overBudget.sum();
+    }
+}
@@ -2,6 +2,7 @@ package core.imagerenderer;
 
 import core.Chuu;
 import core.commands.CommandUtil;
+import core.metrics.CommandTrace;
 import core.services.ClockService;
 import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
 import org.apache.batik.transcoder.TranscoderException;
@@ -34,6 +35,12 @@ public class CircleRenderer {
 
 
     public static byte[] generateImage(ClockService.ClockMode clockMode, Map<Integer, Long> hourFrequency, Integer key, TimeZone timeZone) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawClock(clockMode, hourFrequency, key, timeZone);
+        }
+    }
+
+    private static byte[] drawClock(ClockService.ClockMode clockMode, Map<Integer, Long> hourFrequency, Integer key, TimeZone timeZone) {
 
         // make a Document with the base map
 
@@ -123,7 +130,9 @@ public class CircleRenderer {
 
         try {
             s.transcode(input, output);
-            return ostream.toByteArray();
+            byte[] bytes = ostream.toByteArray();
+            CommandTrace.addBytesEncoded(bytes.length);
+            return bytes;
         } catch (TranscoderException e) {
             Chuu.getLogger().warn(e.getMessage(), e);
             return null;
@@ -2,6 +2,7 @@ package core.imagerenderer;
 
 import core.Chuu;
 import core.apis.ExecutorsSingleton;
+import core.metrics.CommandTrace;
 import dao.exceptions.ChuuServiceException;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -17,6 +18,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class CollageGenerator {
     public static BufferedImage generateCollageThreaded(int x, int y, BlockingQueue<Pair<BufferedImage, Integer>> queue, ChartQuality chartQuality) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawCollage(x, y, queue, chartQuality);
+        }
+    }
+
+    private static BufferedImage drawCollage(int x, int y, BlockingQueue<Pair<BufferedImage, Integer>> queue, ChartQuality chartQuality) {
         BufferedImage result;
         int imageType = BufferedImage.TYPE_INT_ARGB;
 
@@ -33,7 +40,20 @@ public class CollageGenerator {
                 break;
         }
 
-        result = new BufferedImage(x * 800, y * 500, imageType);
+        result = CanvasPool.borrow(x * 800, y * 500, imageType);
+        boolean drawn = false;
+        try {
+            paintCollage(result, x, y, queue);
+            drawn = true;
+            return result;
+        } finally {
+            if (!drawn) {
+                CanvasPool.giveBack(result);
+            }
+        }
+    }
+
+    private static void paintCollage(BufferedImage result, int x, int y, BlockingQueue<Pair<BufferedImage, Integer>> queue) {
         Graphics2D g = result.createGraphics();
         GraphicUtils.setQuality(g);
 
@@ -52,6 +72,5 @@ public class CollageGenerator {
         }
 
         g.dispose();
-        return result;
     }
 }
@@ -3,6 +3,7 @@ package core.imagerenderer;
 import core.Chuu;
 import core.apis.ExecutorsSingleton;
 import core.apis.last.chartentities.UrlCapsule;
+import core.metrics.CommandTrace;
 import dao.exceptions.ChuuServiceException;
 
 import java.awt.*;
@@ -22,6 +23,12 @@ public class CollageMaker {
     }
 
     public static BufferedImage generateCollageThreaded(int x, int y, BlockingQueue<UrlCapsule> queue, ChartQuality chartQuality, boolean asideMode) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawCollage(x, y, queue, chartQuality, asideMode);
+        }
+    }
+
+    private static BufferedImage drawCollage(int x, int y, BlockingQueue<UrlCapsule> queue, ChartQuality chartQuality, boolean asideMode) {
         BufferedImage result;
         int imageSize = DEFAULT_SIZE;
         int imageType = BufferedImage.TYPE_INT_ARGB;
@@ -47,11 +54,24 @@ public class CollageMaker {
             if (optionalInt != 0) {
                 optionalInt += 50;
             }
-            result = new BufferedImage(x * imageSize + optionalInt, y * imageSize, imageType);
+            result = CanvasPool.borrow(x * imageSize + optionalInt, y * imageSize, imageType);
         } else {
-            result = new BufferedImage(x * imageSize, y * imageSize, imageType);
+            result = CanvasPool.borrow(x * imageSize, y * imageSize, imageType);
 
         }
+        boolean drawn = false;
+        try {
+            paintCollage(result, x, y, queue, imageSize, asideMode);
+            drawn = true;
+            return result;
+        } finally {
+            if (!drawn) {
+                CanvasPool.giveBack(result);
+            }
+        }
+    }
+
+    private static void paintCollage(BufferedImage result, int x, int y, BlockingQueue<UrlCapsule> queue, int imageSize, boolean asideMode) {
         Graphics2D g = result.createGraphics();
         GraphicUtils.setQuality(g);
 
@@ -74,6 +94,5 @@ public class CollageMaker {
         }
 
         g.dispose();
-        return result;
     }
 }
@@ -1,10 +1,14 @@
 package core.imagerenderer;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import core.Chuu;
 import core.apis.youtube.Search;
-import core.imagerenderer.stealing.blur.GaussianFilter;
 import core.imagerenderer.util.CIELab;
 import core.imagerenderer.util.D;
+import core.imagerenderer.util.FastBlur;
+import core.imagerenderer.util.Fonts;
 import dao.entities.ReturnNowPlaying;
 import dao.entities.WrapperReturnNowPlaying;
 import dao.exceptions.ChuuServiceException;
@@ -22,17 +26,31 @@ import java.net.URL;
 import java.util.List;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public class GraphicUtils {
 
     static final Random ran = new Random();
     static final File CacheDirectory;
     public static final BufferedImage noArtistImage;
+    public static final BufferedImage lastFmLogo;
+    static final FastBlur.Quality blurQuality;
+    private static final float BACKGROUND_BLUR_RADIUS = 90;
+    private static final String NO_ARTIST_KEY = "noArtistImage";
+    // Blurred backgrounds are keyed by size and artist url, weighted by their size in bytes
+    private static final Cache<String, BufferedImage> blurredBackgrounds = CacheBuilder.newBuilder()
+            .maximumWeight(64L * 1024 * 1024)
+            .weigher((String key, BufferedImage image) -> image.getWidth() * image.getHeight() * 4)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .recordStats()
+            .build();
     private static final Font NORMAL_FONT = new Font("Noto Sans", Font.PLAIN, 14);
     private static final Font JAPANESE_FONT = new Font("Yu Gothic", Font.PLAIN, 14);
     //private static final Font UNICODE_FONT = new Font("Sun-ExtA", Font.PLAIN, 14);
     private static final Font KOREAN_FONT = new Font("Malgun Gothic", Font.PLAIN, 14);
     private static final Font EMOJI_FONT = new Font("Symbola", Font.PLAIN, 14);
+    private static final Fonts.Fallback FONT_FALLBACK = new Fonts.Fallback(NORMAL_FONT, NORMAL_FONT, JAPANESE_FONT, KOREAN_FONT, EMOJI_FONT);
 
     static {
         try (InputStream in = Search.class.getResourceAsStream("/" + "all.properties")) {
@@ -41,9 +59,12 @@ public class GraphicUtils {
             String cache_folder = properties.getProperty("CACHE_FOLDER");
             CacheDirectory = new File(cache_folder);
             assert CacheDirectory.isDirectory();
+            String quality = properties.getProperty("BLUR_QUALITY");
+            blurQuality = quality == null || quality.isBlank() ? FastBlur.Quality.MEDIUM : FastBlur.Quality.valueOf(quality.trim().toUpperCase());
             noArtistImage = ImageIO.read(WhoKnowsMaker.class.getResourceAsStream("/images/noArtistImage.png"));
+            lastFmLogo = ImageIO.read(WhoKnowsMaker.class.getResourceAsStream("/images/logo2.png"));
         } catch (IOException e) {
-            throw new IllegalStateException("/images/noArtistImage.png should exists under resources!!");
+            throw new IllegalStateException("/images/noArtistImage.png and /images/logo2.png should exists under resources!!");
         }
     }
 
@@ -115,24 +136,12 @@ public class GraphicUtils {
 
     }
 
+    /**
+     * @return the first font between Noto Sans, Yu Gothic, Malgun Gothic and Symbola that can display the whole
+     * string, Noto Sans if none can
+     */
     public static Font chooseFont(String string) {
-        Font font = NORMAL_FONT;
-        if (font.canDisplayUpTo(string) != -1) {
-            font = JAPANESE_FONT;
-            if (font.canDisplayUpTo(string) != -1) {
-                font = KOREAN_FONT;
-                if (font.canDisplayUpTo(string) != -1) {
-                    font = EMOJI_FONT;
-                    if (font.canDisplayUpTo(string) != -1) {
-                        /*font = UNICODE_FONT;
-                        if (font.canDisplayUpTo(string) != -1) {*/
-                        font = NORMAL_FONT;
-                        //    }
-                    }
-                }
-            }
-        }
-        return font;
+        return FONT_FALLBACK.choose(string);
     }
 
     public static void inserArtistImage(String urlImage, Graphics2D g) {
@@ -144,19 +153,42 @@ public class GraphicUtils {
 
     }
 
-    static Graphics2D initArtistBackground(BufferedImage canvas, BufferedImage artistImage) {
+    static Graphics2D initArtistBackground(BufferedImage canvas, @Nullable String url, BufferedImage artistImage) {
 
         Graphics2D g = canvas.createGraphics();
         GraphicUtils.setQuality(g);
         if (artistImage == null) {
             return g;
         }
-        g.drawImage(artistImage, 0, 0, canvas.getWidth(), canvas.getHeight(), 0, 0, artistImage.getWidth(), artistImage
-                .getHeight(), null);
-        new GaussianFilter(90).filter(canvas, canvas);
+        g.drawImage(getBlurredBackground(url, artistImage, canvas.getWidth(), canvas.getHeight()), 0, 0, null);
         return g;
     }
 
+    /**
+     * The returned image is shared between renders, it must only be drawn, never modified.
+     *
+     * @param url         url the image was obtained from, used as the cache key. If null the result is not cached
+     * @param artistImage image to blur, stretched to width x height
+     * @return artistImage stretched and blurred
+     */
+    static BufferedImage getBlurredBackground(@Nullable String url, BufferedImage artistImage, int width, int height) {
+        String key = artistImage == noArtistImage ? NO_ARTIST_KEY : url;
+        if (key == null || key.isBlank()) {
+            return FastBlur.blurredCopy(artistImage, width, height, BACKGROUND_BLUR_RADIUS, blurQuality);
+        }
+        try {
+            return blurredBackgrounds.get(width + "x" + height + "|" + key,
+                    () -> FastBlur.blurredCopy(artistImage, width, height, BACKGROUND_BLUR_RADIUS, blurQuality));
+        } catch (ExecutionException e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
+            return FastBlur.blurredCopy(artistImage, width, height, BACKGROUND_BLUR_RADIUS, blurQuality);
+        }
+    }
+
+    public static CacheStats getBlurredBackgroundStats() {
+        return blurredBackgrounds.stats();
+    }
+
     public static void setQuality(Graphics2D g) {
         g.setRenderingHint(
                 RenderingHints.KEY_TEXT_ANTIALIASING,
@@ -241,7 +273,6 @@ public class GraphicUtils {
 
             g.setColor(GraphicUtils.getBetter(colorB1));
 
-            float size = initialSize;
             String name = nowPlayingArtistList.get(i).getDiscordName();
             Font tempFont = g.getFont();
 
@@ -251,16 +282,15 @@ public class GraphicUtils {
                 g.drawString(strNumber, x, yCounter + (margin - metrics.getAscent() / 2));
                 startName += g.getFontMetrics().stringWidth(strNumber);
             }
-            if (g.getFont().canDisplayUpTo(name) != -1 && WhoKnowsMaker.EMOJI_FONT.canDisplayUpTo(name) == -1)
-                g.setFont(WhoKnowsMaker.EMOJI_FONT.deriveFont(size));
+            Font nameFont = g.getFont();
+            if (!Fonts.canDisplay(nameFont, name) && Fonts.canDisplay(WhoKnowsMaker.EMOJI_FONT, name))
+                nameFont = Fonts.derive(WhoKnowsMaker.EMOJI_FONT, initialSize);
 
-            while (g.getFontMetrics(g.getFont()).stringWidth(name) > (width * 0.55) && size > 14f)
-                g.setFont(g.getFont().deriveFont(size -= 2));
+            g.setFont(Fonts.fitWidth(g, nameFont, name, width * 0.55, 14f));
 
             g.drawString(name, startName, yCounter + (margin - metrics.getAscent() / 2));
 
-            size = initialSize;
-            g.setFont(tempFont.deriveFont(size));
+            g.setFont(Fonts.derive(tempFont, initialSize));
             String plays = String.valueOf(nowPlayingArtistList.get(i).getPlayNumber());
             int stringWidth = metrics.stringWidth(plays);
             int playPos = x + width - (rowHeight + stringWidth);
@@ -343,7 +373,7 @@ public class GraphicUtils {
             if (temp != null) {
                 bim = cropImage(temp, SIZE_X, SIZE_Y);
                 temp.flush();
-                g.drawImage(bim, new GaussianFilter(90), 0, 0);
+                g.drawImage(FastBlur.blurredCopy(bim, SIZE_X, SIZE_Y, BACKGROUND_BLUR_RADIUS, blurQuality), 0, 0, null);
                 bim.flush();
             }
         } catch (IOException e) {
@@ -377,11 +407,7 @@ public class GraphicUtils {
      * @return the width of the string on the current font
      */
     public static Rectangle2D fitAndGetBounds(String stringed, Graphics2D g, int maxWidth, float minFontSize) {
-        Font ogFont = g.getFont();
-        float sizeFont = ogFont.getSize();
-        while (g.getFontMetrics(g.getFont()).stringWidth(stringed) > maxWidth && sizeFont > minFontSize) {
-            g.setFont(g.getFont().deriveFont(sizeFont -= 2));
-        }
+        g.setFont(Fonts.fitWidth(g, g.getFont(), stringed, maxWidth, minFontSize));
         return g.getFontMetrics().getStringBounds(stringed, g);
     }
 
@@ -1,5 +1,6 @@
 package core.imagerenderer;
 
+import core.metrics.CommandTrace;
 import dao.entities.BillboardEntity;
 import org.beryx.awt.color.ColorFactory;
 import org.imgscalr.Scalr;
@@ -49,6 +50,12 @@ public class HotMaker {
 
 
     public static BufferedImage doHotMaker(String title, String subtitle, List<BillboardEntity> hots, boolean doListeners, int itemCount, @Nullable BufferedImage logo) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawHot(title, subtitle, hots, doListeners, itemCount, logo);
+        }
+    }
+
+    private static BufferedImage drawHot(String title, String subtitle, List<BillboardEntity> hots, boolean doListeners, int itemCount, @Nullable BufferedImage logo) {
         int Y_MAX = 77 + itemCount * BOX_SIZE;
         BufferedImage canvas = new BufferedImage(X_MAX, Y_MAX, BufferedImage.TYPE_INT_RGB);
         Graphics2D g = canvas.createGraphics();
@@ -1,5 +1,7 @@
 package core.imagerenderer;
 
+import core.imagerenderer.util.Fonts;
+import core.metrics.CommandTrace;
 import dao.entities.Affinity;
 import dao.entities.DiscordUserDisplay;
 import dao.entities.UserArtistComparison;
@@ -27,11 +29,18 @@ public class LoveMaker {
     private static final Font JAPANESE_FONT = new Font("Yu Gothic", Font.BOLD, (int) DESC_SIZE);
     private static final Font KOREAN_FONT = new Font("Malgun Gothic", Font.BOLD, (int) DESC_SIZE);
     private static final Font EMOJI_FONT = new Font("Symbola", Font.PLAIN, (int) DESC_SIZE);
+    private static final Fonts.Fallback FONT_FALLBACK = new Fonts.Fallback(EMOJI_FONT, NORMAL_FONT, JAPANESE_FONT, KOREAN_FONT);
 
     private LoveMaker() {
     }
 
     public static BufferedImage calculateLove(Affinity affinity, DiscordUserDisplay firstUser, String firstImage, String secondImage, DiscordUserDisplay secondUser) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawLove(affinity, firstUser, firstImage, secondImage, secondUser);
+        }
+    }
+
+    private static BufferedImage drawLove(Affinity affinity, DiscordUserDisplay firstUser, String firstImage, String secondImage, DiscordUserDisplay secondUser) {
 
         BufferedImage canvas = new BufferedImage(X_SIZE, Y_SIZE, BufferedImage.TYPE_INT_ARGB);
 
@@ -186,17 +195,7 @@ public class LoveMaker {
     }
 
     private static Font chooseFont(String string) {
-        Font font = NORMAL_FONT;
-        if (font.canDisplayUpTo(string) != -1) {
-            font = JAPANESE_FONT;
-            if (font.canDisplayUpTo(string) != -1) {
-                font = KOREAN_FONT;
-                if (font.canDisplayUpTo(string) != -1) {
-                    font = EMOJI_FONT;
-                }
-            }
-        }
-        return font;
+        return FONT_FALLBACK.choose(string);
     }
 
 }
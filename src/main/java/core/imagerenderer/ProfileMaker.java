@@ -1,5 +1,6 @@
 package core.imagerenderer;
 
+import core.metrics.CommandTrace;
 import dao.entities.ProfileEntity;
 import org.imgscalr.Scalr;
 
@@ -22,6 +23,12 @@ public class ProfileMaker {
     }
 
     public static BufferedImage makeProfile(ProfileEntity entity) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawProfile(entity);
+        }
+    }
+
+    private static BufferedImage drawProfile(ProfileEntity entity) {
 
         BufferedImage image = new BufferedImage(X_SIZE, Y_SIZE, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g = image.createGraphics();
@@ -1,5 +1,6 @@
 package core.imagerenderer;
 
+import core.metrics.CommandTrace;
 import dao.entities.ResultWrapper;
 import dao.entities.UserArtistComparison;
 import dao.entities.UserInfo;
@@ -24,6 +25,12 @@ public class TasteRenderer {
 
 
     public static BufferedImage generateTasteImage(ResultWrapper<UserArtistComparison> resultWrapper, List<UserInfo> userInfoLiust, String entityName, @Nullable String url, boolean thumbnail, Pair<Integer, Integer> tasteBar) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawTaste(resultWrapper, userInfoLiust, entityName, url, thumbnail, tasteBar);
+        }
+    }
+
+    private static BufferedImage drawTaste(ResultWrapper<UserArtistComparison> resultWrapper, List<UserInfo> userInfoLiust, String entityName, @Nullable String url, boolean thumbnail, Pair<Integer, Integer> tasteBar) {
 
         BufferedImage canvas = new BufferedImage(X_MAX, Y_MAX, BufferedImage.TYPE_INT_RGB);
 
@@ -33,7 +40,7 @@ public class TasteRenderer {
         GraphicUtils.setQuality(g);
         if (url != null) {
             BufferedImage imageFromUrl = GraphicUtils.getImageFromUrl(url, GraphicUtils.noArtistImage);
-            GraphicUtils.initArtistBackground(canvas, imageFromUrl);
+            GraphicUtils.initArtistBackground(canvas, url, imageFromUrl);
         } else {
             GraphicUtils.initRandomImageBlurredBackground(g, X_MAX, Y_MAX);
         }
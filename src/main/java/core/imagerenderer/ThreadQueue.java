@@ -3,6 +3,7 @@ package core.imagerenderer;
 import core.Chuu;
 import core.apis.last.chartentities.PreComputedChartEntity;
 import core.apis.last.chartentities.UrlCapsule;
+import core.imagerenderer.util.Fonts;
 import org.imgscalr.Scalr;
 
 import java.awt.*;
@@ -14,10 +15,9 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
-import static core.imagerenderer.WhoKnowsMaker.EMOJI_FONT;
-
 
 class ThreadQueue implements Runnable {
+    private static final Font BASE_FONT = new Font("Noto Sans", Font.PLAIN, 24);
     final BlockingQueue<UrlCapsule> queue;
     final Graphics2D g;
     final int y;
@@ -26,8 +26,6 @@ class ThreadQueue implements Runnable {
     final Font START_FONT;
     private final boolean asideMode;
     int START_FONT_SIZE = 24;
-    final Font JAPANESE_FONT = new Font("Yu Gothic", Font.PLAIN, START_FONT_SIZE);
-    final Font KOREAN_FONT = new Font("Malgun Gothic", Font.PLAIN, START_FONT_SIZE);
 
     int lowerLimitStringSize = 14;
     int imageSize = 300;
@@ -44,26 +42,17 @@ class ThreadQueue implements Runnable {
             START_FONT_SIZE = 12;
             lowerLimitStringSize = 7;
         }
-        START_FONT = new Font("Noto Sans", Font.PLAIN, START_FONT_SIZE);
+        START_FONT = Fonts.derive(BASE_FONT, (float) START_FONT_SIZE);
     }
 
     protected static OptionalInt maxWidth(BlockingQueue<UrlCapsule> queue, int imageHeight, int columns) {
-        Graphics2D g1 = new BufferedImage(10000, 10000, BufferedImage.TYPE_INT_ARGB).createGraphics();
-        int actualSize = columns * imageHeight;
-        int heightPerItem = actualSize / queue.size();
+        Graphics2D g1 = CanvasPool.measurementGraphics();
         LinkedBlockingQueue<UrlCapsule> c = new LinkedBlockingQueue<>();
         queue.drainTo(c);
         OptionalInt max = Arrays.stream(c.toArray(UrlCapsule[]::new)).mapToInt(x -> {
             String join = x.getLines().stream().map(ChartLine::getLine).collect(Collectors.joining(" - "));
-            Font font = GraphicUtils.chooseFont(join).deriveFont(Font.BOLD, imageHeight / columns == 300 ? 22 : 8);
-            g1.setFont(font);
-
-
-            while (g1.getFontMetrics().getStringBounds(join, g1).getHeight() >= heightPerItem) {
-                g1.setFont(g1.getFont().deriveFont((float) g1.getFont().getSize() - 1.0f));
-            }
-            g1.setFont(font);
-            return (int) g1.getFontMetrics().getStringBounds(join, g1).getWidth();
+            Font font = Fonts.derive(GraphicUtils.chooseFont(join), Font.BOLD, imageHeight / columns == 300 ? 22 : 8);
+            return (int) g1.getFontMetrics(font).getStringBounds(join, g1).getWidth();
         }).max();
         queue.addAll(c);
         return max;
@@ -190,20 +179,7 @@ class ThreadQueue implements Runnable {
     }
 
     private Font chooseFont(String string, boolean isTitle) {
-        Font font = START_FONT;
-        if (font.canDisplayUpTo(string) != -1) {
-            font = JAPANESE_FONT;
-            if (font.canDisplayUpTo(string) != -1) {
-                font = KOREAN_FONT;
-                if (font.canDisplayUpTo(string) != -1) {
-                    font = EMOJI_FONT;
-                    if (font.canDisplayUpTo(string) != -1) {
-                        font = START_FONT;
-                    }
-                }
-            }
-        }
-        return font.deriveFont(isTitle ? Font.BOLD : Font.PLAIN, isTitle ? START_FONT_SIZE : START_FONT_SIZE - 2);
+        return Fonts.derive(GraphicUtils.chooseFont(string), isTitle ? Font.BOLD : Font.PLAIN, isTitle ? START_FONT_SIZE : START_FONT_SIZE - 2);
     }
 
     void drawNeverEndingCharts(UrlCapsule capsule, int y, int x, int imageWidth) {
@@ -217,11 +193,8 @@ class ThreadQueue implements Runnable {
         int itemPerLine;
 
         String join = chartLines.stream().map(ChartLine::getLine).collect(Collectors.joining(" - "));
-        Font font = chooseFont(join, false).deriveFont(Font.BOLD);
-
-        while (g.getFontMetrics(font).getStringBounds(join, g).getHeight() >= heightPerLine) {
-            font = font.deriveFont((float) font.getSize() - 1.0f);
-        }
+        Font font = Fonts.fit(Fonts.derive(chooseFont(join, false), Font.BOLD), 1,
+                f -> g.getFontMetrics(f).getStringBounds(join, g).getHeight() < heightPerLine);
         int lineStart = y * imageSize;
         int lineEnd = lineStart + imageSize;
         itemPerLine = this.x;
@@ -255,19 +228,13 @@ class ThreadQueue implements Runnable {
         int accum = 3;
 
         for (ChartLine chartLine : chartLines) {
-            int fontSize = START_FONT_SIZE;
             Font font = map.get(chartLine);
             g.setFont(font);
             FontMetrics metric = g.getFontMetrics();
             int nextIncrease = metric.getAscent() - metric.getDescent() + 7;
             int xOffset = 5;
             String line = chartLine.getLine();
-            int artistWidth = g.getFontMetrics().stringWidth(line);
-            while (artistWidth > (imageWidth - 5) && fontSize-- > lowerLimitStringSize) {
-                font = font.deriveFont((float) fontSize);
-                g.setFont(font);
-                artistWidth = g.getFontMetrics().stringWidth(line);
-            }
+            g.setFont(Fonts.fitWidth(g, font, line, imageWidth - 5, lowerLimitStringSize));
             accum += nextIncrease;
             if (image != null) {
                 g.setColor(Color.WHITE);
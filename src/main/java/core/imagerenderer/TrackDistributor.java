@@ -1,6 +1,8 @@
 package core.imagerenderer;
 
 import core.Chuu;
+import core.imagerenderer.util.Fonts;
+import core.metrics.CommandTrace;
 import dao.entities.FullAlbumEntity;
 import dao.entities.Track;
 import dao.entities.UserInfo;
@@ -83,6 +85,12 @@ public class TrackDistributor {
     }
 
     public static BufferedImage drawImage(FullAlbumEntity fae) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawDistribution(fae);
+        }
+    }
+
+    private static BufferedImage drawDistribution(FullAlbumEntity fae) {
         List<Track> trackList = fae.getTrackList();
         int trackCount = trackList.size();
 
@@ -112,7 +120,7 @@ public class TrackDistributor {
         BufferedImage albumImage = GraphicUtils.getImageFromUrl(fae.getAlbumUrl(), noalbumImage);
 
         //Image Artist
-        Graphics2D g = GraphicUtils.initArtistBackground(dist, artistImageFill);
+        Graphics2D g = GraphicUtils.initArtistBackground(dist, fae.getArtistUrl(), artistImageFill);
 
         g.setFont(font);
 
@@ -136,6 +144,12 @@ public class TrackDistributor {
     }
 
     public static BufferedImage drawImageMirrored(FullAlbumEntity first, FullAlbumEntity second, UserInfo firstInfo, UserInfo secondInfo) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawMirroredDistribution(first, second, firstInfo, secondInfo);
+        }
+    }
+
+    private static BufferedImage drawMirroredDistribution(FullAlbumEntity first, FullAlbumEntity second, UserInfo firstInfo, UserInfo secondInfo) {
         List<Track> firstTrackList = first.getTrackList();
         List<Track> secondTrackList = second.getTrackList();
         int trackCount = Math.max(firstTrackList.size(), secondTrackList.size());
@@ -171,7 +185,7 @@ public class TrackDistributor {
         BufferedImage userImage2 = GraphicUtils.getImageFromUrl(secondInfo.getImage(), noalbumImage);
 
         //Image Artist
-        Graphics2D g = GraphicUtils.initArtistBackground(dist, artistImageFill);
+        Graphics2D g = GraphicUtils.initArtistBackground(dist, first.getArtistUrl(), artistImageFill);
         Font firstUserFont = chooseFont(firstInfo.getUsername());
         g.setFont(firstUserFont.deriveFont(30f));
         Rectangle2D f = GraphicUtils.fitAndGetBounds(firstInfo.getUsername(), g, 330, 18f);
@@ -226,7 +240,6 @@ public class TrackDistributor {
 
     private static void doHistContentReversed(Graphics2D g, int maxList, BufferedImage dist, List<Track> trackList, int widthBarsSpace, int starttingY) {
         Font ogFont = g.getFont();
-        Font font;
 
         int xLimit = dist.getWidth();
         int yLimit = dist.getHeight() - HEIGHT_CONSTANT;
@@ -254,15 +267,7 @@ public class TrackDistributor {
 
         int minimunAmmount = realMax + extra;
         for (Track track : trackList) {
-            float fontSize = FONT_SIZE;
-
-            int trackName = g.getFontMetrics().stringWidth(track.getName());
-
-            while (trackName > 400 && (fontSize -= 2) > 8f) {
-                font = g.getFont().deriveFont(fontSize);
-                g.setFont(font);
-                trackName = g.getFontMetrics().stringWidth(track.getName());
-            }
+            g.setFont(Fonts.fitWidth(g, g.getFont(), track.getName(), 400, 10f));
 
             int rectWidth = (int) (minimunAmmount + (widthBarsSpace - minimunAmmount) * (float) track.getPlays() / maxList);
             int i1 = WIDTH_CONSTANT * 2 + 370;
@@ -286,7 +291,6 @@ public class TrackDistributor {
 
     private static void doHistContent(Graphics2D g, int maxList, BufferedImage dist, List<Track> trackList, int widthBarsSpace, int yStart) {
         Font ogFont = g.getFont();
-        Font font;
 
         int xLimit = dist.getWidth();
         int yLimit = dist.getHeight() - HEIGHT_CONSTANT;
@@ -314,15 +318,7 @@ public class TrackDistributor {
 
         int minimunAmmount = realMax + extra;
         for (Track track : trackList) {
-            float fontSize = FONT_SIZE;
-
-            int trackName = g.getFontMetrics().stringWidth(track.getName());
-
-            while (trackName > 400 && (fontSize -= 2) > 8f) {
-                font = g.getFont().deriveFont(fontSize);
-                g.setFont(font);
-                trackName = g.getFontMetrics().stringWidth(track.getName());
-            }
+            g.setFont(Fonts.fitWidth(g, g.getFont(), track.getName(), 400, 10f));
 
             int rectWidth = (int) (minimunAmmount + (widthBarsSpace - minimunAmmount) * (float) track.getPlays() / maxList);
             g.fillRect(15, startingPoint, rectWidth, 38);
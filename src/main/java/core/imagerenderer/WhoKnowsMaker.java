@@ -1,13 +1,12 @@
 package core.imagerenderer;
 
-import core.imagerenderer.stealing.blur.GaussianFilter;
+import core.imagerenderer.util.Fonts;
+import core.metrics.CommandTrace;
 import dao.entities.WrapperReturnNowPlaying;
 import org.imgscalr.Scalr;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
 
 public class WhoKnowsMaker {
     static final Font EMOJI_FONT = new Font("Symbola", Font.PLAIN, 32);
@@ -25,8 +24,27 @@ public class WhoKnowsMaker {
     }
 
     public static BufferedImage generateWhoKnows(WrapperReturnNowPlaying wrapperReturnNowPlaying, String discordName, BufferedImage logo) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawWhoKnows(wrapperReturnNowPlaying, discordName, logo);
+        }
+    }
+
+    private static BufferedImage drawWhoKnows(WrapperReturnNowPlaying wrapperReturnNowPlaying, String discordName, BufferedImage logo) {
+
+        BufferedImage canvas = CanvasPool.borrow(X_MAX, Y_MAX, BufferedImage.TYPE_INT_RGB);
+        boolean drawn = false;
+        try {
+            paintWhoKnows(canvas, wrapperReturnNowPlaying, discordName, logo);
+            drawn = true;
+            return canvas;
+        } finally {
+            if (!drawn) {
+                CanvasPool.giveBack(canvas);
+            }
+        }
+    }
 
-        BufferedImage canvas = new BufferedImage(X_MAX, Y_MAX, BufferedImage.TYPE_INT_RGB);
+    private static void paintWhoKnows(BufferedImage canvas, WrapperReturnNowPlaying wrapperReturnNowPlaying, String discordName, BufferedImage logo) {
         String artist = wrapperReturnNowPlaying.getArtist().toUpperCase();
         String urlString = wrapperReturnNowPlaying.getUrl();
         FontMetrics metrics;
@@ -35,8 +53,7 @@ public class WhoKnowsMaker {
         int yCounter = 0;
         yCounter += Y_MARGIN;
         BufferedImage backgroundImage;
-        BufferedImage lastFmLogo = null;
-        BufferedImage guildLogo = null;
+        BufferedImage guildLogo = logo;
 
         Graphics2D g = canvas.createGraphics();
         GraphicUtils.setQuality(g);
@@ -45,18 +62,7 @@ public class WhoKnowsMaker {
             backgroundImage = GraphicUtils.noArtistImage;
         }
 
-        try {
-
-            lastFmLogo = ImageIO.read(WhoKnowsMaker.class
-                    .getResourceAsStream("/images/logo2.png"));
-            guildLogo = logo;
-
-        } catch (IOException ignored) {
-        }
-
-        g.drawImage(backgroundImage, 0, 0, X_MAX, Y_MAX, 0, 0, backgroundImage.getWidth(), backgroundImage
-                .getHeight(), null);
-        new GaussianFilter(90).filter(canvas, canvas);
+        g.drawImage(GraphicUtils.getBlurredBackground(urlString, backgroundImage, X_MAX, Y_MAX), 0, 0, null);
 
         Color colorB1 = GraphicUtils.getReadableColorBackgroundForFont(GraphicUtils.getFontColorBackground(canvas));
         Color colorB = GraphicUtils.getSurfaceColor(GraphicUtils.getFontColorBackground(canvas));
@@ -70,7 +76,7 @@ public class WhoKnowsMaker {
 
         yCounter += 10;
         Font fontToUse;
-        if (NORMAL_FONT.canDisplayUpTo(artist) == -1) {
+        if (Fonts.canDisplay(NORMAL_FONT, artist)) {
             fontToUse = NORMAL_FONT;
 
         } else
@@ -79,10 +85,8 @@ public class WhoKnowsMaker {
         g.setFont(fontToUse);
         metrics = g.getFontMetrics(fontToUse);
         yCounter += metrics.getAscent() - metrics.getDescent();
-        float size = 32;
-        while ((width = g.getFontMetrics(g.getFont()).stringWidth(artist)) > (canvas.getWidth() * 0.70) && size > 14f) {
-            g.setFont(g.getFont().deriveFont(size -= 2));
-        }
+        g.setFont(Fonts.fitWidth(g, fontToUse, artist, canvas.getWidth() * 0.70, 14f));
+        width = g.getFontMetrics().stringWidth(artist);
         GraphicUtils.drawStringNicely(g, artist, X_MAX / 2 - width / 2, yCounter, canvas);
 
         yCounter += metrics.getDescent();
@@ -106,9 +110,8 @@ public class WhoKnowsMaker {
                     .getHeight(), null);
 
         GraphicUtils
-                .doChart(g, X_MARGIN + 320, yCounter, rectWidth, 32, 10, wrapperReturnNowPlaying, colorB1, colorB, lastFmLogo, DESC_FONT
+                .doChart(g, X_MARGIN + 320, yCounter, rectWidth, 32, 10, wrapperReturnNowPlaying, colorB1, colorB, GraphicUtils.lastFmLogo, DESC_FONT
                         .deriveFont(18f));
-        return canvas;
     }
 
 
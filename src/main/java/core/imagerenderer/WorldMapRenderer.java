@@ -2,19 +2,11 @@ package core.imagerenderer;
 
 import core.Chuu;
 import core.commands.CommandUtil;
+import core.metrics.CommandTrace;
 import dao.entities.Country;
-import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
-import org.apache.batik.transcoder.TranscoderInput;
-import org.apache.batik.transcoder.TranscoderOutput;
-import org.apache.batik.transcoder.image.PNGTranscoder;
-import org.apache.batik.util.XMLResourceDescriptor;
 import org.apache.commons.lang3.ArrayUtils;
 import org.beryx.awt.color.ColorFactory;
 import org.jetbrains.annotations.Nullable;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
@@ -29,9 +21,7 @@ import java.util.*;
 public class WorldMapRenderer {
 
     public static final List<String[]> palettes = initializePallete();
-    private static final String MAP_ROUND = "images/BlankMap-World.svg";
-    private static final String[] textDescArray = new String[]{"text2527", "text2525", "text2523", "text2521", "text2519", "text2517", "text2539"};
-    private static final String[] colourArray = new String[]{"rect6278", "rect6280", "rect6282", "rect6284", "rect6286", "rect6288"};
+    private static final List<Color[]> paletteColours = initializePaletteColours();
 
     private WorldMapRenderer() {
     }
@@ -82,61 +72,48 @@ public class WorldMapRenderer {
         return list;
     }
 
-    public static byte[] generateImage(Map<Country, Integer> countryFrequency, String username, @Nullable Integer paletteIndex) {
+    private static List<Color[]> initializePaletteColours() {
+        List<Color[]> list = new ArrayList<>(palettes.size());
+        for (String[] palette : palettes) {
+            list.add(Arrays.stream(palette).map(ColorFactory::valueOf).toArray(Color[]::new));
+        }
+        return list;
+    }
 
-        // make a Document with the base map
+    public static byte[] generateImage(Map<Country, Integer> countryFrequency, String username, @Nullable Integer paletteIndex) {
+        try (CommandTrace.Scope ignored = CommandTrace.enter(CommandTrace.Phase.RENDER)) {
+            return drawWorldMap(countryFrequency, username, paletteIndex);
+        }
+    }
 
-        String parser = XMLResourceDescriptor.getXMLParserClassName();
-        SAXSVGDocumentFactory f = new SAXSVGDocumentFactory(parser);
-        Document doc;
-        try {
-            doc = f.createDocument("src/main/resources/BlankMap-World.svg",
-                    WorldMapRenderer.class.getClassLoader().getResourceAsStream(MAP_ROUND));
-        } catch (IOException e) {
-            Chuu.getLogger().warn(e.getMessage(), e);
+    private static byte[] drawWorldMap(Map<Country, Integer> countryFrequency, String username, @Nullable Integer paletteIndex) {
+        WorldMapTemplate template = WorldMapTemplate.getInstance();
+        if (template == null) {
             return null;
         }
-
-        // prepare to modify and transcode the document
-
-        // find the existing stylesheet in the document
-        NodeList stylesList = doc.getElementsByTagName("style");
-        Node styleNode = stylesList.item(0);
-        String value = styleNode.getFirstChild().getNodeValue();
-        StringBuilder sb = new StringBuilder();
-        String[] palette;
-        palette = palettes.get(Objects.requireNonNullElseGet(paletteIndex, () -> new Random().nextInt(palettes.size())));
+        Color[] palette = paletteColours.get(Objects.requireNonNullElseGet(paletteIndex, () -> new Random().nextInt(palettes.size())));
         Optional<Integer> max = countryFrequency.values().stream().max(Integer::compareTo);
         if (max.isEmpty())
             return null;
 
         Integer[] range = initRange(max.get(), palette.length);
 
-        initColours(palette, sb);
-        initLegendText(range, doc, countryFrequency.size());
+        Map<String, Color> fills = new HashMap<>(countryFrequency.size());
         countryFrequency.forEach(
-                (country, integer) -> {
-                    String colorr = index(integer, range, palette);
-                    sb.append("\n .").append(country.getCountryCode().toLowerCase()).append("{fill: ")
-                            .append(colorr)
-                            .append(";}\n");
-                }
+                (country, integer) -> fills.put(country.getCountryCode().toLowerCase(), index(integer, range, palette))
         );
-
-        value += (sb);
-        styleNode.getFirstChild().setNodeValue(value);
-        doc.getElementById("text0000").getFirstChild().setNodeValue(username + "'s countries");
-        TranscoderInput input = new TranscoderInput(doc);
-        PNGTranscoder s = new PNGTranscoder();
-        s.addTranscodingHint(PNGTranscoder.KEY_BACKGROUND_COLOR, Color.white);
+        BufferedImage image = template.render(fills, initColours(palette), initLegendText(range, countryFrequency.size()), username + "'s countries");
         ByteArrayOutputStream ostream = new ByteArrayOutputStream();
-        TranscoderOutput output = new TranscoderOutput(ostream);
         try {
-            s.transcode(input, output);
-            return ostream.toByteArray();
-        } catch (Exception e) {
+            ImageIO.write(image, "png", ostream);
+            byte[] bytes = ostream.toByteArray();
+            CommandTrace.addBytesEncoded(bytes.length);
+            return bytes;
+        } catch (IOException e) {
             Chuu.getLogger().warn(e.getMessage(), e);
             return null;
+        } finally {
+            CanvasPool.giveBack(image);
         }
     }
 
@@ -155,17 +132,16 @@ public class WorldMapRenderer {
         return returnedArray;
     }
 
-    private static void initColours(String[] palette, StringBuilder sb) {
+    private static Color[] initColours(Color[] palette) {
         //Legend Ids from Top to bottom
-
-        for (int i = 0; i < colourArray.length; i++) {
-            sb.append("\n #").append(colourArray[i]).append("{fill: ").append(palette[colourArray.length - 1 - i])
-                    .append(";}\n");
+        Color[] colours = new Color[WorldMapTemplate.colourArray.length];
+        for (int i = 0; i < colours.length; i++) {
+            colours[i] = palette[colours.length - 1 - i];
         }
-
+        return colours;
     }
 
-    private static String index(int plays, Integer[] range, String[] pallete) {
+    private static Color index(int plays, Integer[] range, Color[] pallete) {
         int i = range.length - 1;
         while (plays > range[i] && i > 0) {
             i--;
@@ -174,26 +150,22 @@ public class WorldMapRenderer {
 
     }
 
-    private static void initLegendText(Integer[] range, Document doc, int totalCountries) {
+    private static String[] initLegendText(Integer[] range, int totalCountries) {
         //Bottom to top
-        Element elementById = doc.getElementById(textDescArray[0]);
-        elementById.getFirstChild()
-                .setNodeValue("> " + range[0] + CommandUtil.singlePlural(range[0], " Artist", " Artists"));
+        String[] texts = new String[WorldMapTemplate.textDescArray.length];
+        texts[0] = "> " + range[0] + CommandUtil.singlePlural(range[0], " Artist", " Artists");
 
-        for (int i = 1; i < textDescArray.length - 1; i++) {
+        for (int i = 1; i < texts.length - 1; i++) {
             int previous = range[i - 1];
-            elementById = doc.getElementById(textDescArray[i]);
 
             if (previous - 1 == range[i])
-                elementById.getFirstChild()
-                        .setNodeValue(range[i] + CommandUtil.singlePlural(range[i], " Artist", " Artists"));
+                texts[i] = range[i] + CommandUtil.singlePlural(range[i], " Artist", " Artists");
             else
-                elementById.getFirstChild().setNodeValue((range[i]) + "-" + (previous - 1) + CommandUtil
-                        .singlePlural(range[i], " Artist", " Artists"));
+                texts[i] = (range[i]) + "-" + (previous - 1) + CommandUtil
+                        .singlePlural(range[i], " Artist", " Artists");
         }
-        elementById = doc.getElementById(textDescArray[6]);
-        elementById.getFirstChild().setNodeValue("# Countries: " + totalCountries);
-
+        texts[6] = "# Countries: " + totalCountries;
+        return texts;
     }
 
 }
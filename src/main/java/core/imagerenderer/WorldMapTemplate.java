@@ -0,0 +1,276 @@
+package core.imagerenderer;
+
+import core.Chuu;
+import core.imagerenderer.util.Fonts;
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.parser.AWTPathProducer;
+import org.apache.batik.parser.AWTTransformProducer;
+import org.apache.batik.transcoder.TranscoderInput;
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.apache.batik.transcoder.image.ImageTranscoder;
+import org.apache.batik.util.XMLResourceDescriptor;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.awt.*;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.List;
+import java.util.*;
+
+/**
+ * The world map svg parsed once.
+ * <p>
+ * The blank map is rasterized with Batik a single time, with the legend and title texts removed. The outline of every
+ * visible country is kept, so a chart only has to copy the blank raster and fill the shapes of the countries in it.
+ */
+class WorldMapTemplate {
+    //Legend Ids from Top to bottom
+    static final String[] colourArray = new String[]{"rect6278", "rect6280", "rect6282", "rect6284", "rect6286", "rect6288"};
+    //Bottom to top, the last one is the country count
+    static final String[] textDescArray = new String[]{"text2527", "text2525", "text2523", "text2521", "text2519", "text2517", "text2539"};
+    private static final String TITLE_ID = "text0000";
+    private static final String MAP_ROUND = "images/BlankMap-World.svg";
+    // Classes whose css has opacity 0
+    private static final Set<String> HIDDEN_CLASSES = Set.of("circlexx", "subxx", "noxx", "limitxx", "unxx");
+    private static final Stroke BORDER = new BasicStroke(0.5f);
+    private static final Stroke COAST = new BasicStroke(0.2f);
+    private static final Stroke LEGEND_BORDER = new BasicStroke(0.81832659f);
+    private static final Stroke TEXT_BORDER = new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER);
+    private static final Object lock = new Object();
+    private static volatile WorldMapTemplate instance;
+
+    private final int width;
+    private final int height;
+    private final int[] blankMap;
+    private final Map<String, List<Region>> regions = new HashMap<>();
+    private final Shape[] legendBoxes = new Shape[colourArray.length];
+    private final Map<String, TextSlot> texts = new HashMap<>();
+
+    private WorldMapTemplate(Document doc) throws Exception {
+        Element root = doc.getDocumentElement();
+        String[] viewBox = root.getAttribute("viewBox").trim().split("[\\s,]+");
+        AffineTransform toImage = AffineTransform.getTranslateInstance(-Double.parseDouble(viewBox[0]), -Double.parseDouble(viewBox[1]));
+
+        NodeList paths = doc.getElementsByTagName("path");
+        for (int i = 0; i < paths.getLength(); i++) {
+            addRegion((Element) paths.item(i), toImage);
+        }
+        for (int i = 0; i < colourArray.length; i++) {
+            Element rect = doc.getElementById(colourArray[i]);
+            AffineTransform transform = new AffineTransform(toImage);
+            if (rect.hasAttribute("transform")) {
+                transform.concatenate(AWTTransformProducer.createAffineTransform(rect.getAttribute("transform")));
+            }
+            Rectangle2D box = new Rectangle2D.Double(number(rect, "x"), number(rect, "y"), number(rect, "width"), number(rect, "height"));
+            legendBoxes[i] = transform.createTransformedShape(box);
+        }
+        List<String> textIds = new ArrayList<>(Arrays.asList(textDescArray));
+        textIds.add(TITLE_ID);
+        for (String id : textIds) {
+            Element text = doc.getElementById(id);
+            Point2D position = toImage.transform(new Point2D.Double(number(text, "x"), number(text, "y")), null);
+            float size = Float.parseFloat(inheritedAttribute(text, "font-size"));
+            texts.put(id, new TextSlot(position, new Font(Font.SANS_SERIF, Font.BOLD, 1).deriveFont(size)));
+            text.getFirstChild().setNodeValue("");
+        }
+
+        BufferedImage[] rendered = new BufferedImage[1];
+        ImageTranscoder transcoder = new ImageTranscoder() {
+            @Override
+            public BufferedImage createImage(int w, int h) {
+                return new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            }
+
+            @Override
+            public void writeImage(BufferedImage img, TranscoderOutput output) {
+                rendered[0] = img;
+            }
+        };
+        transcoder.addTranscodingHint(ImageTranscoder.KEY_BACKGROUND_COLOR, Color.white);
+        transcoder.transcode(new TranscoderInput(doc), new TranscoderOutput());
+
+        width = rendered[0].getWidth();
+        height = rendered[0].getHeight();
+        BufferedImage blank = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = blank.createGraphics();
+        g.drawImage(rendered[0], 0, 0, null);
+        g.dispose();
+        blankMap = ((DataBufferInt) blank.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * @return the template or null if it could not be loaded, in which case it will be tried again on the next call
+     */
+    @Nullable
+    static WorldMapTemplate getInstance() {
+        WorldMapTemplate template = instance;
+        if (template == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = load();
+                }
+                template = instance;
+            }
+        }
+        return template;
+    }
+
+    private static WorldMapTemplate load() {
+        String parser = XMLResourceDescriptor.getXMLParserClassName();
+        SAXSVGDocumentFactory f = new SAXSVGDocumentFactory(parser);
+        try (InputStream in = WorldMapTemplate.class.getClassLoader().getResourceAsStream(MAP_ROUND)) {
+            Document doc = f.createDocument("src/main/resources/BlankMap-World.svg", in);
+            return new WorldMapTemplate(doc);
+        } catch (Exception e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static double number(Element element, String attribute) {
+        return Double.parseDouble(element.getAttribute(attribute));
+    }
+
+    private static String inheritedAttribute(Element element, String attribute) {
+        for (Node node = element; node instanceof Element; node = node.getParentNode()) {
+            if (((Element) node).hasAttribute(attribute)) {
+                return ((Element) node).getAttribute(attribute);
+            }
+        }
+        throw new IllegalStateException("No " + attribute + " found for " + element.getAttribute("id"));
+    }
+
+    /**
+     * A path is filled by the classes of the closest element with a class, that is the path itself or the group it
+     * belongs to. It is not drawn at all if itself or any of its groups has one of the hidden classes.
+     */
+    private void addRegion(Element path, AffineTransform toImage) throws Exception {
+        String[] fillClasses = null;
+        for (Node node = path; node instanceof Element; node = node.getParentNode()) {
+            String attribute = ((Element) node).getAttribute("class");
+            if (attribute.isBlank()) {
+                continue;
+            }
+            String[] classes = attribute.trim().split("\\s+");
+            for (String clazz : classes) {
+                if (HIDDEN_CLASSES.contains(clazz)) {
+                    return;
+                }
+            }
+            if (fillClasses == null) {
+                fillClasses = classes;
+            }
+        }
+        if (fillClasses == null) {
+            return;
+        }
+        List<String> classes = Arrays.asList(fillClasses);
+        Shape outline = AWTPathProducer.createShape(new StringReader(path.getAttribute("d")), Path2D.WIND_EVEN_ODD);
+        Region region = new Region(toImage.createTransformedShape(outline), classes.contains("coastxx") ? COAST : BORDER);
+        for (String clazz : classes) {
+            // Generic classes as landxx, country codes are the rest
+            if (!clazz.endsWith("xx")) {
+                regions.computeIfAbsent(clazz, k -> new ArrayList<>()).add(region);
+            }
+        }
+    }
+
+    /**
+     * @param fills         colour of each country, by lowercase country code
+     * @param legendColours colour of each legend box, following {@link #colourArray}
+     * @param legendTexts   text of each legend entry, following {@link #textDescArray}
+     * @param title         text on the top left corner
+     * @return a canvas borrowed from {@link CanvasPool}
+     */
+    BufferedImage render(Map<String, Color> fills, Color[] legendColours, String[] legendTexts, String title) {
+        BufferedImage canvas = CanvasPool.borrow(width, height, BufferedImage.TYPE_INT_RGB);
+        boolean drawn = false;
+        try {
+            paint(canvas, fills, legendColours, legendTexts, title);
+            drawn = true;
+            return canvas;
+        } finally {
+            if (!drawn) {
+                CanvasPool.giveBack(canvas);
+            }
+        }
+    }
+
+    private void paint(BufferedImage canvas, Map<String, Color> fills, Color[] legendColours, String[] legendTexts, String title) {
+        System.arraycopy(blankMap, 0, ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData(), 0, blankMap.length);
+        Graphics2D g = canvas.createGraphics();
+        GraphicUtils.setQuality(g);
+
+        fills.forEach((code, colour) -> {
+            for (Region region : regions.getOrDefault(code, Collections.emptyList())) {
+                g.setColor(colour);
+                g.fill(region.outline);
+                g.setColor(Color.WHITE);
+                g.setStroke(region.border);
+                g.draw(region.outline);
+            }
+        });
+
+        g.setStroke(LEGEND_BORDER);
+        for (int i = 0; i < legendBoxes.length; i++) {
+            g.setColor(legendColours[i]);
+            g.fill(legendBoxes[i]);
+            g.setColor(Color.BLACK);
+            g.draw(legendBoxes[i]);
+        }
+        for (int i = 0; i < textDescArray.length; i++) {
+            drawText(g, texts.get(textDescArray[i]), legendTexts[i]);
+        }
+        drawText(g, texts.get(TITLE_ID), title);
+        g.dispose();
+    }
+
+    // Same as the svg text style, a white border painted below the text
+    private void drawText(Graphics2D g, TextSlot slot, String text) {
+        if (text.isBlank()) {
+            return;
+        }
+        Font font = slot.font;
+        if (!Fonts.canDisplay(font, text)) {
+            font = Fonts.derive(GraphicUtils.chooseFont(text), Font.BOLD, font.getSize2D());
+        }
+        TextLayout layout = new TextLayout(text, font, g.getFontRenderContext());
+        Shape outline = layout.getOutline(AffineTransform.getTranslateInstance(slot.position.getX(), slot.position.getY()));
+        g.setStroke(TEXT_BORDER);
+        g.setColor(Color.WHITE);
+        g.draw(outline);
+        g.setColor(Color.BLACK);
+        g.fill(outline);
+    }
+
+    private static final class Region {
+        private final Shape outline;
+        private final Stroke border;
+
+        private Region(Shape outline, Stroke border) {
+            this.outline = outline;
+            this.border = border;
+        }
+    }
+
+    private static final class TextSlot {
+        private final Point2D position;
+        private final Font font;
+
+        private TextSlot(Point2D position, Font font) {
+            this.position = position;
+            this.font = font;
+        }
+    }
+}
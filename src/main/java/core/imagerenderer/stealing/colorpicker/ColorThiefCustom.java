@@ -21,8 +21,7 @@ package core.imagerenderer.stealing.colorpicker;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
+import java.awt.image.*;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -40,7 +39,7 @@ public class ColorThiefCustom {
      *                    quality and speed. The bigger the number, the faster the palette generation but
      *                    the greater the likelihood that colors will be missed.
      * @param ignoreWhite if <code>true</code>, white pixels are ignored
-     * @return an array of pixels (each an RGB int array)
+     * @return the dominant color and the average color of the image
      */
     public static Pair<Color, Color> getColor(BufferedImage sourceImage, int quality, boolean ignoreWhite) {
         Pair<List<Color>, Color> palette = getPalette(sourceImage, 5, quality, ignoreWhite);
@@ -109,27 +108,66 @@ public class ColorThiefCustom {
             throw new IllegalArgumentException("Specified quality should be greater then 0.");
         }
 
-        Pair<int[][], Color> returnValue;
+        MMCQ.Workspace workspace = MMCQ.workspace();
+        Color averageColor;
         switch (sourceImage.getType()) {
             case BufferedImage.TYPE_3BYTE_BGR:
             case BufferedImage.TYPE_4BYTE_ABGR:
-                returnValue = getPixelsFast(sourceImage, quality, ignoreWhite);
+                averageColor = isPlainRaster(sourceImage) && sourceImage.getRaster().getDataBuffer() instanceof DataBufferByte
+                        ? samplePixelsBytes(sourceImage, quality, ignoreWhite, workspace)
+                        : samplePixelsSlow(sourceImage, quality, ignoreWhite, workspace);
+                break;
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+                averageColor = isPlainRaster(sourceImage) && sourceImage.getRaster().getDataBuffer() instanceof DataBufferInt
+                        ? samplePixelsInts(sourceImage, quality, ignoreWhite, workspace)
+                        : samplePixelsSlow(sourceImage, quality, ignoreWhite, workspace);
                 break;
-
             default:
-                returnValue = getPixelsSlow(sourceImage, quality, ignoreWhite);
+                averageColor = samplePixelsSlow(sourceImage, quality, ignoreWhite, workspace);
         }
 
-        // Send array to quantize function which clusters values using median cut algorithm
-        return Pair.of(MMCQ.quantize(returnValue.getLeft(), colorCount), returnValue.getRight());
+        // Send the histogram to quantize function which clusters values using median cut algorithm
+        return Pair.of(MMCQ.quantize(workspace, colorCount), averageColor);
     }
 
-    private static Pair<int[][], Color> getPixelsFast(
+    /**
+     * Whether the pixels of the image can be read straight from its data buffer, that is, the image is not a
+     * sub image of a bigger raster and rows are stored one after the other.
+     */
+    private static boolean isPlainRaster(BufferedImage sourceImage) {
+        WritableRaster raster = sourceImage.getRaster();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+                || dataBuffer.getNumBanks() != 1 || dataBuffer.getOffset() != 0) {
+            return false;
+        }
+        SampleModel sampleModel = raster.getSampleModel();
+        if (sampleModel instanceof SinglePixelPackedSampleModel) {
+            return ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride() == sourceImage.getWidth();
+        }
+        if (sampleModel instanceof ComponentSampleModel) {
+            ComponentSampleModel componentSampleModel = (ComponentSampleModel) sampleModel;
+            return componentSampleModel.getScanlineStride() == sourceImage.getWidth() * componentSampleModel.getPixelStride();
+        }
+        return false;
+    }
+
+    /**
+     * Reads the pixels straight from the byte backing array of TYPE_3BYTE_BGR and TYPE_4BYTE_ABGR images.
+     *
+     * @param sourceImage the source image
+     * @param quality     the sampling stride, 1 reads every pixel
+     * @param ignoreWhite if <code>true</code>, white pixels are ignored
+     * @param workspace   histogram where the regarded pixels are accumulated
+     * @return the average color of the sampled pixels
+     */
+    private static Color samplePixelsBytes(
             BufferedImage sourceImage,
             int quality,
-            boolean ignoreWhite) {
-        DataBufferByte imageData = (DataBufferByte) sourceImage.getRaster().getDataBuffer();
-        byte[] pixels = imageData.getData();
+            boolean ignoreWhite,
+            MMCQ.Workspace workspace) {
+        byte[] pixels = ((DataBufferByte) sourceImage.getRaster().getDataBuffer()).getData();
         int pixelCount = sourceImage.getWidth() * sourceImage.getHeight();
 
         int colorDepth;
@@ -154,14 +192,6 @@ public class ColorThiefCustom {
                             + pixels.length + ")");
         }
 
-        // Store the RGB values in an array format suitable for quantize function
-
-        // numRegardedPixels must be rounded up to avoid an ArrayIndexOutOfBoundsException if all
-        // pixels are good.
-        int numRegardedPixels = (pixelCount + quality - 1) / quality;
-
-        int numUsedPixels = 0;
-        int[][] pixelArray = new int[numRegardedPixels][];
         int offset, r, g, b, a;
         long sumr = 0, sumg = 0, sumb = 0;
 
@@ -180,8 +210,7 @@ public class ColorThiefCustom {
 
                     // If pixel is not white
                     if (!(ignoreWhite && r > 250 && g > 250 && b > 250)) {
-                        pixelArray[numUsedPixels] = new int[]{r, g, b};
-                        numUsedPixels++;
+                        workspace.add(r, g, b);
                     }
                 }
                 break;
@@ -200,8 +229,7 @@ public class ColorThiefCustom {
 
                     // If pixel is mostly opaque and not white
                     if (a >= 125 && !(ignoreWhite && r > 250 && g > 250 && b > 250)) {
-                        pixelArray[numUsedPixels] = new int[]{r, g, b};
-                        numUsedPixels++;
+                        workspace.add(r, g, b);
                     }
                 }
                 break;
@@ -210,44 +238,78 @@ public class ColorThiefCustom {
                 throw new IllegalArgumentException("Unhandled type: " + type);
         }
 
-        // Remove unused pixels from the array
-        Color averageColor = new Color((int) sumr / pixelCount, (int) sumg / pixelCount, (int) sumb / pixelCount);
-        return Pair.of(Arrays.copyOfRange(pixelArray, 0, numUsedPixels), averageColor);
+        return new Color((int) sumr / pixelCount, (int) sumg / pixelCount, (int) sumb / pixelCount);
     }
 
     /**
-     * Gets the image's pixels via BufferedImage.getRGB(..). Slow, but the fast method doesn't work
-     * for all color models.
+     * Reads the pixels straight from the int backing array of TYPE_INT_RGB and TYPE_INT_ARGB images.
+     * As with {@link #samplePixelsSlow} the alpha channel is not taken into account.
      *
      * @param sourceImage the source image
-     * @param quality     1 is the highest quality settings. 10 is the default. There is a trade-off between
-     *                    quality and speed. The bigger the number, the faster the palette generation but
-     *                    the greater the likelihood that colors will be missed.
+     * @param quality     the sampling stride, 1 reads every pixel
      * @param ignoreWhite if <code>true</code>, white pixels are ignored
-     * @return an array of pixels (each an RGB int array)
+     * @param workspace   histogram where the regarded pixels are accumulated
+     * @return the average color of the sampled pixels
      */
-    private static Pair<int[][], Color> getPixelsSlow(
+    private static Color samplePixelsInts(
             BufferedImage sourceImage,
             int quality,
-            boolean ignoreWhite) {
+            boolean ignoreWhite,
+            MMCQ.Workspace workspace) {
+        int[] pixels = ((DataBufferInt) sourceImage.getRaster().getDataBuffer()).getData();
+        int pixelCount = sourceImage.getWidth() * sourceImage.getHeight();
+
+        int rgb, r, g, b;
+        long sumr = 0, sumg = 0, sumb = 0;
+        for (int i = 0; i < pixelCount; i += quality) {
+            rgb = pixels[i];
+            r = (rgb >> 16) & 0xFF;
+            g = (rgb >> 8) & 0xFF;
+            b = (rgb) & 0xFF;
+
+            sumr += r;
+            sumg += g;
+            sumb += b;
+
+            if (!(ignoreWhite && r > 250 && g > 250 && b > 250)) {
+                workspace.add(r, g, b);
+            }
+        }
+        return new Color((int) sumr / pixelCount, (int) sumg / pixelCount, (int) sumb / pixelCount);
+    }
+
+    /**
+     * Gets the image's pixels via BufferedImage.getRGB(..), one row at a time. Slow, but the fast methods don't
+     * work for all color models.
+     *
+     * @param sourceImage the source image
+     * @param quality     the sampling stride, 1 reads every pixel
+     * @param ignoreWhite if <code>true</code>, white pixels are ignored
+     * @param workspace   histogram where the regarded pixels are accumulated
+     * @return the average color of the sampled pixels
+     */
+    private static Color samplePixelsSlow(
+            BufferedImage sourceImage,
+            int quality,
+            boolean ignoreWhite,
+            MMCQ.Workspace workspace) {
         int width = sourceImage.getWidth();
         int height = sourceImage.getHeight();
 
         int pixelCount = width * height;
+        int[] rowPixels = workspace.row(width);
+        int loadedRow = -1;
 
-        // numRegardedPixels must be rounded up to avoid an ArrayIndexOutOfBoundsException if all
-        // pixels are good.
-        int numRegardedPixels = (pixelCount + quality - 1) / quality;
-
-        int numUsedPixels = 0;
-
-        int[][] res = new int[numRegardedPixels][];
         int r, g, b;
         long sumr = 0, sumg = 0, sumb = 0;
         for (int i = 0; i < pixelCount; i += quality) {
             int row = i / width;
             int col = i % width;
-            int rgb = sourceImage.getRGB(col, row);
+            if (row != loadedRow) {
+                sourceImage.getRGB(0, row, width, 1, rowPixels, 0, width);
+                loadedRow = row;
+            }
+            int rgb = rowPixels[col];
 
             r = (rgb >> 16) & 0xFF;
             g = (rgb >> 8) & 0xFF;
@@ -258,11 +320,9 @@ public class ColorThiefCustom {
             sumb += b;
 
             if (!(ignoreWhite && r > 250 && g > 250 && b > 250)) {
-                res[numUsedPixels] = new int[]{r, g, b};
-                numUsedPixels++;
+                workspace.add(r, g, b);
             }
         }
-        Color averageColor = new Color((int) sumr / pixelCount, (int) sumg / pixelCount, (int) sumb / pixelCount);
-        return Pair.of(Arrays.copyOfRange(res, 0, numUsedPixels), averageColor);
+        return new Color((int) sumr / pixelCount, (int) sumg / pixelCount, (int) sumb / pixelCount);
     }
 }
@@ -29,6 +29,7 @@ public class MMCQ {
     private static final int VBOX_LENGTH = 1 << SIGBITS;
     private static final double FRACT_BY_POPULATION = 0.75;
     private static final int MAX_ITERATIONS = 1000;
+    private static final ThreadLocal<Workspace> WORKSPACES = ThreadLocal.withInitial(Workspace::new);
     private static final Comparator<VBox> COMPARATOR_COUNT = Comparator.comparingInt(a -> a.count(false));
     private static final Comparator<VBox> COMPARATOR_PRODUCT = (a, b) -> {
         int aCount = a.count(false);
@@ -58,59 +59,16 @@ public class MMCQ {
     }
 
     /**
-     * Histo (1-d array, giving the number of pixels in each quantized region of color space), or
-     * null on error.
+     * Returns the scratch buffers of the calling thread, cleared and ready to accumulate a new image.
+     * The returned workspace must not be shared with other threads.
      */
-    private static int[] getHisto(int[][] pixels) {
-        int[] histo = new int[HISTOSIZE];
-        int index, rval, gval, bval;
-
-        for (int[] pixel : pixels) {
-            rval = pixel[0] >> RSHIFT;
-            gval = pixel[1] >> RSHIFT;
-            bval = pixel[2] >> RSHIFT;
-            index = getColorIndex(rval, gval, bval);
-            histo[index]++;
-        }
-        return histo;
-    }
-
-    private static VBox vboxFromPixels(int[][] pixels, int[] histo) {
-        int rmin = 1000000, rmax = 0;
-        int gmin = 1000000, gmax = 0;
-        int bmin = 1000000, bmax = 0;
-
-        int rval, gval, bval;
-
-        // find min/max
-        for (int[] pixel : pixels) {
-            rval = pixel[0] >> RSHIFT;
-            gval = pixel[1] >> RSHIFT;
-            bval = pixel[2] >> RSHIFT;
-
-            if (rval < rmin) {
-                rmin = rval;
-            } else if (rval > rmax) {
-                rmax = rval;
-            }
-
-            if (gval < gmin) {
-                gmin = gval;
-            } else if (gval > gmax) {
-                gmax = gval;
-            }
-
-            if (bval < bmin) {
-                bmin = bval;
-            } else if (bval > bmax) {
-                bmax = bval;
-            }
-        }
-
-        return new VBox(rmin, rmax, gmin, gmax, bmin, bmax, histo);
+    static Workspace workspace() {
+        Workspace workspace = WORKSPACES.get();
+        workspace.reset();
+        return workspace;
     }
 
-    private static VBox[] medianCutApply(int[] histo, VBox vbox) {
+    private static VBox[] medianCutApply(Workspace workspace, VBox vbox) {
         if (vbox.count(false) == 0) {
             return null;
         }
@@ -120,6 +78,7 @@ public class MMCQ {
             return new VBox[]{vbox.clone(), null};
         }
 
+        int[] histo = workspace.histo;
         int rw = vbox.r2 - vbox.r1 + 1;
         int gw = vbox.g2 - vbox.g1 + 1;
         int bw = vbox.b2 - vbox.b1 + 1;
@@ -127,9 +86,9 @@ public class MMCQ {
 
         // Find the partial sum arrays along the selected axis.
         int total = 0;
-        int[] partialsum = new int[VBOX_LENGTH];
+        int[] partialsum = workspace.partialsum;
         Arrays.fill(partialsum, -1); // -1 = not set / 0 = 0
-        int[] lookaheadsum = new int[VBOX_LENGTH];
+        int[] lookaheadsum = workspace.lookaheadsum;
         Arrays.fill(lookaheadsum, -1); // -1 = not set / 0 = 0
         int i, j, k, sum, index;
 
@@ -137,9 +96,9 @@ public class MMCQ {
             for (i = vbox.r1; i <= vbox.r2; i++) {
                 sum = 0;
                 for (j = vbox.g1; j <= vbox.g2; j++) {
+                    index = getColorIndex(i, j, vbox.b1);
                     for (k = vbox.b1; k <= vbox.b2; k++) {
-                        index = getColorIndex(i, j, k);
-                        sum += histo[index];
+                        sum += histo[index++];
                     }
                 }
                 total += sum;
@@ -149,9 +108,9 @@ public class MMCQ {
             for (i = vbox.g1; i <= vbox.g2; i++) {
                 sum = 0;
                 for (j = vbox.r1; j <= vbox.r2; j++) {
+                    index = getColorIndex(j, i, vbox.b1);
                     for (k = vbox.b1; k <= vbox.b2; k++) {
-                        index = getColorIndex(j, i, k);
-                        sum += histo[index];
+                        sum += histo[index++];
                     }
                 }
                 total += sum;
@@ -258,11 +217,25 @@ public class MMCQ {
         if (pixels.length == 0 || maxcolors < 2 || maxcolors > 256) {
             return null;
         }
+        Workspace workspace = new Workspace();
+        for (int[] pixel : pixels) {
+            workspace.add(pixel[0], pixel[1], pixel[2]);
+        }
+        return quantize(workspace, maxcolors);
+    }
 
-        int[] histo = getHisto(pixels);
+    /**
+     * Quantizes the pixels accumulated on the given workspace.
+     * The boxes of the returned map are detached from the workspace, so it can be reused right away.
+     */
+    static CMap quantize(Workspace workspace, int maxcolors) {
+        // short-circuit
+        if (workspace.pixels == 0 || maxcolors < 2 || maxcolors > 256) {
+            return null;
+        }
 
         // get the beginning vbox from the colors
-        VBox vbox = vboxFromPixels(pixels, histo);
+        VBox vbox = new VBox(workspace.rmin, workspace.rmax, workspace.gmin, workspace.gmax, workspace.bmin, workspace.bmax, workspace.histo);
         ArrayList<VBox> pq = new ArrayList<>();
         pq.add(vbox);
 
@@ -270,14 +243,14 @@ public class MMCQ {
         int target = (int) Math.ceil(FRACT_BY_POPULATION * maxcolors);
 
         // first set of colors, sorted by population
-        iter(pq, COMPARATOR_COUNT, target, histo);
+        iter(pq, COMPARATOR_COUNT, target, workspace);
 
         // Re-sort by the product of pixel occupancy times the size in color space.
         pq.sort(COMPARATOR_PRODUCT);
 
         // next set - generate the median cuts using the (npix * vol) sorting.
         if (maxcolors > pq.size()) {
-            iter(pq, COMPARATOR_PRODUCT, maxcolors, histo);
+            iter(pq, COMPARATOR_PRODUCT, maxcolors, workspace);
         }
 
         // Reverse to put the highest elements first into the color map
@@ -286,6 +259,7 @@ public class MMCQ {
         // calculate the actual colors
         CMap cmap = new CMap();
         for (VBox vb : pq) {
+            vb.detach();
             cmap.push(vb);
         }
 
@@ -295,7 +269,7 @@ public class MMCQ {
     /**
      * Inner function to do the iteration.
      */
-    private static void iter(List<VBox> lh, Comparator<VBox> comparator, int target, int[] histo) {
+    private static void iter(List<VBox> lh, Comparator<VBox> comparator, int target, Workspace workspace) {
         int niters = 0;
         VBox vbox;
 
@@ -309,7 +283,7 @@ public class MMCQ {
             lh.remove(lh.size() - 1);
 
             // do the cut
-            VBox[] vboxes = medianCutApply(histo, vbox);
+            VBox[] vboxes = medianCutApply(workspace, vbox);
             VBox vbox1 = vboxes[0];
             VBox vbox2 = vboxes[1];
 
@@ -330,20 +304,78 @@ public class MMCQ {
         }
     }
 
+    /**
+     * Reusable histogram and cut buffers.
+     * Pixels are fed one by one in sampling order, the bounds are tracked exactly like the original
+     * per pixel scan so the resulting palette does not change.
+     */
+    static final class Workspace {
+        final int[] histo = new int[HISTOSIZE];
+        final int[] partialsum = new int[VBOX_LENGTH];
+        final int[] lookaheadsum = new int[VBOX_LENGTH];
+        int[] row = new int[0];
+        int pixels;
+        int rmin, rmax, gmin, gmax, bmin, bmax;
+
+        Workspace() {
+            reset();
+        }
+
+        void reset() {
+            Arrays.fill(histo, 0);
+            pixels = 0;
+            rmin = gmin = bmin = 1000000;
+            rmax = gmax = bmax = 0;
+        }
+
+        int[] row(int width) {
+            if (row.length < width) {
+                row = new int[width];
+            }
+            return row;
+        }
+
+        void add(int r, int g, int b) {
+            int rval = r >> RSHIFT;
+            int gval = g >> RSHIFT;
+            int bval = b >> RSHIFT;
+            histo[getColorIndex(rval, gval, bval)]++;
+            pixels++;
+
+            if (rval < rmin) {
+                rmin = rval;
+            } else if (rval > rmax) {
+                rmax = rval;
+            }
+
+            if (gval < gmin) {
+                gmin = gval;
+            } else if (gval > gmax) {
+                gmax = gval;
+            }
+
+            if (bval < bmin) {
+                bmin = bval;
+            } else if (bval > bmax) {
+                bmax = bval;
+            }
+        }
+    }
+
     /**
      * 3D color space box.
      */
     public static class VBox {
-        private final int[] histo;
         int r1;
         int r2;
         int g1;
         int g2;
         int b1;
         int b2;
+        private int[] histo;
         private int[] _avg;
-        private Integer _volume;
-        private Integer _count;
+        private int _volume = -1;
+        private int _count = -1;
 
         public VBox(int r1, int r2, int g1, int g2, int b1, int b2, int[] histo) {
             this.r1 = r1;
@@ -363,7 +395,7 @@ public class MMCQ {
         }
 
         public int volume(boolean force) {
-            if (_volume == null || force) {
+            if (_volume == -1 || force) {
                 _volume = ((r2 - r1 + 1) * (g2 - g1 + 1) * (b2 - b1 + 1));
             }
 
@@ -371,15 +403,15 @@ public class MMCQ {
         }
 
         public int count(boolean force) {
-            if (_count == null || force) {
+            if (_count == -1 || (force && histo != null)) {
                 int npix = 0;
                 int i, j, k, index;
 
                 for (i = r1; i <= r2; i++) {
                     for (j = g1; j <= g2; j++) {
+                        index = getColorIndex(i, j, b1);
                         for (k = b1; k <= b2; k++) {
-                            index = getColorIndex(i, j, k);
-                            npix += histo[index];
+                            npix += histo[index++];
                         }
                     }
                 }
@@ -396,7 +428,7 @@ public class MMCQ {
         }
 
         public int[] avg(boolean force) {
-            if (_avg == null || force) {
+            if (_avg == null || (force && histo != null)) {
                 int ntot = 0;
 
                 int rsum = 0;
@@ -410,6 +442,9 @@ public class MMCQ {
                         for (k = b1; k <= b2; k++) {
                             histoindex = getColorIndex(i, j, k);
                             hval = histo[histoindex];
+                            if (hval == 0) {
+                                continue;
+                            }
                             ntot += hval;
                             rsum += (hval * (i + 0.5) * MULT);
                             gsum += (hval * (j + 0.5) * MULT);
@@ -429,6 +464,16 @@ public class MMCQ {
             return _avg;
         }
 
+        /**
+         * Freezes count, volume and average so the box no longer depends on the (reusable) histogram.
+         */
+        void detach() {
+            count(false);
+            volume(false);
+            avg(false);
+            histo = null;
+        }
+
         public boolean contains(int[] pixel) {
             int rval = pixel[0] >> RSHIFT;
             int gval = pixel[1] >> RSHIFT;
@@ -465,7 +510,6 @@ public class MMCQ {
         }
 
         public int[] map(int[] color) {
-            int numVBoxes = vboxes.size();
             for (VBox vbox : vboxes) {
                 if (vbox.contains(color)) {
                     return vbox.avg(false);
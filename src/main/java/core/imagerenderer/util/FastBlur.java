@@ -0,0 +1,139 @@
+package core.imagerenderer.util;
+
+import core.imagerenderer.GraphicUtils;
+import core.imagerenderer.stealing.blur.GaussianFilter;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Approximated gaussian blur for backgrounds.
+ * The source is drawn on a canvas {@link Quality#downscale} times smaller, blurred there with three box passes
+ * (which converge to a gaussian) and scaled back to the requested size.
+ */
+public class FastBlur {
+    private static final int PASSES = 3;
+
+    private FastBlur() {
+    }
+
+    /**
+     * @param source  image to blur, it is stretched to fill the whole result
+     * @param width   width of the result
+     * @param height  height of the result
+     * @param radius  radius of the equivalent {@link GaussianFilter} in pixels of the result
+     * @param quality how much precision is traded for speed
+     * @return a new image of width x height with the blurred source
+     */
+    public static BufferedImage blurredCopy(BufferedImage source, int width, int height, float radius, Quality quality) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        if (quality == Quality.GAUSSIAN) {
+            BufferedImage canvas = draw(source, width, height, type);
+            return new GaussianFilter(radius).filter(canvas, canvas);
+        }
+        int smallWidth = Math.max(1, width / quality.downscale);
+        int smallHeight = Math.max(1, height / quality.downscale);
+        BufferedImage small = draw(source, smallWidth, smallHeight, type);
+
+        // GaussianFilter uses radius / 3 as sigma
+        double sigma = radius / 3.0 / quality.downscale;
+        int[] pixels = ((DataBufferInt) small.getRaster().getDataBuffer()).getData();
+        int[] temp = new int[pixels.length];
+        for (int size : boxesForGauss(sigma)) {
+            int boxRadius = (size - 1) / 2;
+            blurAndTranspose(pixels, temp, smallWidth, smallHeight, boxRadius);
+            blurAndTranspose(temp, pixels, smallHeight, smallWidth, boxRadius);
+        }
+        BufferedImage result = draw(small, width, height, type);
+        small.flush();
+        return result;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, int type) {
+        BufferedImage canvas = new BufferedImage(width, height, type);
+        Graphics2D g = canvas.createGraphics();
+        GraphicUtils.setQuality(g);
+        g.drawImage(source, 0, 0, width, height, 0, 0, source.getWidth(), source.getHeight(), null);
+        g.dispose();
+        return canvas;
+    }
+
+    /**
+     * Box sizes whose successive application approximates a gaussian of the given sigma
+     */
+    private static int[] boxesForGauss(double sigma) {
+        double idealWidth = Math.sqrt((12 * sigma * sigma / PASSES) + 1);
+        int lower = (int) Math.floor(idealWidth);
+        if (lower % 2 == 0) {
+            lower--;
+        }
+        int upper = lower + 2;
+        double idealLowerCount = (12 * sigma * sigma - PASSES * lower * lower - 4 * PASSES * lower - 3 * PASSES) / (-4.0 * lower - 4);
+        long lowerCount = Math.round(idealLowerCount);
+        int[] sizes = new int[PASSES];
+        for (int i = 0; i < PASSES; i++) {
+            sizes[i] = i < lowerCount ? lower : upper;
+        }
+        return sizes;
+    }
+
+    /**
+     * Horizontal box blur with clamped edges, the result is written transposed so calling it twice blurs both axis
+     */
+    private static void blurAndTranspose(int[] in, int[] out, int width, int height, int radius) {
+        if (radius <= 0) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    out[x * height + y] = in[y * width + x];
+                }
+            }
+            return;
+        }
+        int window = radius * 2 + 1;
+        int half = window / 2;
+        int last = width - 1;
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * width;
+            int sa = 0, sr = 0, sg = 0, sb = 0;
+            for (int i = -radius; i <= radius; i++) {
+                int pixel = in[rowStart + Math.min(Math.max(i, 0), last)];
+                sa += (pixel >>> 24);
+                sr += (pixel >> 16) & 0xff;
+                sg += (pixel >> 8) & 0xff;
+                sb += pixel & 0xff;
+            }
+            int outIndex = y;
+            for (int x = 0; x < width; x++) {
+                out[outIndex] = ((sa + half) / window) << 24
+                        | ((sr + half) / window) << 16
+                        | ((sg + half) / window) << 8
+                        | ((sb + half) / window);
+                outIndex += height;
+
+                int added = in[rowStart + Math.min(x + radius + 1, last)];
+                int removed = in[rowStart + Math.max(x - radius, 0)];
+                sa += (added >>> 24) - (removed >>> 24);
+                sr += ((added >> 16) & 0xff) - ((removed >> 16) & 0xff);
+                sg += ((added >> 8) & 0xff) - ((removed >> 8) & 0xff);
+                sb += (added & 0xff) - (removed & 0xff);
+            }
+        }
+    }
+
+    public enum Quality {
+        /**
+         * Full size {@link GaussianFilter}, the old behaviour
+         */
+        GAUSSIAN(1),
+        HIGH(2),
+        MEDIUM(4),
+        LOW(8);
+
+        private final int downscale;
+
+        Quality(int downscale) {
+            this.downscale = downscale;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package core.imagerenderer.util;
+
+import java.awt.*;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Shared font handling for the renderers.
+ * <ul>
+ *     <li>Derived fonts are cached per family, style and size instead of calling {@link Font#deriveFont} on each use</li>
+ *     <li>The code points each font can display are computed once, so choosing a fallback font is a table lookup</li>
+ *     <li>Fitting a text on a given space uses a binary search over the font size</li>
+ * </ul>
+ */
+public class Fonts {
+    private static final int MAX_CACHED_FONTS = 4096;
+    private static final Map<FontKey, Font> derivedFonts = new ConcurrentHashMap<>();
+    private static final Map<FontKey, Coverage> coverages = new ConcurrentHashMap<>();
+
+    private Fonts() {
+    }
+
+    public static Font derive(Font font, float size) {
+        return derive(font, font.getStyle(), size);
+    }
+
+    public static Font derive(Font font, int style) {
+        return derive(font, style, font.getSize2D());
+    }
+
+    /**
+     * Same as {@link Font#deriveFont(int, float)} but reusing the fonts already derived
+     */
+    public static Font derive(Font font, int style, float size) {
+        if (font.getStyle() == style && font.getSize2D() == size) {
+            return font;
+        }
+        if (font.hasLayoutAttributes() || font.isTransformed() || derivedFonts.size() > MAX_CACHED_FONTS) {
+            return font.deriveFont(style, size);
+        }
+        return derivedFonts.computeIfAbsent(new FontKey(font.getName(), style, size), key -> font.deriveFont(style, size));
+    }
+
+    /**
+     * Equivalent to {@code font.canDisplayUpTo(text) == -1}
+     */
+    public static boolean canDisplay(Font font, String text) {
+        return coverages.computeIfAbsent(new FontKey(font.getName(), font.getStyle(), 0), key -> new Coverage(font)).canDisplay(text);
+    }
+
+    /**
+     * Shrinks the font until the predicate is satisfied
+     *
+     * @param font    starting font, returned as is if it already fits
+     * @param minSize the size won't go below this
+     * @param fits    whether the text fits using the given font
+     * @return the biggest integer sized font between minSize and the size of the original font that fits, or the font
+     * of minSize if none does
+     */
+    public static Font fit(Font font, float minSize, Predicate<Font> fits) {
+        if (fits.test(font)) {
+            return font;
+        }
+        int low = Math.max(1, (int) Math.ceil(minSize));
+        int high = (int) Math.ceil(font.getSize2D()) - 1;
+        if (high < low) {
+            return font;
+        }
+        Font best = null;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Font candidate = derive(font, (float) mid);
+            if (fits.test(candidate)) {
+                best = candidate;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return best != null ? best : derive(font, (float) Math.max(1, (int) Math.ceil(minSize)));
+    }
+
+    /**
+     * @return the biggest font that renders the text with a width not greater than maxWidth
+     * @see #fit(Font, float, Predicate)
+     */
+    public static Font fitWidth(Graphics2D g, Font font, String text, double maxWidth, float minSize) {
+        return fit(font, minSize, f -> g.getFontMetrics(f).stringWidth(text) <= maxWidth);
+    }
+
+    /**
+     * A list of fonts tried in order to find the first one that can display a whole string
+     */
+    public static class Fallback {
+        private final Font defaultFont;
+        private final Font[] chain;
+
+        /**
+         * @param defaultFont font returned when no font of the chain can display the string
+         * @param chain       fonts in order of preference
+         */
+        public Fallback(Font defaultFont, Font... chain) {
+            this.defaultFont = defaultFont;
+            this.chain = chain;
+        }
+
+        public Font choose(String text) {
+            for (Font font : chain) {
+                if (canDisplay(font, text)) {
+                    return font;
+                }
+            }
+            return defaultFont;
+        }
+    }
+
+    /**
+     * Code points a font can display. The BMP is computed on creation, the rest of planes on demand.
+     */
+    private static class Coverage {
+        private final Font font;
+        private final BitSet bmp = new BitSet(Character.MIN_SUPPLEMENTARY_CODE_POINT);
+        private final Map<Integer, Boolean> supplementary = new ConcurrentHashMap<>();
+
+        Coverage(Font font) {
+            this.font = font;
+            for (int i = 0; i < Character.MIN_SUPPLEMENTARY_CODE_POINT; i++) {
+                if (font.canDisplay(i)) {
+                    bmp.set(i);
+                }
+            }
+        }
+
+        boolean canDisplay(String text) {
+            int length = text.length();
+            for (int i = 0; i < length; ) {
+                int codePoint = text.codePointAt(i);
+                boolean displayable = codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT
+                        ? bmp.get(codePoint)
+                        : supplementary.computeIfAbsent(codePoint, font::canDisplay);
+                if (!displayable) {
+                    return false;
+                }
+                i += Character.charCount(codePoint);
+            }
+            return true;
+        }
+    }
+
+    private static final class FontKey {
+        private final String name;
+        private final int style;
+        private final float size;
+
+        private FontKey(String name, int style, float size) {
+            this.name = name;
+            this.style = style;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FontKey fontKey = (FontKey) o;
+            return style == fontKey.style &&
+                    Float.compare(fontKey.size, size) == 0 &&
+                    name.equals(fontKey.name);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = name.hashCode();
+            result = 31 * result + style;
+            result = 31 * result + Float.hashCode(size);
+            return result;
+        }
+    }
+}
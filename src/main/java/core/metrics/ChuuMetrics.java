@@ -0,0 +1,285 @@
+package core.metrics;
+
+import com.google.common.cache.CacheStats;
+import core.Chuu;
+import core.apis.ExecutorsSingleton;
+import core.commands.utils.DisplayNames;
+import core.commands.utils.GuildLogos;
+import core.imagerenderer.CanvasPool;
+import core.imagerenderer.GraphicUtils;
+import core.services.CachingChuuService;
+import core.services.CommandLogWriter;
+import core.services.UpdaterService;
+import dao.ChuuService;
+import dao.QueryProfiler;
+import dao.entities.ConnectionPoolStats;
+import dao.entities.QueryStats;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Metrics of the bot, written in the Prometheus text format.
+ * <p>
+ * Only the per command histograms and the Last.fm counters are recorded as things happen, the rest are read from
+ * each subsystem when the metrics are scraped.
+ */
+public class ChuuMetrics {
+    private static final Pattern LASTFM_METHOD = Pattern.compile("[?&]method=([^&]+)");
+    private static final Map<String, LatencyHistogram> commandQueue = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> commandExecution = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder[]> commandPhases = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, LongAdder>> lastFmCalls = new ConcurrentHashMap<>();
+    private static volatile long oldestUpdateEpochSecond = -1;
+
+    private ChuuMetrics() {
+    }
+
+    /**
+     * @param nanos time between the command being received and starting to be executed
+     */
+    public static void recordQueue(String command, long nanos) {
+        commandQueue.computeIfAbsent(command, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    public static void recordExecution(String command, long nanos) {
+        commandExecution.computeIfAbsent(command, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Adds the time of each phase of a finished command to its totals
+     */
+    static void recordTrace(CommandTrace trace) {
+        LongAdder[] phases = commandPhases.computeIfAbsent(trace.getCommand(), k -> newPhaseAdders());
+        for (CommandTrace.Phase phase : CommandTrace.Phase.values()) {
+            phases[phase.ordinal()].add(trace.getNanos(phase));
+        }
+        phases[phases.length - 1].add(trace.getOwnNanos());
+    }
+
+    // One for each phase plus the time of the command itself
+    private static LongAdder[] newPhaseAdders() {
+        LongAdder[] adders = new LongAdder[CommandTrace.Phase.values().length + 1];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * @param url    url of the request, the api method is taken from it
+     * @param status http status code or a short description of the failure
+     */
+    public static void recordLastFmCall(String url, String status) {
+        Matcher matcher = LASTFM_METHOD.matcher(url);
+        String method = matcher.find() ? matcher.group(1).toLowerCase() : "unknown";
+        lastFmCalls.computeIfAbsent(method, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(status, k -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * @param lastUpdateEpochSecond last update of the user the updater has picked, which is the least updated one
+     */
+    public static void recordUpdaterPick(long lastUpdateEpochSecond) {
+        oldestUpdateEpochSecond = lastUpdateEpochSecond;
+    }
+
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        writeHistograms(out, "chuu_command_queue_seconds", "Time commands wait for an executor thread", commandQueue);
+        writeHistograms(out, "chuu_command_execution_seconds", "Time commands take to execute", commandExecution);
+        writePhases(out);
+        writeLastFm(out);
+        writeDatabase(out);
+        writeCaches(out);
+        writeUpdater(out);
+        writeExecutors(out);
+        writeJvm(out);
+        return out.toString();
+    }
+
+    private static void writeHistograms(StringBuilder out, String name, String help, Map<String, LatencyHistogram> histograms) {
+        header(out, name, help, "histogram");
+        new TreeMap<>(histograms).forEach((command, histogram) -> {
+            String label = "command=\"" + escape(command) + "\"";
+            long[] counts = histogram.snapshot();
+            long cumulative = 0;
+            for (int i = 0; i < LatencyHistogram.BOUNDS.length; i++) {
+                cumulative += counts[i];
+                sample(out, name + "_bucket", label + ",le=\"" + LatencyHistogram.BOUNDS[i] + "\"", cumulative);
+            }
+            cumulative += counts[counts.length - 1];
+            sample(out, name + "_bucket", label + ",le=\"+Inf\"", cumulative);
+            sample(out, name + "_sum", label, histogram.getSumSeconds());
+            sample(out, name + "_count", label, cumulative);
+        });
+    }
+
+    private static void writePhases(StringBuilder out) {
+        double nanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+        header(out, "chuu_command_phase_seconds_total", "Time commands spend on each phase", "counter");
+        new TreeMap<>(commandPhases).forEach((command, phases) -> {
+            for (CommandTrace.Phase phase : CommandTrace.Phase.values()) {
+                sample(out, "chuu_command_phase_seconds_total", "command=\"" + escape(command) + "\",phase=\"" + phase.name().toLowerCase() + "\"",
+                        phases[phase.ordinal()].sum() / nanosPerSecond);
+            }
+            sample(out, "chuu_command_phase_seconds_total", "command=\"" + escape(command) + "\",phase=\"other\"",
+                    phases[phases.length - 1].sum() / nanosPerSecond);
+        });
+    }
+
+    private static void writeLastFm(StringBuilder out) {
+        header(out, "chuu_lastfm_requests_total", "Requests made to the Last.fm api", "counter");
+        new TreeMap<>(lastFmCalls).forEach((method, statuses) -> new TreeMap<>(statuses).forEach((status, count) ->
+                sample(out, "chuu_lastfm_requests_total", "method=\"" + escape(method) + "\",status=\"" + escape(status) + "\"", count.sum())));
+    }
+
+    private static void writeDatabase(StringBuilder out) {
+        ChuuService dao = Chuu.getDao();
+        if (dao == null) {
+            return;
+        }
+        ConnectionPoolStats pool = dao.getPoolStats();
+        header(out, "chuu_db_pool_connections", "Connections of the database pool", "gauge");
+        sample(out, "chuu_db_pool_connections", "state=\"active\"", pool.getActive());
+        sample(out, "chuu_db_pool_connections", "state=\"idle\"", pool.getIdle());
+        sample(out, "chuu_db_pool_connections", "state=\"total\"", pool.getTotal());
+        header(out, "chuu_db_pool_waiting_threads", "Threads waiting for a database connection", "gauge");
+        sample(out, "chuu_db_pool_waiting_threads", null, pool.getWaiting());
+
+        header(out, "chuu_db_profiling_enabled", "Whether statements are being profiled", "gauge");
+        sample(out, "chuu_db_profiling_enabled", null, QueryProfiler.isEnabled() ? 1 : 0);
+        List<QueryStats> queries = QueryProfiler.getStats();
+        queries.sort(Comparator.comparing(QueryStats::getCaller));
+        header(out, "chuu_db_statements_total", "Statements executed while profiling, by the dao method that prepared them", "counter");
+        queries.forEach(x -> sample(out, "chuu_db_statements_total", "caller=\"" + escape(x.getCaller()) + "\"", x.getCount()));
+        header(out, "chuu_db_statement_seconds_total", "Time spent executing statements while profiling", "counter");
+        queries.forEach(x -> sample(out, "chuu_db_statement_seconds_total", "caller=\"" + escape(x.getCaller()) + "\"", x.getTotalNanos() / (double) TimeUnit.SECONDS.toNanos(1)));
+
+        CommandLogWriter commandLogWriter = Chuu.getCommandLogWriter();
+        if (commandLogWriter != null) {
+            header(out, "chuu_command_log_pending", "Command logs waiting to be written", "gauge");
+            sample(out, "chuu_command_log_pending", null, commandLogWriter.getPending());
+            header(out, "chuu_command_log_total", "Command logs by outcome", "counter");
+            sample(out, "chuu_command_log_total", "outcome=\"written\"", commandLogWriter.getWritten());
+            sample(out, "chuu_command_log_total", "outcome=\"dropped\"", commandLogWriter.getDropped());
+            sample(out, "chuu_command_log_total", "outcome=\"failed\"", commandLogWriter.getFailed());
+        }
+    }
+
+    private static void writeCaches(StringBuilder out) {
+        Map<String, CacheStats> caches = new TreeMap<>();
+        caches.put("blurred_background", GraphicUtils.getBlurredBackgroundStats());
+        caches.put("guild_logo", GuildLogos.getStats());
+        caches.put("display_name", DisplayNames.getStats());
+        if (Chuu.getDao() instanceof CachingChuuService) {
+            CachingChuuService settings = (CachingChuuService) Chuu.getDao();
+            caches.put("user_settings", settings.getUserStats());
+            caches.put("guild_settings", settings.getGuildStats());
+        }
+        header(out, "chuu_cache_hits_total", "Lookups served from memory", "counter");
+        sample(out, "chuu_cache_hits_total", "cache=\"canvas_pool\"", CanvasPool.getHits());
+        caches.forEach((cache, stats) -> sample(out, "chuu_cache_hits_total", "cache=\"" + cache + "\"", stats.hitCount()));
+        header(out, "chuu_cache_misses_total", "Lookups that had to be loaded", "counter");
+        sample(out, "chuu_cache_misses_total", "cache=\"canvas_pool\"", CanvasPool.getMisses());
+        caches.forEach((cache, stats) -> sample(out, "chuu_cache_misses_total", "cache=\"" + cache + "\"", stats.missCount()));
+
+        header(out, "chuu_canvas_pool_bytes", "Bytes of the pooled canvases", "gauge");
+        sample(out, "chuu_canvas_pool_bytes", "state=\"borrowed\"", CanvasPool.getBorrowedBytes());
+        sample(out, "chuu_canvas_pool_bytes", "state=\"idle\"", CanvasPool.getIdleBytes());
+        sample(out, "chuu_canvas_pool_bytes", "state=\"budget\"", CanvasPool.getBudget());
+        header(out, "chuu_canvas_pool_waits_total", "Renders that had to wait for canvas memory", "counter");
+        sample(out, "chuu_canvas_pool_waits_total", null, CanvasPool.getWaits());
+        header(out, "chuu_guild_logo_bytes", "Bytes of the decoded server logos", "gauge");
+        sample(out, "chuu_guild_logo_bytes", null, GuildLogos.getBytes());
+    }
+
+    private static void writeUpdater(StringBuilder out) {
+        header(out, "chuu_updater_in_progress", "Users being updated right now", "gauge");
+        sample(out, "chuu_updater_in_progress", null, UpdaterService.getInProgress());
+        long oldest = oldestUpdateEpochSecond;
+        if (oldest >= 0) {
+            header(out, "chuu_updater_backlog_seconds", "Time since the least updated user was updated", "gauge");
+            sample(out, "chuu_updater_backlog_seconds", null, Math.max(0, Instant.now().getEpochSecond() - oldest));
+        }
+    }
+
+    private static void writeExecutors(StringBuilder out) {
+        Map<String, ExecutorService> executors = new TreeMap<>();
+        executors.put("commands", ExecutorsSingleton.getInstance());
+        if (Chuu.getScheduledExecutorService() != null) {
+            executors.put("scheduled", Chuu.getScheduledExecutorService());
+        }
+        header(out, "chuu_executor_active_threads", "Threads running a task", "gauge");
+        executors.forEach((name, executor) -> {
+            if (executor instanceof ThreadPoolExecutor) {
+                sample(out, "chuu_executor_active_threads", "executor=\"" + name + "\"", ((ThreadPoolExecutor) executor).getActiveCount());
+            }
+        });
+        header(out, "chuu_executor_queued_tasks", "Tasks waiting for a thread", "gauge");
+        executors.forEach((name, executor) -> {
+            if (executor instanceof ThreadPoolExecutor) {
+                sample(out, "chuu_executor_queued_tasks", "executor=\"" + name + "\"", ((ThreadPoolExecutor) executor).getQueue().size());
+            }
+        });
+    }
+
+    private static void writeJvm(StringBuilder out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        header(out, "jvm_memory_bytes_used", "Used bytes of a memory area", "gauge");
+        sample(out, "jvm_memory_bytes_used", "area=\"heap\"", heap.getUsed());
+        sample(out, "jvm_memory_bytes_used", "area=\"nonheap\"", nonHeap.getUsed());
+        header(out, "jvm_memory_bytes_committed", "Committed bytes of a memory area", "gauge");
+        sample(out, "jvm_memory_bytes_committed", "area=\"heap\"", heap.getCommitted());
+        sample(out, "jvm_memory_bytes_committed", "area=\"nonheap\"", nonHeap.getCommitted());
+        header(out, "jvm_memory_bytes_max", "Max bytes of a memory area", "gauge");
+        sample(out, "jvm_memory_bytes_max", "area=\"heap\"", heap.getMax());
+
+        header(out, "jvm_gc_collection_seconds", "Time spent by each collector", "summary");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String label = "gc=\"" + escape(gc.getName()) + "\"";
+            sample(out, "jvm_gc_collection_seconds_count", label, gc.getCollectionCount());
+            sample(out, "jvm_gc_collection_seconds_sum", label, gc.getCollectionTime() / 1000d);
+        }
+        header(out, "jvm_threads_current", "Live threads", "gauge");
+        sample(out, "jvm_threads_current", null, ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
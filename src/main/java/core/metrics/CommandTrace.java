@@ -0,0 +1,188 @@
+package core.metrics;
+
+import java.time.Instant;
+
+/**
+ * Where the time of a single command goes.
+ * <p>
+ * A trace belongs to the thread that runs the command, the instrumented code finds it through a thread local and does
+ * nothing when there is none. Phases can be nested, each one only counts the time not spent on its inner phases, so
+ * the database time of a parser is not counted twice. Whatever is not on any phase is the command itself.
+ */
+public class CommandTrace {
+    private static final int MAX_DEPTH = 16;
+    private static final ThreadLocal<CommandTrace> current = new ThreadLocal<>();
+    private static final Scope NOOP = new Scope(null, null);
+
+    private final String command;
+    private final long discordId;
+    private final Instant startedAt = Instant.now();
+    private final long start = System.nanoTime();
+    private final long[] exclusive = new long[Phase.values().length];
+    private final Phase[] stack = new Phase[MAX_DEPTH];
+    private final long[] stackStart = new long[MAX_DEPTH];
+    private final long[] stackInner = new long[MAX_DEPTH];
+    private int depth = 0;
+    private int dbConnections = 0;
+    private int httpCalls = 0;
+    private long bytesEncoded = 0;
+    private long total = -1;
+
+    private CommandTrace(String command, long discordId) {
+        this.command = command;
+        this.discordId = discordId;
+    }
+
+    /**
+     * Starts tracing the command running on this thread
+     */
+    public static CommandTrace start(String command, long discordId) {
+        CommandTrace trace = new CommandTrace(command, discordId);
+        current.set(trace);
+        return trace;
+    }
+
+    /**
+     * Ends the trace of this thread, records it and keeps it if it was slow
+     */
+    public static void finish() {
+        CommandTrace trace = current.get();
+        if (trace == null) {
+            return;
+        }
+        current.remove();
+        trace.total = System.nanoTime() - trace.start;
+        ChuuMetrics.recordTrace(trace);
+        SlowTraces.offer(trace);
+    }
+
+    /**
+     * Marks the beginning of a phase, it lasts until the returned scope is closed
+     */
+    public static Scope enter(Phase phase) {
+        CommandTrace trace = current.get();
+        if (trace == null || trace.depth == MAX_DEPTH) {
+            return NOOP;
+        }
+        trace.push(phase);
+        return new Scope(trace, phase);
+    }
+
+    /**
+     * Adds a phase that has already ended, for code that only knows how long something took
+     */
+    public static void record(Phase phase, long nanos) {
+        CommandTrace trace = current.get();
+        if (trace == null) {
+            return;
+        }
+        trace.exclusive[phase.ordinal()] += nanos;
+        if (trace.depth > 0) {
+            trace.stackInner[trace.depth - 1] += nanos;
+        }
+        if (phase == Phase.DATABASE) {
+            trace.dbConnections++;
+        }
+    }
+
+    public static void countHttpCall() {
+        CommandTrace trace = current.get();
+        if (trace != null) {
+            trace.httpCalls++;
+        }
+    }
+
+    public static void addBytesEncoded(long bytes) {
+        CommandTrace trace = current.get();
+        if (trace != null) {
+            trace.bytesEncoded += bytes;
+        }
+    }
+
+    private void push(Phase phase) {
+        stack[depth] = phase;
+        stackStart[depth] = System.nanoTime();
+        stackInner[depth] = 0;
+        depth++;
+    }
+
+    private void pop(Phase phase) {
+        // Only the innermost phase can end, anything else means a scope was not closed
+        if (depth == 0 || stack[depth - 1] != phase) {
+            return;
+        }
+        depth--;
+        long elapsed = System.nanoTime() - stackStart[depth];
+        exclusive[phase.ordinal()] += elapsed - stackInner[depth];
+        if (depth > 0) {
+            stackInner[depth - 1] += elapsed;
+        }
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public long getDiscordId() {
+        return discordId;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * @return nanos from start to finish, or -1 if it has not finished
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public long getNanos(Phase phase) {
+        return exclusive[phase.ordinal()];
+    }
+
+    /**
+     * @return time of the command that was not spent on any phase
+     */
+    public long getOwnNanos() {
+        long phases = 0;
+        for (long nanos : exclusive) {
+            phases += nanos;
+        }
+        return Math.max(0, total - phases);
+    }
+
+    public int getDbConnections() {
+        return dbConnections;
+    }
+
+    public int getHttpCalls() {
+        return httpCalls;
+    }
+
+    public long getBytesEncoded() {
+        return bytesEncoded;
+    }
+
+    public enum Phase {
+        PARSE, DATABASE, LASTFM, RENDER, UPLOAD
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final CommandTrace trace;
+        private final Phase phase;
+
+        private Scope(CommandTrace trace, Phase phase) {
+            this.trace = trace;
+            this.phase = phase;
+        }
+
+        @Override
+        public void close() {
+            if (trace != null) {
+                trace.pop(phase);
+            }
+        }
+    }
+}
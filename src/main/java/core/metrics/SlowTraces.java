@@ -0,0 +1,44 @@
+package core.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last traces of commands that took longer than {@link #THRESHOLD_NANOS}.
+ * <p>
+ * Kept in a fixed ring, a new slow trace overwrites the oldest one.
+ */
+public class SlowTraces {
+    public static final long THRESHOLD_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final int CAPACITY = 128;
+    private static final AtomicReferenceArray<CommandTrace> ring = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicLong next = new AtomicLong();
+
+    private SlowTraces() {
+    }
+
+    static void offer(CommandTrace trace) {
+        if (trace.getTotal() < THRESHOLD_NANOS) {
+            return;
+        }
+        ring.set((int) (next.getAndIncrement() % CAPACITY), trace);
+    }
+
+    /**
+     * @return the slow traces, the most recent first
+     */
+    public static List<CommandTrace> getRecent(int limit) {
+        List<CommandTrace> traces = new ArrayList<>(Math.min(limit, CAPACITY));
+        long last = next.get();
+        for (long i = last - 1; i >= 0 && i >= last - CAPACITY && traces.size() < limit; i--) {
+            CommandTrace trace = ring.get((int) (i % CAPACITY));
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+}
@@ -57,6 +57,18 @@ public abstract class ReactionListener implements EventListener {
     }
 
 
+    /**
+     * Changes the message this listener reacts to
+     */
+    protected void setMessage(Message message) {
+        Message previous = this.message;
+        this.message = message;
+        IEventManager eventManager = jda.getEventManager();
+        if (eventManager instanceof CustomInterfacedEventManager) {
+            ((CustomInterfacedEventManager) eventManager).moveReactionary(this, previous);
+        }
+    }
+
     public void refresh(JDA jda) {
         IEventManager eventManager = jda.getEventManager();
         if (!(eventManager instanceof CustomInterfacedEventManager)) {
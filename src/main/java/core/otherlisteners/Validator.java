@@ -49,7 +49,7 @@ public class Validator<T> extends ReactionListener {
     private void noMoreElements() {
         if (!hasCleaned.get()) {
             if (message == null) {
-                this.message = messageChannel.sendMessage(getLastMessage.apply(who).build()).complete();
+                setMessage(messageChannel.sendMessage(getLastMessage.apply(who).build()).complete());
             } else
                 message.editMessage(getLastMessage.apply(who).build()).complete();
             clearReacts();
@@ -89,7 +89,7 @@ public class Validator<T> extends ReactionListener {
         if (messageAction == null) {
             return;
         }
-        this.message = messageAction.complete();
+        setMessage(messageAction.complete());
         while (!tbp.isEmpty()) {
             MessageReactionAddEvent poll = tbp.poll();
             onMessageReactionAdd(poll);
@@ -132,7 +132,7 @@ public class Validator<T> extends ReactionListener {
 
     private void accept(Message mes) {
         this.message.delete().queue(t -> {
-            this.message = mes;
+            setMessage(mes);
             this.initEmotes();
         });
     }
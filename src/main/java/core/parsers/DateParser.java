@@ -174,11 +174,7 @@ public class DateParser extends DaoParser<DateParameters> {
             if (words.length == 0) {
                 localDate = LocalDate.now().with(MonthDay.of(1, 1)).atStartOfDay().atOffset(OffsetDateTime.now().getOffset());
             } else {
-                String remaining = String.join(" ", words);
-                remaining = remaining.replaceAll("[ ][ -/]+", " ");
-
-                Optional<OffsetDateTime> apply = eval.apply(remaining, dateTimeFormatters);
-                localDate = apply.orElse(null);
+                localDate = parseDate(String.join(" ", words)).orElse(null);
             }
         }
         if (localDate == null) {
@@ -194,6 +190,10 @@ public class DateParser extends DaoParser<DateParameters> {
 
     }
 
+    static Optional<OffsetDateTime> parseDate(String date) {
+        return eval.apply(date.replaceAll("[ ][ -/]+", " "), dateTimeFormatters);
+    }
+
     @Override
     public String getUsageLogic(String commandName) {
         return "**" + commandName + " *username* *time*** \n" +
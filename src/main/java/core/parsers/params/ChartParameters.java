@@ -1,6 +1,6 @@
 package core.parsers.params;
 
-import core.apis.last.ConcurrentLastFM;
+import core.apis.last.ChartSource;
 import core.apis.last.TopEntity;
 import core.apis.last.chartentities.UrlCapsule;
 import core.commands.CommandUtil;
@@ -14,6 +14,8 @@ import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import org.json.JSONObject;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.concurrent.BlockingQueue;
 import java.util.function.BiFunction;
 
@@ -25,6 +27,7 @@ public class ChartParameters extends CommandParameters {
     private final CustomTimeFrame timeFrameEnum;
     private int x;
     private int y;
+    private Instant syncTime;
 
 
     public ChartParameters(MessageReceivedEvent e, String lastfmID, long discordId, ChartMode chartMode, LastFMData lastFMData, CustomTimeFrame timeFrameEnum, int x, int y) {
@@ -62,8 +65,9 @@ public class ChartParameters extends CommandParameters {
                 , true, true, ChartMode.LIST, null);
     }
 
-    public int makeCommand(ConcurrentLastFM lastFM, BlockingQueue<UrlCapsule> queue, TopEntity topEntity, BiFunction<JSONObject, Integer, UrlCapsule> parser) throws LastFmException {
-        return lastFM.getChart(lastfmID, timeFrameEnum, x, y, topEntity, parser, queue);
+    public int makeCommand(ChartSource source, BlockingQueue<UrlCapsule> queue, TopEntity topEntity, BiFunction<JSONObject, Integer, UrlCapsule> parser) throws LastFmException {
+        syncTime = source.getSyncTime(lastfmID, timeFrameEnum, topEntity).orElse(null);
+        return source.getChart(lastfmID, timeFrameEnum, x, y, topEntity, parser, queue, syncTime);
     }
 
 
@@ -116,7 +120,15 @@ public class ChartParameters extends CommandParameters {
     public EmbedBuilder initEmbed(String titleInit, EmbedBuilder embedBuilder, String footerText, String lastfmid) {
         DiscordUserDisplay discordUserDisplay = CommandUtil.getUserInfoNotStripped(getE(), discordId);
         return embedBuilder.setAuthor(discordUserDisplay.getUsername() + titleInit + this.getTimeFrameEnum().getDisplayString(), CommandUtil.getLastFmUser(lastfmid), discordUserDisplay.getUrlImage())
-                .setFooter(CommandUtil.markdownLessString(discordUserDisplay.getUsername()) + footerText + this.getTimeFrameEnum().getDisplayString()).setColor(CommandUtil.randomColor());
+                .setFooter(CommandUtil.markdownLessString(discordUserDisplay.getUsername()) + footerText + this.getTimeFrameEnum().getDisplayString() + syncFooter()).setColor(CommandUtil.randomColor());
+    }
+
+    private String syncFooter() {
+        if (syncTime == null) {
+            return "";
+        }
+        long hours = Duration.between(syncTime, Instant.now()).toHours();
+        return "\nFrom the bot's copy of your library, synced " + (hours == 0 ? "less than an hour" : hours == 1 ? "1 hour" : hours + " hours") + " ago";
     }
 
 
@@ -0,0 +1,141 @@
+package core.scheduledtasks;
+
+import core.Chuu;
+import core.apis.last.ConcurrentLastFM;
+import core.apis.last.LastFMFactory;
+import core.services.BillboardHoarder;
+import dao.ChuuService;
+import dao.entities.UsersWrapper;
+import dao.entities.Week;
+import org.apache.commons.collections4.MultiValuedMap;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the weekly billboards in the background so the billboard commands only have to read them.
+ * <p>
+ * The week of a server closes once it is monday for every one of its members. Each run looks for the servers that have
+ * closed since the previous one, hoards all their members together, each user only once even if they share many of
+ * those servers, and then inserts the boards of every server. The global boards of the previous week are built as soon
+ * as the week changes, and the counters of the weeks before it are dropped then.
+ */
+public class BillboardPrecomputer implements Runnable {
+    private static final int HOARDING_THREADS = 4;
+    private static final Set<Long> computing = ConcurrentHashMap.newKeySet();
+    private static final Set<Long> computed = ConcurrentHashMap.newKeySet();
+    private static volatile int computedWeek = -1;
+    private final ChuuService dao;
+    private final ConcurrentLastFM lastFM;
+    private final ExecutorService hoardingExecutor = Executors.newFixedThreadPool(HOARDING_THREADS);
+    private boolean globalComputed;
+
+    public BillboardPrecomputer(ChuuService dao) {
+        this.dao = dao;
+        this.lastFM = LastFMFactory.getNewInstance();
+    }
+
+    /**
+     * @return the moment the week that started on weekStart has ended for every one of the users
+     */
+    public static Instant weekClose(Collection<UsersWrapper> users, Date weekStart) {
+        LocalDateTime start = weekStart.toLocalDate().atStartOfDay();
+        return users.stream()
+                .map(usersWrapper -> start.atZone(usersWrapper.getTimeZone().toZoneId()).toInstant())
+                .max(Comparator.naturalOrder())
+                .orElse(start.toInstant(ZoneOffset.UTC));
+    }
+
+    public static boolean isComputing(long guildId) {
+        return computing.contains(guildId);
+    }
+
+    /**
+     * @return whether the boards of the server for that week were already built, even if they turned out empty
+     */
+    public static boolean isComputed(int weekId, long guildId) {
+        return computedWeek == weekId && computed.contains(guildId);
+    }
+
+    @Override
+    public void run() {
+        try {
+            precompute();
+        } catch (Exception e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
+        }
+    }
+
+    private void precompute() {
+        Week week = dao.getCurrentWeekId();
+        int weekId = week.getId();
+        if (weekId != computedWeek) {
+            computed.clear();
+            computedWeek = weekId;
+            globalComputed = false;
+        }
+        if (!globalComputed && weekId > 1) {
+            if (dao.getGlobalBillboard(weekId - 1, true).isEmpty()) {
+                dao.insertGlobalBillboardData(weekId - 1);
+            }
+            // Every board of the older weeks is already built
+            dao.deleteBillboardCountersBefore(weekId - 1);
+            globalComputed = true;
+        }
+
+        MultiValuedMap<Long, Long> guildUsers = dao.getMapGuildUsers();
+        Map<Long, UsersWrapper> users = dao.getAllALL().stream()
+                .collect(Collectors.toMap(UsersWrapper::getDiscordID, Function.identity(), (x, y) -> x));
+        Instant now = Instant.now();
+        List<Long> closed = new ArrayList<>();
+        for (Long guildId : guildUsers.keySet()) {
+            if (computed.contains(guildId)) {
+                continue;
+            }
+            List<UsersWrapper> members = guildUsers.get(guildId).stream().map(users::get).filter(Objects::nonNull).collect(Collectors.toList());
+            if (weekClose(members, week.getWeekStart()).isAfter(now)) {
+                continue;
+            }
+            // Already built before a restart
+            if (!dao.getBillboard(weekId, guildId, true).isEmpty()) {
+                computed.add(guildId);
+                continue;
+            }
+            closed.add(guildId);
+        }
+        if (closed.isEmpty()) {
+            return;
+        }
+
+        computing.addAll(closed);
+        try {
+            Map<Long, List<UsersWrapper>> nonPrivate = new HashMap<>();
+            Map<Long, UsersWrapper> toHoard = new HashMap<>();
+            for (Long guildId : closed) {
+                List<UsersWrapper> members = dao.getAllNonPrivate(guildId);
+                nonPrivate.put(guildId, members);
+                members.forEach(usersWrapper -> toHoard.putIfAbsent(usersWrapper.getDiscordID(), usersWrapper));
+            }
+            long start = System.currentTimeMillis();
+            new BillboardHoarder(new ArrayList<>(toHoard.values()), dao, week, lastFM).hoardUsers(hoardingExecutor);
+            for (Long guildId : closed) {
+                if (!nonPrivate.get(guildId).isEmpty()) {
+                    dao.insertBillboardData(weekId, guildId);
+                }
+                computed.add(guildId);
+                computing.remove(guildId);
+            }
+            Chuu.getLogger().info("Built the billboards of {} servers hoarding {} users in {} ms", closed.size(), toHoard.size(), System.currentTimeMillis() - start);
+        } finally {
+            computing.removeAll(closed);
+        }
+    }
+}
@@ -1,51 +1,124 @@
 package core.scheduledtasks;
 
 import core.Chuu;
-import core.apis.discogs.DiscogsApi;
 import core.apis.discogs.DiscogsSingleton;
-import core.exceptions.DiscogsServiceException;
+import core.apis.spotify.SpotifySingleton;
+import core.services.ArtistImageLookup;
 import dao.ChuuService;
+import dao.entities.ArtistImageResult;
 import dao.entities.ScrobbledArtist;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Searches the artists wiht null urls
- * Note that after this method has run unless a discogs expection occurred the url will be set to either the image found or to a new state that will allow spotify to search for a new image
+ * Works through the queue of artists without image, the ones with more listeners or asked for more often first.
+ * <p>
+ * Each run takes a batch from the queue and searches it on a few workers of its own, storing everything found at once
+ * when they finish. The run itself returns as soon as the batch is handed to the workers, and no other batch is taken
+ * until that one is stored. Artists without url are searched on Discogs and then on Spotify, the ones Discogs left
+ * empty only on Spotify. A worker stops as soon as the rate limits defer a lookup, and the artists it did not get to
+ * stay queued for the next run.
+ * <p>
+ * Looking for every artist without image is expensive, so the queue is only topped up once it runs low, and at most
+ * every {@link #TOP_UP_INTERVAL_MILLIS}. The artists the commands ask for are queued as they are asked for.
  */
 public class ImageUpdaterThread implements Runnable {
+    private static final int WORKERS = 4;
+    private static final int BATCH_SIZE = 200;
+    private static final int TOP_UP_SIZE = BATCH_SIZE * 20;
+    private static final long TOP_UP_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final AtomicInteger threadCount = new AtomicInteger();
     private final ChuuService dao;
-    private final DiscogsApi discogsApi;
+    private final ArtistImageLookup lookup;
+    private final ExecutorService workers = Executors.newFixedThreadPool(WORKERS, r -> {
+        Thread thread = new Thread(r, "image-updater-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean searching = new AtomicBoolean(false);
+    private long lastTopUp = 0;
 
     public ImageUpdaterThread(ChuuService dao) {
         this.dao = dao;
-        this.discogsApi = DiscogsSingleton.getInstanceUsingDoubleLocking();
-
+        this.lookup = new ArtistImageLookup(DiscogsSingleton.getInstanceUsingDoubleLocking(), SpotifySingleton.getInstance());
     }
 
     @Override
     public void run() {
-        Set<ScrobbledArtist> artistData = dao.getNullUrls();
-        System.out.println("Found at lest " + artistData.size() + " null artist ");
-        for (ScrobbledArtist artistDatum : artistData) {
-            String url;
-            System.out.println("Working with artist " + artistDatum.getArtist());
-            try {
-                //We can get rate limited if we do it wihtout sleeping
-                Thread.sleep(100L);
-                url = discogsApi.findArtistImage(artistDatum.getArtist());
+        // The previous batch is still being searched
+        if (!searching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (!update()) {
+                searching.set(false);
+            }
+        } catch (Exception e) {
+            searching.set(false);
+            Chuu.getLogger().warn(e.getMessage(), e);
+        }
+    }
 
-                if (url == null || url.isEmpty()) {
-                    dao.updateImageStatus(artistDatum.getArtistId(), "", true);
-                } else {
-                    dao.upsertUrl(url, artistDatum.getArtistId());
-                    System.out.println("Upserting buddy");
+    /**
+     * @return whether a batch was handed to the workers, in which case they clear {@link #searching} once it is stored
+     */
+    private boolean update() {
+        List<ScrobbledArtist> batch = dao.getImageQueue(BATCH_SIZE);
+        if (batch.size() < BATCH_SIZE && System.currentTimeMillis() - lastTopUp > TOP_UP_INTERVAL_MILLIS) {
+            lastTopUp = System.currentTimeMillis();
+            dao.enqueueMissingImages(TOP_UP_SIZE);
+            batch = dao.getImageQueue(BATCH_SIZE);
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+        Queue<ScrobbledArtist> pending = new ConcurrentLinkedQueue<>(batch);
+        int queued = pending.size();
+        List<ArtistImageResult> results = Collections.synchronizedList(new ArrayList<>());
+        Runnable task = () -> {
+            ScrobbledArtist artist;
+            while ((artist = pending.poll()) != null) {
+                List<ArtistImageResult> found = lookup.lookup(artist, "".equals(artist.getUrl()), true);
+                if (found.isEmpty()) {
+                    break;
                 }
-            } catch (DiscogsServiceException | InterruptedException e) {
-                Chuu.getLogger().warn(e.getMessage(), e);
+                results.addAll(found);
             }
+        };
+        long start = System.currentTimeMillis();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[WORKERS];
+        for (int i = 0; i < WORKERS; i++) {
+            tasks[i] = CompletableFuture.runAsync(task, workers);
         }
+        CompletableFuture.allOf(tasks).whenComplete((ignored, throwable) -> {
+            try {
+                if (throwable != null) {
+                    Chuu.getLogger().warn(throwable.getMessage(), throwable);
+                }
+                // Whatever was found before a worker failed is still worth keeping
+                List<ArtistImageResult> collected;
+                synchronized (results) {
+                    collected = new ArrayList<>(results);
+                }
+                dao.storeImageResults(collected);
+                long searched = collected.stream().mapToLong(ArtistImageResult::getArtistId).distinct().count();
+                Chuu.getLogger().info("Searched the images of {} out of {} queued artists in {} ms", searched, queued, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                Chuu.getLogger().warn(e.getMessage(), e);
+            } finally {
+                searching.set(false);
+            }
+        });
+        return true;
     }
-
-
 }
@@ -0,0 +1,79 @@
+package core.scheduledtasks;
+
+import core.Chuu;
+import core.apis.last.ConcurrentLastFM;
+import core.apis.last.LastFMFactory;
+import core.exceptions.LastFmEntityNotFoundException;
+import core.exceptions.LastFmException;
+import dao.ChuuService;
+import dao.entities.ScrobbleOrdinal;
+import dao.entities.ScrobbleOrdinalWalk;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds the scrobble index of the users that have none, and catches up the ones whose index fell behind their last
+ * update. From then on the updater keeps numbering the scrobbles of every incremental update.
+ * <p>
+ * Each run goes through a few pages of a single walk and stores how far it got after each of them, so the history of
+ * a heavy user is walked once over several runs. A walk ends where the user was synced when it started, if the user
+ * was updated meanwhile the index is caught up from there with a much shorter walk.
+ */
+public class ScrobbleOrdinalBackfill implements Runnable {
+    private static final int PAGES_PER_RUN = 20;
+    private final ChuuService dao;
+    private final ConcurrentLastFM lastFM;
+
+    public ScrobbleOrdinalBackfill(ChuuService dao) {
+        this.dao = dao;
+        this.lastFM = LastFMFactory.getNewInstance();
+    }
+
+    @Override
+    public void run() {
+        try {
+            Optional<ScrobbleOrdinalWalk> walk = dao.getScrobbleOrdinalWalk().or(this::startWalk);
+            if (walk.isPresent()) {
+                walk(walk.get());
+            }
+        } catch (Exception e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
+        }
+    }
+
+    private void walk(ScrobbleOrdinalWalk walk) throws LastFmException {
+        String lastfmId = walk.getLastfmId();
+        // Stored after every page, a failure only loses the page it happened on
+        for (int i = 0; i < PAGES_PER_RUN && !walk.isFinished(); i++) {
+            List<ScrobbleOrdinal> ordinals;
+            try {
+                ordinals = lastFM.walkScrobbleOrdinals(walk, 1, ScrobbleOrdinal.STEP);
+            } catch (LastFmEntityNotFoundException e) {
+                dao.deleteScrobbleOrdinalWalk(lastfmId);
+                return;
+            }
+            if (!dao.storeScrobbleOrdinalWalk(walk, ordinals)) {
+                Chuu.getLogger().info("The scrobble index of {} changed while walking it, it will be walked again", lastfmId);
+                return;
+            }
+        }
+    }
+
+    private Optional<ScrobbleOrdinalWalk> startWalk() {
+        Optional<String> user = dao.getUserWithOutdatedScrobbleOrdinals();
+        if (user.isEmpty()) {
+            return Optional.empty();
+        }
+        String lastfmId = user.get();
+        Optional<Instant> lastUpdate = dao.getLastUpdate(lastfmId);
+        if (lastUpdate.isEmpty()) {
+            return Optional.empty();
+        }
+        int syncedTo = (int) lastUpdate.get().getEpochSecond();
+        return Optional.of(dao.getScrobbleOrdinalStatus(lastfmId)
+                .map(status -> ScrobbleOrdinalWalk.start(lastfmId, status.getTimestamp(), syncedTo, status.getOrdinal()))
+                .orElseGet(() -> ScrobbleOrdinalWalk.start(lastfmId, 0, syncedTo, 0)));
+    }
+}
@@ -6,6 +6,7 @@ import core.apis.last.LastFMFactory;
 import core.exceptions.LastFMNoPlaysException;
 import core.exceptions.LastFmEntityNotFoundException;
 import core.exceptions.UnknownLastFmException;
+import core.metrics.ChuuMetrics;
 import core.parsers.utils.CustomTimeFrame;
 import core.services.UpdaterHoarder;
 import core.services.UpdaterService;
@@ -61,6 +62,7 @@ public class UpdaterThread implements Runnable {
 
             float chance = r.nextFloat();
             userWork = dao.getLessUpdated();
+            ChuuMetrics.recordUpdaterPick(userWork.getTimestamp());
             boolean removeFlag = true;
             try {
                 if (!UpdaterService.lockAndContinue(userWork.getLastFMName())) {
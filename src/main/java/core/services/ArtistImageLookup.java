@@ -0,0 +1,74 @@
+package core.services;
+
+import core.Chuu;
+import core.apis.discogs.DiscogsApi;
+import core.apis.spotify.Spotify;
+import core.exceptions.DiscogsServiceException;
+import dao.entities.ArtistImageResult;
+import dao.entities.ScrobbledArtist;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Looks for the image of an artist first on Discogs and then on Spotify, the same way for the commands and for the
+ * background updater so both share the quota of each service.
+ * <p>
+ * Spotify is only searched when Discogs has nothing. A lookup that could not be done right now because of the rate
+ * limits returns no results and should be retried later.
+ */
+public class ArtistImageLookup {
+    // Discogs requests left for the commands, each lookup takes two of them
+    private static final int DISCOGS_RESERVE = 10;
+    private final DiscogsApi discogsApi;
+    private final Spotify spotify;
+
+    public ArtistImageLookup(DiscogsApi discogsApi, Spotify spotify) {
+        this.discogsApi = discogsApi;
+        this.spotify = spotify;
+    }
+
+    /**
+     * The image found, empty if no service had one or null if the lookup has to be retried later
+     */
+    public static String imageUrl(List<ArtistImageResult> results) {
+        if (results.isEmpty()) {
+            return null;
+        }
+        return results.stream().filter(ArtistImageResult::isFound).map(ArtistImageResult::getUrl).findFirst().orElse("");
+    }
+
+    /**
+     * @param spotifyOnly whether Discogs was already searched without finding anything
+     * @param background  whether the lookup can wait, in which case it leaves part of the Discogs quota to the
+     *                    commands
+     * @return what every service searched answered, in the order they were searched
+     */
+    public List<ArtistImageResult> lookup(ScrobbledArtist artist, boolean spotifyOnly, boolean background) {
+        List<ArtistImageResult> results = new ArrayList<>();
+        long artistId = artist.getArtistId();
+        if (!spotifyOnly) {
+            if (background && discogsApi.getRemainingRequests() <= DISCOGS_RESERVE) {
+                return results;
+            }
+            try {
+                ArtistImageResult discogs = ArtistImageResult.discogs(artistId, discogsApi.findArtistImage(artist.getArtist()));
+                results.add(discogs);
+                if (discogs.isFound()) {
+                    return results;
+                }
+            } catch (DiscogsServiceException e) {
+                Chuu.getLogger().warn(e.getMessage(), e);
+                return results;
+            }
+        }
+        if (spotify.isRateLimited()) {
+            return results;
+        }
+        Optional<Pair<String, String>> urlAndId = spotify.findUrlAndId(artist.getArtist());
+        urlAndId.ifPresent(x -> results.add(ArtistImageResult.spotify(artistId, x.getLeft(), x.getRight())));
+        return results;
+    }
+}
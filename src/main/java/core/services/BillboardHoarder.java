@@ -1,5 +1,6 @@
 package core.services;
 
+import core.Chuu;
 import core.apis.discogs.DiscogsApi;
 import core.apis.discogs.DiscogsSingleton;
 import core.apis.last.ConcurrentLastFM;
@@ -13,11 +14,14 @@ import dao.entities.*;
 
 import java.sql.Date;
 import java.time.*;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class BillboardHoarder {
 
@@ -51,30 +55,46 @@ public class BillboardHoarder {
     }
 
     public void hoardUsers() {
+        pendingUsers().forEach(this::hoardUser);
+    }
 
+    /**
+     * Same as {@link #hoardUsers()} but spreading the users over the given executor. Returns once all of them are done.
+     */
+    public void hoardUsers(ExecutorService executor) {
+        List<Callable<Object>> calls = pendingUsers()
+                .map(usersWrapper -> Executors.callable(() -> hoardUser(usersWrapper)))
+                .collect(Collectors.toList());
+        try {
+            executor.invokeAll(calls);
+        } catch (InterruptedException e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
+            Thread.currentThread().interrupt();
+        }
+    }
 
+    private Stream<UsersWrapper> pendingUsers() {
         Date weekStart = week.getWeekStart();
-        LocalDate l = weekStart.toLocalDate();
-        LocalDateTime weekBeginning = l.minus(1, ChronoUnit.WEEKS).atStartOfDay();
-        users.stream()
+        return users.stream()
                 .filter(usersWrapper -> !usersBeingProcessed.contains(usersWrapper.getDiscordID()))
                 .filter(usersWrapper -> {
                     int epochSecond = (int) OffsetDateTime.of(weekStart.toLocalDate().atStartOfDay(), ZoneOffset.ofTotalSeconds(usersWrapper.getTimeZone().getOffset(Calendar.getInstance().getTimeInMillis()) / 1000)).toInstant().getEpochSecond();
                     return usersWrapper.getTimestamp() < epochSecond;
-                })
-                .forEach(usersWrapper -> {
-                    try {
-                        usersBeingProcessed.add(usersWrapper.getDiscordID());
-                        UpdaterHoarder updaterHoarder = new UpdaterHoarder(usersWrapper, service, lastFM);
-                        updaterHoarder.updateUser();
-
-                    } catch (LastFmException ignored) {
-                    } finally {
-                        service.prepareBillboardWeek(usersWrapper.getLastFMName(), weekId);
-                        usersBeingProcessed.remove(usersWrapper.getDiscordID());
-                    }
                 });
+    }
 
+    private void hoardUser(UsersWrapper usersWrapper) {
+        if (!usersBeingProcessed.add(usersWrapper.getDiscordID())) {
+            return;
+        }
+        try {
+            UpdaterHoarder updaterHoarder = new UpdaterHoarder(usersWrapper, service, lastFM);
+            updaterHoarder.updateUser();
+        } catch (LastFmException ignored) {
+        } finally {
+            service.prepareBillboardWeek(usersWrapper.getLastFMName(), weekId);
+            usersBeingProcessed.remove(usersWrapper.getDiscordID());
+        }
     }
 
     private void doArtistValidation(List<TrackWithArtistId> toValidate) {
@@ -0,0 +1,295 @@
+package core.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import dao.ChuuService;
+import dao.entities.*;
+import dao.exceptions.ChuuServiceException;
+import dao.exceptions.DuplicateInstanceException;
+import dao.exceptions.InstanceNotFoundException;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChuuService} that keeps the user and guild settings in memory, as almost every command reads them.
+ * <p>
+ * Every setter of this class invalidates the affected user or guild once the database has been written, so the next
+ * read gets the new value. Users and guilds that are not on the database are cached as well.
+ * Entries also expire after a while to pick up changes made directly on the database.
+ */
+public class CachingChuuService extends ChuuService {
+    private static final int MAX_USERS = 100_000;
+    private static final int MAX_GUILDS = 20_000;
+    private static final long EXPIRATION_MINUTES = 30;
+
+    private final Cache<Long, Optional<LastFMData>> users = newCache(MAX_USERS);
+    private final Cache<Long, EnumSet<NPMode>> userNpModes = newCache(MAX_USERS);
+    private final Cache<Long, Optional<GuildProperties>> guilds = newCache(MAX_GUILDS);
+    private final Cache<Long, Boolean> guildEmbeds = newCache(MAX_GUILDS);
+    private final Cache<Long, EnumSet<NPMode>> guildNpModes = newCache(MAX_GUILDS);
+
+    private static <V> Cache<Long, V> newCache(int size) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    private static <V> V load(Cache<Long, V> cache, long key, Callable<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ChuuServiceException(e.getCause());
+        }
+    }
+
+    @Override
+    public LastFMData findLastFMData(long discordID) throws InstanceNotFoundException {
+        return findCachedUser(discordID).orElseThrow(() -> new InstanceNotFoundException(discordID));
+    }
+
+    private Optional<LastFMData> findCachedUser(long discordId) {
+        return load(users, discordId, () -> {
+            try {
+                return Optional.of(super.findLastFMData(discordId));
+            } catch (InstanceNotFoundException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    @Override
+    public TimeZone getUserTimezone(long userId) {
+        return findCachedUser(userId).map(LastFMData::getTimeZone).orElseGet(() -> TimeZone.getTimeZone("GMT"));
+    }
+
+    @Override
+    public EnumSet<NPMode> getNPModes(long discordId) {
+        return EnumSet.copyOf(load(userNpModes, discordId, () -> super.getNPModes(discordId)));
+    }
+
+    @Override
+    public GuildProperties getGuildProperties(long guildId) throws InstanceNotFoundException {
+        return findCachedGuild(guildId).orElseThrow(() -> new InstanceNotFoundException(guildId));
+    }
+
+    private Optional<GuildProperties> findCachedGuild(long guildId) {
+        return load(guilds, guildId, () -> {
+            try {
+                return Optional.of(super.getGuildProperties(guildId));
+            } catch (InstanceNotFoundException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    @Override
+    public int getGuildCrownThreshold(long guildId) {
+        return findCachedGuild(guildId).map(GuildProperties::getCrown_threshold).orElse(0);
+    }
+
+    @Override
+    public boolean getGuildEmbedConfig(long guildId) {
+        return load(guildEmbeds, guildId, () -> super.getGuildEmbedConfig(guildId));
+    }
+
+    @Override
+    public EnumSet<NPMode> getServerNPModes(long guildId) {
+        return EnumSet.copyOf(load(guildNpModes, guildId, () -> super.getServerNPModes(guildId)));
+    }
+
+    public void invalidateUser(long discordId) {
+        users.invalidate(discordId);
+        userNpModes.invalidate(discordId);
+    }
+
+    public void invalidateGuild(long guildId) {
+        guilds.invalidate(guildId);
+        guildEmbeds.invalidate(guildId);
+        guildNpModes.invalidate(guildId);
+    }
+
+    @Override
+    public void insertNewUser(LastFMData data) {
+        super.insertNewUser(data);
+        invalidateUser(data.getDiscordId());
+    }
+
+    @Override
+    @Deprecated
+    public void updateLastFmData(long discordID, String lastFMID) {
+        super.updateLastFmData(discordID, lastFMID);
+        invalidateUser(discordID);
+    }
+
+    @Override
+    public void changeLastFMName(long userId, String lastFmID) throws DuplicateInstanceException, InstanceNotFoundException {
+        try {
+            super.changeLastFMName(userId, lastFmID);
+        } finally {
+            invalidateUser(userId);
+        }
+    }
+
+    @Override
+    public void removeUserCompletely(Long discordID) {
+        super.removeUserCompletely(discordID);
+        invalidateUser(discordID);
+    }
+
+    @Override
+    public void setPrivateUpdate(long discordId, boolean privateUpdate) {
+        super.setPrivateUpdate(discordId, privateUpdate);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void setImageNotify(long discordId, boolean imageNotify) {
+        super.setImageNotify(discordId, imageNotify);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void setRatingNotify(long discordId, boolean ratingNotify) {
+        super.setRatingNotify(discordId, ratingNotify);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void setChartEmbed(long discordId, @NotNull ChartMode chartMode) {
+        super.setChartEmbed(discordId, chartMode);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void setWhoknowsMode(long discordId, @NotNull WhoKnowsMode whoKnowsMode) {
+        super.setWhoknowsMode(discordId, whoKnowsMode);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void setRemainingImagesMode(long discordId, @NotNull RemainingImagesMode remainingImagesMode) {
+        super.setRemainingImagesMode(discordId, remainingImagesMode);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void setPrivacyMode(long discordId, @NotNull PrivacyMode privacyMode) {
+        super.setPrivacyMode(discordId, privacyMode);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void setChartDefaults(int x, int y, long discordId) {
+        super.setChartDefaults(x, y, discordId);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void setPrivateLastfm(long discordId, boolean privateLastfmId) {
+        super.setPrivateLastfm(discordId, privateLastfmId);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void setTimezoneUser(TimeZone timeZone, long idLong) {
+        super.setTimezoneUser(timeZone, idLong);
+        invalidateUser(idLong);
+    }
+
+    @Override
+    public void changeNpMode(long discordId, EnumSet<NPMode> modes) {
+        super.changeNpMode(discordId, modes);
+        invalidateUser(discordId);
+    }
+
+    @Override
+    public void addGuildPrefix(Map<Long, Character> prefixMap, long guildID, Character prefix) {
+        super.addGuildPrefix(prefixMap, guildID, prefix);
+        invalidateGuild(guildID);
+    }
+
+    @Override
+    public void createGuild(long guildId) {
+        super.createGuild(guildId);
+        invalidateGuild(guildId);
+    }
+
+    @Override
+    public void updateGuildCrownThreshold(long guildId, int newThreshold) {
+        super.updateGuildCrownThreshold(guildId, newThreshold);
+        invalidateGuild(guildId);
+    }
+
+    @Override
+    public void setRemainingImagesModeServer(long guildId, @Nullable RemainingImagesMode remainingImagesMode) {
+        super.setRemainingImagesModeServer(guildId, remainingImagesMode);
+        invalidateGuild(guildId);
+    }
+
+    @Override
+    public void setServerWhoknowMode(long guildId, @Nullable WhoKnowsMode images) {
+        super.setServerWhoknowMode(guildId, images);
+        invalidateGuild(guildId);
+    }
+
+    @Override
+    public void setServerChartMode(long guildId, @Nullable ChartMode chartMode) {
+        super.setServerChartMode(guildId, chartMode);
+        invalidateGuild(guildId);
+    }
+
+    @Override
+    public void setServerDeleteMessage(long guildId, boolean deleteMode) {
+        super.setServerDeleteMessage(guildId, deleteMode);
+        invalidateGuild(guildId);
+    }
+
+    @Override
+    public void setServerShowDisabledWarning(long guildId, boolean disabledWarning) {
+        super.setServerShowDisabledWarning(guildId, disabledWarning);
+        invalidateGuild(guildId);
+    }
+
+    @Override
+    public void setServer(long guildId, boolean deleteMode) {
+        super.setServer(guildId, deleteMode);
+        invalidateGuild(guildId);
+    }
+
+    @Override
+    public void setServerNPModes(long guildId, EnumSet<NPMode> modes) {
+        super.setServerNPModes(guildId, modes);
+        invalidateGuild(guildId);
+    }
+
+    public CacheStats getUserStats() {
+        return users.stats().plus(userNpModes.stats());
+    }
+
+    public CacheStats getGuildStats() {
+        return guilds.stats().plus(guildEmbeds.stats()).plus(guildNpModes.stats());
+    }
+
+    public long getHits() {
+        return getUserStats().hitCount() + getGuildStats().hitCount();
+    }
+
+    public long getMisses() {
+        return getUserStats().missCount() + getGuildStats().missCount();
+    }
+}
@@ -0,0 +1,157 @@
+package core.services;
+
+import core.Chuu;
+import dao.ChuuService;
+import dao.entities.CommandLogEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes the command logs in batches from a background thread.
+ * <p>
+ * Commands only push their entry into a bounded ring buffer without taking any lock. The writer thread inserts them
+ * every {@link #FLUSH_SECONDS} seconds, or as soon as {@link #BATCH_SIZE} entries are waiting.
+ * <p>
+ * When the buffer is full the new entries are dropped and counted, a command never waits for the database. A batch
+ * that fails to be inserted is dropped as well. {@link #shutdown()} writes whatever is left in the buffer.
+ */
+public class CommandLogWriter {
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final int BATCH_SIZE = 500;
+    private static final long FLUSH_SECONDS = 10;
+    private static final long SHUTDOWN_SECONDS = 15;
+
+    private final ChuuService dao;
+    private final AtomicReferenceArray<CommandLogEntry> ring = new AtomicReferenceArray<>(CAPACITY);
+    // Next position to be claimed by a producer
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "command-log-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    // Next position to be read, only moved by the writer thread
+    private volatile long head = 0;
+
+    public CommandLogWriter(ChuuService dao) {
+        this.dao = dao;
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return false if the entry was dropped because the buffer is full
+     */
+    public boolean log(CommandLogEntry entry) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head >= CAPACITY) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        ring.set((int) (claimed & MASK), entry);
+        if (claimed + 1 - head >= BATCH_SIZE && flushRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flush);
+            } catch (RejectedExecutionException ignored) {
+                // Shutting down, the final flush takes it
+            }
+        }
+        return true;
+    }
+
+    // Only runs on the writer thread
+    private void flush() {
+        flushRequested.set(false);
+        try {
+            List<CommandLogEntry> batch;
+            do {
+                batch = poll();
+                write(batch);
+            } while (batch.size() == BATCH_SIZE);
+        } catch (Throwable e) {
+            Chuu.getLogger().warn(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Takes up to a batch of entries. It stops at a position that has been claimed but not written yet, that entry
+     * will be taken on the next flush.
+     */
+    private List<CommandLogEntry> poll() {
+        List<CommandLogEntry> batch = new ArrayList<>(BATCH_SIZE);
+        long position = head;
+        while (batch.size() < BATCH_SIZE) {
+            int index = (int) (position & MASK);
+            CommandLogEntry entry = ring.get(index);
+            if (entry == null) {
+                break;
+            }
+            ring.set(index, null);
+            batch.add(entry);
+            head = ++position;
+        }
+        return batch;
+    }
+
+    private void write(List<CommandLogEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            dao.logCommands(batch);
+            written.add(batch.size());
+        } catch (Exception e) {
+            failed.add(batch.size());
+            Chuu.getLogger().warn(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops the writer, inserting the entries still on the buffer
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // The writer thread is done, this thread is now the only consumer
+        flush();
+    }
+
+    public int getPending() {
+        return (int) (tail.get() - head);
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+}
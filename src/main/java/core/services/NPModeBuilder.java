@@ -11,6 +11,7 @@ import core.apis.last.TopEntity;
 import core.apis.spotify.Spotify;
 import core.apis.spotify.SpotifySingleton;
 import core.commands.CommandUtil;
+import core.commands.utils.DisplayNames;
 import core.commands.utils.PrivacyUtils;
 import core.exceptions.LastFmException;
 import dao.ChuuService;
@@ -713,7 +714,7 @@ public class NPModeBuilder {
                         holder = CommandUtil.getUserInfoNotStripped(e, discordId).getUsername();
                         break;
                     case TAG:
-                        holder = e.getJDA().retrieveUserById(lastFMData.getDiscordId()).complete().getAsTag();
+                        holder = DisplayNames.getTag(e.getJDA(), lastFMData.getDiscordId());
                         break;
                     case LAST_NAME:
                         holder = lastFMData.getName() + " (lastfm)";
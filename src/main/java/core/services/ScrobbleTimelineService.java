@@ -0,0 +1,226 @@
+package core.services;
+
+import core.apis.last.ConcurrentLastFM;
+import core.exceptions.LastFMNoPlaysException;
+import core.exceptions.LastFmException;
+import dao.ChuuService;
+import dao.entities.*;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Answers history questions from the scrobble timeline kept by the updater, going to Last.fm only for what was
+ * scrobbled after the last update.
+ * <p>
+ * Every method returns empty when the timeline does not reach back far enough, in which case the caller should do
+ * what it did before and ask Last.fm for everything.
+ */
+public class ScrobbleTimelineService {
+    // Roughly the depth getCombo reaches paging the recent tracks
+    private static final int STREAK_DEPTH = 6000;
+    private static final int SONG_AVERAGE_DURATION = 200;
+    private final ChuuService service;
+    private final ConcurrentLastFM lastFM;
+
+    public ScrobbleTimelineService(ChuuService service, ConcurrentLastFM lastFM) {
+        this.service = service;
+        this.lastFM = lastFM;
+    }
+
+    /**
+     * @return the number of scrobbles from that moment (inclusive) until now
+     */
+    public OptionalInt countFrom(String lastfmId, int from) throws LastFmException {
+        Optional<ScrobbleTimeline> timeline = service.getScrobbleTimeline(lastfmId);
+        if (timeline.isEmpty() || !timeline.get().covers(from)) {
+            return OptionalInt.empty();
+        }
+        int syncedTo = timeline.get().getSyncedTo();
+        if (from >= syncedTo) {
+            return OptionalInt.of(lastFM.getInfoPeriod(lastfmId, from));
+        }
+        return OptionalInt.of(service.countTimelineScrobbles(lastfmId, from, syncedTo) + lastFM.getInfoPeriod(lastfmId, syncedTo));
+    }
+
+    /**
+     * @return the scrobbles between from (inclusive) and to (exclusive) in the shape the billboard data is read
+     */
+    public Optional<List<PreBillboardUserDataTimestamped>> getScrobbles(String lastfmId, int from, int to) throws LastFmException {
+        Optional<ScrobbleTimeline> timeline = service.getScrobbleTimeline(lastfmId);
+        if (timeline.isEmpty() || !timeline.get().covers(from)) {
+            return Optional.empty();
+        }
+        int syncedTo = timeline.get().getSyncedTo();
+        List<PreBillboardUserDataTimestamped> scrobbles = service.getTimelineScrobbles(lastfmId, from, Math.min(to, syncedTo)).stream()
+                .map(x -> new PreBillboardUserDataTimestamped(x.getArtistId(), lastfmId, x.getTrack(), 1, new Timestamp(x.getUtc() * 1000L)))
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (syncedTo < to) {
+            for (TrackWithArtistId track : getTail(lastfmId, syncedTo, to - 1)) {
+                scrobbles.add(new PreBillboardUserDataTimestamped(track.getArtistId(), lastfmId, track.getName(), 1, new Timestamp(track.getUtc() * 1000L)));
+            }
+        }
+        return Optional.of(scrobbles);
+    }
+
+    /**
+     * Same streak {@link ConcurrentLastFM#getCombo(String)} computes, except that the track being played right now does
+     * not count until it is scrobbled.
+     * <p>
+     * The streak is stored once computed and afterwards only the scrobbles newer than the stored one are folded into it.
+     * It is only walked again from the timeline when there is no stored streak or it cannot be carried forward.
+     */
+    public Optional<StreakEntity> getCombo(String lastfmId) throws LastFmException {
+        Optional<ScrobbleTimeline> timeline = service.getScrobbleTimeline(lastfmId);
+        if (timeline.isEmpty()) {
+            return Optional.empty();
+        }
+        int syncedTo = timeline.get().getSyncedTo();
+        Optional<StreakState> stored = service.getStreakState(lastfmId);
+        int storedUpTo = stored.map(StreakState::getLastScrobble).orElse(-1);
+        StreakState state;
+        if (stored.isPresent() && (stored.get().getLastScrobble() + 1 >= syncedTo || timeline.get().covers(stored.get().getLastScrobble() + 1))) {
+            state = stored.get();
+            int next = state.getLastScrobble() + 1;
+            if (next < syncedTo) {
+                service.getTimelineScrobbles(lastfmId, next, syncedTo)
+                        .forEach(x -> state.add(x.getArtist(), x.getAlbum(), x.getTrack(), x.getAlbumUrl(), x.getUtc()));
+            }
+            addTail(state, lastfmId, Math.max(next, syncedTo));
+        } else {
+            state = StreakState.empty(lastfmId);
+            List<TimelineScrobble> local = service.getLastTimelineScrobbles(lastfmId, STREAK_DEPTH);
+            for (int i = local.size() - 1; i >= 0; i--) {
+                TimelineScrobble x = local.get(i);
+                state.add(x.getArtist(), x.getAlbum(), x.getTrack(), x.getAlbumUrl(), x.getUtc());
+            }
+            addTail(state, lastfmId, syncedTo);
+            // The streak goes beyond what is stored, only Last.fm knows how long it is
+            if (state.isOpenEnded() && local.size() < STREAK_DEPTH) {
+                return Optional.empty();
+            }
+        }
+        Optional<StreakEntity> streak = state.toStreak();
+        if (streak.isPresent() && state.getLastScrobble() != storedUpTo) {
+            service.storeStreakState(state);
+        }
+        return streak;
+    }
+
+    /**
+     * Time spent listening in the timeframe, with the same guess {@link ConcurrentLastFM#getMinutesWastedOnMusic} makes
+     * for the tracks whose duration is not known. All time comes from the listening time the updater keeps, the rest
+     * from the timeline.
+     */
+    public Optional<SecondsTimeFrameCount> getListeningTime(String lastfmId, TimeFrameEnum timeFrameEnum) throws LastFmException {
+        SecondsTimeFrameCount count = new SecondsTimeFrameCount(timeFrameEnum);
+        if (timeFrameEnum == TimeFrameEnum.ALL) {
+            Optional<ListeningTime> stored = service.getListeningTime(lastfmId);
+            if (stored.isEmpty()) {
+                return Optional.empty();
+            }
+            long seconds = stored.get().getSeconds()
+                    + (long) SONG_AVERAGE_DURATION * getTail(lastfmId, stored.get().getSyncedTo(), (int) Instant.now().getEpochSecond()).size();
+            count.setCount(stored.get().getTracks());
+            count.setSeconds((int) Math.min(Integer.MAX_VALUE, seconds));
+            return Optional.of(count);
+        }
+        LocalDateTime start = timeFrameEnum.toLocalDate(1);
+        int from = (int) start.toInstant(ZoneId.systemDefault().getRules().getOffset(start)).getEpochSecond();
+        Optional<ScrobbleTimeline> timeline = service.getScrobbleTimeline(lastfmId);
+        if (timeline.isEmpty() || !timeline.get().covers(from)) {
+            return Optional.empty();
+        }
+        int syncedTo = timeline.get().getSyncedTo();
+        Map<Track, Integer> durations = new HashMap<>();
+        Map<Track, Integer> plays = new HashMap<>();
+        if (from < syncedTo) {
+            for (Track track : service.getTimelineTracks(lastfmId, from, syncedTo)) {
+                Track key = new Track(track.getArtist(), track.getName(), 0, false, 0);
+                durations.merge(key, track.getDuration(), Math::max);
+                plays.merge(key, track.getPlays(), Integer::sum);
+            }
+        }
+        for (TrackWithArtistId track : getTail(lastfmId, Math.max(from, syncedTo), (int) Instant.now().getEpochSecond())) {
+            plays.merge(new Track(track.getArtist(), track.getName(), 0, false, 0), 1, Integer::sum);
+        }
+        int seconds = 0;
+        for (Map.Entry<Track, Integer> entry : plays.entrySet()) {
+            int duration = durations.getOrDefault(entry.getKey(), 0);
+            seconds += (duration == 0 ? SONG_AVERAGE_DURATION : duration) * entry.getValue();
+        }
+        count.setCount(plays.size());
+        count.setSeconds(seconds);
+        return Optional.of(count);
+    }
+
+    /**
+     * Scrobble number {@code number} of the user, found between the two closest scrobbles kept on the index. It is read
+     * from the timeline when it reaches that far back, otherwise only that window is asked to Last.fm.
+     */
+    public Optional<TrackWithArtistId> getMilestone(String lastfmId, long number) throws LastFmException {
+        Optional<ScrobbleOrdinal> status = service.getScrobbleOrdinalStatus(lastfmId);
+        if (status.isEmpty() || number < 1 || number > Integer.MAX_VALUE) {
+            return Optional.empty();
+        }
+        int ordinal = (int) number;
+        int total = status.get().getOrdinal();
+        int syncedTo = status.get().getTimestamp();
+        int now = (int) Instant.now().getEpochSecond();
+        if (ordinal > total) {
+            // The index ends right before the first scrobble the updater has not seen
+            return pick(getTail(lastfmId, syncedTo, now), ordinal - total - 1);
+        }
+        Optional<ScrobbleOrdinal> floor = service.getScrobbleOrdinalFloor(lastfmId, ordinal);
+        int to = service.getScrobbleOrdinalCeiling(lastfmId, ordinal).map(ScrobbleOrdinal::getTimestamp).orElse(syncedTo);
+        if (floor.isEmpty()) {
+            return pick(getTail(lastfmId, 0, to), ordinal - 1);
+        }
+        int from = floor.get().getTimestamp();
+        int offset = ordinal - floor.get().getOrdinal();
+        Optional<ScrobbleTimeline> timeline = service.getScrobbleTimeline(lastfmId);
+        if (timeline.isPresent() && timeline.get().covers(from) && from < timeline.get().getSyncedTo()) {
+            Optional<TimelineScrobble> local = service.getTimelineScrobbleAt(lastfmId, from, offset);
+            if (local.isPresent()) {
+                TimelineScrobble scrobble = local.get();
+                TrackWithArtistId track = new TrackWithArtistId(scrobble.getArtist(), scrobble.getTrack(), 0, false, 0, scrobble.getUtc());
+                track.setAlbum(scrobble.getAlbum());
+                track.setImageUrl(scrobble.getAlbumUrl());
+                return Optional.of(track);
+            }
+        }
+        List<TrackWithArtistId> window = getTail(lastfmId, from, to);
+        // Whether the scrobble on the index itself made it into the window depends on how Last.fm treats from
+        boolean includesFloor = !window.isEmpty() && window.get(window.size() - 1).getUtc() == from;
+        return pick(window, includesFloor ? offset : offset - 1);
+    }
+
+    private Optional<TrackWithArtistId> pick(List<TrackWithArtistId> newestFirst, int fromOldest) {
+        if (fromOldest < 0 || fromOldest >= newestFirst.size()) {
+            return Optional.empty();
+        }
+        return Optional.of(newestFirst.get(newestFirst.size() - 1 - fromOldest));
+    }
+
+    private void addTail(StreakState state, String lastfmId, int from) throws LastFmException {
+        List<TrackWithArtistId> tail = getTail(lastfmId, from, (int) Instant.now().getEpochSecond());
+        for (int i = tail.size() - 1; i >= 0; i--) {
+            TrackWithArtistId track = tail.get(i);
+            if (track.getUtc() > state.getLastScrobble()) {
+                state.add(track.getArtist(), track.getAlbum(), track.getName(), null, track.getUtc());
+            }
+        }
+    }
+
+    private List<TrackWithArtistId> getTail(String lastfmId, int from, int to) throws LastFmException {
+        try {
+            return lastFM.getWeeklyBillboard(lastfmId, from, to);
+        } catch (LastFMNoPlaysException e) {
+            return Collections.emptyList();
+        }
+    }
+}
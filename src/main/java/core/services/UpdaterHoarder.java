@@ -62,7 +62,7 @@ public class UpdaterHoarder {
         // no correction gives
         List<ScrobbledAlbum> albumData = albumDataList.getWrapped();
         List<ScrobbledArtist> artistData = groupAlbumsToArtist(albumData);
-        service.incrementalUpdate(new TimestampWrapper<>(artistData, albumDataList.getTimestamp()), user.getLastFMName(), albumData, trackWithArtistIds);
+        service.incrementalUpdate(new TimestampWrapper<>(artistData, albumDataList.getTimestamp()), user.getLastFMName(), albumData, trackWithArtistIds, user.getTimestamp());
     }
 
 
@@ -18,6 +18,10 @@ public class UpdaterService {
     }
 
 
+    public static int getInProgress() {
+        return locks.size();
+    }
+
     public static boolean remove(String lastfmId) {
         synchronized (locks) {
             return (locks.remove(lastfmId));
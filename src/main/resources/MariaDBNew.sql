@@ -935,6 +935,70 @@ create table user_billboard_data_scrobbles
     index lookup_user_billboard_scrobble (`lastfm_id`, week_id)
 );
 
+-- Running totals of the grouped user data, guild 0 holds the global boards
+create table billboard_track_counters
+(
+    week_id        int          not null,
+    guild_id       bigint(20)   not null,
+    artist_id      bigint(20)   not null,
+    track_name     varchar(400) not null,
+    listeners      int          not null default 0,
+    scrobble_count int          not null default 0,
+    PRIMARY KEY (week_id, guild_id, artist_id, track_name),
+    index billboard_track_counters_listeners (week_id, guild_id, listeners),
+    index billboard_track_counters_scrobbles (week_id, guild_id, scrobble_count),
+    CONSTRAINT billboard_track_counters_artist_id FOREIGN KEY (artist_id) REFERENCES artist (id) ON UPDATE CASCADE ON DELETE CASCADE,
+    CONSTRAINT billboard_track_counters_week_id FOREIGN KEY (week_id) REFERENCES week (id) ON UPDATE CASCADE ON DELETE CASCADE
+) ROW_FORMAT = DYNAMIC;
+
+create table billboard_artist_counters
+(
+    week_id        int        not null,
+    guild_id       bigint(20) not null,
+    artist_id      bigint(20) not null,
+    listeners      int        not null default 0,
+    scrobble_count int        not null default 0,
+    PRIMARY KEY (week_id, guild_id, artist_id),
+    index billboard_artist_counters_listeners (week_id, guild_id, listeners),
+    index billboard_artist_counters_scrobbles (week_id, guild_id, scrobble_count),
+    CONSTRAINT billboard_artist_counters_artist_id FOREIGN KEY (artist_id) REFERENCES artist (id) ON UPDATE CASCADE ON DELETE CASCADE,
+    CONSTRAINT billboard_artist_counters_week_id FOREIGN KEY (week_id) REFERENCES week (id) ON UPDATE CASCADE ON DELETE CASCADE
+) ROW_FORMAT = DYNAMIC;
+
+create table billboard_album_counters
+(
+    week_id        int          not null,
+    guild_id       bigint(20)   not null,
+    artist_id      bigint(20)   not null,
+    album_name     varchar(400) not null,
+    listeners      int          not null default 0,
+    scrobble_count int          not null default 0,
+    PRIMARY KEY (week_id, guild_id, artist_id, album_name),
+    index billboard_album_counters_listeners (week_id, guild_id, listeners),
+    index billboard_album_counters_scrobbles (week_id, guild_id, scrobble_count),
+    CONSTRAINT billboard_album_counters_artist_id FOREIGN KEY (artist_id) REFERENCES artist (id) ON UPDATE CASCADE ON DELETE CASCADE,
+    CONSTRAINT billboard_album_counters_week_id FOREIGN KEY (week_id) REFERENCES week (id) ON UPDATE CASCADE ON DELETE CASCADE
+) ROW_FORMAT = DYNAMIC;
+
+-- Where the counters are of each user and week: the last scrobble counted and the servers it was counted under
+create table billboard_counted_users
+(
+    week_id    int                                  not null,
+    lastfm_id  VARCHAR(45) COLLATE ascii_general_ci NOT NULL,
+    counted_to bigint(20)                           not null default 0,
+    PRIMARY KEY (week_id, lastfm_id),
+    CONSTRAINT billboard_counted_users_week_id FOREIGN KEY (week_id) REFERENCES week (id) ON UPDATE CASCADE ON DELETE CASCADE
+);
+
+create table billboard_counted_guilds
+(
+    week_id   int                                  not null,
+    lastfm_id VARCHAR(45) COLLATE ascii_general_ci NOT NULL,
+    guild_id  bigint(20)                           not null,
+    PRIMARY KEY (week_id, lastfm_id, guild_id),
+    CONSTRAINT billboard_counted_guilds_user FOREIGN KEY (week_id, lastfm_id) REFERENCES billboard_counted_users (week_id, lastfm_id) ON UPDATE CASCADE ON DELETE CASCADE
+);
+
 
 CREATE TABLE server_blocked
 (
@@ -1084,6 +1148,109 @@ create table user_info
     CONSTRAINT user_info_fk_user FOREIGN KEY (lastfm_id) REFERENCES user (lastfm_id) ON UPDATE CASCADE ON DELETE CASCADE
 
 
-)
+);
+
+-- Scrobbles of every user as the updater sees them, so history commands can be answered locally
+create table scrobble_timeline
+(
+    id          bigint(20)                           not null AUTO_INCREMENT,
+    lastfm_id   VARCHAR(45) COLLATE ascii_general_ci NOT NULL,
+    `timestamp` int                                  not null,
+    artist_id   bigint(20)                           not null,
+    album_id    bigint(20) default null,
+    track_id    bigint(20) default null,
+    PRIMARY KEY (lastfm_id, `timestamp`, id),
+    KEY (id),
+    CONSTRAINT scrobble_timeline_fk_user FOREIGN KEY (lastfm_id) REFERENCES user (lastfm_id) ON UPDATE CASCADE ON DELETE CASCADE,
+    CONSTRAINT scrobble_timeline_fk_artist FOREIGN KEY (artist_id) REFERENCES artist (id) ON UPDATE CASCADE ON DELETE CASCADE,
+    CONSTRAINT scrobble_timeline_fk_album FOREIGN KEY (album_id) REFERENCES album (id) ON UPDATE CASCADE ON DELETE SET NULL,
+    CONSTRAINT scrobble_timeline_fk_track FOREIGN KEY (track_id) REFERENCES track (id) ON UPDATE CASCADE ON DELETE SET NULL
+) ROW_FORMAT = DYNAMIC;
+
+create table scrobble_timeline_status
+(
+    lastfm_id   VARCHAR(45) COLLATE ascii_general_ci NOT NULL,
+    synced_from int                                  not null,
+    synced_to   int                                  not null,
+    PRIMARY KEY (lastfm_id),
+    CONSTRAINT scrobble_timeline_status_fk_user FOREIGN KEY (lastfm_id) REFERENCES user (lastfm_id) ON UPDATE CASCADE ON DELETE CASCADE
+);
+
+create table streak_state
+(
+    lastfm_id     VARCHAR(45) COLLATE ascii_general_ci NOT NULL,
+    artist_name   varchar(400)                         not null,
+    album_name    varchar(400)                         null,
+    track_name    varchar(400)                         null,
+    url           varchar(400)                         null,
+    artist_combo  int                                  not null,
+    album_combo   int                                  not null,
+    track_combo   int                                  not null,
+    artist_break  int                                  not null,
+    album_break   int                                  not null,
+    last_scrobble int                                  not null,
+    PRIMARY KEY (lastfm_id),
+    CONSTRAINT streak_state_fk_user FOREIGN KEY (lastfm_id) REFERENCES user (lastfm_id) ON UPDATE CASCADE ON DELETE CASCADE
+) ROW_FORMAT = DYNAMIC;
+
+create table user_listening_time
+(
+    lastfm_id VARCHAR(45) COLLATE ascii_general_ci NOT NULL,
+    seconds   bigint                               not null,
+    scrobbles int                                  not null,
+    synced_to int                                  not null,
+    PRIMARY KEY (lastfm_id),
+    CONSTRAINT user_listening_time_fk_user FOREIGN KEY (lastfm_id) REFERENCES user (lastfm_id) ON UPDATE CASCADE ON DELETE CASCADE
+);
+
+create table scrobble_ordinal
+(
+    lastfm_id   VARCHAR(45) COLLATE ascii_general_ci NOT NULL,
+    ordinal     int                                  not null,
+    `timestamp` int                                  not null,
+    PRIMARY KEY (lastfm_id, ordinal),
+    CONSTRAINT scrobble_ordinal_fk_user FOREIGN KEY (lastfm_id) REFERENCES user (lastfm_id) ON UPDATE CASCADE ON DELETE CASCADE
+);
+
+create table scrobble_ordinal_status
+(
+    lastfm_id VARCHAR(45) COLLATE ascii_general_ci NOT NULL,
+    total     int                                  not null,
+    synced_to int                                  not null,
+    PRIMARY KEY (lastfm_id),
+    CONSTRAINT scrobble_ordinal_status_fk_user FOREIGN KEY (lastfm_id) REFERENCES user (lastfm_id) ON UPDATE CASCADE ON DELETE CASCADE
+);
 
+create table scrobble_ordinal_walk
+(
+    lastfm_id      VARCHAR(45) COLLATE ascii_general_ci NOT NULL,
+    from_timestamp int                                  not null,
+    to_timestamp   int                                  not null,
+    base           int                                  not null,
+    total          int                                  not null,
+    seen           int                                  not null,
+    next_page      int                                  not null,
+    total_pages    int                                  not null,
+    PRIMARY KEY (lastfm_id),
+    CONSTRAINT scrobble_ordinal_walk_fk_user FOREIGN KEY (lastfm_id) REFERENCES user (lastfm_id) ON UPDATE CASCADE ON DELETE CASCADE
+);
 
+create table artist_image_queue
+(
+    artist_id BIGINT(20) NOT NULL,
+    priority  int        NOT NULL DEFAULT 0,
+    added     timestamp  NOT NULL DEFAULT current_timestamp(),
+    PRIMARY KEY (artist_id),
+    KEY artist_image_queue_priority (priority),
+    CONSTRAINT artist_image_queue_fk_artist FOREIGN KEY (artist_id) REFERENCES artist (id) ON DELETE CASCADE
+);
+
+create table api_lookup_cache
+(
+    source     VARCHAR(30) COLLATE ascii_general_ci NOT NULL,
+    lookup_key CHAR(64) COLLATE ascii_general_ci    NOT NULL,
+    value      TEXT COLLATE utf8mb4_unicode_ci      NULL,
+    expires    timestamp                            NOT NULL,
+    PRIMARY KEY (source, lookup_key),
+    KEY api_lookup_cache_expires (expires)
+) ROW_FORMAT = DYNAMIC;
@@ -0,0 +1,62 @@
+package test.commands;
+
+import core.commands.ExpiryWheel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExpiryWheelTest {
+
+    private static void advance(ExpiryWheel<?> wheel, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            wheel.advance();
+        }
+    }
+
+    @Test
+    public void expiresOnDeadline() {
+        List<String> expired = new ArrayList<>();
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(8, expired::add);
+        wheel.schedule("a", 3);
+        wheel.schedule("b", 5);
+        advance(wheel, 2);
+        assertTrue(expired.isEmpty());
+        wheel.advance();
+        assertEquals(List.of("a"), expired);
+        advance(wheel, 2);
+        assertEquals(List.of("a", "b"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void longerThanATurn() {
+        List<String> expired = new ArrayList<>();
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(4, expired::add);
+        wheel.schedule("a", 30);
+        advance(wheel, 29);
+        assertTrue(expired.isEmpty());
+        wheel.advance();
+        assertEquals(List.of("a"), expired);
+    }
+
+    @Test
+    public void rescheduleAndRemove() {
+        List<String> expired = new ArrayList<>();
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(8, expired::add);
+        wheel.schedule("a", 3);
+        wheel.schedule("b", 3);
+        advance(wheel, 2);
+        wheel.schedule("a", 3);
+        assertTrue(wheel.remove("b"));
+        assertFalse(wheel.remove("b"));
+        advance(wheel, 2);
+        assertTrue(expired.isEmpty());
+        wheel.advance();
+        assertEquals(List.of("a"), expired);
+        advance(wheel, 20);
+        assertEquals(List.of("a"), expired);
+    }
+}
@@ -0,0 +1,90 @@
+package test.imagerenderer;
+
+import core.imagerenderer.stealing.colorpicker.ColorThiefCustom;
+import core.imagerenderer.stealing.colorpicker.MMCQ;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ColorThiefCustomTest {
+
+    private static BufferedImage randomImage(Random random, int type) {
+        int width = 20 + random.nextInt(100);
+        int height = 20 + random.nextInt(100);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int rgb = ((x * 255 / width) << 16) | ((y * 255 / height) << 8) | random.nextInt(256);
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage convert(BufferedImage image, int type) {
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return converted;
+    }
+
+    @Test
+    public void sameOutputForEveryLayout() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            BufferedImage image = randomImage(random, BufferedImage.TYPE_INT_RGB);
+            int quality = 1 + random.nextInt(10);
+            Pair<List<Color>, Color> expected = ColorThiefCustom.getPalette(image, 5, quality, false);
+            for (int type : new int[]{BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR}) {
+                Pair<List<Color>, Color> palette = ColorThiefCustom.getPalette(convert(image, type), 5, quality, false);
+                assertEquals(expected.getLeft(), palette.getLeft());
+                assertEquals(expected.getRight(), palette.getRight());
+            }
+        }
+    }
+
+    @Test
+    public void sameOutputAsPixelArrays() {
+        Random random = new Random(7);
+        BufferedImage image = randomImage(random, BufferedImage.TYPE_3BYTE_BGR);
+        int[][] pixels = new int[image.getWidth() * image.getHeight()][];
+        for (int i = 0; i < pixels.length; i++) {
+            int rgb = image.getRGB(i % image.getWidth(), i / image.getWidth());
+            pixels[i] = new int[]{(rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF};
+        }
+        MMCQ.CMap expected = MMCQ.quantize(pixels, 8);
+        Pair<MMCQ.CMap, Color> colorMap = ColorThiefCustom.getColorMap(image, 8, 1, false);
+        assertNotNull(expected);
+        assertTrue(Arrays.deepEquals(expected.palette(), colorMap.getLeft().palette()));
+    }
+
+    // Captured from the implementation that built an int[][] of every sampled pixel, before the workspace existed
+    @Test
+    public void sameOutputAsBeforeTheWorkspace() {
+        BufferedImage image = randomImage(new Random(2020), BufferedImage.TYPE_3BYTE_BGR);
+        Pair<List<Color>, Color> palette = ColorThiefCustom.getPalette(image, 5, 1, false);
+        assertEquals(List.of(new Color(120, 95, 161), new Color(223, 124, 130), new Color(95, 222, 128), new Color(93, 93, 32), new Color(22, 92, 164)), palette.getLeft());
+        assertEquals(new Color(125, 124, 128), palette.getRight());
+
+        palette = ColorThiefCustom.getPalette(image, 5, 10, false);
+        assertEquals(List.of(new Color(160, 117, 161), new Color(124, 222, 112), new Color(112, 88, 33), new Color(27, 96, 167), new Color(175, 23, 164)), palette.getLeft());
+        assertEquals(new Color(12, 12, 12), palette.getRight());
+    }
+
+    @Test
+    public void subImages() {
+        BufferedImage image = randomImage(new Random(3), BufferedImage.TYPE_3BYTE_BGR);
+        BufferedImage subimage = image.getSubimage(5, 5, 10, 10);
+        Pair<List<Color>, Color> palette = ColorThiefCustom.getPalette(subimage, 3, 1, false);
+        Pair<List<Color>, Color> expected = ColorThiefCustom.getPalette(convert(subimage, BufferedImage.TYPE_INT_RGB), 3, 1, false);
+        assertEquals(expected.getLeft(), palette.getLeft());
+    }
+}
@@ -49,8 +49,8 @@ public class ImageTester {
     public static void beforeClass() throws Exception {
         Properties properties = readToken();
         service = new ChuuService();
-        DiscogsSingleton.init(properties.getProperty("DC_SC"), properties.getProperty("DC_KY"));
-        SpotifySingleton.init(properties.getProperty("client_ID"), properties.getProperty("client_Secret"));
+        DiscogsSingleton.init(properties.getProperty("DC_SC"), properties.getProperty("DC_KY"), service);
+        SpotifySingleton.init(properties.getProperty("client_ID"), properties.getProperty("client_Secret"), service);
         discogsApi = DiscogsSingleton.getInstanceUsingDoubleLocking();
         spotify = SpotifySingleton.getInstance();
     }
@@ -1,7 +1,6 @@
 package test.scheduledtasks;
 
 import core.scheduledtasks.ImageUpdaterThread;
-import core.scheduledtasks.SpotifyUpdaterThread;
 import core.scheduledtasks.UpdaterThread;
 import dao.entities.ScrobbledArtist;
 import dao.entities.UpdaterStatus;
@@ -73,8 +72,8 @@ public class ThreadTester {
     @Test
     public void spotifyImageUpdated() throws InstanceNotFoundException {
         Set<ScrobbledArtist> nullUrls = TestResources.dao.getSpotifyNulledUrls();
-        SpotifyUpdaterThread spotifyUpdaterThread = new SpotifyUpdaterThread(TestResources.dao);
-        spotifyUpdaterThread.run();
+        ImageUpdaterThread imageUpdaterThread = new ImageUpdaterThread(TestResources.dao);
+        imageUpdaterThread.run();
         for (ScrobbledArtist nullUrl : nullUrls) {
             UpdaterStatus updaterStatus = TestResources.dao.getUpdaterStatusByName(nullUrl.getArtist());
             Assert.assertTrue(updaterStatus.getArtistUrl().equals("") || updaterStatus.getArtistUrl() != null);